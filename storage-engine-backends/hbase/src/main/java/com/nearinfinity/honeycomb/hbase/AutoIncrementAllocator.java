@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.Maps;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import com.nearinfinity.honeycomb.util.Verify;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.hadoop.conf.Configuration;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Hands out auto increment values from blocks reserved in HBase.  A block is
+ * reserved with a single atomic increment of the table's auto increment
+ * counter, so blocks reserved by different MySQL servers never overlap, and
+ * values are then handed out from the block without contacting HBase or
+ * taking a lock.  The block size of a table adapts to its insert rate: it
+ * doubles, up to the maximum size, when a block is used up within a second,
+ * and halves, down to the minimum size, when a block lasts longer than a
+ * minute.
+ * <p/>
+ * Values left in a block are never returned to HBase.  They are skipped when
+ * the server stops, when an explicit value beyond the block is inserted, or
+ * when a request needs more consecutive values than the block holds.  MySQL
+ * allows such gaps, and skipping values is what keeps blocks of different
+ * servers disjoint.
+ * <p/>
+ * Resetting the counter, as TRUNCATE does, increments the table's metadata
+ * epoch.  Once {@link MetadataEpochs} sees the change, each server discards
+ * its block and reads the counter again, so values reserved before the reset
+ * are not handed out after it.  Until then, at most one poll interval, other
+ * servers may still hand out values from their old blocks, which the counter
+ * may later reach again.  Other metadata changes of the table also discard
+ * the blocks, which only skips values.
+ */
+@ThreadSafe
+public class AutoIncrementAllocator {
+    private static final long GROW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long SHRINK_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private final ConcurrentMap<Long, TableState> tables = Maps.newConcurrentMap();
+    private final HBaseMetadata metadata;
+    private final MetadataEpochs epochs;
+    private final Ticker ticker;
+    private final long minBlockSize;
+    private final long maxBlockSize;
+
+    /**
+     * Creates an allocator which does not detect resets made through other
+     * servers
+     *
+     * @param metadata      Table metadata in HBase
+     * @param configuration Configuration
+     */
+    public AutoIncrementAllocator(final HBaseMetadata metadata, final Configuration configuration) {
+        this(metadata, new MetadataEpochs(metadata, 0), configuration);
+    }
+
+    public AutoIncrementAllocator(final HBaseMetadata metadata, final MetadataEpochs epochs,
+                                  final Configuration configuration) {
+        this(metadata, epochs, configuration, Ticker.systemTicker());
+    }
+
+    AutoIncrementAllocator(final HBaseMetadata metadata, final MetadataEpochs epochs,
+                           final Configuration configuration, final Ticker ticker) {
+        this.metadata = checkNotNull(metadata);
+        this.epochs = checkNotNull(epochs);
+        this.ticker = checkNotNull(ticker);
+        minBlockSize = configuration.getLong(ConfigConstants.AUTO_INCREMENT_MIN_BLOCK_SIZE,
+                ConfigConstants.DEFAULT_AUTO_INCREMENT_MIN_BLOCK_SIZE);
+        maxBlockSize = configuration.getLong(ConfigConstants.AUTO_INCREMENT_MAX_BLOCK_SIZE,
+                ConfigConstants.DEFAULT_AUTO_INCREMENT_MAX_BLOCK_SIZE);
+        checkArgument(minBlockSize > 0 && minBlockSize <= maxBlockSize,
+                "Auto increment block sizes must satisfy 0 < minimum <= maximum: %s, %s",
+                minBlockSize, maxBlockSize);
+    }
+
+    /**
+     * Allocate consecutive auto increment values for a table
+     *
+     * @param tableId Table ID
+     * @param amount  Number of values
+     * @return First allocated value
+     */
+    public long allocate(long tableId, long amount) {
+        checkArgument(amount > 0, "Auto increment amount must be positive: %s", amount);
+        TableState state = getState(tableId);
+        refresh(tableId, state);
+        while (true) {
+            Block block = state.block;
+            if (block != null) {
+                long next = block.next.get();
+                if (next + amount <= block.end) {
+                    if (block.next.compareAndSet(next, next + amount)) {
+                        return next;
+                    }
+                    continue;
+                }
+            }
+
+            synchronized (state) {
+                if (state.block == block) {
+                    adaptBlockSize(state, block);
+                    state.block = reserve(tableId, state, 0, amount);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ensure that values allocated for a table from now on are at least a
+     * given value, such as after a row with an explicit auto increment value
+     * was inserted
+     *
+     * @param tableId Table ID
+     * @param value   Minimum value
+     */
+    public void advance(long tableId, long value) {
+        TableState state = getState(tableId);
+        refresh(tableId, state);
+        if (advanceWithinBlock(state, value)) {
+            return;
+        }
+
+        synchronized (state) {
+            if (!advanceWithinBlock(state, value)) {
+                state.block = reserve(tableId, state, value, 0);
+            }
+        }
+    }
+
+    /**
+     * Retrieve the next value which will be allocated for a table
+     *
+     * @param tableId Table ID
+     * @return Next auto increment value
+     */
+    public long peek(long tableId) {
+        TableState state = getState(tableId);
+        refresh(tableId, state);
+        Block block = state.block;
+        if (block != null) {
+            long next = block.next.get();
+            if (next < block.end) {
+                return next;
+            }
+        }
+        return metadata.getAutoInc(tableId);
+    }
+
+    /**
+     * Reset the auto increment counter of a table and discard its block.
+     * Other servers discard their blocks once they see the table's epoch
+     * change.
+     *
+     * @param tableId Table ID
+     */
+    public void reset(long tableId) {
+        TableState state = getState(tableId);
+        synchronized (state) {
+            metadata.resetAutoInc(tableId);
+            state.block = null;
+            state.reservedEnd = 1;
+        }
+    }
+
+    /**
+     * Retrieve the current block size of a table
+     *
+     * @param tableId Table ID
+     * @return Number of values reserved by the next reservation
+     */
+    public long getBlockSize(long tableId) {
+        return getState(tableId).blockSize;
+    }
+
+    private boolean advanceWithinBlock(TableState state, long value) {
+        Block block = state.block;
+        if (block == null) {
+            // No values are held locally, so reservations start at the
+            // counter, which is at least the end of the last reservation
+            return value <= state.reservedEnd;
+        }
+
+        while (true) {
+            long next = block.next.get();
+            if (value <= next) {
+                return true;
+            }
+            if (value > block.end) {
+                return false;
+            }
+            if (block.next.compareAndSet(next, value)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reserve a block of at least amount values, none of which are below
+     * floor.  Between resets the counter is only ever incremented, so the
+     * reserved values belong to this server even when other servers reserve
+     * concurrently.
+     * Called while holding the lock of the table state.
+     */
+    private Block reserve(long tableId, TableState state, long floor, long amount) {
+        long size = Math.max(amount, state.blockSize);
+        if (floor > state.reservedEnd) {
+            // Other servers may have moved the counter past the end of the
+            // last reservation, so only the values still missing are reserved
+            state.reservedEnd = Math.max(state.reservedEnd, metadata.getAutoInc(tableId));
+        }
+        long increment = Math.max(size, floor - state.reservedEnd + size);
+        while (true) {
+            long end = metadata.incrementAutoInc(tableId, increment);
+            long start = Math.max(floor, end - increment);
+            state.reservedEnd = end;
+            if (end - start >= Math.max(amount, 1)) {
+                return new Block(start, end, ticker.read());
+            }
+            // The counter was behind the floor, reserve past it
+            increment = floor - end + size;
+        }
+    }
+
+    /**
+     * Discard the block and the end of the last reservation if the table's
+     * epoch changed since they were read, as the counter may have been reset
+     */
+    private void refresh(long tableId, TableState state) {
+        if (epochs.isCurrent(tableId, state.generation)) {
+            return;
+        }
+        synchronized (state) {
+            if (!epochs.isCurrent(tableId, state.generation)) {
+                final long generation = epochs.generation();
+                state.block = null;
+                state.reservedEnd = metadata.getAutoInc(tableId);
+                state.generation = generation;
+            }
+        }
+    }
+
+    private void adaptBlockSize(TableState state, Block exhausted) {
+        if (exhausted == null) {
+            return;
+        }
+        long age = ticker.read() - exhausted.reservedAt;
+        if (age < GROW_NANOS) {
+            state.blockSize = Math.min(maxBlockSize, state.blockSize * 2);
+        } else if (age > SHRINK_NANOS) {
+            state.blockSize = Math.max(minBlockSize, state.blockSize / 2);
+        }
+    }
+
+    private TableState getState(long tableId) {
+        Verify.isValidId(tableId);
+        TableState state = tables.get(tableId);
+        if (state == null) {
+            // The counter is at least the end of every earlier reservation,
+            // including those made before this server started
+            final long generation = epochs.generation();
+            TableState created = new TableState(minBlockSize, metadata.getAutoInc(tableId), generation);
+            state = tables.putIfAbsent(tableId, created);
+            if (state == null) {
+                state = created;
+            }
+        }
+        return state;
+    }
+
+    private static final class TableState {
+        private volatile Block block;
+        private volatile long reservedEnd;
+        private volatile long blockSize;
+        /**
+         * Epoch generation in which the block and reservation end were last
+         * known to be current
+         */
+        private volatile long generation;
+
+        TableState(long blockSize, long reservedEnd, long generation) {
+            this.blockSize = blockSize;
+            this.reservedEnd = reservedEnd;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Values in [next, end) are reserved by this server and not yet handed out
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+        private final long reservedAt;
+
+        Block(long start, long end, long reservedAt) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.reservedAt = reservedAt;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread pool which grows up to a maximum number of threads while tasks are
+ * waiting and shrinks back to no threads when idle.  Tasks submitted while all
+ * threads are busy are queued, and the total time tasks spend queued is
+ * recorded.
+ */
+@ThreadSafe
+class ElasticThreadPool extends ThreadPoolExecutor {
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    /**
+     * @param name       Prefix of the names of the pool threads
+     * @param maxThreads Maximum number of threads
+     */
+    ElasticThreadPool(String name, int maxThreads) {
+        super(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat(name + "-%d").build());
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        final long queued = System.nanoTime();
+        super.execute(new Runnable() {
+            @Override
+            public void run() {
+                waitNanos.addAndGet(System.nanoTime() - queued);
+                command.run();
+            }
+        });
+    }
+
+    /**
+     * Retrieve the total time tasks have waited for a thread
+     *
+     * @return Total wait time in milliseconds
+     */
+    long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+}
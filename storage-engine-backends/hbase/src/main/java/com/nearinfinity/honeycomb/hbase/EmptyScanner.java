@@ -20,28 +20,31 @@
  */
 
 
-package com.nearinfinity.honeycomb.hbase.bulkload;
+package com.nearinfinity.honeycomb.hbase;
 
-import com.google.inject.Provider;
-import org.apache.hadoop.hbase.client.HTableInterface;
-import org.apache.hadoop.hbase.client.HTablePool;
-
-import static com.google.common.base.Preconditions.checkNotNull;
+import com.nearinfinity.honeycomb.Scanner;
 
 /**
- * Provider of HTables from a pool.
+ * A {@link Scanner} over no rows, used when a lookup can be answered without
+ * contacting HBase
  */
-public class PoolHTableProvider implements Provider<HTableInterface> {
-    private final HTablePool pool;
-    private final String tableName;
-    public PoolHTableProvider(String tableName, HTablePool pool) {
-        checkNotNull(tableName);
-        checkNotNull(pool);
-        this.pool = pool;
-        this.tableName = tableName;
+public class EmptyScanner implements Scanner {
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean hasNext() {
+        return false;
     }
+
+    @Override
+    public byte[] next() {
+        return null;
+    }
+
     @Override
-    public HTableInterface get() {
-        return pool.getTable(tableName);
+    public void remove() {
+        throw new UnsupportedOperationException();
     }
 }
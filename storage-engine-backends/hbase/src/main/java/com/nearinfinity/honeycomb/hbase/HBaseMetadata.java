@@ -27,19 +27,23 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.name.Named;
 import com.nearinfinity.honeycomb.exceptions.TableNotFoundException;
 import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
 import com.nearinfinity.honeycomb.hbase.rowkey.*;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
 import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
 import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
 import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
 import com.nearinfinity.honeycomb.util.Verify;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.log4j.Logger;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -49,11 +53,23 @@ import static com.google.common.base.Preconditions.*;
 
 /**
  * Manages writing and reading table & column schemas, table & column ids, and
- * row & autoincrement counters to and from HBase.
+ * row & autoincrement counters to and from HBase.  The schema, row count and
+ * autoincrement counter of each table are kept in rows of their own, so that
+ * updates to different tables do not contend for a row lock.
  */
 public class HBaseMetadata {
+    /**
+     * Version of the metadata layout written by this class.  Version 1 kept
+     * the schemas, row counts and autoincrement counters of all tables in
+     * three shared rows.
+     */
+    public static final long LAYOUT_VERSION = 2;
+    private static final Logger logger = Logger.getLogger(HBaseMetadata.class);
+    private static final byte[] EMPTY_QUALIFIER = new byte[0];
+    private static final int METADATA_SCAN_CACHING = 100;
     private final Provider<HTableInterface> provider;
     private byte[] columnFamily;
+    private volatile HotKeyTracker hotKeys = HotKeyTracker.disabled();
 
     @Inject
     public HBaseMetadata(final Provider<HTableInterface> provider) {
@@ -73,6 +89,16 @@ public class HBaseMetadata {
         this.columnFamily = columnFamily.getBytes();
     }
 
+    /**
+     * Sets the tracker with which reads and increments of counters are
+     * sampled.  Counters are not tracked until this is called.
+     *
+     * @param hotKeys Hot key tracker
+     */
+    public void setHotKeyTracker(final HotKeyTracker hotKeys) {
+        this.hotKeys = checkNotNull(hotKeys);
+    }
+
     /**
      * Fetches the table identifier for the specified table name from the underlying
      * data store
@@ -139,16 +165,15 @@ public class HBaseMetadata {
     public TableSchema getSchema(final long tableId) {
         Verify.isValidId(tableId);
 
-        final byte[] serializedTableId = serializeId(tableId);
-        final Get get = new Get(new SchemaRowKey().encode());
-        get.addColumn(columnFamily, serializedTableId);
+        final Get get = new Get(new TableSchemaRowKey(tableId).encode());
+        get.addColumn(columnFamily, EMPTY_QUALIFIER);
 
         final HTableInterface hTable = getHTable();
 
         try {
             final Result result = HBaseOperations.performGet(hTable, get);
 
-            final byte[] serializedSchema = result.getValue(columnFamily, serializedTableId);
+            final byte[] serializedSchema = result.getValue(columnFamily, EMPTY_QUALIFIER);
             if (serializedSchema == null) {
                 throw new TableNotFoundException(tableId);
             }
@@ -160,6 +185,94 @@ public class HBaseMetadata {
         }
     }
 
+    /**
+     * Fetches the schema, column IDs and index IDs of the table corresponding
+     * to the specified table identifier with a single batch of gets
+     *
+     * @param tableId The valid table identifier of the table this lookup is for
+     * @return Snapshot of the table's metadata
+     */
+    public TableMetadata getTableMetadata(final long tableId) {
+        Verify.isValidId(tableId);
+
+        final List<Get> gets = ImmutableList.of(
+                new Get(new TableSchemaRowKey(tableId).encode()).addColumn(columnFamily, EMPTY_QUALIFIER),
+                new Get(new ColumnsRowKey(tableId).encode()).addFamily(columnFamily),
+                new Get(new IndicesRowKey(tableId).encode()).addFamily(columnFamily));
+
+        final HTableInterface hTable = getHTable();
+        try {
+            final Result[] results = HBaseOperations.performGet(hTable, gets);
+
+            final byte[] serializedSchema = results[0].getValue(columnFamily, EMPTY_QUALIFIER);
+            if (serializedSchema == null || results[1].isEmpty()) {
+                throw new TableNotFoundException(tableId);
+            }
+
+            return new TableMetadata(tableId, TableSchema.deserialize(serializedSchema),
+                    toNameToIdMap(results[1]), toNameToIdMap(results[2]));
+        } finally {
+            HBaseOperations.closeTable(hTable);
+        }
+    }
+
+    /**
+     * Fetches the metadata of every table with two range scans: one over the
+     * table, column and index ID rows and one over the schema rows.  The data
+     * and index rows stored between them are never read.  Tables whose
+     * metadata is incomplete, for example because they are being created or
+     * dropped concurrently, are left out.
+     *
+     * @return Map of table name to snapshot of the table's metadata
+     */
+    public Map<String, TableMetadata> getAllTableMetadata() {
+        final Map<String, Long> tableIds = Maps.newHashMap();
+        final Map<Long, Map<String, Long>> columnIds = Maps.newHashMap();
+        final Map<Long, Map<String, Long>> indexIds = Maps.newHashMap();
+        final Map<Long, byte[]> schemas = Maps.newHashMap();
+
+        final byte tablesPrefix = new TablesRowKey().getPrefix();
+        final byte columnsPrefix = new ColumnsRowKey(0).getPrefix();
+        final byte indicesPrefix = new IndicesRowKey(0).getPrefix();
+        final byte schemaPrefix = new TableSchemaRowKey(0).getPrefix();
+
+        final HTableInterface hTable = getHTable();
+        try {
+            for (Result result : scanPrefixes(hTable, tablesPrefix, indicesPrefix)) {
+                final byte[] row = result.getRow();
+                if (row[0] == tablesPrefix) {
+                    tableIds.putAll(toNameToIdMap(result));
+                } else if (row[0] == columnsPrefix) {
+                    columnIds.put(decodeTableId(row), toNameToIdMap(result));
+                } else {
+                    indexIds.put(decodeTableId(row), toNameToIdMap(result));
+                }
+            }
+
+            for (Result result : scanPrefixes(hTable, schemaPrefix, schemaPrefix)) {
+                schemas.put(decodeTableId(result.getRow()), result.getValue(columnFamily, EMPTY_QUALIFIER));
+            }
+        } finally {
+            HBaseOperations.closeTable(hTable);
+        }
+
+        final Map<String, TableMetadata> tables = Maps.newHashMapWithExpectedSize(tableIds.size());
+        for (Map.Entry<String, Long> entry : tableIds.entrySet()) {
+            final long tableId = entry.getValue();
+            final byte[] serializedSchema = schemas.get(tableId);
+            final Map<String, Long> columns = columnIds.get(tableId);
+            if (serializedSchema == null || columns == null || columns.isEmpty()) {
+                logger.debug(String.format("Skipping table %s with incomplete metadata", entry.getKey()));
+                continue;
+            }
+
+            final Map<String, Long> indices = indexIds.get(tableId);
+            tables.put(entry.getKey(), new TableMetadata(tableId, TableSchema.deserialize(serializedSchema),
+                    columns, indices == null ? new HashMap<String, Long>() : indices));
+        }
+        return tables;
+    }
+
     /**
      * Performs all metadata operations necessary to create a table
      *
@@ -211,6 +324,7 @@ public class HBaseMetadata {
         puts.add(putIndices(tableId, indexDetailMap));
 
         performMutations(ImmutableList.<Delete>of(), puts);
+        incrementEpoch(tableId);
     }
 
     /**
@@ -238,6 +352,7 @@ public class HBaseMetadata {
         puts.add(putTableSchema(tableId, updatedSchema));
 
         performMutations(deletes, puts);
+        incrementEpoch(tableId);
     }
 
     /**
@@ -251,22 +366,21 @@ public class HBaseMetadata {
         List<Delete> deletes = Lists.newArrayList();
 
         final long tableId = getTableId(tableName);
-        final byte[] serializedId = serializeId(tableId);
 
         final Delete columnIdsDelete = new Delete(new ColumnsRowKey(tableId).encode());
         final Delete indicesIdsDelete = new Delete(new IndicesRowKey(tableId).encode());
 
-        final Delete rowsDelete = new Delete(new RowsRowKey().encode());
-        rowsDelete.deleteColumns(columnFamily, serializedId);
-
         deletes.add(deleteTableId(tableName));
         deletes.add(columnIdsDelete);
         deletes.add(indicesIdsDelete);
-        deletes.add(rowsDelete);
+        deletes.add(deleteRowsCounter(tableId));
         deletes.add(deleteAutoIncCounter(tableId));
         deletes.add(deleteTableSchema(tableId));
+        deletes.add(new Delete(new IndexFiltersRowKey(tableId).encode()));
+        deletes.add(new Delete(new TableStatisticsRowKey(tableId).encode()));
 
         performMutations(deletes, ImmutableList.<Put>of());
+        incrementEpoch(tableId);
     }
 
     /**
@@ -286,6 +400,28 @@ public class HBaseMetadata {
         List<Put> puts = Lists.newArrayList(putTableId(newTableName, tableId));
 
         performMutations(deletes, puts);
+        incrementEpoch(tableId);
+    }
+
+    /**
+     * Fetches the metadata epoch of every table whose definition was changed
+     * since the metadata layout was created.  The epoch of a table is
+     * incremented after each change to its name, indices, index
+     * statistics or existence.
+     *
+     * @return Map of table ID to metadata epoch
+     */
+    public Map<Long, Long> getEpochs() {
+        final HTableInterface hTable = getHTable();
+        try {
+            final Map<Long, Long> epochs = Maps.newHashMap();
+            for (Map.Entry<Long, byte[]> entry : getSharedRowCells(hTable, new MetadataEpochsRowKey()).entrySet()) {
+                epochs.put(entry.getKey(), Bytes.toLong(entry.getValue()));
+            }
+            return epochs;
+        } finally {
+            HBaseOperations.closeTable(hTable);
+        }
     }
 
     /**
@@ -296,7 +432,7 @@ public class HBaseMetadata {
      */
     public long getAutoInc(long tableId) {
         Verify.isValidId(tableId);
-        return getCounter(new AutoIncRowKey().encode(), serializeId(tableId));
+        return getCounter(new TableAutoIncRowKey(tableId).encode(), EMPTY_QUALIFIER);
     }
 
     /**
@@ -308,8 +444,7 @@ public class HBaseMetadata {
      */
     public long incrementAutoInc(long tableId, long amount) {
         Verify.isValidId(tableId);
-        return incrementCounter(new AutoIncRowKey().encode(),
-                serializeId(tableId), amount);
+        return incrementCounter(new TableAutoIncRowKey(tableId).encode(), EMPTY_QUALIFIER, amount);
     }
 
     /**
@@ -320,14 +455,21 @@ public class HBaseMetadata {
      */
     public void setAutoInc(long tableId, long value) {
         Verify.isValidId(tableId);
-        Put put = new Put(new AutoIncRowKey().encode());
-        put.add(columnFamily, serializeId(tableId), Bytes.toBytes(value));
-        HTableInterface hTable = getHTable();
-        try {
-            performMutations(ImmutableList.<Delete>of(), ImmutableList.of(put));
-        } finally {
-            HBaseOperations.closeTable(hTable);
-        }
+        Put put = new Put(new TableAutoIncRowKey(tableId).encode());
+        put.add(columnFamily, EMPTY_QUALIFIER, Bytes.toBytes(value));
+        performMutations(ImmutableList.<Delete>of(), ImmutableList.of(put));
+    }
+
+    /**
+     * Reset a table's autoincrement value to 1, and increment the table's
+     * metadata epoch so that other servers discard the values they reserved
+     * before the reset
+     *
+     * @param tableId Table ID
+     */
+    public void resetAutoInc(long tableId) {
+        setAutoInc(tableId, 1);
+        incrementEpoch(tableId);
     }
 
     /**
@@ -338,7 +480,7 @@ public class HBaseMetadata {
      */
     public long getRowCount(long tableId) {
         Verify.isValidId(tableId);
-        return getCounter(new RowsRowKey().encode(), serializeId(tableId));
+        return getCounter(new TableRowsRowKey(tableId).encode(), EMPTY_QUALIFIER);
     }
 
     /**
@@ -350,7 +492,7 @@ public class HBaseMetadata {
      */
     public long incrementRowCount(long tableId, long amount) {
         Verify.isValidId(tableId);
-        return incrementCounter(new RowsRowKey().encode(), serializeId(tableId), amount);
+        return incrementCounter(new TableRowsRowKey(tableId).encode(), EMPTY_QUALIFIER, amount);
     }
 
     /**
@@ -364,6 +506,215 @@ public class HBaseMetadata {
                 ImmutableList.<Put>of());
     }
 
+    /**
+     * Retrieve the persisted unique index filter of an index
+     *
+     * @param tableId Table ID
+     * @param indexId Index ID
+     * @return Serialized index filter, or null if none has been persisted
+     */
+    public byte[] getIndexFilter(long tableId, long indexId) {
+        Verify.isValidId(tableId);
+        Verify.isValidId(indexId);
+
+        final byte[] serializedIndexId = serializeId(indexId);
+        final Get get = new Get(new IndexFiltersRowKey(tableId).encode());
+        get.addColumn(columnFamily, serializedIndexId);
+
+        final HTableInterface hTable = getHTable();
+        try {
+            return HBaseOperations.performGet(hTable, get).getValue(columnFamily, serializedIndexId);
+        } finally {
+            HBaseOperations.closeTable(hTable);
+        }
+    }
+
+    /**
+     * Persist the unique index filter of an index, replacing any previous filter
+     *
+     * @param tableId          Table ID
+     * @param indexId          Index ID
+     * @param serializedFilter Serialized index filter, not null
+     */
+    public void putIndexFilter(long tableId, long indexId, byte[] serializedFilter) {
+        Verify.isValidId(tableId);
+        Verify.isValidId(indexId);
+        checkNotNull(serializedFilter);
+
+        Put put = new Put(new IndexFiltersRowKey(tableId).encode())
+                .add(columnFamily, serializeId(indexId), serializedFilter);
+        performMutations(ImmutableList.<Delete>of(), ImmutableList.of(put));
+    }
+
+    /**
+     * Remove the persisted unique index filter of an index
+     *
+     * @param tableId Table ID
+     * @param indexId Index ID
+     */
+    public void deleteIndexFilter(long tableId, long indexId) {
+        Verify.isValidId(tableId);
+        Verify.isValidId(indexId);
+
+        Delete delete = new Delete(new IndexFiltersRowKey(tableId).encode())
+                .deleteColumns(columnFamily, serializeId(indexId));
+        performMutations(ImmutableList.of(delete), ImmutableList.<Put>of());
+    }
+
+    /**
+     * Remove the persisted unique index filters of all indices of a table
+     *
+     * @param tableId Table ID
+     */
+    public void deleteIndexFilters(long tableId) {
+        Verify.isValidId(tableId);
+
+        Delete delete = new Delete(new IndexFiltersRowKey(tableId).encode());
+        performMutations(ImmutableList.of(delete), ImmutableList.<Put>of());
+    }
+
+    /**
+     * Retrieve the stored statistics of the indices of a table.  Statistics of
+     * indices dropped since the last analysis may be included.
+     *
+     * @param tableId Table ID
+     * @return Map of index ID to index statistics
+     */
+    public Map<Long, IndexStatistics> getIndexStatistics(long tableId) {
+        Verify.isValidId(tableId);
+
+        final Get get = new Get(new TableStatisticsRowKey(tableId).encode()).addFamily(columnFamily);
+        final HTableInterface hTable = getHTable();
+        try {
+            final Result result = HBaseOperations.performGet(hTable, get);
+            final Map<Long, IndexStatistics> statistics = Maps.newHashMap();
+            if (!result.isEmpty()) {
+                for (Map.Entry<byte[], byte[]> entry : result.getFamilyMap(columnFamily).entrySet()) {
+                    statistics.put(deserializeId(entry.getKey()), IndexStatistics.deserialize(entry.getValue()));
+                }
+            }
+            return statistics;
+        } finally {
+            HBaseOperations.closeTable(hTable);
+        }
+    }
+
+    /**
+     * Store the statistics of the indices of a table, replacing all statistics
+     * stored before, and increment the table's metadata epoch so that other
+     * servers load them.
+     *
+     * @param tableId    Table ID
+     * @param statistics Map of index ID to index statistics, not null
+     */
+    public void putIndexStatistics(long tableId, Map<Long, IndexStatistics> statistics) {
+        Verify.isValidId(tableId);
+        checkNotNull(statistics);
+
+        final byte[] row = new TableStatisticsRowKey(tableId).encode();
+        final List<Delete> deletes = Lists.newArrayList();
+        final Delete staleDelete = new Delete(row);
+        for (Long indexId : getIndexStatistics(tableId).keySet()) {
+            if (!statistics.containsKey(indexId)) {
+                staleDelete.deleteColumns(columnFamily, serializeId(indexId));
+            }
+        }
+        if (!staleDelete.isEmpty()) {
+            deletes.add(staleDelete);
+        }
+
+        final List<Put> puts = Lists.newArrayList();
+        if (!statistics.isEmpty()) {
+            final Put put = new Put(row);
+            for (Map.Entry<Long, IndexStatistics> entry : statistics.entrySet()) {
+                put.add(columnFamily, serializeId(entry.getKey()), entry.getValue().serialize());
+            }
+            puts.add(put);
+        }
+
+        if (deletes.isEmpty() && puts.isEmpty()) {
+            return;
+        }
+        performMutations(deletes, puts);
+        incrementEpoch(tableId);
+    }
+
+    /**
+     * Retrieve the version of the metadata layout stored in HBase
+     *
+     * @return Layout version, 1 if the metadata predates layout versions
+     */
+    public long getLayoutVersion() {
+        return Math.max(1, getCounter(new MetadataLayoutRowKey().encode(), EMPTY_QUALIFIER));
+    }
+
+    /**
+     * Move the metadata stored in an older layout to the current layout.
+     * Values already present in the current layout are never overwritten, so
+     * servers starting concurrently may all run the migration.  Servers still
+     * using the older layout must be stopped first, as their updates to the
+     * old rows are not seen after the migration.
+     */
+    public void migrateLayout() {
+        final long version = getLayoutVersion();
+        if (version >= LAYOUT_VERSION) {
+            return;
+        }
+
+        logger.info(String.format("Migrating metadata layout from version %d to %d", version, LAYOUT_VERSION));
+        final HTableInterface hTable = getHTable();
+        try {
+            int migrated = 0;
+            for (Map.Entry<Long, byte[]> cell : getSharedRowCells(hTable, new SchemaRowKey()).entrySet()) {
+                migrated += putIfAbsent(hTable, new TableSchemaRowKey(cell.getKey()), cell.getValue());
+            }
+            for (Map.Entry<Long, byte[]> cell : getSharedRowCells(hTable, new RowsRowKey()).entrySet()) {
+                migrated += putIfAbsent(hTable, new TableRowsRowKey(cell.getKey()), cell.getValue());
+            }
+            for (Map.Entry<Long, byte[]> cell : getSharedRowCells(hTable, new AutoIncRowKey()).entrySet()) {
+                migrated += putIfAbsent(hTable, new TableAutoIncRowKey(cell.getKey()), cell.getValue());
+            }
+            logger.info(String.format("Migrated %d metadata values", migrated));
+        } finally {
+            HBaseOperations.closeTable(hTable);
+        }
+
+        final List<Delete> deletes = ImmutableList.of(
+                new Delete(new SchemaRowKey().encode()),
+                new Delete(new RowsRowKey().encode()),
+                new Delete(new AutoIncRowKey().encode()));
+        final Put versionPut = new Put(new MetadataLayoutRowKey().encode())
+                .add(columnFamily, EMPTY_QUALIFIER, Bytes.toBytes(LAYOUT_VERSION));
+        performMutations(deletes, ImmutableList.of(versionPut));
+    }
+
+    /**
+     * Read the cells of a row shared by all tables in the version 1 layout,
+     * keyed by table ID
+     */
+    private Map<Long, byte[]> getSharedRowCells(HTableInterface hTable, PrefixRowKey sharedRow) {
+        final Get get = new Get(sharedRow.encode());
+        get.addFamily(columnFamily);
+        final Result result = HBaseOperations.performGet(hTable, get);
+
+        final Map<Long, byte[]> cells = new HashMap<Long, byte[]>();
+        if (!result.isEmpty()) {
+            for (Map.Entry<byte[], byte[]> entry : result.getFamilyMap(columnFamily).entrySet()) {
+                cells.put(deserializeId(entry.getKey()), entry.getValue());
+            }
+        }
+        return cells;
+    }
+
+    private void incrementEpoch(long tableId) {
+        incrementCounter(new MetadataEpochsRowKey().encode(), serializeId(tableId), 1);
+    }
+
+    private int putIfAbsent(HTableInterface hTable, RowKey row, byte[] value) {
+        final Put put = new Put(row.encode()).add(columnFamily, EMPTY_QUALIFIER, value);
+        return HBaseOperations.performCheckAndPut(hTable, columnFamily, EMPTY_QUALIFIER, null, put) ? 1 : 0;
+    }
+
     private Map<String, Long> getNameToIdMap(long tableId, byte[] encodedRow) {
         HTableInterface hTable = getHTable();
         try {
@@ -374,23 +725,53 @@ public class HBaseMetadata {
                 throw new TableNotFoundException(tableId);
             }
 
-            Map<byte[], byte[]> serializedNameIds = result.getFamilyMap(columnFamily);
-            Map<String, Long> nameToId = new HashMap<String, Long>(serializedNameIds.size());
-
-            for (Map.Entry<byte[], byte[]> entry : serializedNameIds.entrySet()) {
-                if (entry.getKey().length > 0) {
-                    nameToId.put(
-                            deserializeName(entry.getKey()),
-                            deserializeId(entry.getValue()));
-                }
-            }
-            return nameToId;
+            return toNameToIdMap(result);
         } finally {
             HBaseOperations.closeTable(hTable);
         }
     }
 
+    /**
+     * Reads all rows whose prefix lies between the first and last prefix, inclusive
+     */
+    private List<Result> scanPrefixes(HTableInterface hTable, byte firstPrefix, byte lastPrefix) {
+        final Scan scan = new Scan(new byte[]{firstPrefix}, new byte[]{(byte) (lastPrefix + 1)});
+        scan.addFamily(columnFamily);
+        scan.setCaching(METADATA_SCAN_CACHING);
+
+        final ResultScanner scanner = HBaseOperations.getScanner(hTable, scan);
+        try {
+            return Lists.newArrayList(scanner);
+        } finally {
+            scanner.close();
+        }
+    }
+
+    private static long decodeTableId(byte[] row) {
+        return VarEncoder.decodeULong(Arrays.copyOfRange(row, 1, row.length));
+    }
+
+    private Map<String, Long> toNameToIdMap(Result result) {
+        if (result.isEmpty()) {
+            return new HashMap<String, Long>();
+        }
+
+        Map<byte[], byte[]> serializedNameIds = result.getFamilyMap(columnFamily);
+        Map<String, Long> nameToId = new HashMap<String, Long>(serializedNameIds.size());
+
+        for (Map.Entry<byte[], byte[]> entry : serializedNameIds.entrySet()) {
+            // The empty qualifier holds the ID counter
+            if (entry.getKey().length > 0) {
+                nameToId.put(
+                        deserializeName(entry.getKey()),
+                        deserializeId(entry.getValue()));
+            }
+        }
+        return nameToId;
+    }
+
     private long getCounter(byte[] row, byte[] identifier) {
+        hotKeys.record(row);
         Get get = new Get(row).addColumn(columnFamily, identifier);
         HTableInterface hTable = getHTable();
         try {
@@ -402,6 +783,7 @@ public class HBaseMetadata {
     }
 
     private long incrementCounter(final byte[] row, final byte[] identifier, final long amount) {
+        hotKeys.record(row);
         final HTableInterface hTable = getHTable();
 
         try {
@@ -429,24 +811,20 @@ public class HBaseMetadata {
     }
 
     private Delete deleteAutoIncCounter(long tableId) {
-        return new Delete(new AutoIncRowKey().encode())
-                .deleteColumns(columnFamily, serializeId(tableId));
+        return new Delete(new TableAutoIncRowKey(tableId).encode());
     }
 
     private Delete deleteRowsCounter(long tableId) {
-        return new Delete(new RowsRowKey().encode())
-                .deleteColumns(columnFamily, serializeId(tableId));
+        return new Delete(new TableRowsRowKey(tableId).encode());
     }
 
     private Put putTableSchema(long tableId, TableSchema schema) {
-        return new Put(new SchemaRowKey().encode())
-                .add(columnFamily, serializeId(tableId),
-                        schema.serialize());
+        return new Put(new TableSchemaRowKey(tableId).encode())
+                .add(columnFamily, EMPTY_QUALIFIER, schema.serialize());
     }
 
     private Delete deleteTableSchema(long tableId) {
-        return new Delete(new SchemaRowKey().encode())
-                .deleteColumns(columnFamily, serializeId(tableId));
+        return new Delete(new TableSchemaRowKey(tableId).encode());
     }
 
     private Delete generateIndexDelete(final long tableId, final String indexName) {
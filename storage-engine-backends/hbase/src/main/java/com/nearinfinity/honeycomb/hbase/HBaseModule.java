@@ -25,7 +25,9 @@ package com.nearinfinity.honeycomb.hbase;
 import com.google.inject.AbstractModule;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 import com.google.inject.multibindings.MapBinder;
+import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Names;
+import com.nearinfinity.honeycomb.StatusSource;
 import com.nearinfinity.honeycomb.Store;
 import com.nearinfinity.honeycomb.Table;
 import com.nearinfinity.honeycomb.config.AdapterType;
@@ -46,6 +48,17 @@ public class HBaseModule extends AbstractModule {
     private static final Logger logger = Logger.getLogger(HBaseModule.class);
     private final HTableProvider hTableProvider;
     private final Configuration configuration;
+    private final RowCache rowCache;
+    private final ScanProfiles scanProfiles;
+    private final WriteBufferManager writeBuffers;
+    private final HBaseMetadata metadata;
+    private final AutoIncrementAllocator autoIncrements;
+    private final RowCountAccumulator rowCounts;
+    private final MetadataEpochs epochs;
+    private final MetadataCache metadataCache;
+    private final IndexSampler indexSampler;
+    private final RangeEstimator rangeEstimator;
+    private final HotKeyTracker hotKeys;
 
     public HBaseModule(final Map<String, String> options) {
         // Add the HBase resources to the core application configuration
@@ -56,6 +69,23 @@ public class HBaseModule extends AbstractModule {
         }
 
         hTableProvider = new HTableProvider(configuration);
+        hTableProvider.registerMBean();
+        rowCache = new RowCache(
+                configuration.getLong(ConfigConstants.ROW_CACHE_SIZE,
+                        ConfigConstants.DEFAULT_ROW_CACHE_SIZE),
+                configuration.getBoolean(ConfigConstants.ROW_CACHE_OFF_HEAP,
+                        ConfigConstants.DEFAULT_ROW_CACHE_OFF_HEAP));
+        scanProfiles = new ScanProfiles(configuration);
+        indexSampler = new IndexSampler(hTableProvider, configuration);
+        rangeEstimator = new RangeEstimator(hTableProvider, configuration);
+        writeBuffers = new WriteBufferManager(configuration);
+        writeBuffers.registerMBean();
+        hotKeys = new HotKeyTracker(hTableProvider, configuration);
+        hotKeys.registerMBean();
+        metadata = new HBaseMetadata(hTableProvider.getMetadataProvider());
+        metadata.setHotKeyTracker(hotKeys);
+        rowCounts = new RowCountAccumulator(metadata, configuration);
+        rowCounts.start();
 
         try {
             TableCreator.createTable(configuration);
@@ -64,6 +94,49 @@ public class HBaseModule extends AbstractModule {
             logger.fatal(configuration.toString());
             throw new RuntimeIOException(e);
         }
+
+        // The column family is injected by Guice later, but the layout must
+        // be current before any metadata is read
+        metadata.setColumnFamily(configuration.get(ConfigConstants.COLUMN_FAMILY));
+        metadata.migrateLayout();
+
+        // Poll the epochs before anything is cached, so that every cached
+        // entry is checked against them
+        epochs = new MetadataEpochs(metadata, configuration);
+        epochs.start();
+        metadataCache = new MetadataCache(metadata, epochs, configuration);
+        autoIncrements = new AutoIncrementAllocator(metadata, epochs, configuration);
+        metadataCache.registerMBean();
+        if (configuration.getBoolean(ConfigConstants.PRELOAD_METADATA,
+                ConfigConstants.DEFAULT_PRELOAD_METADATA)) {
+            preload();
+        }
+
+        int warmUpRows = configuration.getInt(ConfigConstants.WARM_UP_ROWS,
+                ConfigConstants.DEFAULT_WARM_UP_ROWS);
+        if (warmUpRows > 0) {
+            long start = System.currentTimeMillis();
+            WarmUp.run(warmUpRows);
+            logger.info(String.format("Encoded %d warm up rows in %d ms",
+                    warmUpRows, System.currentTimeMillis() - start));
+        }
+    }
+
+    /**
+     * Fills the metadata cache and locates the table's regions, so that the
+     * first statements after startup are not delayed by metadata lookups.
+     * Failures only cost the benefit of preloading, so they are logged.
+     */
+    private void preload() {
+        long start = System.currentTimeMillis();
+        try {
+            int tables = metadataCache.preload();
+            int regions = hTableProvider.warmUp();
+            logger.info(String.format("Preloaded metadata of %d tables and %d region locations in %d ms",
+                    tables, regions, System.currentTimeMillis() - start));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to preload metadata, it will be loaded on first use.", e);
+        }
     }
 
     @Override
@@ -73,17 +146,50 @@ public class HBaseModule extends AbstractModule {
 
         storeMapBinder.addBinding(AdapterType.HBASE).to(HBaseStore.class);
 
+        final Multibinder<StatusSource> statusSources =
+                Multibinder.newSetBinder(binder(), StatusSource.class);
+        statusSources.addBinding().toInstance(hTableProvider);
+        statusSources.addBinding().toInstance(metadataCache);
+        statusSources.addBinding().toInstance(writeBuffers);
+        statusSources.addBinding().toInstance(hotKeys);
+
         install(new FactoryModuleBuilder()
                 .implement(Table.class, HBaseTable.class)
                 .build(HBaseTableFactory.class));
 
         bind(HTableProvider.class).toInstance(hTableProvider);
         bind(HTableInterface.class).toProvider(hTableProvider);
+        bind(HBaseMetadata.class).toInstance(metadata);
+        bind(AutoIncrementAllocator.class).toInstance(autoIncrements);
+        bind(RowCountAccumulator.class).toInstance(rowCounts);
+        bind(MetadataEpochs.class).toInstance(epochs);
+        bind(MetadataCache.class).toInstance(metadataCache);
+        bind(RowCache.class).toInstance(rowCache);
+        bind(ScanProfiles.class).toInstance(scanProfiles);
+        bind(IndexSampler.class).toInstance(indexSampler);
+        bind(RangeEstimator.class).toInstance(rangeEstimator);
+        bind(WriteBufferManager.class).toInstance(writeBuffers);
+        bind(HotKeyTracker.class).toInstance(hotKeys);
 
-        bind(Long.class).annotatedWith(Names.named(ConfigConstants.WRITE_BUFFER))
-                .toInstance(configuration.getLong(ConfigConstants.WRITE_BUFFER,
-                        ConfigConstants.DEFAULT_WRITE_BUFFER));
         bind(String.class).annotatedWith(Names.named(ConfigConstants.COLUMN_FAMILY))
                 .toInstance(configuration.get(ConfigConstants.COLUMN_FAMILY));
+        bind(Boolean.class).annotatedWith(Names.named(ConfigConstants.UNIQUE_INDEX_FILTERS))
+                .toInstance(configuration.getBoolean(ConfigConstants.UNIQUE_INDEX_FILTERS,
+                        ConfigConstants.DEFAULT_UNIQUE_INDEX_FILTERS));
+        bind(Double.class).annotatedWith(Names.named(ConfigConstants.UNIQUE_INDEX_FILTER_FALSE_POSITIVE_RATE))
+                .toInstance((double) configuration.getFloat(ConfigConstants.UNIQUE_INDEX_FILTER_FALSE_POSITIVE_RATE,
+                        (float) ConfigConstants.DEFAULT_UNIQUE_INDEX_FILTER_FALSE_POSITIVE_RATE));
+        bind(Boolean.class).annotatedWith(Names.named(ConfigConstants.USE_AGGREGATE_COPROCESSOR))
+                .toInstance(configuration.getBoolean(ConfigConstants.USE_AGGREGATE_COPROCESSOR,
+                        ConfigConstants.DEFAULT_USE_AGGREGATE_COPROCESSOR));
+        bind(Boolean.class).annotatedWith(Names.named(ConfigConstants.USE_COLUMN_AGGREGATE_ENDPOINT))
+                .toInstance(configuration.getBoolean(ConfigConstants.USE_COLUMN_AGGREGATE_ENDPOINT,
+                        ConfigConstants.DEFAULT_USE_COLUMN_AGGREGATE_ENDPOINT));
+        bind(Long.class).annotatedWith(Names.named(ConfigConstants.UNIQUE_INDEX_FILTER_PERSIST_INTERVAL))
+                .toInstance(configuration.getLong(ConfigConstants.UNIQUE_INDEX_FILTER_PERSIST_INTERVAL,
+                        ConfigConstants.DEFAULT_UNIQUE_INDEX_FILTER_PERSIST_INTERVAL));
+        bind(Long.class).annotatedWith(Names.named(ConfigConstants.UNIQUE_INDEX_FILTER_CACHE_SIZE))
+                .toInstance(configuration.getLong(ConfigConstants.UNIQUE_INDEX_FILTER_CACHE_SIZE,
+                        ConfigConstants.DEFAULT_UNIQUE_INDEX_FILTER_CACHE_SIZE));
     }
 }
@@ -24,6 +24,8 @@ package com.nearinfinity.honeycomb.hbase;
 
 import com.google.common.base.Objects;
 import com.nearinfinity.honeycomb.exceptions.RuntimeIOException;
+import com.nearinfinity.honeycomb.tracing.Span;
+import com.nearinfinity.honeycomb.tracing.Tracer;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.client.*;
@@ -34,10 +36,12 @@ import java.io.IOException;
 import java.util.List;
 
 /**
- * Encapsulate HBase actions such as Get, Put and Delete
+ * Encapsulate HBase actions such as Get, Put and Delete.  Each action is
+ * recorded as a span of the statement traced on the calling thread.
  */
 public class HBaseOperations {
     private static final Logger logger = Logger.getLogger(HBaseOperations.class);
+    private static final Tracer tracer = Tracer.getInstance();
 
     /**
      * Execute put on a list of {@link Put}
@@ -46,10 +50,13 @@ public class HBaseOperations {
      * @param puts   List of {@link Put}
      */
     public static void performPut(HTableInterface hTable, List<Put> puts) {
+        Span span = tracer.startSpan("hbase.put");
         try {
             hTable.put(puts);
         } catch (IOException e) {
             throw createException("HBase table put list failed", e, hTable);
+        } finally {
+            tracer.endSpan(span);
         }
     }
 
@@ -60,10 +67,13 @@ public class HBaseOperations {
      * @param deletes List of {@link Delete}
      */
     public static void performDelete(HTableInterface hTable, List<Delete> deletes) {
+        Span span = tracer.startSpan("hbase.delete");
         try {
             hTable.delete(deletes);
         } catch (IOException e) {
             throw createException("HBase table delete failed", e, hTable);
+        } finally {
+            tracer.endSpan(span);
         }
     }
 
@@ -73,10 +83,31 @@ public class HBaseOperations {
      * @param hTable HTable
      */
     public static void performFlush(HTableInterface hTable) {
+        Span span = tracer.startSpan("hbase.flushCommits");
         try {
             hTable.flushCommits();
         } catch (IOException e) {
             throw createException("HBase table flush failed", e, hTable);
+        } finally {
+            tracer.endSpan(span);
+        }
+    }
+
+    /**
+     * Set the size of the client side write buffer of an HTable, which flushes
+     * the buffer if it holds more than the new size.
+     *
+     * @param hTable          HTable
+     * @param writeBufferSize Write buffer size in bytes
+     */
+    public static void setWriteBufferSize(HTableInterface hTable, long writeBufferSize) {
+        Span span = tracer.startSpan("hbase.setWriteBufferSize");
+        try {
+            hTable.setWriteBufferSize(writeBufferSize);
+        } catch (IOException e) {
+            throw createException("HBase set write buffer size failed", e, hTable);
+        } finally {
+            tracer.endSpan(span);
         }
     }
 
@@ -101,11 +132,55 @@ public class HBaseOperations {
      * @return {@link Result} from the get call
      */
     public static Result performGet(HTableInterface hTable, Get get) {
+        Span span = tracer.startSpan("hbase.get");
         try {
             return hTable.get(get);
         } catch (IOException e) {
             String msg = String.format("HBase table get failed for get %s", get.toString());
             throw createException(msg, e, hTable);
+        } finally {
+            tracer.endSpan(span);
+        }
+    }
+
+    /**
+     * Execute a batch of {@link Get} in a single call
+     *
+     * @param hTable HTable
+     * @param gets   List of {@link Get}
+     * @return {@link Result} of each get, in the order of the gets
+     */
+    public static Result[] performGet(HTableInterface hTable, List<Get> gets) {
+        Span span = tracer.startSpan("hbase.multiGet");
+        try {
+            return hTable.get(gets);
+        } catch (IOException e) {
+            throw createException("HBase table get list failed", e, hTable);
+        } finally {
+            tracer.endSpan(span);
+        }
+    }
+
+    /**
+     * Execute checkAndPut
+     *
+     * @param hTable       HTable
+     * @param columnFamily The column family of the checked cell.
+     * @param identifier   The column qualifier of the checked cell.
+     * @param value        The expected value of the checked cell, or null if it must not exist.
+     * @param put          {@link Put} applied when the check passes
+     * @return True if the put was applied
+     */
+    public static boolean performCheckAndPut(HTableInterface hTable, byte[] columnFamily, byte[] identifier,
+                                             byte[] value, Put put) {
+        Span span = tracer.startSpan("hbase.checkAndPut");
+        try {
+            return hTable.checkAndPut(put.getRow(), columnFamily, identifier, value, put);
+        } catch (IOException e) {
+            String msg = String.format("HBase table check and put failed for put %s", put.toString());
+            throw createException(msg, e, hTable);
+        } finally {
+            tracer.endSpan(span);
         }
     }
 
@@ -120,6 +195,7 @@ public class HBaseOperations {
      * @return The new value, post increment.
      */
     public static long performIncrementColumnValue(HTableInterface hTable, byte[] row, byte[] columnFamily, byte[] identifier, long amount) {
+        Span span = tracer.startSpan("hbase.incrementColumnValue");
         try {
             return hTable.incrementColumnValue(row, columnFamily, identifier, amount);
         } catch (IOException e) {
@@ -129,6 +205,8 @@ public class HBaseOperations {
                     Bytes.toStringBinary(identifier),
                     amount);
             throw createException(msg, e, hTable);
+        } finally {
+            tracer.endSpan(span);
         }
     }
 
@@ -140,10 +218,13 @@ public class HBaseOperations {
      * @return {@link ResultScanner}
      */
     public static ResultScanner getScanner(HTableInterface hTable, Scan scan) {
+        Span span = tracer.startSpan("hbase.openScanner");
         try {
             return hTable.getScanner(scan);
         } catch (IOException e) {
             throw createException("HBase table get scanner failed", e, hTable);
+        } finally {
+            tracer.endSpan(span);
         }
     }
 
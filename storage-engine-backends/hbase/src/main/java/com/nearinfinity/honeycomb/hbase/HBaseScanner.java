@@ -23,51 +23,138 @@
 package com.nearinfinity.honeycomb.hbase;
 
 import com.nearinfinity.honeycomb.Scanner;
+import com.nearinfinity.honeycomb.metrics.OperationDetails;
+import com.nearinfinity.honeycomb.tracing.Span;
+import com.nearinfinity.honeycomb.tracing.Tracer;
+import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Iterates through HBase rows
+ * Iterates through HBase rows.  A scanner created from a {@link Scan} starts
+ * with the scan's caching and doubles it, up to a maximum, each time it has
+ * consumed a full batch of rows, so that short scans do not over-fetch and
+ * long scans make few RPCs.  The rows read, the RPCs made and the rows left
+ * unread in the last batch when the scanner is closed, estimated from the
+ * scan's caching, are recorded in the {@link OperationDetails} of the calling
+ * thread.  Reading a row which starts a new batch is traced as a span, since
+ * it waits on the RPC fetching the batch.
  */
 public class HBaseScanner implements Scanner {
-    private final ResultScanner scanner;
-    private final Iterator<Result> resultIterator;
+    private static final Tracer tracer = Tracer.getInstance();
+    private final HTableInterface hTable;
+    private final Scan scan;
+    private final int maxCaching;
     private final byte[] columnFamily;
+    private ResultScanner scanner;
+    private Iterator<Result> resultIterator;
+    private int batchRows;
+    private byte[] lastRow;
+    private boolean exhausted;
 
     public HBaseScanner(ResultScanner scanner, String columnFamily) {
         checkNotNull(scanner, "Result scanner cannot be null.");
+        this.hTable = null;
+        this.scan = null;
+        this.maxCaching = 0;
         this.scanner = scanner;
         this.resultIterator = this.scanner.iterator();
         this.columnFamily = columnFamily.getBytes();
     }
 
+    /**
+     * Creates a scanner which grows the scan's caching up to a maximum.  Rows
+     * are returned from batches fetched ahead, which may be older than the
+     * rows in HBase, so they are not added to the {@link RowCache}.
+     *
+     * @param hTable       The HBase table to scan
+     * @param scan         The scan to perform, owned by the scanner from now on
+     * @param maxCaching   The most rows to fetch per RPC
+     * @param columnFamily The column family the rows are stored in
+     */
+    public HBaseScanner(HTableInterface hTable, Scan scan, int maxCaching, String columnFamily) {
+        this.hTable = checkNotNull(hTable);
+        this.scan = checkNotNull(scan);
+        this.maxCaching = maxCaching;
+        this.columnFamily = columnFamily.getBytes();
+        this.scanner = HBaseOperations.getScanner(hTable, scan);
+        this.resultIterator = this.scanner.iterator();
+        OperationDetails.recordRpcs(1);
+    }
+
     @Override
     public void close() throws IOException {
+        if (scan != null && !exhausted && scan.getCaching() > 0 && batchRows % scan.getCaching() != 0) {
+            OperationDetails.recordRowsDiscarded(scan.getCaching() - batchRows % scan.getCaching());
+        }
         scanner.close();
     }
 
     @Override
     public boolean hasNext() {
-        return resultIterator.hasNext();
+        growIfBatchConsumed();
+        if (!resultIterator.hasNext()) {
+            exhausted = true;
+            return false;
+        }
+        return true;
     }
 
     @Override
     public byte[] next() {
-        Result next = resultIterator.next();
+        growIfBatchConsumed();
+        Span span = scan != null && scan.getCaching() > 0 && batchRows % scan.getCaching() == 0
+                ? tracer.startSpan("hbase.scannerNext") : null;
+        Result next;
+        try {
+            next = resultIterator.next();
+        } finally {
+            tracer.endSpan(span);
+        }
         if (next == null) {
+            exhausted = true;
             return null;
         }
 
-        return next.getValue(columnFamily, new byte[0]);
+        batchRows++;
+        lastRow = next.getRow();
+        byte[] value = next.getValue(columnFamily, new byte[0]);
+        OperationDetails.recordRowRead(value == null ? 0 : value.length);
+        if (scan != null && scan.getCaching() > 0 && (batchRows - 1) % scan.getCaching() == 0) {
+            OperationDetails.recordRpcs(1);
+        }
+        return value;
     }
 
     @Override
     public void remove() {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Once a full batch has been consumed, replace the scanner with one
+     * starting just after the last returned row and fetching twice as many
+     * rows per RPC.
+     */
+    private void growIfBatchConsumed() {
+        if (scan == null || lastRow == null
+                || batchRows < scan.getCaching() || scan.getCaching() >= maxCaching) {
+            return;
+        }
+
+        scanner.close();
+        scan.setStartRow(Arrays.copyOf(lastRow, lastRow.length + 1));
+        scan.setCaching((int) Math.min((long) scan.getCaching() * 2, maxCaching));
+        scanner = HBaseOperations.getScanner(hTable, scan);
+        resultIterator = scanner.iterator();
+        batchRows = 0;
+        OperationDetails.recordRpcs(1);
+    }
 }
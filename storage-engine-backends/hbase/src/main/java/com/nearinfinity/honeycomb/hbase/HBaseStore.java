@@ -22,15 +22,16 @@
 
 package com.nearinfinity.honeycomb.hbase;
 
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.nearinfinity.honeycomb.Store;
 import com.nearinfinity.honeycomb.Table;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
 import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
 import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
 import com.nearinfinity.honeycomb.util.Verify;
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -38,24 +39,34 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * An HBase backed {@link Store}
  */
 public class HBaseStore implements Store {
-    private final static ReadWriteLock rowsLock = new ReentrantReadWriteLock();
-    private final static ReadWriteLock autoIncrementLock = new ReentrantReadWriteLock();
     private final HBaseMetadata metadata;
     private final HBaseTableFactory tableFactory;
     private final MetadataCache cache;
+    private final AutoIncrementAllocator autoIncrements;
+    private final RowCountAccumulator rowCounts;
+    private final WriteBufferManager writeBuffers;
 
     /**
-     * Construct a HBase store with metadata, a table factory and metadata cache.
+     * Construct a HBase store with metadata, a table factory, metadata cache,
+     * auto increment allocator, row count accumulator and write buffer manager.
      *
-     * @param metadata     Table metadata backed by HBase
-     * @param tableFactory Table factory
-     * @param cache        Metadata cache
+     * @param metadata       Table metadata backed by HBase
+     * @param tableFactory   Table factory
+     * @param cache          Metadata cache
+     * @param autoIncrements Auto increment allocator
+     * @param rowCounts      Row count accumulator
+     * @param writeBuffers   Write buffer manager
      */
     @Inject
-    public HBaseStore(HBaseMetadata metadata, HBaseTableFactory tableFactory, MetadataCache cache) {
+    public HBaseStore(HBaseMetadata metadata, HBaseTableFactory tableFactory, MetadataCache cache,
+                      AutoIncrementAllocator autoIncrements, RowCountAccumulator rowCounts,
+                      WriteBufferManager writeBuffers) {
         this.metadata = metadata;
         this.tableFactory = tableFactory;
         this.cache = cache;
+        this.autoIncrements = autoIncrements;
+        this.rowCounts = rowCounts;
+        this.writeBuffers = writeBuffers;
     }
 
     /**
@@ -65,7 +76,7 @@ public class HBaseStore implements Store {
      * @return Table ID
      */
     public long getTableId(String tableName) {
-        return metadata.getTableId(tableName);
+        return cache.tableCacheGet(tableName);
     }
 
     /**
@@ -79,6 +90,16 @@ public class HBaseStore implements Store {
         return cache.indicesCacheGet(tableId).get(indexName);
     }
 
+    /**
+     * Retrieve the write plan for the current schema of a table by its ID.
+     *
+     * @param tableId Table ID
+     * @return Table write plan
+     */
+    public TableWritePlan getWritePlan(long tableId) {
+        return cache.tableMetadataGet(tableId).getWritePlan();
+    }
+
     /**
      * Retrieve the schema for a table by its ID.
      *
@@ -89,6 +110,27 @@ public class HBaseStore implements Store {
         return cache.schemaCacheGet(tableId);
     }
 
+    /**
+     * Retrieve the approximate row count of a table by its ID.
+     *
+     * @param tableId Table ID
+     * @return Table row count
+     */
+    public long getRowCount(long tableId) {
+        return rowCounts.get(tableId);
+    }
+
+    /**
+     * Retrieve the statistics stored for an index by ANALYZE TABLE by its ID.
+     *
+     * @param tableId Table ID
+     * @param indexId Index ID
+     * @return Index statistics, or null if the index has not been analyzed
+     */
+    public IndexStatistics getIndexStatistics(long tableId, long indexId) {
+        return cache.indexStatisticsGet(tableId).get(indexId);
+    }
+
     @Override
     public Table openTable(String tableName) {
         return tableFactory.createTable(cache.tableCacheGet(tableName));
@@ -108,8 +150,9 @@ public class HBaseStore implements Store {
     public void deleteTable(String tableName) {
         long tableId = cache.tableCacheGet(tableName);
         cache.invalidateTableCache(tableName);
-        cache.invalidateColumnsCache(tableId);
-        cache.invalidateSchemaCache(tableId);
+        cache.invalidateTableMetadata(tableId);
+        rowCounts.remove(tableId);
+        writeBuffers.removeTable(tableId);
         metadata.deleteTable(tableName);
     }
 
@@ -122,8 +165,7 @@ public class HBaseStore implements Store {
         final long tableId = cache.tableCacheGet(tableName);
 
         metadata.createTableIndex(tableId, schema);
-        cache.invalidateSchemaCache(tableId);
-        cache.invalidateIndicesCache(tableId);
+        cache.refreshTableMetadata(tableId);
     }
 
     @Override
@@ -134,105 +176,93 @@ public class HBaseStore implements Store {
         final long tableId = cache.tableCacheGet(tableName);
 
         metadata.deleteTableIndex(tableId, indexName);
-        cache.invalidateSchemaCache(tableId);
-        cache.invalidateIndicesCache(tableId);
+        cache.refreshTableMetadata(tableId);
     }
 
     @Override
     public void renameTable(String curTableName, String newTableName) {
-        long tableId = cache.tableCacheGet(curTableName);
         metadata.renameExistingTable(curTableName, newTableName);
         cache.invalidateTableCache(curTableName);
-        cache.invalidateColumnsCache(tableId);
-        cache.invalidateSchemaCache(tableId);
     }
 
     @Override
     public long getAutoInc(String tableName) {
-        long tableId = cache.tableCacheGet(tableName);
-        try {
-            autoIncrementLock.readLock().lock();
-            return cache.autoIncCacheGet(tableId);
-        } finally {
-            autoIncrementLock.readLock().unlock();
-        }
+        return autoIncrements.peek(cache.tableCacheGet(tableName));
     }
 
     @Override
     public void setAutoInc(String tableName, long value) {
-        long tableId = cache.tableCacheGet(tableName);
-        try {
-            autoIncrementLock.writeLock().lock();
-            long current = cache.autoIncCacheGet(tableId);
-            if (value > current) {
-                metadata.setAutoInc(tableId, value);
-                cache.invalidateAutoIncCache(tableId);
-            }
-        } finally {
-            autoIncrementLock.writeLock().unlock();
-        }
+        autoIncrements.advance(cache.tableCacheGet(tableName), value);
     }
 
     @Override
     public long incrementAutoInc(String tableName, long amount) {
-        long tableId = cache.tableCacheGet(tableName);
-        long value;
-        try {
-            autoIncrementLock.writeLock().lock();
-            value = metadata.incrementAutoInc(tableId, amount);
-            cache.updateAutoIncCache(tableId, value);
-        } finally {
-            autoIncrementLock.writeLock().unlock();
-        }
-        return value;
+        return autoIncrements.allocate(cache.tableCacheGet(tableName), amount) + amount;
     }
 
     @Override
     public void truncateAutoInc(String tableName) {
-        long tableId = cache.tableCacheGet(tableName);
-        try {
-            autoIncrementLock.writeLock().lock();
-            metadata.setAutoInc(tableId, 1);
-            cache.invalidateAutoIncCache(tableId);
-        } finally {
-            autoIncrementLock.writeLock().unlock();
-        }
+        autoIncrements.reset(cache.tableCacheGet(tableName));
     }
 
     @Override
     public long getRowCount(String tableName) {
-        long tableId = cache.tableCacheGet(tableName);
-        try {
-            rowsLock.readLock().lock();
-            return cache.rowsCacheGet(tableId);
-        } finally {
-            rowsLock.readLock().unlock();
-        }
+        return rowCounts.get(cache.tableCacheGet(tableName));
+    }
+
+    /**
+     * Retrieve the row count of a table after writing this server's
+     * accumulated row count changes to HBase.  Unlike {@link #getRowCount(String)}
+     * the count includes all changes other servers have flushed.
+     *
+     * @param tableName Name of table
+     * @return Table row count
+     */
+    @Override
+    public long getExactRowCount(String tableName) {
+        return rowCounts.getExact(cache.tableCacheGet(tableName));
     }
 
     @Override
     public long incrementRowCount(String tableName, long amount) {
-        long value;
-        long tableId = cache.tableCacheGet(tableName);
-        try {
-            rowsLock.writeLock().lock();
-            value = metadata.incrementRowCount(tableId, amount);
-            cache.updateRowsCache(tableId, value);
-        } finally {
-            rowsLock.writeLock().unlock();
-        }
-        return value;
+        return rowCounts.add(cache.tableCacheGet(tableName), amount);
     }
 
     @Override
     public void truncateRowCount(String tableName) {
-        long tableId = cache.tableCacheGet(tableName);
-        try {
-            rowsLock.writeLock().lock();
-            metadata.truncateRowCount(tableId);
-            cache.invalidateRowsCache(tableId);
-        } finally {
-            rowsLock.writeLock().unlock();
+        rowCounts.truncate(cache.tableCacheGet(tableName));
+    }
+
+    @Override
+    public Map<String, IndexStatistics> getIndexStatistics(String tableName) {
+        final long tableId = cache.tableCacheGet(tableName);
+        final Map<Long, IndexStatistics> statistics = cache.indexStatisticsGet(tableId);
+
+        final Map<String, IndexStatistics> indexStatistics = Maps.newHashMap();
+        for (Map.Entry<String, Long> index : cache.indicesCacheGet(tableId).entrySet()) {
+            final IndexStatistics stats = statistics.get(index.getValue());
+            if (stats != null) {
+                indexStatistics.put(index.getKey(), stats);
+            }
         }
+        return indexStatistics;
+    }
+
+    @Override
+    public void setIndexStatistics(String tableName, Map<String, IndexStatistics> statistics) {
+        checkNotNull(statistics);
+        final long tableId = cache.tableCacheGet(tableName);
+        final Map<String, Long> indexIds = cache.indicesCacheGet(tableId);
+
+        final Map<Long, IndexStatistics> statisticsById = Maps.newHashMap();
+        for (Map.Entry<String, IndexStatistics> entry : statistics.entrySet()) {
+            final Long indexId = indexIds.get(entry.getKey());
+            if (indexId != null) {
+                statisticsById.put(indexId, entry.getValue());
+            }
+        }
+
+        metadata.putIndexStatistics(tableId, statisticsById);
+        cache.invalidateIndexStatistics(tableId);
     }
 }
@@ -23,6 +23,7 @@
 package com.nearinfinity.honeycomb.hbase;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.name.Named;
@@ -30,90 +31,164 @@ import com.nearinfinity.honeycomb.Scanner;
 import com.nearinfinity.honeycomb.Table;
 import com.nearinfinity.honeycomb.exceptions.RowNotFoundException;
 import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import com.nearinfinity.honeycomb.hbase.coprocessor.ColumnAggregateProtocol;
+import com.nearinfinity.honeycomb.hbase.coprocessor.ColumnAggregateWritable;
 import com.nearinfinity.honeycomb.hbase.rowkey.DataRowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
 import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
+import com.nearinfinity.honeycomb.metrics.OperationDetails;
+import com.nearinfinity.honeycomb.mysql.ColumnAggregate;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
 import com.nearinfinity.honeycomb.mysql.QueryKey;
 import com.nearinfinity.honeycomb.mysql.Row;
 import com.nearinfinity.honeycomb.mysql.Util;
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
 import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
 import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+import com.nearinfinity.honeycomb.tracing.Span;
+import com.nearinfinity.honeycomb.tracing.Tracer;
 import com.nearinfinity.honeycomb.util.Verify;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.client.coprocessor.Batch;
+import org.apache.hadoop.hbase.client.coprocessor.LongColumnInterpreter;
+import org.apache.hadoop.hbase.coprocessor.AggregateProtocol;
 import org.apache.hadoop.hbase.coprocessor.example.BulkDeleteProtocol;
 import org.apache.hadoop.hbase.coprocessor.example.BulkDeleteResponse;
 import org.apache.hadoop.hbase.filter.FilterList;
 import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
 import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
+import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * An HBase backed {@link Table}
+ * An HBase backed {@link Table}.  Operations which may make several HBase
+ * calls, and coprocessor calls, are recorded as spans of the statement traced
+ * on the calling thread.
  */
 public class HBaseTable implements Table {
+    private static final Logger logger = Logger.getLogger(HBaseTable.class);
+    private static final Tracer tracer = Tracer.getInstance();
+    private static final int COUNT_SCAN_CACHING = 10000;
+    private static final int DELETE_BATCH_ROWS = 10000;
     private final HTableInterface hTable;
     private final HBaseStore store;
     private final long tableId;
     private final MutationFactory mutationFactory;
-    private long writeBufferSize;
+    private final RowCache rowCache;
+    private final UniqueIndexFilters indexFilters;
+    private final ScanProfiles scanProfiles;
+    private final WriteBufferManager writeBuffers;
+    private final IndexSampler indexSampler;
+    private final RangeEstimator rangeEstimator;
+    private final HotKeyTracker hotKeys;
+    /**
+     * Rows written through this table and not yet flushed to HBase, by UUID.
+     * They are returned by lookups through this table, and evicted from the
+     * row cache once they are flushed.
+     */
+    private final Map<UUID, byte[]> unflushedRows = Maps.newHashMap();
+    private long bufferedBytes;
+    private long firstBufferedWrite;
     private String columnFamily;
+    private boolean useAggregateCoprocessor;
+    private boolean useColumnAggregateEndpoint;
 
     @Inject
-    public HBaseTable(HTableInterface hTable, HBaseStore store, MutationFactory mutationFactory, @Assisted Long tableId) {
+    public HBaseTable(HTableInterface hTable, HBaseStore store, MutationFactory mutationFactory,
+                      RowCache rowCache, UniqueIndexFilters indexFilters, ScanProfiles scanProfiles,
+                      WriteBufferManager writeBuffers, IndexSampler indexSampler, RangeEstimator rangeEstimator,
+                      HotKeyTracker hotKeys, @Assisted Long tableId) {
         Verify.isValidId(tableId);
         this.hTable = checkNotNull(hTable);
         this.store = checkNotNull(store);
         this.tableId = tableId;
         this.mutationFactory = mutationFactory;
+        this.rowCache = checkNotNull(rowCache);
+        this.indexFilters = checkNotNull(indexFilters);
+        this.scanProfiles = checkNotNull(scanProfiles);
+        this.writeBuffers = checkNotNull(writeBuffers);
+        this.indexSampler = checkNotNull(indexSampler);
+        this.rangeEstimator = checkNotNull(rangeEstimator);
+        this.hotKeys = checkNotNull(hotKeys);
+
+        // Flushes by size are decided by the write buffer manager, not the HTable
+        if (!hTable.isAutoFlush()) {
+            HBaseOperations.setWriteBufferSize(hTable, Long.MAX_VALUE);
+        }
     }
 
     /**
-     * Sets the write buffer size.  Cannot be injected into the constructor directly
+     * Sets the column family.  Cannot be injected into the constructor directly
      * because of a bug in Cobertura.  Called automatically by Guice.
-     * @param bufferSize
+     *
+     * @param columnFamily The column family to use
      */
     @Inject
-    public void setWriterBufferSize(final @Named(ConfigConstants.WRITE_BUFFER) Long bufferSize) {
-        writeBufferSize = bufferSize;
+    public void setColumnFamily(final @Named(ConfigConstants.COLUMN_FAMILY) String columnFamily) {
+        this.columnFamily = columnFamily;
     }
 
     /**
-     * Sets the column family.  Cannot be injected into the constructor directly
-     * because of a bug in Cobertura.  Called automatically by Guice.
+     * Sets whether rows are counted with the AggregateImplementation coprocessor.  Cannot be
+     * injected into the constructor directly because of a bug in Cobertura.  Called automatically by Guice.
      *
-     * @param columnFamily The column family to use
+     * @param useAggregateCoprocessor Count rows with the coprocessor
      */
     @Inject
-    public void setColumnFamily(final @Named(ConfigConstants.COLUMN_FAMILY) String columnFamily) {
-        this.columnFamily = columnFamily;
+    public void setUseAggregateCoprocessor(final @Named(ConfigConstants.USE_AGGREGATE_COPROCESSOR) Boolean useAggregateCoprocessor) {
+        this.useAggregateCoprocessor = useAggregateCoprocessor;
+    }
+
+    /**
+     * Sets whether columns are aggregated with the ColumnAggregateEndpoint coprocessor.  Cannot be
+     * injected into the constructor directly because of a bug in Cobertura.  Called automatically by Guice.
+     *
+     * @param useColumnAggregateEndpoint Aggregate columns with the ColumnAggregateEndpoint coprocessor
+     */
+    @Inject
+    public void setUseColumnAggregateEndpoint(final @Named(ConfigConstants.USE_COLUMN_AGGREGATE_ENDPOINT) Boolean useColumnAggregateEndpoint) {
+        this.useColumnAggregateEndpoint = useColumnAggregateEndpoint;
     }
 
     @Override
     public void insertRow(Row row) {
         checkNotNull(row);
-        HBaseOperations.performPut(hTable, mutationFactory.insert(tableId, row));
+        addToIndexFilters(row);
+        addUnflushedRow(row);
+        performBufferedPut(mutationFactory.insert(tableId, row));
     }
 
     @Override
     public void insertTableIndex(final IndexSchema indexSchema) {
         checkNotNull(indexSchema, "The index schema is invalid");
         final Collection<IndexSchema> indices = ImmutableList.of(indexSchema);
-        final Scanner scanner = tableScan();
-        while (scanner.hasNext()) {
-            HBaseOperations.performPut(hTable,
-                    mutationFactory.insertIndices(tableId, Row.deserialize(scanner.next()), indices));
+        Span span = tracer.startSpan("table.insertTableIndex", indexSchema.getIndexName());
+        try {
+            final Scanner scanner = tableScan();
+            while (scanner.hasNext()) {
+                performBufferedPut(mutationFactory.insertIndices(tableId, Row.deserialize(scanner.next()), indices));
+            }
+
+            Util.closeQuietly(scanner);
+
+            // The filter is rebuilt from the index rows, so they must be written first
+            if (indexFilters.isEnabled() && indexSchema.getIsUnique()) {
+                flush();
+                indexFilters.remove(tableId, store.getIndexId(tableId, indexSchema.getIndexName()));
+            }
+        } finally {
+            tracer.endSpan(span);
         }
-
-        Util.closeQuietly(scanner);
     }
 
     @Override
@@ -121,6 +196,9 @@ public class HBaseTable implements Table {
         checkNotNull(indexSchema, "The index schema is invalid");
 
         long indexId = store.getIndexId(tableId, indexSchema.getIndexName());
+        if (indexFilters.isEnabled() && indexSchema.getIsUnique()) {
+            indexFilters.remove(tableId, indexId);
+        }
 
         deleteRowsInRange(
                 IndexRowKeyBuilder.newBuilder(tableId, indexId).withSortOrder(SortOrder.Ascending).build().encode(),
@@ -141,18 +219,31 @@ public class HBaseTable implements Table {
         final List<Put> puts =
                 mutationFactory.insert(tableId, newRow);
 
+        addToIndexFilters(newRow);
+        recordAccesses(deletes);
         HBaseOperations.performDelete(hTable, deletes);
-        HBaseOperations.performPut(hTable, puts);
+        // The old row stays cached until the put is flushed
+        addUnflushedRow(newRow);
+        performBufferedPut(puts);
     }
 
     @Override
     public void deleteRow(final Row row) {
         checkNotNull(row);
-        HBaseOperations.performDelete(hTable, mutationFactory.delete(tableId, row));
+        final List<Delete> deletes = mutationFactory.delete(tableId, row);
+        recordAccesses(deletes);
+        HBaseOperations.performDelete(hTable, deletes);
+        // Invalidated once the row is gone; a concurrent lookup which read the
+        // row before does not cache it, see RowCache.put
+        unflushedRows.remove(row.getUUID());
+        rowCache.invalidate(tableId, row.getUUID());
     }
 
     @Override
     public void deleteAllRows() {
+        if (indexFilters.isEnabled()) {
+            indexFilters.removeTable(tableId);
+        }
         deleteRowsInRange(new DataRowKey(tableId).encode(), new DataRowKey(tableId + 1).encode());
         deleteRowsInRange(
                 IndexRowKeyBuilder.newBuilder(tableId, 0).withSortOrder(SortOrder.Ascending).build().encode(),
@@ -160,29 +251,59 @@ public class HBaseTable implements Table {
         deleteRowsInRange(
                 IndexRowKeyBuilder.newBuilder(tableId, 0).withSortOrder(SortOrder.Descending).build().encode(),
                 IndexRowKeyBuilder.newBuilder(tableId + 1, 0).withSortOrder(SortOrder.Descending).build().encode());
+        unflushedRows.clear();
+        rowCache.invalidateTable(tableId);
     }
 
     @Override
     public void flush() {
+        long start = System.nanoTime();
         HBaseOperations.performFlush(hTable);
+        if (bufferedBytes > 0) {
+            OperationDetails.recordBytesWritten(bufferedBytes);
+            OperationDetails.recordRpcs(1);
+            writeBuffers.recordFlush(tableId, bufferedBytes, System.nanoTime() - start);
+            bufferedBytes = 0;
+        }
+        invalidateFlushedRows();
     }
 
     @Override
     public Row getRow(UUID uuid) {
+        byte[] unflushedRow = unflushedRows.get(uuid);
+        if (unflushedRow != null) {
+            OperationDetails.recordRowRead(unflushedRow.length);
+            return Row.deserialize(unflushedRow);
+        }
+
+        byte[] cachedRow = rowCache.get(tableId, uuid);
+        if (cachedRow != null) {
+            OperationDetails.recordRowRead(cachedRow.length);
+            return Row.deserialize(cachedRow);
+        }
+
         DataRowKey dataRow = new DataRowKey(tableId, uuid);
         Get get = new Get(dataRow.encode());
+        OperationDetails.recordKeyRange(get.getRow(), get.getRow());
+        OperationDetails.recordRpcs(1);
+        hotKeys.record(get.getRow());
+        long stamp = rowCache.stamp();
         Result result = HBaseOperations.performGet(hTable, get);
         if (result.isEmpty()) {
             throw new RowNotFoundException(uuid);
         }
-        return Row.deserialize(result.getValue(columnFamily.getBytes(), new byte[0]));
+
+        byte[] serializedRow = result.getValue(columnFamily.getBytes(), new byte[0]);
+        OperationDetails.recordRowRead(serializedRow.length);
+        rowCache.put(tableId, uuid, serializedRow, stamp);
+        return Row.deserialize(serializedRow);
     }
 
     @Override
     public Scanner tableScan() {
         DataRowKey startRow = new DataRowKey(tableId);
         DataRowKey endRow = new DataRowKey(tableId + 1);
-        return createScannerForRange(startRow.encode(), endRow.encode());
+        return createScannerForRange(ScanProfiles.Profile.TABLE_SCAN, startRow.encode(), endRow.encode());
     }
 
     @Override
@@ -199,7 +320,7 @@ public class HBaseTable implements Table {
                 .withSortOrder(SortOrder.Ascending)
                 .build();
 
-        return createScannerForRange(startRow.encode(), endRow.encode());
+        return createScannerForRange(ScanProfiles.Profile.INDEX_SCAN, startRow.encode(), endRow.encode());
     }
 
     @Override
@@ -218,7 +339,7 @@ public class HBaseTable implements Table {
                 .withSortOrder(SortOrder.Ascending)
                 .build();
 
-        return createScannerForRange(startRow.encode(), endRow.encode());
+        return createScannerForRange(ScanProfiles.Profile.INDEX_SCAN, startRow.encode(), endRow.encode());
     }
 
     @Override
@@ -236,7 +357,7 @@ public class HBaseTable implements Table {
                 .withSortOrder(SortOrder.Ascending)
                 .build();
 
-        return createScannerForRange(incrementRowKey(startRow.encode()), endRow.encode());
+        return createScannerForRange(ScanProfiles.Profile.INDEX_SCAN, incrementRowKey(startRow.encode()), endRow.encode());
     }
 
     @Override
@@ -251,7 +372,7 @@ public class HBaseTable implements Table {
                 .withSortOrder(SortOrder.Descending)
                 .build();
 
-        return createScannerForRange(startRow.encode(), endRow.encode());
+        return createScannerForRange(ScanProfiles.Profile.INDEX_SCAN, startRow.encode(), endRow.encode());
     }
 
     @Override
@@ -270,7 +391,7 @@ public class HBaseTable implements Table {
                 .withSortOrder(SortOrder.Descending)
                 .build();
 
-        return createScannerForRange(startRow.encode(), endRow.encode());
+        return createScannerForRange(ScanProfiles.Profile.INDEX_SCAN, startRow.encode(), endRow.encode());
     }
 
     @Override
@@ -289,7 +410,7 @@ public class HBaseTable implements Table {
                 .withSortOrder(SortOrder.Descending)
                 .build();
 
-        return createScannerForRange(incrementRowKey(startRow.encode()), endRow.encode());
+        return createScannerForRange(ScanProfiles.Profile.INDEX_SCAN, incrementRowKey(startRow.encode()), endRow.encode());
     }
 
     @Override
@@ -303,13 +424,149 @@ public class HBaseTable implements Table {
                 .withSortOrder(SortOrder.Ascending)
                 .build();
 
+        // The filter only holds complete keys, so it can only rule out lookups on every index column
+        final IndexSchema indexSchema = schema.getIndexSchema(key.getIndexName());
+        final boolean uniqueLookup = indexSchema.getIsUnique()
+                && key.getKeys().keySet().containsAll(indexSchema.getColumns());
+        if (indexFilters.isEnabled() && uniqueLookup
+                && !indexFilters.mightContain(tableId, indexId, row.encode())) {
+            return new EmptyScanner();
+        }
+
         // Scan is [start, end) : increment to set end to next possible row
-        return createScannerForRange(row.encode(), incrementRowKey(row.encode()));
+        return createScannerForRange(
+                uniqueLookup ? ScanProfiles.Profile.UNIQUE_LOOKUP : ScanProfiles.Profile.EXACT_LOOKUP,
+                row.encode(), incrementRowKey(row.encode()));
+    }
+
+    @Override
+    public long countRows() {
+        return countRowsInRange(new DataRowKey(tableId).encode(), new DataRowKey(tableId + 1).encode());
+    }
+
+    @Override
+    public long countRange(QueryKey from, QueryKey to) {
+        checkArgument(from != null || to != null, "At least one query key is required to count a range");
+        byte[][] range = indexRange(from, to);
+        return countRowsInRange(range[0], range[1]);
+    }
+
+    @Override
+    public long estimateRowsInRange(QueryKey from, QueryKey to) {
+        checkArgument(from != null || to != null, "At least one query key is required to estimate a range");
+        final long indexId = store.getIndexId(tableId, from != null ? from.getIndexName() : to.getIndexName());
+        byte[][] range = indexRange(from, to);
+        return rangeEstimator.estimate(range[0], range[1],
+                ascendingIndexStart(indexId), ascendingIndexStart(indexId + 1),
+                store.getRowCount(tableId), store.getIndexStatistics(tableId, indexId));
+    }
+
+    @Override
+    public ColumnAggregate aggregate(ColumnSchema column, QueryKey from, QueryKey to) {
+        checkNotNull(column);
+        byte[][] range = from == null && to == null
+                ? new byte[][]{new DataRowKey(tableId).encode(), new DataRowKey(tableId + 1).encode()}
+                : indexRange(from, to);
+        return aggregateRange(column, range[0], range[1]);
+    }
+
+    @Override
+    public Map<String, IndexStatistics> computeIndexStatistics() {
+        final TableSchema schema = store.getSchema(tableId);
+        final long rowCount = store.getRowCount(tableId);
+
+        final Map<String, IndexStatistics> statistics = Maps.newHashMap();
+        for (IndexSchema index : schema.getIndices()) {
+            final long indexId = store.getIndexId(tableId, index.getIndexName());
+            statistics.put(index.getIndexName(), indexSampler.sample(
+                    ascendingIndexStart(indexId), ascendingIndexStart(indexId + 1),
+                    index.getColumns(), rowCount));
+        }
+        return statistics;
     }
 
     @Override
     public void close() {
+        writeBuffers.release(tableId, bufferedBytes);
+        bufferedBytes = 0;
         Util.closeQuietly(hTable);
+        invalidateFlushedRows();
+    }
+
+    /**
+     * Buffer puts, flushing once the buffered bytes exceed the table's write
+     * buffer size or the oldest buffered write exceeds the maximum age.  The
+     * age is checked here only, on the next write.
+     */
+    private void performBufferedPut(List<Put> puts) {
+        long bytes = 0;
+        for (Put put : puts) {
+            bytes += put.heapSize();
+        }
+        recordAccesses(puts);
+
+        if (hTable.isAutoFlush()) {
+            OperationDetails.recordBytesWritten(bytes);
+            OperationDetails.recordRpcs(1);
+            HBaseOperations.performPut(hTable, puts);
+            invalidateFlushedRows();
+            return;
+        }
+
+        long bufferSize = writeBuffers.recordWrite(tableId, 1, bytes);
+        if (bufferedBytes == 0) {
+            firstBufferedWrite = writeBuffers.now();
+        }
+
+        HBaseOperations.performPut(hTable, puts);
+        bufferedBytes += bytes;
+        if (bufferedBytes > bufferSize || writeBuffers.isExpired(firstBufferedWrite)) {
+            flush();
+        }
+    }
+
+    /**
+     * Hold a row until its put is flushed.  Must happen before the put is
+     * buffered, which may flush it.
+     */
+    private void addUnflushedRow(Row row) {
+        if (rowCache.isEnabled()) {
+            unflushedRows.put(row.getUUID(), row.serialize());
+        }
+    }
+
+    /**
+     * Evict the rows written since the last flush from the row cache, now
+     * that HBase holds their new values
+     */
+    private void invalidateFlushedRows() {
+        for (UUID uuid : unflushedRows.keySet()) {
+            rowCache.invalidate(tableId, uuid);
+        }
+        unflushedRows.clear();
+    }
+
+    /**
+     * Add the unique index keys of a row to the unique index filters.  Must
+     * happen before the index rows are written.
+     */
+    private void addToIndexFilters(Row row) {
+        if (!indexFilters.isEnabled()) {
+            return;
+        }
+
+        final TableSchema schema = store.getSchema(tableId);
+        for (IndexSchema index : schema.getIndices()) {
+            if (index.getIsUnique()) {
+                long indexId = store.getIndexId(tableId, index.getIndexName());
+                indexFilters.add(tableId, indexId, IndexRowKeyBuilder
+                        .newBuilder(tableId, indexId)
+                        .withRow(row, index.getIndexName(), schema)
+                        .withSortOrder(SortOrder.Ascending)
+                        .build()
+                        .encode());
+            }
+        }
     }
 
     private static byte[] incrementRowKey(byte[] key) {
@@ -327,24 +584,186 @@ public class HBaseTable implements Table {
                         new FirstKeyOnlyFilter(),
                         new KeyOnlyFilter()));
 
+        Span span = tracer.startSpan("hbase.bulkDelete");
         try {
             hTable.coprocessorExec(
                     BulkDeleteProtocol.class, start, end, new Batch.Call<BulkDeleteProtocol, BulkDeleteResponse>() {
                         @Override
                         public BulkDeleteResponse call(BulkDeleteProtocol instance) throws IOException {
-                            return instance.delete(scan, BulkDeleteProtocol.DeleteType.ROW, Long.MAX_VALUE, (int) writeBufferSize);
+                            return instance.delete(scan, BulkDeleteProtocol.DeleteType.ROW, Long.MAX_VALUE, DELETE_BATCH_ROWS);
                         }
                     });
         } catch (Throwable throwable) {
             throwable.printStackTrace();
             throw new RuntimeException(throwable);
+        } finally {
+            tracer.endSpan(span);
         }
     }
 
-    private Scanner createScannerForRange(byte[] start, byte[] end) {
-        Scan scan = new Scan(start, end);
+    /**
+     * Encode the [start, end) row keys of the ascending index rows whose keys
+     * lie between two query keys, inclusive.  A null query key leaves that end
+     * of the range open.
+     */
+    private byte[][] indexRange(QueryKey from, QueryKey to) {
+        final String indexName = from != null ? from.getIndexName() : to.getIndexName();
+        checkArgument(from == null || to == null || indexName.equals(to.getIndexName()),
+                "Query keys must be for the same index");
+
+        final TableSchema schema = store.getSchema(tableId);
+        long indexId = store.getIndexId(tableId, indexName);
+
+        IndexRowKeyBuilder startRow = IndexRowKeyBuilder
+                .newBuilder(tableId, indexId)
+                .withSortOrder(SortOrder.Ascending);
+        if (from != null) {
+            startRow.withQueryKey(from, schema);
+        }
+
+        byte[] end;
+        if (to == null) {
+            end = ascendingIndexStart(indexId + 1);
+        } else {
+            end = incrementRowKey(IndexRowKeyBuilder
+                    .newBuilder(tableId, indexId)
+                    .withQueryKey(to, schema)
+                    .withSortOrder(SortOrder.Ascending)
+                    .build()
+                    .encode());
+        }
+
+        return new byte[][]{startRow.build().encode(), end};
+    }
+
+    /**
+     * Encode the row key before the first ascending index row of an index
+     */
+    private byte[] ascendingIndexStart(long indexId) {
+        return IndexRowKeyBuilder
+                .newBuilder(tableId, indexId)
+                .withSortOrder(SortOrder.Ascending)
+                .build()
+                .encode();
+    }
+
+    /**
+     * Count the rows in the specified range.  Uses the AggregateImplementation
+     * coprocessor to count each region in parallel when it is enabled, and
+     * otherwise a key only scan, so that only row keys leave the region servers.
+     */
+    private long countRowsInRange(byte[] start, byte[] end) {
+        final Scan scan = new Scan(start, end)
+                .addColumn(columnFamily.getBytes(), new byte[0])
+                .setFilter(new FilterList(
+                        new FirstKeyOnlyFilter(),
+                        new KeyOnlyFilter()));
+        scan.setCacheBlocks(false);
+
+        if (useAggregateCoprocessor) {
+            Span span = tracer.startSpan("hbase.aggregateRowCount");
+            try {
+                Map<byte[], Long> regionCounts = hTable.coprocessorExec(
+                        AggregateProtocol.class, start, end, new Batch.Call<AggregateProtocol, Long>() {
+                            @Override
+                            public Long call(AggregateProtocol instance) throws IOException {
+                                return instance.getRowNum(new LongColumnInterpreter(), scan);
+                            }
+                        });
+
+                long count = 0;
+                for (Long regionCount : regionCounts.values()) {
+                    count += regionCount;
+                }
+                return count;
+            } catch (Throwable throwable) {
+                logger.warn("Counting rows with the AggregateImplementation coprocessor failed,"
+                        + " falling back to a key only scan", throwable);
+            } finally {
+                tracer.endSpan(span);
+            }
+        }
+
+        scan.setCaching(COUNT_SCAN_CACHING);
+        long count = 0;
+        ResultScanner scanner = HBaseOperations.getScanner(hTable, scan);
+        try {
+            for (Result ignored : scanner) {
+                count++;
+            }
+        } finally {
+            scanner.close();
+        }
+        return count;
+    }
+
+    /**
+     * Aggregate a column over the rows in the specified range.  Uses the
+     * ColumnAggregateEndpoint coprocessor to aggregate each region in parallel
+     * when it is enabled, and otherwise aggregates the rows of a scan.
+     */
+    private ColumnAggregate aggregateRange(final ColumnSchema column, byte[] start, byte[] end) {
+        final Scan scan = scanProfiles.createScan(ScanProfiles.Profile.TABLE_SCAN, start, end, -1)
+                .addColumn(columnFamily.getBytes(), new byte[0]);
+        ColumnAggregate aggregate = new ColumnAggregate(column.getType());
+
+        if (useColumnAggregateEndpoint) {
+            Span span = tracer.startSpan("hbase.columnAggregate", column.getColumnName());
+            try {
+                final byte[] serializedColumnSchema = column.serialize();
+                Map<byte[], ColumnAggregateWritable> regionAggregates = hTable.coprocessorExec(
+                        ColumnAggregateProtocol.class, start, end,
+                        new Batch.Call<ColumnAggregateProtocol, ColumnAggregateWritable>() {
+                            @Override
+                            public ColumnAggregateWritable call(ColumnAggregateProtocol instance) throws IOException {
+                                return instance.aggregate(scan, column.getColumnName(), serializedColumnSchema);
+                            }
+                        });
+
+                for (ColumnAggregateWritable regionAggregate : regionAggregates.values()) {
+                    aggregate.merge(regionAggregate.getAggregate());
+                }
+                return aggregate;
+            } catch (Throwable throwable) {
+                logger.warn("Aggregating with the ColumnAggregateEndpoint coprocessor failed,"
+                        + " falling back to a scan", throwable);
+            } finally {
+                tracer.endSpan(span);
+            }
+        }
+
         ResultScanner scanner = HBaseOperations.getScanner(hTable, scan);
-        return new HBaseScanner(scanner, columnFamily);
+        try {
+            for (Result result : scanner) {
+                aggregate.add(Row.deserialize(result.getValue(columnFamily.getBytes(), new byte[0])),
+                        column.getColumnName());
+            }
+        } finally {
+            scanner.close();
+        }
+        return aggregate;
+    }
+
+    /**
+     * Record the rows written or deleted by mutations with the hot key tracker
+     */
+    private void recordAccesses(List<? extends Mutation> mutations) {
+        for (Mutation mutation : mutations) {
+            hotKeys.record(mutation.getRow());
+        }
+    }
+
+    private Scanner createScannerForRange(ScanProfiles.Profile profile, byte[] start, byte[] end) {
+        long expectedRows = profile == ScanProfiles.Profile.UNIQUE_LOOKUP ? 1 : store.getRowCount(tableId);
+        Scan scan = scanProfiles.createScan(profile, start, end, expectedRows);
+        OperationDetails.recordKeyRange(start, end);
+        hotKeys.record(start);
+        Span span = tracer.startSpan("table.openScanner", profile.name());
+        try {
+            return new HBaseScanner(hTable, scan, scanProfiles.getMaxCaching(profile), columnFamily);
+        } finally {
+            tracer.endSpan(span);
+        }
     }
 }
 
@@ -22,36 +22,204 @@
 
 package com.nearinfinity.honeycomb.hbase;
 
+import com.google.common.collect.Sets;
 import com.google.inject.Provider;
+import com.nearinfinity.honeycomb.EngineStatus;
+import com.nearinfinity.honeycomb.StatusSource;
+import com.nearinfinity.honeycomb.exceptions.RuntimeIOException;
 import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import net.jcip.annotations.ThreadSafe;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.client.HConnection;
+import org.apache.hadoop.hbase.client.HConnectionManager;
+import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.HTableInterface;
-import org.apache.hadoop.hbase.client.HTablePool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Constructs new {@link HTableInterface} instances from a pool.
+ * Constructs lightweight {@link HTableInterface} handles on a single shared
+ * HBase connection.  Handles are cheap to create and close, so one is created
+ * per operation instead of being pooled.  Data and metadata handles run their
+ * batch operations on separate thread pools, so that metadata operations are
+ * not queued behind data flushes.
  */
-public class HTableProvider implements Provider<HTableInterface> {
-
-    private final HTablePool tablePool;
-    private final String tableName;
+@ThreadSafe
+public class HTableProvider implements Provider<HTableInterface>, HTableProviderMXBean, StatusSource, Closeable {
+    private final HConnection connection;
+    private final byte[] tableName;
+    private final long writeBufferSize;
+    private final boolean autoFlush;
+    private final ElasticThreadPool dataPool;
+    private final ElasticThreadPool metadataPool;
+    private final AtomicLong tablesCreated = new AtomicLong();
 
     public HTableProvider(final Configuration configuration) {
-        String hTableName = configuration.get(ConfigConstants.TABLE_NAME);
-        long writeBufferSize = configuration.getLong(ConfigConstants.WRITE_BUFFER,
+        tableName = configuration.get(ConfigConstants.TABLE_NAME).getBytes();
+        writeBufferSize = configuration.getLong(ConfigConstants.WRITE_BUFFER,
                 ConfigConstants.DEFAULT_WRITE_BUFFER);
-        int poolSize = configuration.getInt(ConfigConstants.TABLE_POOL_SIZE,
-                ConfigConstants.DEFAULT_TABLE_POOL_SIZE);
-        boolean autoFlush = configuration.getBoolean(ConfigConstants.AUTO_FLUSH,
+        autoFlush = configuration.getBoolean(ConfigConstants.AUTO_FLUSH,
                 ConfigConstants.DEFAULT_AUTO_FLUSH);
 
-        tableName = hTableName;
-        tablePool = new HTablePool(configuration, poolSize,
-                new HTableFactory(writeBufferSize, autoFlush));
+        try {
+            connection = HConnectionManager.createConnection(configuration);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        dataPool = new ElasticThreadPool("honeycomb-hbase-data",
+                configuration.getInt(ConfigConstants.DATA_THREADS, ConfigConstants.DEFAULT_DATA_THREADS));
+        metadataPool = new ElasticThreadPool("honeycomb-hbase-metadata",
+                configuration.getInt(ConfigConstants.METADATA_THREADS, ConfigConstants.DEFAULT_METADATA_THREADS));
     }
 
     @Override
     public HTableInterface get() {
-        return tablePool.getTable(tableName);
+        return createTable(dataPool);
+    }
+
+    /**
+     * Returns a provider of table handles for metadata operations, which run on
+     * the metadata thread pool.
+     *
+     * @return Provider of metadata table handles
+     */
+    public Provider<HTableInterface> getMetadataProvider() {
+        return new Provider<HTableInterface>() {
+            @Override
+            public HTableInterface get() {
+                return createTable(metadataPool);
+            }
+        };
+    }
+
+    /**
+     * Locates every region of the table and opens a connection to each region
+     * server holding one, so that the first operations after startup do not
+     * pay for the lookups in the META table or for connection setup.  Also
+     * starts the threads of the data and metadata pools.
+     *
+     * @return Number of regions located
+     */
+    public int warmUp() {
+        try {
+            final List<HRegionLocation> locations = connection.locateRegions(tableName);
+            final Set<String> servers = Sets.newHashSet();
+            for (HRegionLocation location : locations) {
+                if (servers.add(location.getHostnamePort())) {
+                    connection.getHRegionConnection(location.getHostname(), location.getPort());
+                }
+            }
+            dataPool.prestartAllCoreThreads();
+            metadataPool.prestartAllCoreThreads();
+            return locations.size();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Find the region holding a row, using the region locations cached by
+     * the connection when they are known
+     *
+     * @param row Row key
+     * @return Encoded name of the region and the host and port serving it
+     */
+    public String locateRegion(byte[] row) {
+        try {
+            final HRegionLocation location = connection.locateRegion(tableName, row);
+            return location.getRegionInfo().getEncodedName() + "@" + location.getHostnamePort();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Register this provider with the platform MBean server
+     */
+    public void registerMBean() {
+        MBeans.register(this, "HTableProvider");
+    }
+
+    @Override
+    public void close() throws IOException {
+        dataPool.shutdown();
+        metadataPool.shutdown();
+        connection.close();
+    }
+
+    @Override
+    public void reportStatus(EngineStatus status) {
+        status.add("hbaseClient", "tablesCreated", getTablesCreated())
+                .add("hbaseClient", "dataActiveThreads", getDataActiveThreads())
+                .add("hbaseClient", "dataPoolSize", getDataPoolSize())
+                .add("hbaseClient", "dataQueuedTasks", getDataQueuedTasks())
+                .add("hbaseClient", "dataWaitMillis", getDataWaitMillis())
+                .add("hbaseClient", "metadataActiveThreads", getMetadataActiveThreads())
+                .add("hbaseClient", "metadataPoolSize", getMetadataPoolSize())
+                .add("hbaseClient", "metadataQueuedTasks", getMetadataQueuedTasks())
+                .add("hbaseClient", "metadataWaitMillis", getMetadataWaitMillis());
+    }
+
+    @Override
+    public long getTablesCreated() {
+        return tablesCreated.get();
+    }
+
+    @Override
+    public int getDataActiveThreads() {
+        return dataPool.getActiveCount();
+    }
+
+    @Override
+    public int getDataPoolSize() {
+        return dataPool.getPoolSize();
+    }
+
+    @Override
+    public int getDataQueuedTasks() {
+        return dataPool.getQueue().size();
+    }
+
+    @Override
+    public long getDataWaitMillis() {
+        return dataPool.getWaitMillis();
+    }
+
+    @Override
+    public int getMetadataActiveThreads() {
+        return metadataPool.getActiveCount();
+    }
+
+    @Override
+    public int getMetadataPoolSize() {
+        return metadataPool.getPoolSize();
+    }
+
+    @Override
+    public int getMetadataQueuedTasks() {
+        return metadataPool.getQueue().size();
+    }
+
+    @Override
+    public long getMetadataWaitMillis() {
+        return metadataPool.getWaitMillis();
+    }
+
+    private HTableInterface createTable(ExecutorService pool) {
+        try {
+            HTable table = new HTable(tableName, connection, pool);
+            table.setAutoFlush(autoFlush);
+            table.setWriteBufferSize(writeBufferSize);
+            tablesCreated.incrementAndGet();
+            return table;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
     }
 }
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+/**
+ * Management interface of the {@link HTableProvider}, reporting how many table
+ * handles it has created and how busy the data and metadata thread pools are.
+ */
+public interface HTableProviderMXBean {
+    /**
+     * @return Number of table handles created on the shared connection
+     */
+    long getTablesCreated();
+
+    /**
+     * @return Number of data pool threads running tasks
+     */
+    int getDataActiveThreads();
+
+    /**
+     * @return Number of threads in the data pool
+     */
+    int getDataPoolSize();
+
+    /**
+     * @return Number of data tasks waiting for a thread
+     */
+    int getDataQueuedTasks();
+
+    /**
+     * @return Total time in milliseconds data tasks have waited for a thread
+     */
+    long getDataWaitMillis();
+
+    /**
+     * @return Number of metadata pool threads running tasks
+     */
+    int getMetadataActiveThreads();
+
+    /**
+     * @return Number of threads in the metadata pool
+     */
+    int getMetadataPoolSize();
+
+    /**
+     * @return Number of metadata tasks waiting for a thread
+     */
+    int getMetadataQueuedTasks();
+
+    /**
+     * @return Total time in milliseconds metadata tasks have waited for a thread
+     */
+    long getMetadataWaitMillis();
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.BaseEncoding;
+import com.nearinfinity.honeycomb.EngineStatus;
+import com.nearinfinity.honeycomb.StatusSource;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import com.nearinfinity.honeycomb.hbase.rowkey.AutoIncRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.ColumnsRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.DataRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndexFiltersRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndicesRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.MetadataEpochsRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.MetadataLayoutRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.RowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.RowsRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.SchemaRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
+import com.nearinfinity.honeycomb.hbase.rowkey.TableAutoIncRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.TableRowsRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.TableSchemaRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.TableStatisticsRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.TablesRowKey;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Finds hot spots in the HBase table by sampling the row keys accessed by
+ * tables and metadata.  Each sampled row key is labelled with the table and
+ * index, or the kind of metadata row, it belongs to, and is counted twice
+ * with a {@link SpaceSaving} sketch: by its leading bytes, which finds single
+ * hot rows such as metadata counters or a popular index value, and by the
+ * region holding it, which finds regions made hot by many different keys,
+ * such as an index on a monotonically increasing value.
+ * <p/>
+ * Each thread samples one in a configured number of its row accesses, so
+ * accesses which are not sampled only pay for decrementing a thread local
+ * counter.  Regions are found in the region locations cached by the HBase
+ * connection.
+ */
+@ThreadSafe
+public class HotKeyTracker implements HotKeyTrackerMXBean, StatusSource {
+    private static final Logger logger = Logger.getLogger(HotKeyTracker.class);
+    private static final int REPORTED_ITEMS = 10;
+    private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+    private static final String UNKNOWN_REGION = "unknown";
+    private static final byte DATA_PREFIX = new DataRowKey(0).getPrefix();
+    private static final byte ASCENDING_INDEX_PREFIX = IndexRowKeyBuilder.newBuilder(0, 0)
+            .withSortOrder(SortOrder.Ascending).build().getPrefix();
+    private static final byte DESCENDING_INDEX_PREFIX = IndexRowKeyBuilder.newBuilder(0, 0)
+            .withSortOrder(SortOrder.Descending).build().getPrefix();
+    private static final Map<Byte, String> METADATA_ROWS = metadataRows();
+    private static final Map<Byte, String> TABLE_METADATA_ROWS = tableMetadataRows();
+    private final Function<byte[], String> regionLocator;
+    private final int prefixLength;
+    private final SpaceSaving<String> keys;
+    private final SpaceSaving<String> regions;
+    private final AtomicLong samples = new AtomicLong();
+    private final ThreadLocal<int[]> countdown = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+    private volatile int sampleInterval;
+
+    public HotKeyTracker(final HTableProvider provider, final Configuration configuration) {
+        this(new Function<byte[], String>() {
+                 @Override
+                 public String apply(byte[] row) {
+                     return provider.locateRegion(row);
+                 }
+             },
+             configuration.getInt(ConfigConstants.HOT_KEY_SAMPLE_INTERVAL,
+                     ConfigConstants.DEFAULT_HOT_KEY_SAMPLE_INTERVAL),
+             configuration.getInt(ConfigConstants.HOT_KEY_CAPACITY,
+                     ConfigConstants.DEFAULT_HOT_KEY_CAPACITY),
+             configuration.getInt(ConfigConstants.HOT_KEY_PREFIX_LENGTH,
+                     ConfigConstants.DEFAULT_HOT_KEY_PREFIX_LENGTH));
+    }
+
+    HotKeyTracker(Function<byte[], String> regionLocator, int sampleInterval, int capacity, int prefixLength) {
+        checkArgument(prefixLength > 0, "Hot key prefix length must be positive: %s", prefixLength);
+        this.regionLocator = checkNotNull(regionLocator);
+        this.prefixLength = prefixLength;
+        this.keys = new SpaceSaving<String>(capacity);
+        this.regions = new SpaceSaving<String>(capacity);
+        setSampleInterval(sampleInterval);
+    }
+
+    /**
+     * Creates a tracker which samples nothing, for metadata used outside
+     * of the storage engine
+     *
+     * @return Disabled tracker
+     */
+    public static HotKeyTracker disabled() {
+        return new HotKeyTracker(new Function<byte[], String>() {
+            @Override
+            public String apply(byte[] row) {
+                return UNKNOWN_REGION;
+            }
+        }, 0, 1, 1);
+    }
+
+    /**
+     * Register this tracker with the platform MBean server
+     */
+    public void registerMBean() {
+        MBeans.register(this, "HotKeyTracker");
+    }
+
+    /**
+     * Record an access to a row, if it is sampled
+     *
+     * @param row Row key accessed
+     */
+    public void record(byte[] row) {
+        final int interval = sampleInterval;
+        if (interval == 0) {
+            return;
+        }
+        final int[] remaining = countdown.get();
+        if (--remaining[0] > 0) {
+            return;
+        }
+        remaining[0] = interval;
+
+        samples.incrementAndGet();
+        final String label = describe(row);
+        keys.offer(label + " key=" + HEX.encode(row, 0, Math.min(prefixLength, row.length)));
+        regions.offer(region(row) + " " + label);
+    }
+
+    @Override
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    @Override
+    public void setSampleInterval(int interval) {
+        checkArgument(interval >= 0, "Hot key sample interval must not be negative: %s", interval);
+        sampleInterval = interval;
+    }
+
+    @Override
+    public long getSamples() {
+        return samples.get();
+    }
+
+    @Override
+    public Map<String, Long> getHotKeys() {
+        return toMap(keys.top(REPORTED_ITEMS));
+    }
+
+    @Override
+    public Map<String, Long> getHotRegions() {
+        return toMap(regions.top(REPORTED_ITEMS));
+    }
+
+    @Override
+    public void reset() {
+        keys.clear();
+        regions.clear();
+        samples.set(0);
+    }
+
+    /**
+     * Report the most frequently sampled keys and regions, with the counts
+     * and their possible overestimate
+     */
+    @Override
+    public void reportStatus(EngineStatus status) {
+        status.add("hotKeys", "sampleInterval", sampleInterval)
+                .add("hotKeys", "samples", samples.get());
+        for (SpaceSaving.Counter<String> counter : keys.top(REPORTED_ITEMS)) {
+            status.add("hotKeys", counter.getItem(),
+                    String.format("count=%d error=%d", counter.getCount(), counter.getError()));
+        }
+        for (SpaceSaving.Counter<String> counter : regions.top(REPORTED_ITEMS)) {
+            status.add("hotRegions", counter.getItem(),
+                    String.format("count=%d error=%d", counter.getCount(), counter.getError()));
+        }
+    }
+
+    /**
+     * Label a row key with the table and index, or kind of metadata row, it
+     * belongs to
+     *
+     * @param row Row key
+     * @return Label of the row
+     */
+    static String describe(byte[] row) {
+        if (row.length == 0) {
+            return "row=empty";
+        }
+        final byte prefix = row[0];
+        final String metadata = METADATA_ROWS.get(prefix);
+        if (metadata != null) {
+            return "metadata=" + metadata;
+        }
+
+        final boolean index = prefix == ASCENDING_INDEX_PREFIX || prefix == DESCENDING_INDEX_PREFIX;
+        final String tableMetadata = TABLE_METADATA_ROWS.get(prefix);
+        final long[] ids = new long[2];
+        if (!(index || prefix == DATA_PREFIX || tableMetadata != null) || !decodeIds(row, ids, index ? 2 : 1)) {
+            return "prefix=" + HEX.encode(row, 0, 1);
+        }
+        if (index) {
+            return String.format("table=%d index=%d %s", ids[0], ids[1],
+                    prefix == ASCENDING_INDEX_PREFIX ? "ascending" : "descending");
+        }
+        return prefix == DATA_PREFIX
+                ? String.format("table=%d data", ids[0])
+                : String.format("table=%d metadata=%s", ids[0], tableMetadata);
+    }
+
+    /**
+     * Decode the variable length encoded IDs following the prefix of a row key
+     *
+     * @return Whether the row key holds that many IDs
+     */
+    private static boolean decodeIds(byte[] row, long[] ids, int count) {
+        int offset = 1;
+        for (int i = 0; i < count; i++) {
+            if (offset >= row.length) {
+                return false;
+            }
+            final int size = row[offset];
+            if (size < 0 || size > 8 || offset + 1 + size > row.length) {
+                return false;
+            }
+            ids[i] = VarEncoder.decodeULong(Arrays.copyOfRange(row, offset, offset + 1 + size));
+            offset += 1 + size;
+        }
+        return true;
+    }
+
+    private String region(byte[] row) {
+        try {
+            return "region=" + regionLocator.apply(row);
+        } catch (RuntimeException e) {
+            logger.debug("Could not locate the region of a sampled row", e);
+            return "region=" + UNKNOWN_REGION;
+        }
+    }
+
+    private static Map<String, Long> toMap(List<SpaceSaving.Counter<String>> counters) {
+        final Map<String, Long> map = Maps.newLinkedHashMap();
+        for (SpaceSaving.Counter<String> counter : counters) {
+            map.put(counter.getItem(), counter.getCount());
+        }
+        return map;
+    }
+
+    private static Map<Byte, String> metadataRows() {
+        return ImmutableMap.<Byte, String>builder()
+                .put(prefix(new TablesRowKey()), "tables")
+                .put(prefix(new RowsRowKey()), "rows")
+                .put(prefix(new AutoIncRowKey()), "autoIncrement")
+                .put(prefix(new SchemaRowKey()), "schemas")
+                .put(prefix(new MetadataLayoutRowKey()), "layout")
+                .put(prefix(new MetadataEpochsRowKey()), "epochs")
+                .build();
+    }
+
+    private static Map<Byte, String> tableMetadataRows() {
+        return ImmutableMap.<Byte, String>builder()
+                .put(prefix(new ColumnsRowKey(0)), "columns")
+                .put(prefix(new IndicesRowKey(0)), "indices")
+                .put(prefix(new IndexFiltersRowKey(0)), "indexFilters")
+                .put(prefix(new TableRowsRowKey(0)), "rowCount")
+                .put(prefix(new TableAutoIncRowKey(0)), "autoIncrement")
+                .put(prefix(new TableSchemaRowKey(0)), "schema")
+                .put(prefix(new TableStatisticsRowKey(0)), "statistics")
+                .build();
+    }
+
+    private static Byte prefix(RowKey rowKey) {
+        return rowKey.getPrefix();
+    }
+}
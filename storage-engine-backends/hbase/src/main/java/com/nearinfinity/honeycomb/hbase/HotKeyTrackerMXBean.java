@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link HotKeyTracker}
+ */
+public interface HotKeyTrackerMXBean {
+    /**
+     * @return Number of row accesses of each thread per sample, 0 if tracking is disabled
+     */
+    int getSampleInterval();
+
+    /**
+     * Sample one in this many row accesses of each thread, or disable
+     * tracking with 0
+     *
+     * @param interval Number of row accesses per sample, not negative
+     */
+    void setSampleInterval(int interval);
+
+    /**
+     * @return Number of row accesses sampled since the counts were last reset
+     */
+    long getSamples();
+
+    /**
+     * @return Map of the most frequently sampled row key prefixes, labelled with their table and index or metadata row, to their estimated counts
+     */
+    Map<String, Long> getHotKeys();
+
+    /**
+     * @return Map of the most frequently sampled regions, each with the table and index or metadata row accessed in it, to their estimated counts
+     */
+    Map<String, Long> getHotRegions();
+
+    /**
+     * Discard the counts sampled so far
+     */
+    void reset();
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Provider;
+import com.nearinfinity.honeycomb.exceptions.RuntimeIOException;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
+import com.nearinfinity.honeycomb.mysql.Row;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.RandomRowFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Samples the rows of an index for ANALYZE TABLE.  The key range of the index
+ * is split at the region boundaries of the HBase table and the regions are
+ * sampled in parallel.  Each region is read with a scan whose
+ * {@link RandomRowFilter} keeps about the configured number of rows across all
+ * regions, so only the sampled rows leave the region servers.  The sampled
+ * rows are collected in index order, with their row keys as the bounds of the
+ * index histogram.
+ * <p/>
+ * The chance of keeping a row is based on the approximate row count of the
+ * table, which may be far too low.  Each region therefore keeps at most its
+ * share of the configured number of rows with reservoir sampling, so the
+ * memory used does not depend on the row count being right.
+ */
+@ThreadSafe
+public class IndexSampler implements Closeable {
+    private static final int SAMPLE_SCAN_CACHING = 1000;
+    private static final byte[] EMPTY_QUALIFIER = new byte[0];
+    private static final Comparator<Result> ROW_ORDER = new Comparator<Result>() {
+        @Override
+        public int compare(Result first, Result second) {
+            return Bytes.compareTo(first.getRow(), second.getRow());
+        }
+    };
+    private final Provider<HTableInterface> provider;
+    private final byte[] columnFamily;
+    private final long sampleRows;
+    private final int buckets;
+    private final ExecutorService pool;
+
+    public IndexSampler(final Provider<HTableInterface> provider, final Configuration configuration) {
+        this(provider, configuration.get(ConfigConstants.COLUMN_FAMILY),
+                configuration.getLong(ConfigConstants.STATISTICS_SAMPLE_ROWS,
+                        ConfigConstants.DEFAULT_STATISTICS_SAMPLE_ROWS),
+                configuration.getInt(ConfigConstants.STATISTICS_HISTOGRAM_BUCKETS,
+                        ConfigConstants.DEFAULT_STATISTICS_HISTOGRAM_BUCKETS),
+                new ElasticThreadPool("honeycomb-hbase-statistics",
+                        configuration.getInt(ConfigConstants.STATISTICS_THREADS,
+                                ConfigConstants.DEFAULT_STATISTICS_THREADS)));
+    }
+
+    IndexSampler(final Provider<HTableInterface> provider, final String columnFamily,
+                 final long sampleRows, final int buckets, final ExecutorService pool) {
+        checkArgument(sampleRows > 0, "Statistics sample rows must be positive: %s", sampleRows);
+        checkArgument(buckets > 0, "Statistics histogram buckets must be positive: %s", buckets);
+        this.provider = checkNotNull(provider);
+        this.columnFamily = columnFamily.getBytes();
+        this.sampleRows = sampleRows;
+        this.buckets = buckets;
+        this.pool = checkNotNull(pool);
+    }
+
+    /**
+     * Sample the ascending index rows in a range and compute the statistics
+     * of the index from them
+     *
+     * @param start    First row key of the index
+     * @param end      Row key after the last row of the index
+     * @param columns  Names of the index columns in index order
+     * @param rowCount Number of rows in the table
+     * @return Statistics of the index
+     */
+    public IndexStatistics sample(final byte[] start, final byte[] end, final List<String> columns, final long rowCount) {
+        final float chance = rowCount <= sampleRows ? 1 : (float) sampleRows / rowCount;
+
+        final List<byte[]> bounds = splitAtRegions(start, end);
+        final int regionRows = (int) Math.min(Integer.MAX_VALUE,
+                (sampleRows + bounds.size() - 2) / (bounds.size() - 1));
+        final List<Future<RegionSample>> regions = Lists.newArrayListWithCapacity(bounds.size() - 1);
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            final Scan scan = createScan(bounds.get(i), bounds.get(i + 1), chance);
+            regions.add(pool.submit(new Callable<RegionSample>() {
+                @Override
+                public RegionSample call() {
+                    return scanRegion(scan, regionRows);
+                }
+            }));
+        }
+
+        final IndexStatistics.Collector collector = new IndexStatistics.Collector(columns, buckets);
+        long scannedRows = 0;
+        for (Future<RegionSample> region : regions) {
+            final RegionSample sample = getRegionSample(region);
+            scannedRows += sample.scannedRows;
+            for (Result result : sample.rows) {
+                collector.add(Row.deserialize(result.getValue(columnFamily, EMPTY_QUALIFIER)), result.getRow());
+            }
+        }
+        // Without the filter every row was scanned, so the scan counted them
+        return collector.build(chance < 1 ? rowCount : Math.max(rowCount, scannedRows));
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Split a range of row keys at the start keys of the regions inside it
+     */
+    private List<byte[]> splitAtRegions(byte[] start, byte[] end) {
+        final List<byte[]> bounds = Lists.newArrayList();
+        bounds.add(start);
+
+        final HTableInterface hTable = provider.get();
+        try {
+            if (hTable instanceof HTable) {
+                for (byte[] regionStart : ((HTable) hTable).getStartKeys()) {
+                    if (Bytes.compareTo(regionStart, start) > 0 && Bytes.compareTo(regionStart, end) < 0) {
+                        bounds.add(regionStart);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        } finally {
+            HBaseOperations.closeTable(hTable);
+        }
+
+        bounds.add(end);
+        return bounds;
+    }
+
+    private Scan createScan(byte[] start, byte[] end, float chance) {
+        final Scan scan = new Scan(start, end).addColumn(columnFamily, EMPTY_QUALIFIER);
+        scan.setCaching(SAMPLE_SCAN_CACHING);
+        scan.setCacheBlocks(false);
+        if (chance < 1) {
+            scan.setFilter(new RandomRowFilter(chance));
+        }
+        return scan;
+    }
+
+    /**
+     * Read the rows of a region passing the scan's filter, keeping a uniform
+     * sample of at most maxRows of them in index order
+     */
+    private RegionSample scanRegion(Scan scan, int maxRows) {
+        final List<Result> rows = Lists.newArrayList();
+        final Random random = new Random();
+        long scannedRows = 0;
+        final HTableInterface hTable = provider.get();
+        try {
+            final ResultScanner scanner = HBaseOperations.getScanner(hTable, scan);
+            try {
+                for (Result result : scanner) {
+                    scannedRows++;
+                    if (rows.size() < maxRows) {
+                        rows.add(result);
+                    } else {
+                        final long replaced = (long) (random.nextDouble() * scannedRows);
+                        if (replaced < maxRows) {
+                            rows.set((int) replaced, result);
+                        }
+                    }
+                }
+            } finally {
+                scanner.close();
+            }
+        } finally {
+            HBaseOperations.closeTable(hTable);
+        }
+
+        if (scannedRows > maxRows) {
+            Collections.sort(rows, ROW_ORDER);
+        }
+        return new RegionSample(rows, scannedRows);
+    }
+
+    private static RegionSample getRegionSample(Future<RegionSample> region) {
+        try {
+            return region.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Rows sampled from one region, and the number of rows its scan returned
+     */
+    private static final class RegionSample {
+        private final List<Result> rows;
+        private final long scannedRows;
+
+        RegionSample(List<Result> rows, long scannedRows) {
+            this.rows = rows;
+            this.scannedRows = scannedRows;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import org.apache.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the management beans of the HBase backend with the platform MBean server.
+ */
+final class MBeans {
+    private static final Logger logger = Logger.getLogger(MBeans.class);
+    private static final String DOMAIN = "com.nearinfinity.honeycomb.hbase";
+
+    private MBeans() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Register a bean under the HBase backend domain, replacing any bean
+     * previously registered with the same type.  Failure to register is logged
+     * and otherwise ignored.
+     *
+     * @param bean Management bean
+     * @param type Type key of the bean name
+     */
+    static void register(Object bean, String type) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":type=" + type);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(bean, name);
+        } catch (JMException e) {
+            logger.warn("Could not register the " + type + " MBean", e);
+        }
+    }
+}
@@ -25,89 +25,110 @@ package com.nearinfinity.honeycomb.hbase;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.BiMap;
-import com.google.inject.Inject;
-import com.google.inject.Singleton;
+import com.nearinfinity.honeycomb.EngineStatus;
+import com.nearinfinity.honeycomb.StatusSource;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
 import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
 import com.nearinfinity.honeycomb.util.Verify;
 import net.jcip.annotations.ThreadSafe;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.log4j.Logger;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Caches metadata about tables to reduce HBase lookups.
+ * Caches metadata about tables to reduce HBase lookups.  The schema, column
+ * IDs and index IDs of a table are cached together as one {@link TableMetadata}
+ * snapshot, which is loaded with a single batch of gets and replaced as a
+ * whole when the table's definition changes.  Entries are kept until a change
+ * is made through this server or detected by {@link MetadataEpochs}, which
+ * tracks changes made through other servers.
+ * <p/>
+ * The cache is bounded by the total number of columns and indices of the
+ * cached tables, each table counting as one more, so its size follows the
+ * tables in use rather than all tables.  The least recently used tables are
+ * evicted first.  The index statistics of each table are cached separately,
+ * since they change with every ANALYZE TABLE rather than with the table's
+ * definition.
  */
-@Singleton
 @ThreadSafe
-public class MetadataCache {
+public class MetadataCache implements MetadataCacheMXBean, StatusSource {
     private static final Logger logger = Logger.getLogger(MetadataCache.class);
-    private final LoadingCache<String, Long> tableCache;
-    private final LoadingCache<Long, BiMap<String, Long>> columnsCache;
-    private final LoadingCache<Long, Long> rowsCache;
-    private final LoadingCache<Long, Long> autoIncCache;
-    private final LoadingCache<Long, TableSchema> schemaCache;
-    private final LoadingCache<Long, Map<String, Long>> indicesCache;
-
-    @Inject
+    private final HBaseMetadata metadata;
+    private final MetadataEpochs epochs;
+    private final LoadingCache<String, Entry<Long>> tableCache;
+    private final LoadingCache<Long, Entry<TableMetadata>> tableMetadataCache;
+    private final LoadingCache<Long, Entry<Map<Long, IndexStatistics>>> statisticsCache;
+
+    /**
+     * Creates a cache which does not detect changes made through other servers
+     *
+     * @param metadata Table metadata in HBase
+     */
     public MetadataCache(final HBaseMetadata metadata) {
-        tableCache = CacheBuilder
-                .newBuilder()
-                .build(new CacheLoader<String, Long>() {
-                    @Override
-                    public Long load(String tableName) {
-                        return metadata.getTableId(tableName);
-                    }
-                });
+        this(metadata, new MetadataEpochs(metadata, 0), ConfigConstants.DEFAULT_METADATA_CACHE_SIZE);
+    }
 
-        columnsCache = CacheBuilder
-                .newBuilder()
-                .build(new CacheLoader<Long, BiMap<String, Long>>() {
-                    @Override
-                    public BiMap<String, Long> load(Long tableId) {
-                        return metadata.getColumnIds(tableId);
-                    }
-                }
-                );
+    public MetadataCache(final HBaseMetadata metadata, final MetadataEpochs epochs,
+                         final Configuration configuration) {
+        this(metadata, epochs, configuration.getLong(ConfigConstants.METADATA_CACHE_SIZE,
+                ConfigConstants.DEFAULT_METADATA_CACHE_SIZE));
+    }
+
+    MetadataCache(final HBaseMetadata metadata, final MetadataEpochs epochs, final long maxSize) {
+        checkArgument(maxSize > 0, "Metadata cache size must be positive: %s", maxSize);
+        this.metadata = metadata;
+        this.epochs = checkNotNull(epochs);
 
-        indicesCache = CacheBuilder
+        tableCache = CacheBuilder
                 .newBuilder()
-                .build(new CacheLoader<Long, Map<String, Long>>() {
+                .maximumSize(maxSize)
+                .recordStats()
+                .build(new CacheLoader<String, Entry<Long>>() {
                     @Override
-                    public Map<String, Long> load(Long tableId) {
-                        return metadata.getIndexIds(tableId);
+                    public Entry<Long> load(String tableName) {
+                        final long generation = epochs.generation();
+                        final long tableId = metadata.getTableId(tableName);
+                        return new Entry<Long>(tableId, tableId, generation);
                     }
                 });
 
-        autoIncCache = CacheBuilder
+        tableMetadataCache = CacheBuilder
                 .newBuilder()
-                .build(new CacheLoader<Long, Long>() {
+                .maximumWeight(maxSize)
+                .weigher(new Weigher<Long, Entry<TableMetadata>>() {
                     @Override
-                    public Long load(Long tableId) {
-                        return metadata.getAutoInc(tableId);
+                    public int weigh(Long tableId, Entry<TableMetadata> entry) {
+                        return 1 + entry.value.getColumnIds().size() + entry.value.getIndexIds().size();
                     }
-                }
-                );
-
-        rowsCache = CacheBuilder
-                .newBuilder()
-                .build(new CacheLoader<Long, Long>() {
+                })
+                .recordStats()
+                .build(new CacheLoader<Long, Entry<TableMetadata>>() {
                     @Override
-                    public Long load(Long tableId) {
-                        return metadata.getRowCount(tableId);
+                    public Entry<TableMetadata> load(Long tableId) {
+                        final long generation = epochs.generation();
+                        return new Entry<TableMetadata>(tableId, metadata.getTableMetadata(tableId), generation);
                     }
-                }
-                );
+                });
 
-        schemaCache = CacheBuilder
+        statisticsCache = CacheBuilder
                 .newBuilder()
-                .build(new CacheLoader<Long, TableSchema>() {
+                .maximumSize(maxSize)
+                .build(new CacheLoader<Long, Entry<Map<Long, IndexStatistics>>>() {
                     @Override
-                    public TableSchema load(Long tableId) {
-                        return metadata.getSchema(tableId);
+                    public Entry<Map<Long, IndexStatistics>> load(Long tableId) {
+                        final long generation = epochs.generation();
+                        return new Entry<Map<Long, IndexStatistics>>(tableId,
+                                metadata.getIndexStatistics(tableId), generation);
                     }
-                }
-                );
+                });
     }
 
     /**
@@ -118,7 +139,18 @@ public class MetadataCache {
      */
     public long tableCacheGet(final String tableName) {
         Verify.isNotNullOrEmpty(tableName);
-        return cacheGet(tableCache, tableName);
+        return currentGet(tableCache, tableName);
+    }
+
+    /**
+     * Retrieve the metadata snapshot of a table from cache based on table ID.
+     *
+     * @param tableId Table ID
+     * @return Table metadata
+     */
+    public TableMetadata tableMetadataGet(final long tableId) {
+        Verify.isValidId(tableId);
+        return currentGet(tableMetadataCache, tableId);
     }
 
     /**
@@ -128,8 +160,7 @@ public class MetadataCache {
      * @return BiMap of column name to column ID
      */
     public BiMap<String, Long> columnsCacheGet(final long tableId) {
-        Verify.isValidId(tableId);
-        return cacheGet(columnsCache, tableId);
+        return tableMetadataGet(tableId).getColumnIds();
     }
 
     /**
@@ -139,8 +170,7 @@ public class MetadataCache {
      * @return Table schema
      */
     public TableSchema schemaCacheGet(final long tableId) {
-        Verify.isValidId(tableId);
-        return cacheGet(schemaCache, tableId);
+        return tableMetadataGet(tableId).getSchema();
     }
 
     /**
@@ -150,84 +180,74 @@ public class MetadataCache {
      * @return Map of index name to index ID
      */
     public Map<String, Long> indicesCacheGet(Long tableId) {
-        Verify.isValidId(tableId);
-        return cacheGet(indicesCache, tableId);
-    }
-
-    /**
-     * Retrieve the auto increment count for a table from cache.
-     *
-     * @param tableId Table ID
-     * @return Auto increment count
-     */
-    public Long autoIncCacheGet(Long tableId) {
-        Verify.isValidId(tableId);
-        return cacheGet(autoIncCache, tableId);
-    }
-
-    /**
-     * Retrieve the row count of a table from cache.
-     *
-     * @param tableId Table ID
-     * @return Table row count
-     */
-    public Long rowsCacheGet(final long tableId) {
-        Verify.isValidId(tableId);
-        return cacheGet(rowsCache, tableId);
+        return tableMetadataGet(tableId).getIndexIds();
     }
 
     /**
-     * Updates the row count in the cache for a table.
+     * Retrieve the stored index statistics of a table from cache based on table ID.
      *
      * @param tableId Table ID
-     * @param value   New row count
+     * @return Map of index ID to index statistics
      */
-    public void updateRowsCache(final long tableId, long value) {
+    public Map<Long, IndexStatistics> indexStatisticsGet(final long tableId) {
         Verify.isValidId(tableId);
-        rowsCache.put(tableId, value);
+        return currentGet(statisticsCache, tableId);
     }
 
     /**
-     * Evict the row count from the cache for a table.
+     * Load the IDs and metadata snapshots of all tables into the cache, so
+     * that the first statement against each table does not wait on HBase.
      *
-     * @param tableId Table ID
+     * @return Number of tables loaded
      */
-    public void invalidateRowsCache(long tableId) {
-        Verify.isValidId(tableId);
-        rowsCache.invalidate(tableId);
+    public int preload() {
+        final long generation = epochs.generation();
+        final Map<String, TableMetadata> tables = metadata.getAllTableMetadata();
+        for (Map.Entry<String, TableMetadata> entry : tables.entrySet()) {
+            final long tableId = entry.getValue().getTableId();
+            tableCache.put(entry.getKey(), new Entry<Long>(tableId, tableId, generation));
+            tableMetadataCache.put(tableId, new Entry<TableMetadata>(tableId, entry.getValue(), generation));
+        }
+        return tables.size();
     }
 
-
     /**
-     * Evict the index mapping from the cache for the specified table id
+     * Reload the metadata snapshot of a table after its definition changed.
+     * Readers see either the previous or the new snapshot, never a mix of both.
      *
      * @param tableId Table ID
      */
-    public void invalidateIndicesCache(long tableId) {
+    public void refreshTableMetadata(long tableId) {
         Verify.isValidId(tableId);
-        indicesCache.invalidate(tableId);
+        try {
+            final long generation = epochs.generation();
+            tableMetadataCache.put(tableId, new Entry<TableMetadata>(tableId,
+                    metadata.getTableMetadata(tableId), generation));
+        } catch (RuntimeException e) {
+            tableMetadataCache.invalidate(tableId);
+            throw e;
+        }
     }
 
-
     /**
-     * Evict the {@link TableSchema} from the cache for the specified table id
+     * Evict the metadata snapshot and index statistics of a table from the cache.
      *
      * @param tableId Table ID
      */
-    public void invalidateSchemaCache(long tableId) {
+    public void invalidateTableMetadata(long tableId) {
         Verify.isValidId(tableId);
-        schemaCache.invalidate(tableId);
+        tableMetadataCache.invalidate(tableId);
+        statisticsCache.invalidate(tableId);
     }
 
-
     /**
-     * Evict a table's columns cache.
+     * Evict the index statistics of a table from the cache after they were stored.
      *
      * @param tableId Table ID
      */
-    public void invalidateColumnsCache(long tableId) {
+    public void invalidateIndexStatistics(long tableId) {
         Verify.isValidId(tableId);
-        columnsCache.invalidate(tableId);
+        statisticsCache.invalidate(tableId);
     }
 
     /**
@@ -241,27 +261,84 @@ public class MetadataCache {
     }
 
     /**
-     * Evict a table's auto increment count from the cache.
-     *
-     * @param tableId Table ID
+     * Register this cache with the platform MBean server
      */
-    public void invalidateAutoIncCache(long tableId) {
-        Verify.isValidId(tableId);
-        autoIncCache.invalidate(tableId);
+    public void registerMBean() {
+        MBeans.register(this, "MetadataCache");
+    }
+
+    @Override
+    public void reportStatus(EngineStatus status) {
+        status.add("metadataCache", "tableIds", getTableIdCount())
+                .add("metadataCache", "tableIdHits", getTableIdHits())
+                .add("metadataCache", "tableIdMisses", getTableIdMisses())
+                .add("metadataCache", "tableMetadata", getTableMetadataCount())
+                .add("metadataCache", "tableMetadataHits", getTableMetadataHits())
+                .add("metadataCache", "tableMetadataMisses", getTableMetadataMisses())
+                .add("metadataCache", "tableMetadataEvictions", getTableMetadataEvictions())
+                .add("metadataCache", "indexStatistics", statisticsCache.size());
+    }
+
+    @Override
+    public long getTableIdCount() {
+        return tableCache.size();
+    }
+
+    @Override
+    public long getTableIdHits() {
+        return tableCache.stats().hitCount();
+    }
+
+    @Override
+    public long getTableIdMisses() {
+        return tableCache.stats().missCount();
+    }
+
+    @Override
+    public long getTableIdEvictions() {
+        return tableCache.stats().evictionCount();
+    }
+
+    @Override
+    public long getTableMetadataCount() {
+        return tableMetadataCache.size();
+    }
+
+    @Override
+    public long getTableMetadataHits() {
+        return tableMetadataCache.stats().hitCount();
+    }
+
+    @Override
+    public long getTableMetadataMisses() {
+        return tableMetadataCache.stats().missCount();
+    }
+
+    @Override
+    public long getTableMetadataEvictions() {
+        return tableMetadataCache.stats().evictionCount();
+    }
+
+    @Override
+    public long getTableMetadataLoadMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tableMetadataCache.stats().totalLoadTime());
     }
 
     /**
-     * Updates a table's auto increment value in cache.
-     *
-     * @param tableId Table ID
-     * @param value   New auto increment value
+     * Retrieve a value from the cache, reloading it if the table changed
+     * after the value was loaded
      */
-    public void updateAutoIncCache(long tableId, long value) {
-        Verify.isValidId(tableId);
-        autoIncCache.put(tableId, value);
+    private <K, V> V currentGet(LoadingCache<K, Entry<V>> cache, K key) {
+        while (true) {
+            final Entry<V> entry = cacheGet(cache, key);
+            if (epochs.isCurrent(entry.tableId, entry.generation)) {
+                return entry.value;
+            }
+            cache.asMap().remove(key, entry);
+        }
     }
 
-    private static <K, V> V cacheGet(LoadingCache<K, V> cache, K key) {
+    static <K, V> V cacheGet(LoadingCache<K, V> cache, K key) {
         try {
             return cache.get(key);
         }
@@ -270,4 +347,19 @@ public class MetadataCache {
             throw (RuntimeException) e.getCause();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Cached value together with the generation in which loading it started
+     */
+    private static final class Entry<V> {
+        private final long tableId;
+        private final V value;
+        private final long generation;
+
+        Entry(long tableId, V value, long generation) {
+            this.tableId = tableId;
+            this.value = value;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+/**
+ * Management interface of the {@link MetadataCache}.  Table IDs are cached by
+ * table name, and table metadata snapshots by table ID.
+ */
+public interface MetadataCacheMXBean {
+    /**
+     * @return Number of cached table IDs
+     */
+    long getTableIdCount();
+
+    /**
+     * @return Number of table ID lookups answered from the cache
+     */
+    long getTableIdHits();
+
+    /**
+     * @return Number of table ID lookups which read HBase
+     */
+    long getTableIdMisses();
+
+    /**
+     * @return Number of table IDs evicted to keep the cache within its size
+     */
+    long getTableIdEvictions();
+
+    /**
+     * @return Number of cached table metadata snapshots
+     */
+    long getTableMetadataCount();
+
+    /**
+     * @return Number of table metadata lookups answered from the cache
+     */
+    long getTableMetadataHits();
+
+    /**
+     * @return Number of table metadata lookups which read HBase
+     */
+    long getTableMetadataMisses();
+
+    /**
+     * @return Number of table metadata snapshots evicted to keep the cache within its size
+     */
+    long getTableMetadataEvictions();
+
+    /**
+     * @return Total time in milliseconds spent loading table metadata snapshots
+     */
+    long getTableMetadataLoadMillis();
+}
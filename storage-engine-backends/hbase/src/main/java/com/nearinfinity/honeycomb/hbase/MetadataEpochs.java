@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Detects changes to table definitions made by other MySQL servers, so that
+ * cached metadata can be kept indefinitely and still be discarded once it is
+ * stale.  Every change to a table's name, indices, index statistics or
+ * existence, and every reset of its auto increment counter, increments the
+ * table's epoch in HBase, and the epochs of all
+ * tables are polled with a single get.
+ * <p/>
+ * Each completed poll advances the generation.  A table whose epoch differs
+ * from the previous poll is marked as changed at the new generation, and
+ * metadata of that table loaded before the generation started may be stale.
+ * Metadata made stale by another server's change is therefore discarded at most
+ * one poll interval after the change.  A table whose epoch disappears is no
+ * longer tracked; instead, metadata of every untracked table loaded before
+ * the disappearance may be stale.  With a poll interval of zero no polls
+ * are made and cached metadata is never considered stale.
+ */
+@ThreadSafe
+public class MetadataEpochs {
+    private static final Logger logger = Logger.getLogger(MetadataEpochs.class);
+    private final ConcurrentMap<Long, Long> changedAt = Maps.newConcurrentMap();
+    private final HBaseMetadata metadata;
+    private final long pollIntervalMillis;
+    private volatile long generation;
+    private volatile long removedAt;
+    private Map<Long, Long> epochs = ImmutableMap.of();
+    private ScheduledExecutorService timer;
+
+    public MetadataEpochs(final HBaseMetadata metadata, final Configuration configuration) {
+        this(metadata, configuration.getLong(ConfigConstants.METADATA_EPOCH_POLL_INTERVAL,
+                ConfigConstants.DEFAULT_METADATA_EPOCH_POLL_INTERVAL));
+    }
+
+    MetadataEpochs(final HBaseMetadata metadata, final long pollIntervalMillis) {
+        checkArgument(pollIntervalMillis >= 0, "Metadata epoch poll interval must be non-negative");
+        this.metadata = checkNotNull(metadata);
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    /**
+     * Poll the epochs once and then periodically.  Does nothing if polling is
+     * disabled.
+     */
+    public synchronized void start() {
+        if (timer != null || pollIntervalMillis == 0) {
+            return;
+        }
+        poll();
+        timer = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("honeycomb-metadata-epochs").build());
+        timer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    poll();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to poll metadata epochs", e);
+                }
+            }
+        }, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Read the epochs of all tables and mark the tables whose epoch changed
+     * since the previous poll.  Tables whose epoch disappeared are forgotten.
+     */
+    synchronized void poll() {
+        final Map<Long, Long> current = metadata.getEpochs();
+        final long next = generation + 1;
+        for (Map.Entry<Long, Long> entry : current.entrySet()) {
+            if (!Objects.equal(epochs.get(entry.getKey()), entry.getValue())) {
+                changedAt.put(entry.getKey(), next);
+            }
+        }
+        if (changedAt.keySet().retainAll(current.keySet())) {
+            removedAt = next;
+        }
+        epochs = current;
+        generation = next;
+    }
+
+    /**
+     * Retrieve the number of completed polls.  Record it before loading
+     * metadata and pass it to {@link #isCurrent} when reading it back.
+     *
+     * @return Current generation
+     */
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * Indicates whether metadata of a table loaded during a generation is
+     * still current
+     *
+     * @param tableId    Table ID
+     * @param generation Generation in which loading the metadata started
+     * @return False if the table changed after the metadata may have been read
+     */
+    public boolean isCurrent(long tableId, long generation) {
+        final Long changed = changedAt.get(tableId);
+        return generation >= (changed == null ? removedAt : changed);
+    }
+
+    /**
+     * Retrieve the number of tables whose last change is remembered
+     *
+     * @return Number of tables
+     */
+    int trackedTables() {
+        return changedAt.size();
+    }
+
+    /**
+     * Stop polling
+     */
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import com.nearinfinity.honeycomb.hbase.TableWritePlan.IndexPlan;
 import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
 import com.nearinfinity.honeycomb.hbase.rowkey.DataRowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
@@ -33,14 +34,12 @@ import com.nearinfinity.honeycomb.hbase.rowkey.RowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
 import com.nearinfinity.honeycomb.mysql.Row;
 import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
-import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
 import com.nearinfinity.honeycomb.util.Verify;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Put;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.UUID;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -77,7 +76,7 @@ public class MutationFactory {
      * @return The list of put mutations
      */
     public List<Put> insert(long tableId, final Row row) {
-        return insert(tableId, row, store.getSchema(tableId).getIndices());
+        return insert(tableId, row, store.getWritePlan(tableId).getIndices());
     }
 
     /**
@@ -90,17 +89,7 @@ public class MutationFactory {
      */
     public List<Put> insert(long tableId, final Row row,
                             final Collection<IndexSchema> indices) {
-        checkNotNull(row);
-        // tableId, indices checked by called methods
-
-        final byte[] serializedRow = row.serialize();
-        final UUID uuid = row.getUUID();
-        final ImmutableList.Builder<Put> puts = ImmutableList.builder();
-
-        puts.add(emptyQualifierPut(new DataRowKey(tableId, uuid), serializedRow));
-        puts.addAll(insertIndices(tableId, row, indices));
-
-        return puts.build();
+        return insert(tableId, row, planIndices(tableId, indices));
     }
 
     /**
@@ -114,16 +103,7 @@ public class MutationFactory {
     public List<Put> insertIndices(long tableId, final Row row,
                                    final Collection<IndexSchema> indices) {
         checkNotNull(row);
-        final byte[] serializedRow = row.serialize();
-        final ImmutableList.Builder<Put> puts = ImmutableList.builder();
-        doToIndices(tableId, row, indices, new IndexAction() {
-            @Override
-            public void execute(IndexRowKeyBuilder builder) {
-                puts.add(emptyQualifierPut(builder.withSortOrder(SortOrder.Ascending).build(), serializedRow));
-                puts.add(emptyQualifierPut(builder.withSortOrder(SortOrder.Descending).build(), serializedRow));
-            }
-        });
-        return puts.build();
+        return insertIndices(tableId, row, row.serialize(), planIndices(tableId, indices));
     }
 
     /**
@@ -148,9 +128,9 @@ public class MutationFactory {
      */
     public List<Delete> deleteIndices(long tableId, final Row row) {
         Verify.isValidId(tableId);
+        checkNotNull(row);
 
-        final Collection<IndexSchema> indices = store.getSchema(tableId).getIndices();
-        return deleteIndices(tableId, row, indices);
+        return deleteIndices(tableId, row, store.getWritePlan(tableId).getIndices());
     }
 
     /**
@@ -166,7 +146,39 @@ public class MutationFactory {
         Verify.isValidId(tableId);
         checkNotNull(row);
 
-        final List<Delete> deletes = Lists.newLinkedList();
+        return deleteIndices(tableId, row, planIndices(tableId, indices));
+    }
+
+    private List<Put> insert(long tableId, final Row row,
+                             final List<IndexPlan> indices) {
+        checkNotNull(row);
+        // tableId checked by the write plan lookup
+
+        final byte[] serializedRow = row.serialize();
+        final ImmutableList.Builder<Put> puts = ImmutableList.builder();
+
+        puts.add(emptyQualifierPut(new DataRowKey(tableId, row.getUUID()), serializedRow));
+        puts.addAll(insertIndices(tableId, row, serializedRow, indices));
+
+        return puts.build();
+    }
+
+    private List<Put> insertIndices(long tableId, final Row row, final byte[] serializedRow,
+                                    final List<IndexPlan> indices) {
+        final ImmutableList.Builder<Put> puts = ImmutableList.builder();
+        doToIndices(tableId, row, indices, new IndexAction() {
+            @Override
+            public void execute(IndexRowKeyBuilder builder) {
+                puts.add(emptyQualifierPut(builder.withSortOrder(SortOrder.Ascending).build(), serializedRow));
+                puts.add(emptyQualifierPut(builder.withSortOrder(SortOrder.Descending).build(), serializedRow));
+            }
+        });
+        return puts.build();
+    }
+
+    private List<Delete> deleteIndices(long tableId, final Row row,
+                                       final List<IndexPlan> indices) {
+        final List<Delete> deletes = Lists.newArrayListWithCapacity(2 * indices.size() + 1);
         doToIndices(tableId, row, indices, new IndexAction() {
             @Override
             public void execute(IndexRowKeyBuilder builder) {
@@ -177,6 +189,16 @@ public class MutationFactory {
         return deletes;
     }
 
+    private List<IndexPlan> planIndices(long tableId,
+                                                       final Collection<IndexSchema> indices) {
+        final TableWritePlan plan = store.getWritePlan(tableId);
+        final List<IndexPlan> indexPlans = Lists.newArrayListWithCapacity(indices.size());
+        for (IndexSchema index : indices) {
+            indexPlans.add(plan.getIndex(index.getIndexName()));
+        }
+        return indexPlans;
+    }
+
     private Put emptyQualifierPut(final RowKey rowKey,
                                          final byte[] serializedRow) {
         return new Put(rowKey.encode()).add(columnFamily,
@@ -185,17 +207,15 @@ public class MutationFactory {
 
     private void doToIndices(long tableId,
                              final Row row,
-                             final Collection<IndexSchema> indices,
+                             final List<IndexPlan> indices,
                              final IndexAction action) {
 
-        for (IndexSchema index : indices) {
-            long indexId = store.getIndexId(tableId, index.getIndexName());
-            TableSchema schema = store.getSchema(tableId);
-
+        for (IndexPlan index : indices) {
+            // Values are encoded once and reused for both sort orders
             IndexRowKeyBuilder builder = IndexRowKeyBuilder
-                    .newBuilder(tableId, indexId)
+                    .newBuilder(tableId, index.getIndexId())
                     .withUUID(row.getUUID())
-                    .withRow(row, index.getIndexName(), schema);
+                    .withEncodedRecords(index.encode(row));
             action.execute(builder);
         }
     }
@@ -203,4 +223,4 @@ public class MutationFactory {
     private interface IndexAction {
         public void execute(IndexRowKeyBuilder builder);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.inject.Provider;
+import com.nearinfinity.honeycomb.exceptions.RuntimeIOException;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Estimates the number of index rows in a range for the optimizer, which asks
+ * for every candidate range of every query, so an estimate reads at most a
+ * few hundred row keys and takes a few milliseconds.
+ * <p/>
+ * The row keys of the range are read with a key only scan until the range
+ * ends, which gives an exact count of small ranges, or until the configured
+ * number of rows or time is reached.  A larger range is estimated from the
+ * histogram stored by ANALYZE TABLE if the index has one, and otherwise
+ * extrapolated: the rows of the region being read are interpolated from the
+ * position of the last key read between the first key read and the end of the
+ * region, and every later region of the range is assumed to hold an even
+ * share of the index's rows.  Region boundaries and estimates are cached for a short time.
+ */
+@ThreadSafe
+public class RangeEstimator {
+    private static final int ESTIMATE_CACHE_SIZE = 10000;
+    private static final int INTERPOLATED_BYTES = 8;
+    private static final double MIN_FRACTION = 1e-9;
+    private static final byte[] EMPTY_QUALIFIER = new byte[0];
+    private final Provider<HTableInterface> provider;
+    private final byte[] columnFamily;
+    private final int sampleRows;
+    private final long maxTimeNanos;
+    private final Supplier<List<byte[]>> regionStartKeys;
+    private final Cache<Range, Long> estimates;
+
+    public RangeEstimator(final Provider<HTableInterface> provider, final Configuration configuration) {
+        this(provider, configuration.get(ConfigConstants.COLUMN_FAMILY),
+                configuration.getInt(ConfigConstants.RANGE_ESTIMATE_SAMPLE_ROWS,
+                        ConfigConstants.DEFAULT_RANGE_ESTIMATE_SAMPLE_ROWS),
+                configuration.getLong(ConfigConstants.RANGE_ESTIMATE_MAX_TIME,
+                        ConfigConstants.DEFAULT_RANGE_ESTIMATE_MAX_TIME),
+                configuration.getLong(ConfigConstants.RANGE_ESTIMATE_CACHE_TIME,
+                        ConfigConstants.DEFAULT_RANGE_ESTIMATE_CACHE_TIME),
+                new Supplier<List<byte[]>>() {
+                    @Override
+                    public List<byte[]> get() {
+                        return loadRegionStartKeys(provider);
+                    }
+                });
+    }
+
+    RangeEstimator(final Provider<HTableInterface> provider, final String columnFamily, final int sampleRows,
+                   final long maxTime, final long cacheTime, final Supplier<List<byte[]>> regionStartKeys) {
+        checkArgument(sampleRows > 0, "Range estimate sample rows must be positive: %s", sampleRows);
+        checkArgument(maxTime >= 0, "Range estimate max time must not be negative: %s", maxTime);
+        checkArgument(cacheTime >= 0, "Range estimate cache time must not be negative: %s", cacheTime);
+        checkNotNull(regionStartKeys);
+        this.provider = checkNotNull(provider);
+        this.columnFamily = columnFamily.getBytes();
+        this.sampleRows = sampleRows;
+        this.maxTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxTime);
+        this.regionStartKeys = cacheTime > 0
+                ? Suppliers.memoizeWithExpiration(regionStartKeys, cacheTime, TimeUnit.MILLISECONDS)
+                : regionStartKeys;
+        this.estimates = CacheBuilder
+                .newBuilder()
+                .maximumSize(ESTIMATE_CACHE_SIZE)
+                .expireAfterWrite(cacheTime, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Estimate the number of ascending index rows in a range of row keys
+     *
+     * @param start      First row key of the range
+     * @param end        Row key after the last row of the range
+     * @param indexStart First row key of the index
+     * @param indexEnd   Row key after the last row of the index
+     * @param indexRows  Number of rows in the index
+     * @param statistics Statistics stored for the index by ANALYZE TABLE, or null
+     * @return Estimated number of rows in the range
+     */
+    public long estimate(byte[] start, byte[] end, byte[] indexStart, byte[] indexEnd,
+                         long indexRows, IndexStatistics statistics) {
+        if (Bytes.compareTo(start, end) >= 0) {
+            return 0;
+        }
+
+        final Range range = new Range(start, end);
+        final Long cached = estimates.getIfPresent(range);
+        if (cached != null) {
+            return cached;
+        }
+
+        final long estimate = computeEstimate(start, end, indexStart, indexEnd, indexRows, statistics);
+        estimates.put(range, estimate);
+        return estimate;
+    }
+
+    private long computeEstimate(byte[] start, byte[] end, byte[] indexStart, byte[] indexEnd,
+                                 long indexRows, IndexStatistics statistics) {
+        final List<byte[]> bounds = splitAtRegions(start, end);
+        final Scan scan = new Scan(start, end)
+                .addColumn(columnFamily, EMPTY_QUALIFIER)
+                .setFilter(new FilterList(
+                        new FirstKeyOnlyFilter(),
+                        new KeyOnlyFilter()));
+        scan.setCaching(sampleRows);
+        scan.setCacheBlocks(false);
+
+        final long deadline = System.nanoTime() + maxTimeNanos;
+        long rows = 0;
+        long regionRows = 0;
+        int region = 0;
+        byte[] regionFirst = null;
+        byte[] last = null;
+        boolean complete = true;
+        final HTableInterface hTable = provider.get();
+        try {
+            final ResultScanner scanner = HBaseOperations.getScanner(hTable, scan);
+            try {
+                for (Result result : scanner) {
+                    last = result.getRow();
+                    while (region + 2 < bounds.size() && Bytes.compareTo(last, bounds.get(region + 1)) >= 0) {
+                        region++;
+                        regionRows = 0;
+                    }
+                    if (regionRows == 0) {
+                        regionFirst = last;
+                    }
+                    rows++;
+                    regionRows++;
+                    if (rows >= sampleRows || System.nanoTime() > deadline) {
+                        complete = false;
+                        break;
+                    }
+                }
+            } finally {
+                scanner.close();
+            }
+        } finally {
+            HBaseOperations.closeTable(hTable);
+        }
+
+        if (complete) {
+            return rows;
+        }
+
+        if (statistics != null) {
+            final long histogramEstimate = statistics.estimateRows(start, end);
+            if (histogramEstimate >= 0) {
+                return Math.max(rows, histogramEstimate);
+            }
+        }
+
+        // Interpolate from the first key read in the region rather than the
+        // start of the range, which may lie well before the first index key
+        double estimate = rows - regionRows
+                + regionRows / fraction(regionFirst, bounds.get(region + 1), last);
+        if (region + 2 < bounds.size()) {
+            final List<byte[]> indexBounds = splitAtRegions(indexStart, indexEnd);
+            final double regionShare = (double) indexRows / (indexBounds.size() - 1);
+            // Regions wholly inside the range, then the part of the last one,
+            // counted as half a region if it extends past the end of the index
+            final byte[] lastRegionStart = bounds.get(bounds.size() - 2);
+            final byte[] lastRegionEnd = regionEnd(lastRegionStart, indexEnd);
+            estimate += regionShare * (bounds.size() - region - 3);
+            estimate += regionShare * (lastRegionEnd == null ? 0.5 : fraction(lastRegionStart, lastRegionEnd, end));
+        }
+
+        return Math.max(rows, Math.round(Math.min(estimate, Math.max(rows, indexRows))));
+    }
+
+    /**
+     * Split a range of row keys at the cached start keys of the regions inside it
+     */
+    private List<byte[]> splitAtRegions(byte[] start, byte[] end) {
+        final List<byte[]> bounds = Lists.newArrayList();
+        bounds.add(start);
+        for (byte[] regionStart : regionStartKeys.get()) {
+            if (Bytes.compareTo(regionStart, start) > 0 && Bytes.compareTo(regionStart, end) < 0) {
+                bounds.add(regionStart);
+            }
+        }
+        bounds.add(end);
+        return bounds;
+    }
+
+    /**
+     * Find the start key of the region following the region starting at a row
+     * key, or null if that region extends past a limit
+     */
+    private byte[] regionEnd(byte[] regionStart, byte[] limit) {
+        byte[] end = null;
+        for (byte[] startKey : regionStartKeys.get()) {
+            if (Bytes.compareTo(startKey, regionStart) > 0 && Bytes.compareTo(startKey, limit) < 0
+                    && (end == null || Bytes.compareTo(startKey, end) < 0)) {
+                end = startKey;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Interpolate the position of a row key between two row keys from the
+     * bytes following their common prefix
+     *
+     * @return Fraction of the distance from low to high at which the key lies
+     */
+    static double fraction(byte[] low, byte[] high, byte[] key) {
+        int prefix = 0;
+        while (prefix < low.length && prefix < high.length && low[prefix] == high[prefix]) {
+            prefix++;
+        }
+
+        final double lowPosition = position(low, prefix);
+        final double highPosition = position(high, prefix);
+        if (highPosition <= lowPosition) {
+            return 1;
+        }
+        final double fraction = (position(key, prefix) - lowPosition) / (highPosition - lowPosition);
+        return Math.min(1, Math.max(MIN_FRACTION, fraction));
+    }
+
+    private static double position(byte[] key, int offset) {
+        double position = 0;
+        double scale = 1;
+        for (int i = offset; i < offset + INTERPOLATED_BYTES; i++) {
+            scale /= 256;
+            position += (i < key.length ? key[i] & 0xFF : 0) * scale;
+        }
+        return position;
+    }
+
+    private static List<byte[]> loadRegionStartKeys(Provider<HTableInterface> provider) {
+        final HTableInterface hTable = provider.get();
+        try {
+            if (hTable instanceof HTable) {
+                return ImmutableList.copyOf(((HTable) hTable).getStartKeys());
+            }
+            return ImmutableList.of();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        } finally {
+            HBaseOperations.closeTable(hTable);
+        }
+    }
+
+    /**
+     * Row key range of a cached estimate
+     */
+    private static final class Range {
+        private final byte[] start;
+        private final byte[] end;
+
+        Range(byte[] start, byte[] end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Range range = (Range) o;
+            return Arrays.equals(start, range.start) && Arrays.equals(end, range.end);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(start) + Arrays.hashCode(end);
+        }
+    }
+}
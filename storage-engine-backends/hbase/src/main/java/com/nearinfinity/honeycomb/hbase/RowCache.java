@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.nearinfinity.honeycomb.util.Verify;
+import net.jcip.annotations.ThreadSafe;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches serialized rows by table ID and {@link UUID} to avoid repeated HBase
+ * lookups when MySQL re-reads rows by position.  The cache is shared by all
+ * tables, bounded by the total number of serialized bytes it holds, and can
+ * optionally store rows in direct (off-heap) buffers.  A cache with a size of
+ * zero is disabled and all operations on it are no-ops.
+ * <p/>
+ * Rows are only cached as read from HBase, and are invalidated once a change
+ * to them has been written to HBase.  A row read before an invalidation is
+ * not kept, even if it is put after the invalidation, see {@link #stamp()}.
+ * Changes made through other MySQL servers never invalidate the cache, so it
+ * must only be enabled when a single server writes to the HBase table.
+ */
+@ThreadSafe
+public class RowCache {
+    /**
+     * Approximate per entry overhead of the key, entry and buffer objects
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+    private final Cache<Key, Object> cache;
+    private final boolean offHeap;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Creates a row cache
+     *
+     * @param maxBytes Maximum number of serialized row bytes to hold, 0 disables the cache
+     * @param offHeap  Store rows in direct buffers outside of the Java heap
+     */
+    public RowCache(final long maxBytes, final boolean offHeap) {
+        checkArgument(maxBytes >= 0, "Row cache size must be non-negative: %s", maxBytes);
+        this.offHeap = offHeap;
+
+        if (maxBytes == 0) {
+            cache = null;
+        } else {
+            cache = CacheBuilder
+                    .newBuilder()
+                    .maximumWeight(maxBytes)
+                    .weigher(new Weigher<Key, Object>() {
+                        @Override
+                        public int weigh(Key key, Object value) {
+                            return ENTRY_OVERHEAD + valueLength(value);
+                        }
+                    })
+                    .build();
+        }
+    }
+
+    /**
+     * Indicates whether the cache will hold any rows
+     *
+     * @return True if rows can be cached
+     */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Retrieve a serialized row from the cache
+     *
+     * @param tableId Table ID
+     * @param uuid    Row UUID
+     * @return The serialized row, or null if it is not cached
+     */
+    public byte[] get(final long tableId, final UUID uuid) {
+        if (cache == null) {
+            return null;
+        }
+
+        Object value = cache.getIfPresent(new Key(tableId, uuid));
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+
+        ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+        byte[] row = new byte[buffer.remaining()];
+        buffer.get(row);
+        return row;
+    }
+
+    /**
+     * Retrieve the stamp to pass to {@link #put} for a row about to be read
+     * from HBase
+     *
+     * @return Number of invalidations so far
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Add or replace a serialized row in the cache, unless any row was
+     * invalidated since the row was read.  The row is put before the
+     * invalidations are checked, and invalidations are counted before rows
+     * are evicted, so an invalidation racing with the put either is seen by
+     * the check or evicts the row itself.
+     *
+     * @param tableId       Table ID
+     * @param uuid          Row UUID
+     * @param serializedRow The serialized row
+     * @param stamp         {@link #stamp()} taken before the row was read
+     */
+    public void put(final long tableId, final UUID uuid, final byte[] serializedRow, final long stamp) {
+        if (cache == null) {
+            return;
+        }
+        checkNotNull(serializedRow);
+
+        final Key key = new Key(tableId, uuid);
+        if (offHeap) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(serializedRow.length);
+            buffer.put(serializedRow);
+            buffer.flip();
+            cache.put(key, buffer);
+        } else {
+            cache.put(key, serializedRow);
+        }
+        if (invalidations.get() != stamp) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Evict a row from the cache
+     *
+     * @param tableId Table ID
+     * @param uuid    Row UUID
+     */
+    public void invalidate(final long tableId, final UUID uuid) {
+        if (cache == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        cache.invalidate(new Key(tableId, uuid));
+    }
+
+    /**
+     * Evict all rows of a table from the cache
+     *
+     * @param tableId Table ID
+     */
+    public void invalidateTable(final long tableId) {
+        if (cache == null) {
+            return;
+        }
+
+        invalidations.incrementAndGet();
+        Iterator<Key> keys = cache.asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().tableId == tableId) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Retrieve the number of rows held in the cache
+     *
+     * @return Number of cached rows
+     */
+    public long size() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    private static int valueLength(Object value) {
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        return ((ByteBuffer) value).capacity();
+    }
+
+    private static final class Key {
+        private final long tableId;
+        private final UUID uuid;
+
+        Key(long tableId, UUID uuid) {
+            Verify.isValidId(tableId);
+            this.tableId = tableId;
+            this.uuid = checkNotNull(uuid);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return tableId == other.tableId && uuid.equals(other.uuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(tableId, uuid);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import com.nearinfinity.honeycomb.util.Verify;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Accumulates changes to the row counts of tables in memory and writes them to
+ * HBase with a single increment per table, either when the accumulated change
+ * of a table reaches the flush threshold or when the flush timer fires.
+ * Changes are added to one of several counters chosen by the calling thread,
+ * so concurrent writers to a table do not contend on a single counter.
+ * Increments are sent to HBase without holding the lock readers of the row
+ * count wait on, and a writer reaching the threshold while the table is
+ * already being flushed leaves its change to the next flush instead of
+ * waiting.
+ * <p/>
+ * Row counts read from the accumulator include the changes made through this
+ * server, but only the flushed changes of other servers.  Accumulated changes
+ * are flushed when the JVM shuts down; changes of a server which stops without
+ * shutting down its JVM are lost, which at most affects the row count by the
+ * changes of one flush interval.
+ */
+@ThreadSafe
+public class RowCountAccumulator {
+    private static final Logger logger = Logger.getLogger(RowCountAccumulator.class);
+    private static final int STRIPES = 16;
+    /**
+     * Distance between counters in the array, keeps each on its own cache line
+     */
+    private static final int PADDING = 8;
+    private final ConcurrentMap<Long, TableCount> tables = Maps.newConcurrentMap();
+    private final HBaseMetadata metadata;
+    private final long flushIntervalMillis;
+    private final long flushThreshold;
+    private ScheduledExecutorService timer;
+
+    public RowCountAccumulator(final HBaseMetadata metadata, final Configuration configuration) {
+        this.metadata = checkNotNull(metadata);
+        flushIntervalMillis = configuration.getLong(ConfigConstants.ROW_COUNT_FLUSH_INTERVAL,
+                ConfigConstants.DEFAULT_ROW_COUNT_FLUSH_INTERVAL);
+        flushThreshold = configuration.getLong(ConfigConstants.ROW_COUNT_FLUSH_THRESHOLD,
+                ConfigConstants.DEFAULT_ROW_COUNT_FLUSH_THRESHOLD);
+        checkArgument(flushIntervalMillis >= 0, "Row count flush interval must be non-negative");
+        checkArgument(flushThreshold > 0, "Row count flush threshold must be positive");
+    }
+
+    /**
+     * Start the flush timer and flush all accumulated changes when the JVM
+     * shuts down
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("honeycomb-row-counts").build());
+        if (flushIntervalMillis > 0) {
+            timer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    flushAll();
+                }
+            }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread("honeycomb-row-counts-shutdown") {
+            @Override
+            public void run() {
+                flushAll();
+            }
+        });
+    }
+
+    /**
+     * Add a change to the row count of a table, flushing the table's
+     * accumulated changes if they reach the flush threshold
+     *
+     * @param tableId Table ID
+     * @param amount  Change in the number of rows
+     * @return Row count of the table including the change
+     */
+    public long add(long tableId, long amount) {
+        TableCount count = getCount(tableId);
+        int stripe = (int) (Thread.currentThread().getId() % STRIPES);
+        count.deltas.addAndGet(stripe * PADDING, amount);
+
+        if (Math.abs(count.pending()) >= flushThreshold && count.flushLock.tryLock()) {
+            try {
+                flush(tableId, count);
+            } finally {
+                count.flushLock.unlock();
+            }
+        }
+        return get(tableId);
+    }
+
+    /**
+     * Retrieve the row count of a table including changes not yet flushed
+     *
+     * @param tableId Table ID
+     * @return Row count
+     */
+    public long get(long tableId) {
+        TableCount count = getCount(tableId);
+        count.load(tableId);
+        count.lock.readLock().lock();
+        try {
+            return count.persisted + count.inFlight + count.pending();
+        } finally {
+            count.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flush the accumulated changes of a table and read its row count from
+     * HBase, which includes the flushed changes of all servers
+     *
+     * @param tableId Table ID
+     * @return Row count
+     */
+    public long getExact(long tableId) {
+        TableCount count = getCount(tableId);
+        count.flushLock.lock();
+        try {
+            flush(tableId, count);
+            long rowCount = metadata.getRowCount(tableId);
+            count.lock.writeLock().lock();
+            try {
+                count.persisted = rowCount;
+                return rowCount + count.pending();
+            } finally {
+                count.lock.writeLock().unlock();
+            }
+        } finally {
+            count.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Reset the row count of a table to zero, discarding accumulated changes
+     *
+     * @param tableId Table ID
+     */
+    public void truncate(long tableId) {
+        TableCount count = getCount(tableId);
+        count.flushLock.lock();
+        try {
+            count.lock.writeLock().lock();
+            try {
+                count.drain();
+                metadata.truncateRowCount(tableId);
+                count.persisted = 0L;
+            } finally {
+                count.lock.writeLock().unlock();
+            }
+        } finally {
+            count.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Discard the accumulated changes of a deleted table
+     *
+     * @param tableId Table ID
+     */
+    public void remove(long tableId) {
+        tables.remove(tableId);
+    }
+
+    /**
+     * Write the accumulated changes of all tables to HBase.  Failures are
+     * logged and the changes kept for the next flush.
+     */
+    public void flushAll() {
+        for (Map.Entry<Long, TableCount> entry : tables.entrySet()) {
+            final TableCount count = entry.getValue();
+            count.flushLock.lock();
+            try {
+                flush(entry.getKey(), count);
+            } catch (RuntimeException e) {
+                logger.warn("Could not flush the row count of table " + entry.getKey(), e);
+            } finally {
+                count.flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Stop the flush timer and write the accumulated changes of all tables
+     */
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        flushAll();
+    }
+
+    /**
+     * Write the accumulated changes of a table to HBase.  Called while
+     * holding the table's flush lock.  The drained changes are counted as in
+     * flight while the increment is sent, so readers are only blocked while
+     * the counts are moved, not for the round trip.
+     */
+    private void flush(long tableId, TableCount count) {
+        count.load(tableId);
+        final long delta;
+        count.lock.writeLock().lock();
+        try {
+            delta = count.drain();
+            count.inFlight = delta;
+        } finally {
+            count.lock.writeLock().unlock();
+        }
+        if (delta == 0) {
+            return;
+        }
+
+        Long persisted = null;
+        try {
+            persisted = metadata.incrementRowCount(tableId, delta);
+        } finally {
+            count.lock.writeLock().lock();
+            try {
+                if (persisted == null) {
+                    count.deltas.addAndGet(0, delta);
+                } else {
+                    count.persisted = persisted;
+                }
+                count.inFlight = 0;
+            } finally {
+                count.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private TableCount getCount(long tableId) {
+        Verify.isValidId(tableId);
+        TableCount count = tables.get(tableId);
+        if (count == null) {
+            TableCount created = new TableCount();
+            count = tables.putIfAbsent(tableId, created);
+            if (count == null) {
+                count = created;
+            }
+        }
+        return count;
+    }
+
+    private final class TableCount {
+        private final AtomicLongArray deltas = new AtomicLongArray(STRIPES * PADDING);
+        /**
+         * Held by the flush of the table, so only one increment of the table
+         * is in flight at a time
+         */
+        private final Lock flushLock = new ReentrantLock();
+        /**
+         * Writers of the persisted row count and the changes in flight hold
+         * the write lock, so readers never see a change missing from the
+         * persisted count, the changes in flight and the accumulated changes
+         */
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile Long persisted;
+        /**
+         * Changes drained by the flush in progress, guarded by the lock
+         */
+        private long inFlight;
+
+        /**
+         * Loads the persisted row count the first time.  Takes the flush lock,
+         * so the loaded count never already includes a change still in flight.
+         */
+        void load(long tableId) {
+            if (persisted != null) {
+                return;
+            }
+            flushLock.lock();
+            try {
+                if (persisted == null) {
+                    persisted = metadata.getRowCount(tableId);
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+
+        long pending() {
+            long sum = 0;
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                sum += deltas.get(stripe * PADDING);
+            }
+            return sum;
+        }
+
+        long drain() {
+            long sum = 0;
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                sum += deltas.getAndSet(stripe * PADDING, 0);
+            }
+            return sum;
+        }
+    }
+}
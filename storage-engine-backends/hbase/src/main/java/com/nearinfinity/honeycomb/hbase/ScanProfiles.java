@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.Scan;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Chooses how rows are fetched from HBase for each kind of scan.  Each
+ * {@link Profile} has an initial number of rows fetched per RPC, a maximum it
+ * may grow to while the scan continues, and whether the scanned blocks should
+ * be kept in the region server block cache.  Every setting can be overridden
+ * in the adapter configuration, e.g. <code>tableScanCaching</code>,
+ * <code>tableScanMaxCaching</code> and <code>tableScanCacheBlocks</code>.
+ * If <code>hbase.client.scanner.caching</code> is raised above its HBase
+ * default it replaces the initial caching of every profile but the unique
+ * lookup, which never returns more than one row.
+ */
+public class ScanProfiles {
+    /**
+     * The kinds of scan performed by {@link HBaseTable}
+     */
+    public enum Profile {
+        /**
+         * Lookup of a complete key in a unique index, which matches at most one row
+         */
+        UNIQUE_LOOKUP("uniqueLookup", 2, 2, true),
+        /**
+         * Lookup of every row matching a key in an index
+         */
+        EXACT_LOOKUP("exactLookup", 10, 1000, true),
+        /**
+         * Scan of an index from its start, its end or a key, often abandoned after a few rows
+         */
+        INDEX_SCAN("indexScan", 10, 1000, true),
+        /**
+         * Scan of every row in a table
+         */
+        TABLE_SCAN("tableScan", 1000, 1000, false);
+
+        private final String name;
+        private final int defaultCaching;
+        private final int defaultMaxCaching;
+        private final boolean defaultCacheBlocks;
+
+        Profile(String name, int defaultCaching, int defaultMaxCaching, boolean defaultCacheBlocks) {
+            this.name = name;
+            this.defaultCaching = defaultCaching;
+            this.defaultMaxCaching = defaultMaxCaching;
+            this.defaultCacheBlocks = defaultCacheBlocks;
+        }
+
+        /**
+         * Retrieve the name used for this profile in the adapter configuration
+         *
+         * @return Profile name
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Map<Profile, Settings> settings = new EnumMap<Profile, Settings>(Profile.class);
+
+    /**
+     * Creates the scan profiles, applying any overrides found in the configuration
+     *
+     * @param configuration HBase configuration
+     */
+    public ScanProfiles(final Configuration configuration) {
+        checkNotNull(configuration);
+        int scannerCaching = configuration.getInt(ConfigConstants.SCANNER_CACHING,
+                ConfigConstants.DEFAULT_SCANNER_CACHING);
+        for (Profile profile : Profile.values()) {
+            String prefix = ConfigConstants.SCAN_PROFILE_NAMESPACE + profile.getName();
+            int defaultCaching = scannerCaching > ConfigConstants.DEFAULT_SCANNER_CACHING
+                    && profile != Profile.UNIQUE_LOOKUP ? scannerCaching : profile.defaultCaching;
+            int caching = configuration.getInt(prefix + ConfigConstants.SCAN_CACHING_SUFFIX, defaultCaching);
+            int maxCaching = configuration.getInt(prefix + ConfigConstants.SCAN_MAX_CACHING_SUFFIX,
+                    Math.max(caching, profile.defaultMaxCaching));
+            boolean cacheBlocks = configuration.getBoolean(prefix + ConfigConstants.SCAN_CACHE_BLOCKS_SUFFIX,
+                    profile.defaultCacheBlocks);
+
+            checkArgument(caching > 0, "%s must be positive", prefix + ConfigConstants.SCAN_CACHING_SUFFIX);
+            checkArgument(maxCaching >= caching, "%s must be at least %s", prefix + ConfigConstants.SCAN_MAX_CACHING_SUFFIX,
+                    caching);
+            settings.put(profile, new Settings(caching, maxCaching, cacheBlocks));
+        }
+    }
+
+    /**
+     * Create a scan over [start, end) configured for a profile
+     *
+     * @param profile      Scan profile
+     * @param start        Inclusive start row
+     * @param end          Exclusive end row
+     * @param expectedRows Number of rows the scan may return, used to avoid
+     *                     over-fetching from small tables.  Negative if unknown.
+     * @return Configured scan
+     */
+    public Scan createScan(Profile profile, byte[] start, byte[] end, long expectedRows) {
+        Settings profileSettings = settings.get(checkNotNull(profile));
+        int caching = profileSettings.caching;
+        if (expectedRows >= 0 && expectedRows < caching) {
+            caching = (int) expectedRows + 1;
+        }
+
+        Scan scan = new Scan(start, end);
+        scan.setCaching(caching);
+        scan.setCacheBlocks(profileSettings.cacheBlocks);
+        return scan;
+    }
+
+    /**
+     * Retrieve the number of rows per RPC a scan of a profile may grow to
+     *
+     * @param profile Scan profile
+     * @return Maximum rows fetched per RPC
+     */
+    public int getMaxCaching(Profile profile) {
+        return settings.get(checkNotNull(profile)).maxCaching;
+    }
+
+    private static final class Settings {
+        private final int caching;
+        private final int maxCaching;
+        private final boolean cacheBlocks;
+
+        Settings(int caching, int maxCaching, boolean cacheBlocks) {
+            this.caching = caching;
+            this.maxCaching = maxCaching;
+            this.cacheBlocks = cacheBlocks;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Finds the most frequent items of a stream with the Space-Saving algorithm,
+ * using a fixed number of counters.  An item which is not counted replaces
+ * the item with the smallest count and inherits that count, recorded as the
+ * item's possible overestimate.  Every item occurring more often than the
+ * stream length divided by the number of counters is guaranteed to be counted.
+ * <p/>
+ * Finding the smallest count takes a pass over the counters, so offering an
+ * uncounted item costs time linear in the number of counters; the sketch is
+ * meant to be fed sampled items.
+ *
+ * @param <K> Type of the items
+ */
+@ThreadSafe
+class SpaceSaving<K> {
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+
+    /**
+     * @param capacity Number of items counted
+     */
+    SpaceSaving(int capacity) {
+        checkArgument(capacity > 0, "Space-Saving capacity must be positive: %s", capacity);
+        this.capacity = capacity;
+        this.counters = Maps.newHashMapWithExpectedSize(capacity);
+    }
+
+    /**
+     * Count one occurrence of an item
+     *
+     * @param item Item
+     */
+    synchronized void offer(K item) {
+        final Counter<K> counter = counters.get(item);
+        if (counter != null) {
+            counter.count++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(item, new Counter<K>(item, 1, 0));
+            return;
+        }
+
+        Counter<K> min = null;
+        for (Counter<K> candidate : counters.values()) {
+            if (min == null || candidate.count < min.count) {
+                min = candidate;
+            }
+        }
+        counters.remove(min.item);
+        counters.put(item, new Counter<K>(item, min.count + 1, min.count));
+    }
+
+    /**
+     * Retrieve the most frequent items
+     *
+     * @param n Most items returned
+     * @return Counters of the items, most frequent first
+     */
+    synchronized List<Counter<K>> top(int n) {
+        final List<Counter<K>> sorted = Lists.newArrayListWithCapacity(counters.size());
+        for (Counter<K> counter : counters.values()) {
+            sorted.add(new Counter<K>(counter.item, counter.count, counter.error));
+        }
+        Collections.sort(sorted, new Comparator<Counter<K>>() {
+            @Override
+            public int compare(Counter<K> first, Counter<K> second) {
+                return first.count == second.count ? 0 : first.count > second.count ? -1 : 1;
+            }
+        });
+        return sorted.subList(0, Math.min(n, sorted.size()));
+    }
+
+    /**
+     * Discard all counts
+     */
+    synchronized void clear() {
+        counters.clear();
+    }
+
+    /**
+     * Estimated count of an item
+     *
+     * @param <K> Type of the item
+     */
+    static final class Counter<K> {
+        private final K item;
+        private long count;
+        private final long error;
+
+        Counter(K item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        K getItem() {
+            return item;
+        }
+
+        /**
+         * @return Estimated count, at least the true count
+         */
+        long getCount() {
+            return count;
+        }
+
+        /**
+         * @return Most by which the count overestimates the true count
+         */
+        long getError() {
+            return error;
+        }
+    }
+}
@@ -96,14 +96,19 @@ public class TableCreator {
             admin.enableTable(tableName);
         }
 
-        try {
-            admin.flush(tableName);
-        } catch (InterruptedException e) {
-            logger.warn("HBaseAdmin flush was interrupted. Retrying.");
+        // Flushing every region's memstore is slow on large tables and is not
+        // needed for durability, so it is only done when asked for
+        if (configuration.getBoolean(ConfigConstants.FLUSH_ON_STARTUP,
+                ConfigConstants.DEFAULT_FLUSH_ON_STARTUP)) {
             try {
                 admin.flush(tableName);
-            } catch (InterruptedException e1) {
-                throw new RuntimeException(e1);
+            } catch (InterruptedException e) {
+                logger.warn("HBaseAdmin flush was interrupted. Retrying.");
+                try {
+                    admin.flush(tableName);
+                } catch (InterruptedException e1) {
+                    throw new RuntimeException(e1);
+                }
             }
         }
 
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableMap;
+import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+import com.nearinfinity.honeycomb.util.Verify;
+import net.jcip.annotations.Immutable;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Snapshot of the metadata of a table which is read together from HBase and
+ * replaced as a whole when the table's definition changes.  The table's
+ * {@link TableWritePlan} is built with the snapshot.
+ */
+@Immutable
+public final class TableMetadata {
+    private final long tableId;
+    private final TableSchema schema;
+    private final ImmutableBiMap<String, Long> columnIds;
+    private final ImmutableMap<String, Long> indexIds;
+    private final TableWritePlan writePlan;
+
+    /**
+     * @param tableId   Table ID
+     * @param schema    Table schema
+     * @param columnIds Column name to column ID mapping
+     * @param indexIds  Index name to index ID mapping
+     */
+    public TableMetadata(long tableId, TableSchema schema,
+                         Map<String, Long> columnIds, Map<String, Long> indexIds) {
+        Verify.isValidId(tableId);
+        this.tableId = tableId;
+        this.schema = checkNotNull(schema);
+        this.columnIds = ImmutableBiMap.copyOf(columnIds);
+        this.indexIds = ImmutableMap.copyOf(indexIds);
+        writePlan = new TableWritePlan(tableId, schema, this.indexIds);
+    }
+
+    public long getTableId() {
+        return tableId;
+    }
+
+    public TableSchema getSchema() {
+        return schema;
+    }
+
+    public BiMap<String, Long> getColumnIds() {
+        return columnIds;
+    }
+
+    public Map<String, Long> getIndexIds() {
+        return indexIds;
+    }
+
+    public TableWritePlan getWritePlan() {
+        return writePlan;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("tableId", tableId)
+                .add("columnIds", columnIds)
+                .add("indexIds", indexIds)
+                .toString();
+    }
+}
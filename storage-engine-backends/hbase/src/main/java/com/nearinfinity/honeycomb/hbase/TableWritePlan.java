@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.nearinfinity.honeycomb.hbase.rowkey.ColumnEncoder;
+import com.nearinfinity.honeycomb.mysql.Row;
+import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
+import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+import net.jcip.annotations.Immutable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Resolves everything needed to write the index rows of a table once per
+ * version of its schema: the ID of each index, the order of its columns and
+ * the encoder of each column.  Writing a row's index entries is then a loop
+ * over the planned columns, with no schema or metadata lookups.
+ */
+@Immutable
+public final class TableWritePlan {
+    private final long tableId;
+    private final ImmutableList<IndexPlan> indices;
+    private final ImmutableMap<String, IndexPlan> indicesByName;
+
+    /**
+     * @param tableId  Table ID
+     * @param schema   Table schema
+     * @param indexIds Index name to index ID mapping
+     */
+    public TableWritePlan(long tableId, TableSchema schema, Map<String, Long> indexIds) {
+        this.tableId = tableId;
+
+        ImmutableMap.Builder<String, IndexPlan> builder = ImmutableMap.builder();
+        for (IndexSchema index : schema.getIndices()) {
+            Long indexId = indexIds.get(index.getIndexName());
+            // Indices are only planned once their ID is written
+            if (indexId != null) {
+                builder.put(index.getIndexName(), new IndexPlan(indexId, index, schema));
+            }
+        }
+        indicesByName = builder.build();
+        indices = indicesByName.values().asList();
+    }
+
+    /**
+     * @return Plans of all indices of the table
+     */
+    public List<IndexPlan> getIndices() {
+        return indices;
+    }
+
+    /**
+     * Retrieve the plan of an index by its name
+     *
+     * @param indexName Index name
+     * @return Index plan
+     */
+    public IndexPlan getIndex(String indexName) {
+        IndexPlan index = indicesByName.get(indexName);
+        checkArgument(index != null, "Table %s has no index %s", tableId, indexName);
+        return index;
+    }
+
+    /**
+     * Plan for writing the entries of one index
+     */
+    @Immutable
+    public static final class IndexPlan {
+        private final long indexId;
+        private final String[] columns;
+        private final ColumnEncoder[] encoders;
+
+        private IndexPlan(long indexId, IndexSchema index, TableSchema schema) {
+            this.indexId = indexId;
+            List<String> indexColumns = index.getColumns();
+            columns = indexColumns.toArray(new String[indexColumns.size()]);
+            encoders = new ColumnEncoder[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                encoders[i] = ColumnEncoder.forColumn(schema.getColumnSchema(columns[i]));
+            }
+        }
+
+        public long getIndexId() {
+            return indexId;
+        }
+
+        /**
+         * Encode the values of the index columns of a row in ascending order.
+         * Columns missing from the row are encoded as null.
+         *
+         * @param row SQL row
+         * @return Encoded values in index column order, null for null values
+         */
+        public List<byte[]> encode(Row row) {
+            Map<String, ByteBuffer> records = row.getRecords();
+            byte[][] encoded = new byte[columns.length][];
+            for (int i = 0; i < columns.length; i++) {
+                ByteBuffer record = records.get(columns[i]);
+                if (record != null) {
+                    encoded[i] = encoders[i].encode(record);
+                }
+            }
+            return Arrays.asList(encoded);
+        }
+    }
+}
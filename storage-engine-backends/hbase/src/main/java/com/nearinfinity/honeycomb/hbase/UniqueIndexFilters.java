@@ -0,0 +1,618 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.nearinfinity.honeycomb.exceptions.RuntimeIOException;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
+import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
+import com.nearinfinity.honeycomb.mysql.Util;
+import com.nearinfinity.honeycomb.util.Verify;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Maintains a Bloom filter of the encoded keys of each unique index so that
+ * lookups of keys which are definitely absent, such as the duplicate checks
+ * performed on insert, do not require an HBase round trip.
+ * <p/>
+ * Filters are loaded in the background from their persisted copy in the
+ * metadata and are brought up to date by scanning the index rows written
+ * since the copy was taken.  If no copy exists the filter is rebuilt from a
+ * full scan of the index.  Until a filter is loaded every key might be
+ * contained, and keys added meanwhile are kept until the filter is ready.
+ * Filters are persisted in the background as well, every persist interval
+ * keys and when they are evicted from memory.
+ * <p/>
+ * A filter is never larger than its largest persisted size; the filter of
+ * an index with more rows than fit is disabled until the index is dropped or
+ * the server restarts.  The number of filters kept in memory is bounded.
+ * Keys are never removed from a filter, so deleted keys only cause false
+ * positives.  The filters only see writes made through this process, so they
+ * must not be enabled when more than one MySQL server writes to the same
+ * HBase table.
+ */
+@Singleton
+@ThreadSafe
+public class UniqueIndexFilters {
+    private static final Logger logger = Logger.getLogger(UniqueIndexFilters.class);
+    private static final Funnel<byte[]> FUNNEL = Funnels.byteArrayFunnel();
+    /**
+     * Minimum number of keys a new filter is sized for
+     */
+    private static final long MIN_EXPECTED_KEYS = 100000;
+    /**
+     * Amount of time subtracted from persisted snapshots to tolerate clock
+     * differences between this process and the region servers
+     */
+    private static final long CLOCK_SKEW_MARGIN = 60 * 1000;
+    /**
+     * Largest filter that will be persisted
+     */
+    private static final int MAX_PERSISTED_SIZE = 8 * 1024 * 1024;
+    /**
+     * Space left in a persisted filter for the serialization overhead
+     */
+    private static final int PERSIST_OVERHEAD = 64 * 1024;
+    /**
+     * Largest number of keys added to a filter while it loads before the
+     * filter is disabled
+     */
+    private static final int MAX_PENDING_KEYS = 100000;
+    private static final int SCAN_CACHING = 1000;
+    private final HBaseMetadata metadata;
+    private final Provider<HTableInterface> provider;
+    private final Executor executor;
+    private final Set<FilterKey> disabled = Sets.newSetFromMap(new ConcurrentHashMap<FilterKey, Boolean>());
+    private Cache<FilterKey, IndexFilter> filters;
+    private boolean enabled;
+    private double falsePositiveRate;
+    private long persistInterval;
+
+    @Inject
+    public UniqueIndexFilters(final HBaseMetadata metadata, final Provider<HTableInterface> provider) {
+        this(metadata, provider, Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("honeycomb-index-filters").build()));
+    }
+
+    /**
+     * @param executor Runs the loading and persisting of filters in order
+     */
+    UniqueIndexFilters(final HBaseMetadata metadata, final Provider<HTableInterface> provider,
+                       final Executor executor) {
+        this.metadata = checkNotNull(metadata);
+        this.provider = checkNotNull(provider);
+        this.executor = checkNotNull(executor);
+        filters = createCache(ConfigConstants.DEFAULT_UNIQUE_INDEX_FILTER_CACHE_SIZE);
+    }
+
+    /**
+     * Sets whether the filters are used.  Cannot be injected into the constructor directly
+     * because of a bug in Cobertura.  Called automatically by Guice.
+     *
+     * @param enabled Use unique index filters
+     */
+    @Inject
+    public void setEnabled(final @Named(ConfigConstants.UNIQUE_INDEX_FILTERS) Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Sets the false positive rate of new filters.  Cannot be injected into the constructor directly
+     * because of a bug in Cobertura.  Called automatically by Guice.
+     *
+     * @param falsePositiveRate Desired false positive rate
+     */
+    @Inject
+    public void setFalsePositiveRate(final @Named(ConfigConstants.UNIQUE_INDEX_FILTER_FALSE_POSITIVE_RATE) Double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Sets the number of keys added between persisting a filter.  Cannot be injected into the
+     * constructor directly because of a bug in Cobertura.  Called automatically by Guice.
+     *
+     * @param persistInterval Number of keys
+     */
+    @Inject
+    public void setPersistInterval(final @Named(ConfigConstants.UNIQUE_INDEX_FILTER_PERSIST_INTERVAL) Long persistInterval) {
+        this.persistInterval = persistInterval;
+    }
+
+    /**
+     * Sets the number of filters kept in memory.  Cannot be injected into the constructor
+     * directly because of a bug in Cobertura.  Called automatically by Guice, before the
+     * filters are used.
+     *
+     * @param cacheSize Number of filters
+     */
+    @Inject
+    public void setCacheSize(final @Named(ConfigConstants.UNIQUE_INDEX_FILTER_CACHE_SIZE) Long cacheSize) {
+        filters = createCache(cacheSize);
+    }
+
+    /**
+     * Indicates whether unique index filters are in use
+     *
+     * @return True if filters are maintained and consulted
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Add a key to the filter of a unique index.  Must be called before the
+     * corresponding index row is written.
+     *
+     * @param tableId Table ID
+     * @param indexId Index ID
+     * @param key     Encoded ascending index row key without the UUID
+     */
+    public void add(long tableId, long indexId, byte[] key) {
+        checkNotNull(key);
+        FilterKey filterKey = new FilterKey(tableId, indexId);
+        while (true) {
+            IndexFilter filter = getFilter(filterKey);
+            if (filter == null) {
+                return;
+            }
+
+            boolean persist = false;
+            synchronized (filter) {
+                switch (filter.state) {
+                    case LOADING:
+                        filter.pending.add(key);
+                        if (filter.pending.size() > MAX_PENDING_KEYS) {
+                            logger.warn(String.format("Too many keys added to unique index filter for %s"
+                                    + " while it loads, disabling it", filterKey));
+                            disable(filterKey, filter);
+                        }
+                        return;
+                    case READY:
+                        filter.put(key);
+                        if (filter.keysSincePersist >= persistInterval) {
+                            filter.keysSincePersist = 0;
+                            persist = true;
+                        }
+                        break;
+                    default:
+                        // Evicted or removed, the key goes to the filter which replaces it
+                        continue;
+                }
+            }
+
+            if (persist) {
+                persistLater(filterKey, filter);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Check whether a key may exist in a unique index
+     *
+     * @param tableId Table ID
+     * @param indexId Index ID
+     * @param key     Encoded ascending index row key without the UUID
+     * @return False if the key is definitely not in the index
+     */
+    public boolean mightContain(long tableId, long indexId, byte[] key) {
+        checkNotNull(key);
+        IndexFilter filter = getFilter(new FilterKey(tableId, indexId));
+        if (filter == null) {
+            return true;
+        }
+        synchronized (filter) {
+            return filter.state != FilterState.READY || filter.bloomFilter.mightContain(key);
+        }
+    }
+
+    /**
+     * Discard the filter of an index, along with its persisted copy
+     *
+     * @param tableId Table ID
+     * @param indexId Index ID
+     */
+    public void remove(long tableId, long indexId) {
+        FilterKey key = new FilterKey(tableId, indexId);
+        disabled.remove(key);
+        filters.invalidate(key);
+        metadata.deleteIndexFilter(tableId, indexId);
+    }
+
+    /**
+     * Discard the filters of every index of a table, along with their persisted copies
+     *
+     * @param tableId Table ID
+     */
+    public void removeTable(long tableId) {
+        Iterator<FilterKey> keys = disabled.iterator();
+        while (keys.hasNext()) {
+            if (keys.next().tableId == tableId) {
+                keys.remove();
+            }
+        }
+        keys = filters.asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().tableId == tableId) {
+                keys.remove();
+            }
+        }
+        metadata.deleteIndexFilters(tableId);
+    }
+
+    private Cache<FilterKey, IndexFilter> createCache(long cacheSize) {
+        return CacheBuilder
+                .newBuilder()
+                .maximumSize(cacheSize)
+                .removalListener(new RemovalListener<FilterKey, IndexFilter>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<FilterKey, IndexFilter> notification) {
+                        removed(notification.getKey(), notification.getValue(), notification.wasEvicted());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Retrieve the filter of an index, starting to load it if it is not in memory
+     *
+     * @return Filter of the index, or null if the filter is disabled
+     */
+    private IndexFilter getFilter(final FilterKey key) {
+        if (disabled.contains(key)) {
+            return null;
+        }
+
+        IndexFilter filter = filters.getIfPresent(key);
+        if (filter == null) {
+            final IndexFilter created = new IndexFilter();
+            filter = filters.asMap().putIfAbsent(key, created);
+            if (filter == null) {
+                filter = created;
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        load(key, created);
+                    }
+                });
+            }
+        }
+        return filter;
+    }
+
+    private void removed(final FilterKey key, final IndexFilter filter, boolean evicted) {
+        synchronized (filter) {
+            FilterState previous = filter.state;
+            filter.state = evicted ? FilterState.EVICTED : FilterState.REMOVED;
+            if (!evicted || previous != FilterState.READY) {
+                // A loading filter is persisted once loaded
+                return;
+            }
+        }
+
+        // The filter no longer changes, so it can be persisted as it is
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(key, filter);
+            }
+        });
+    }
+
+    private void disable(FilterKey key, IndexFilter filter) {
+        disabled.add(key);
+        filters.asMap().remove(key, filter);
+    }
+
+    private void load(FilterKey key, IndexFilter filter) {
+        try {
+            final long rowCount = Math.max(metadata.getRowCount(key.tableId), 0);
+            final long maxKeys = maxExpectedKeys();
+            long since = 0;
+            long expectedKeys = 0;
+            long keys = 0;
+            BloomFilter<byte[]> bloomFilter = null;
+
+            byte[] persisted = metadata.getIndexFilter(key.tableId, key.indexId);
+            if (persisted != null) {
+                try {
+                    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(persisted));
+                    since = in.readLong();
+                    expectedKeys = in.readLong();
+                    keys = in.readLong();
+                    bloomFilter = readBloomFilter(in);
+                    if (keys > expectedKeys || expectedKeys < rowCount || expectedKeys > maxKeys) {
+                        logger.info(String.format("Rebuilding saturated unique index filter for %s", key));
+                        bloomFilter = null;
+                    }
+                } catch (IOException e) {
+                    logger.warn(String.format("Unable to read persisted unique index filter for %s", key), e);
+                    bloomFilter = null;
+                } catch (ClassNotFoundException e) {
+                    logger.warn(String.format("Unable to read persisted unique index filter for %s", key), e);
+                    bloomFilter = null;
+                }
+            }
+
+            if (bloomFilter == null) {
+                if (rowCount > maxKeys) {
+                    logger.warn(String.format("Disabling unique index filter for %s, %d rows exceed the"
+                            + " %d keys a filter holds", key, rowCount, maxKeys));
+                    disable(key, filter);
+                    return;
+                }
+                since = 0;
+                expectedKeys = Math.min(Math.max(MIN_EXPECTED_KEYS, 2 * rowCount), maxKeys);
+                keys = 0;
+                bloomFilter = BloomFilter.create(FUNNEL, Ints.saturatedCast(expectedKeys), falsePositiveRate);
+            }
+
+            long scanned = addKeysWrittenSince(key, bloomFilter, since);
+            logger.debug(String.format("Loaded unique index filter for %s, %d keys scanned", key, scanned));
+
+            synchronized (filter) {
+                filter.expectedKeys = expectedKeys;
+                filter.keys = keys + scanned;
+                filter.bloomFilter = bloomFilter;
+                for (byte[] pendingKey : filter.pending) {
+                    filter.put(pendingKey);
+                }
+                filter.pending = null;
+                if (filter.state == FilterState.REMOVED) {
+                    return;
+                }
+                if (filter.state == FilterState.LOADING) {
+                    filter.state = FilterState.READY;
+                    if (since != 0 && scanned == 0) {
+                        return;
+                    }
+                }
+            }
+
+            write(key, filter);
+        } catch (RuntimeException e) {
+            logger.error(String.format("Unable to load unique index filter for %s, disabling it", key), e);
+            disable(key, filter);
+        }
+    }
+
+    /**
+     * Calculate the largest number of keys for which a filter with the false
+     * positive rate can be persisted
+     */
+    private long maxExpectedKeys() {
+        long bits = 8L * (MAX_PERSISTED_SIZE - PERSIST_OVERHEAD);
+        return (long) (bits * Math.log(2) * Math.log(2) / -Math.log(falsePositiveRate));
+    }
+
+    private long addKeysWrittenSince(FilterKey key, BloomFilter<byte[]> bloomFilter, long since) {
+        byte[] start = IndexRowKeyBuilder.newBuilder(key.tableId, key.indexId)
+                .withSortOrder(SortOrder.Ascending).build().encode();
+        byte[] end = IndexRowKeyBuilder.newBuilder(key.tableId, key.indexId + 1)
+                .withSortOrder(SortOrder.Ascending).build().encode();
+        Scan scan = new Scan(start, end).setFilter(
+                new FilterList(
+                        new FirstKeyOnlyFilter(),
+                        new KeyOnlyFilter()));
+        scan.setCaching(SCAN_CACHING);
+        scan.setCacheBlocks(false);
+        try {
+            scan.setTimeRange(since, Long.MAX_VALUE);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+
+        long scanned = 0;
+        HTableInterface hTable = provider.get();
+        ResultScanner scanner = HBaseOperations.getScanner(hTable, scan);
+        try {
+            for (Result result : scanner) {
+                byte[] row = result.getRow();
+                if (bloomFilter.put(Arrays.copyOf(row, row.length - Util.UUID_WIDTH))) {
+                    scanned++;
+                }
+            }
+        } finally {
+            scanner.close();
+            HBaseOperations.closeTable(hTable);
+        }
+
+        return scanned;
+    }
+
+    private void persistLater(final FilterKey key, final IndexFilter filter) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(key, filter);
+            }
+        });
+    }
+
+    /**
+     * Persist a filter.  A filter which is still in use is copied first, an
+     * evicted filter is no longer changed.  If an evicted filter cannot be
+     * persisted its keys would be lost, so the filter of the index is disabled.
+     */
+    private void write(FilterKey key, IndexFilter filter) {
+        final boolean evicted;
+        final long since;
+        final long expectedKeys;
+        final long keys;
+        final BloomFilter<byte[]> bloomFilter;
+        synchronized (filter) {
+            evicted = filter.state == FilterState.EVICTED;
+            if (filter.state != FilterState.READY && !evicted) {
+                return;
+            }
+            since = System.currentTimeMillis() - CLOCK_SKEW_MARGIN;
+            expectedKeys = filter.expectedKeys;
+            keys = filter.keys;
+            bloomFilter = evicted ? filter.bloomFilter : filter.bloomFilter.copy();
+            filter.keysSincePersist = 0;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeLong(since);
+            out.writeLong(expectedKeys);
+            out.writeLong(keys);
+            out.writeObject(bloomFilter);
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+
+        if (bytes.size() > MAX_PERSISTED_SIZE) {
+            logger.warn(String.format("Unique index filter for %s is too large (%d bytes) to persist",
+                    key, bytes.size()));
+            if (evicted) {
+                disabled.add(key);
+            }
+            return;
+        }
+        metadata.putIndexFilter(key.tableId, key.indexId, bytes.toByteArray());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BloomFilter<byte[]> readBloomFilter(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        return (BloomFilter<byte[]>) in.readObject();
+    }
+
+    private enum FilterState {
+        /**
+         * Loading in the background, keys are added to the pending keys
+         */
+        LOADING,
+        READY,
+        /**
+         * Evicted from memory, keys are added to the filter which replaces it
+         */
+        EVICTED,
+        /**
+         * Discarded along with its persisted copy
+         */
+        REMOVED
+    }
+
+    /**
+     * Filter of an index, guarded by its own lock
+     */
+    private static final class IndexFilter {
+        private FilterState state = FilterState.LOADING;
+        private List<byte[]> pending = Lists.newArrayList();
+        private long expectedKeys;
+        private BloomFilter<byte[]> bloomFilter;
+        private long keys;
+        private long keysSincePersist;
+
+        void put(byte[] key) {
+            if (bloomFilter.put(key)) {
+                keys++;
+                keysSincePersist++;
+                if (keys == expectedKeys + 1) {
+                    logger.warn("Unique index filter exceeded its expected number of keys;"
+                            + " it will be rebuilt the next time it is loaded");
+                }
+            }
+        }
+    }
+
+    private static final class FilterKey {
+        private final long tableId;
+        private final long indexId;
+
+        FilterKey(long tableId, long indexId) {
+            Verify.isValidId(tableId);
+            Verify.isValidId(indexId);
+            this.tableId = tableId;
+            this.indexId = indexId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FilterKey)) {
+                return false;
+            }
+            FilterKey other = (FilterKey) o;
+            return tableId == other.tableId && indexId == other.indexId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(tableId, indexId);
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this)
+                    .add("TableId", tableId)
+                    .add("IndexId", indexId)
+                    .toString();
+        }
+    }
+}
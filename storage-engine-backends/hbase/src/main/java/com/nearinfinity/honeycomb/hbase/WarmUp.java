@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.nearinfinity.honeycomb.hbase.rowkey.DataRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
+import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
+import com.nearinfinity.honeycomb.mysql.QueryKey;
+import com.nearinfinity.honeycomb.mysql.Row;
+import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
+import com.nearinfinity.honeycomb.mysql.gen.QueryType;
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
+import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
+import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs synthetic rows of an in-memory table through the encoding paths taken
+ * by every insert and index scan, including a {@link TableWritePlan}, so that
+ * the JIT compiler has optimized them before the first statements arrive.
+ * Nothing is read from or written to HBase.
+ */
+public final class WarmUp {
+    private static final long TABLE_ID = 1;
+    private static final long INDEX_ID = 1;
+    private static final String INDEX_NAME = "warm_up_index";
+    private static final TableSchema SCHEMA = new TableSchema(
+            ImmutableList.of(
+                    ColumnSchema.builder("id", ColumnType.LONG).build(),
+                    ColumnSchema.builder("name", ColumnType.STRING).setMaxLength(32).build(),
+                    ColumnSchema.builder("price", ColumnType.DOUBLE).build()),
+            ImmutableList.of(
+                    new IndexSchema(INDEX_NAME, ImmutableList.of("id", "name", "price"), false)));
+    private static final TableWritePlan PLAN = new TableWritePlan(TABLE_ID, SCHEMA,
+            ImmutableMap.of(INDEX_NAME, INDEX_ID));
+
+    private WarmUp() {
+    }
+
+    /**
+     * Serializes, deserializes and builds the data and index row keys of
+     * synthetic rows, and builds the index keys of queries on them.
+     *
+     * @param rows Number of synthetic rows, must be non-negative
+     * @return Total number of bytes encoded
+     */
+    public static long run(final int rows) {
+        checkArgument(rows >= 0, "Warm up rows must be non-negative: %s", rows);
+
+        long encodedBytes = 0;
+        for (int i = 0; i < rows; i++) {
+            final Map<String, ByteBuffer> records = Maps.newHashMap();
+            records.put("id", ByteBuffer.wrap(longBytes(i)));
+            records.put("name", ByteBuffer.wrap(("row" + i).getBytes()));
+            records.put("price", ByteBuffer.wrap(longBytes(Double.doubleToLongBits(i * -0.5))));
+
+            final Row row = Row.deserialize(new Row(records, UUID.randomUUID()).serialize());
+            encodedBytes += new DataRowKey(TABLE_ID, row.getUUID()).encode().length;
+
+            final IndexRowKeyBuilder builder = IndexRowKeyBuilder
+                    .newBuilder(TABLE_ID, INDEX_ID)
+                    .withUUID(row.getUUID())
+                    .withEncodedRecords(PLAN.getIndex(INDEX_NAME).encode(row));
+            for (SortOrder order : SortOrder.values()) {
+                encodedBytes += builder.withSortOrder(order).build().encode().length;
+            }
+
+            final QueryKey queryKey = new QueryKey(INDEX_NAME, QueryType.KEY_OR_NEXT,
+                    ImmutableMap.of("id", records.get("id")));
+            encodedBytes += IndexRowKeyBuilder
+                    .newBuilder(TABLE_ID, INDEX_ID)
+                    .withSortOrder(SortOrder.Ascending)
+                    .withQueryKey(queryKey, SCHEMA)
+                    .build()
+                    .encode().length;
+        }
+        return encodedBytes;
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(8).putLong(value).array();
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.nearinfinity.honeycomb.EngineStatus;
+import com.nearinfinity.honeycomb.StatusSource;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import com.nearinfinity.honeycomb.util.Verify;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.hadoop.conf.Configuration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Manages the client side write buffer of each Honeycomb table.  A table's
+ * buffer is flushed once it holds more bytes than the table's buffer size, or
+ * once its oldest write is older than the maximum age.  The age is only
+ * checked when the table is written to, so the writes of a table which stops
+ * being written to stay buffered until its next write, flush or close.  The buffer size of a
+ * table adapts to its insert rate: it doubles, up to the maximum size, while
+ * rows are inserted at bulk load rates, and halves, down to the minimum size,
+ * while they are not, so that tables with few writes flush promptly.
+ */
+@ThreadSafe
+public class WriteBufferManager implements WriteBufferManagerMXBean, StatusSource {
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final ConcurrentMap<Long, TableBuffer> buffers = Maps.newConcurrentMap();
+    private final Ticker ticker;
+    private final long initialSize;
+    private final long minSize;
+    private final long maxSize;
+    private final long maxAgeNanos;
+    private final long bulkInsertRowsPerSecond;
+
+    public WriteBufferManager(final Configuration configuration) {
+        this(configuration, Ticker.systemTicker());
+    }
+
+    WriteBufferManager(final Configuration configuration, final Ticker ticker) {
+        this.ticker = checkNotNull(ticker);
+        minSize = configuration.getLong(ConfigConstants.WRITE_BUFFER_MIN_SIZE,
+                ConfigConstants.DEFAULT_WRITE_BUFFER_MIN_SIZE);
+        maxSize = configuration.getLong(ConfigConstants.WRITE_BUFFER_MAX_SIZE,
+                ConfigConstants.DEFAULT_WRITE_BUFFER_MAX_SIZE);
+        maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getLong(ConfigConstants.WRITE_BUFFER_MAX_AGE,
+                ConfigConstants.DEFAULT_WRITE_BUFFER_MAX_AGE));
+        bulkInsertRowsPerSecond = configuration.getLong(ConfigConstants.BULK_INSERT_ROWS_PER_SECOND,
+                ConfigConstants.DEFAULT_BULK_INSERT_ROWS_PER_SECOND);
+        checkArgument(minSize > 0 && minSize <= maxSize,
+                "Write buffer sizes must satisfy 0 < minimum <= maximum: %s, %s", minSize, maxSize);
+        checkArgument(maxAgeNanos >= 0, "Write buffer maximum age must be non-negative");
+        checkArgument(bulkInsertRowsPerSecond > 0, "Bulk insert rate must be positive");
+
+        long configuredSize = configuration.getLong(ConfigConstants.WRITE_BUFFER,
+                ConfigConstants.DEFAULT_WRITE_BUFFER);
+        initialSize = Math.min(maxSize, Math.max(minSize, configuredSize));
+    }
+
+    /**
+     * Retrieve the current write buffer size of a table
+     *
+     * @param tableId Table ID
+     * @return Buffer size in bytes
+     */
+    public long getBufferSize(long tableId) {
+        return getBuffer(tableId).size;
+    }
+
+    /**
+     * Record rows written to the buffer of a table, adapting the buffer size
+     * to the insert rate
+     *
+     * @param tableId Table ID
+     * @param rows    Number of rows written
+     * @param bytes   Number of bytes buffered
+     * @return Buffer size in bytes after the write
+     */
+    public long recordWrite(long tableId, long rows, long bytes) {
+        TableBuffer buffer = getBuffer(tableId);
+        buffer.bufferedBytes.addAndGet(bytes);
+        buffer.windowRows.addAndGet(rows);
+
+        long now = ticker.read();
+        if (now - buffer.windowStart >= RATE_WINDOW_NANOS) {
+            synchronized (buffer) {
+                long elapsed = now - buffer.windowStart;
+                if (elapsed >= RATE_WINDOW_NANOS) {
+                    long rate = buffer.windowRows.getAndSet(0) * RATE_WINDOW_NANOS / elapsed;
+                    if (rate >= bulkInsertRowsPerSecond) {
+                        buffer.size = Math.min(maxSize, buffer.size * 2);
+                    } else if (rate < bulkInsertRowsPerSecond / 2) {
+                        buffer.size = Math.max(minSize, buffer.size / 2);
+                    }
+                    buffer.windowStart = now;
+                }
+            }
+        }
+        return buffer.size;
+    }
+
+    /**
+     * Indicates whether buffered writes should be flushed because the oldest
+     * of them is older than the maximum age
+     *
+     * @param firstWriteNanos {@link #now()} at the time of the oldest buffered write
+     * @return True if the buffer should be flushed
+     */
+    public boolean isExpired(long firstWriteNanos) {
+        return maxAgeNanos > 0 && ticker.read() - firstWriteNanos >= maxAgeNanos;
+    }
+
+    /**
+     * Record a flush of buffered writes of a table
+     *
+     * @param tableId    Table ID
+     * @param bytes      Number of bytes flushed
+     * @param flushNanos Time taken by the flush in nanoseconds
+     */
+    public void recordFlush(long tableId, long bytes, long flushNanos) {
+        TableBuffer buffer = getBuffer(tableId);
+        buffer.bufferedBytes.addAndGet(-bytes);
+        buffer.flushes.incrementAndGet();
+        buffer.flushNanos.addAndGet(flushNanos);
+        long max = buffer.maxFlushNanos.get();
+        while (flushNanos > max && !buffer.maxFlushNanos.compareAndSet(max, flushNanos)) {
+            max = buffer.maxFlushNanos.get();
+        }
+    }
+
+    /**
+     * Record buffered writes of a table which are no longer tracked, such as
+     * those flushed when the table handle is closed
+     *
+     * @param tableId Table ID
+     * @param bytes   Number of bytes
+     */
+    public void release(long tableId, long bytes) {
+        getBuffer(tableId).bufferedBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * Discard the buffer of a deleted table
+     *
+     * @param tableId Table ID
+     */
+    public void removeTable(long tableId) {
+        buffers.remove(tableId);
+    }
+
+    /**
+     * Current time of the manager's clock, for use with {@link #isExpired(long)}
+     *
+     * @return Time in nanoseconds
+     */
+    public long now() {
+        return ticker.read();
+    }
+
+    /**
+     * Register this manager with the platform MBean server
+     */
+    public void registerMBean() {
+        MBeans.register(this, "WriteBufferManager");
+    }
+
+    /**
+     * Report the writes buffered but not yet flushed, in total and for each
+     * table ID holding any
+     */
+    @Override
+    public void reportStatus(EngineStatus status) {
+        long tables = 0;
+        long bufferedBytes = 0;
+        long flushes = 0;
+        long maxFlushNanos = 0;
+        final Map<Long, Long> tableBytes = Maps.newTreeMap();
+        for (Map.Entry<Long, TableBuffer> entry : buffers.entrySet()) {
+            final TableBuffer buffer = entry.getValue();
+            final long bytes = buffer.bufferedBytes.get();
+            if (bytes > 0) {
+                tables++;
+                bufferedBytes += bytes;
+                tableBytes.put(entry.getKey(), bytes);
+            }
+            flushes += buffer.flushes.get();
+            maxFlushNanos = Math.max(maxFlushNanos, buffer.maxFlushNanos.get());
+        }
+        status.add("writeBuffers", "bufferingTables", tables)
+                .add("writeBuffers", "bufferedBytes", bufferedBytes)
+                .add("writeBuffers", "flushes", flushes)
+                .add("writeBuffers", "maxFlushMillis", TimeUnit.NANOSECONDS.toMillis(maxFlushNanos));
+        for (Map.Entry<Long, Long> entry : tableBytes.entrySet()) {
+            status.add("writeBuffers", "table" + entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Map<String, Long> getBufferSizes() {
+        ImmutableMap.Builder<String, Long> values = ImmutableMap.builder();
+        for (Map.Entry<Long, TableBuffer> entry : buffers.entrySet()) {
+            values.put(entry.getKey().toString(), entry.getValue().size);
+        }
+        return values.build();
+    }
+
+    @Override
+    public Map<String, Long> getBufferedBytes() {
+        ImmutableMap.Builder<String, Long> values = ImmutableMap.builder();
+        for (Map.Entry<Long, TableBuffer> entry : buffers.entrySet()) {
+            values.put(entry.getKey().toString(), entry.getValue().bufferedBytes.get());
+        }
+        return values.build();
+    }
+
+    @Override
+    public Map<String, Long> getFlushes() {
+        ImmutableMap.Builder<String, Long> values = ImmutableMap.builder();
+        for (Map.Entry<Long, TableBuffer> entry : buffers.entrySet()) {
+            values.put(entry.getKey().toString(), entry.getValue().flushes.get());
+        }
+        return values.build();
+    }
+
+    @Override
+    public Map<String, Long> getFlushMillis() {
+        ImmutableMap.Builder<String, Long> values = ImmutableMap.builder();
+        for (Map.Entry<Long, TableBuffer> entry : buffers.entrySet()) {
+            values.put(entry.getKey().toString(),
+                    TimeUnit.NANOSECONDS.toMillis(entry.getValue().flushNanos.get()));
+        }
+        return values.build();
+    }
+
+    @Override
+    public Map<String, Long> getMaxFlushMillis() {
+        ImmutableMap.Builder<String, Long> values = ImmutableMap.builder();
+        for (Map.Entry<Long, TableBuffer> entry : buffers.entrySet()) {
+            values.put(entry.getKey().toString(),
+                    TimeUnit.NANOSECONDS.toMillis(entry.getValue().maxFlushNanos.get()));
+        }
+        return values.build();
+    }
+
+    private TableBuffer getBuffer(long tableId) {
+        Verify.isValidId(tableId);
+        TableBuffer buffer = buffers.get(tableId);
+        if (buffer == null) {
+            TableBuffer created = new TableBuffer(initialSize, ticker.read());
+            buffer = buffers.putIfAbsent(tableId, created);
+            if (buffer == null) {
+                buffer = created;
+            }
+        }
+        return buffer;
+    }
+
+    private static final class TableBuffer {
+        private final AtomicLong bufferedBytes = new AtomicLong();
+        private final AtomicLong windowRows = new AtomicLong();
+        private final AtomicLong flushes = new AtomicLong();
+        private final AtomicLong flushNanos = new AtomicLong();
+        private final AtomicLong maxFlushNanos = new AtomicLong();
+        private volatile long size;
+        private volatile long windowStart;
+
+        TableBuffer(long size, long windowStart) {
+            this.size = size;
+            this.windowStart = windowStart;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link WriteBufferManager}.  Each map is keyed
+ * by Honeycomb table ID.
+ */
+public interface WriteBufferManagerMXBean {
+    /**
+     * @return Current write buffer size in bytes of each table
+     */
+    Map<String, Long> getBufferSizes();
+
+    /**
+     * @return Bytes currently buffered and not yet flushed for each table
+     */
+    Map<String, Long> getBufferedBytes();
+
+    /**
+     * @return Number of flushes of each table
+     */
+    Map<String, Long> getFlushes();
+
+    /**
+     * @return Total flush time in milliseconds of each table
+     */
+    Map<String, Long> getFlushMillis();
+
+    /**
+     * @return Longest flush time in milliseconds of each table
+     */
+    Map<String, Long> getMaxFlushMillis();
+}
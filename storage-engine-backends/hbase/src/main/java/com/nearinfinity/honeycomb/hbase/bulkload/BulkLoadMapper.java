@@ -25,17 +25,20 @@ package com.nearinfinity.honeycomb.hbase.bulkload;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.nearinfinity.honeycomb.hbase.AutoIncrementAllocator;
 import com.nearinfinity.honeycomb.hbase.HBaseMetadata;
 import com.nearinfinity.honeycomb.hbase.HBaseStore;
+import com.nearinfinity.honeycomb.hbase.HTableProvider;
 import com.nearinfinity.honeycomb.hbase.MetadataCache;
 import com.nearinfinity.honeycomb.hbase.MutationFactory;
+import com.nearinfinity.honeycomb.hbase.RowCountAccumulator;
+import com.nearinfinity.honeycomb.hbase.WriteBufferManager;
 import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
 import com.nearinfinity.honeycomb.mysql.Row;
 import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
 import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HConstants;
-import org.apache.hadoop.hbase.client.HTablePool;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.io.LongWritable;
@@ -62,6 +65,7 @@ public class BulkLoadMapper
     private long tableId;
     private TableSchema schema;
     private MutationFactory mutationFactory;
+    private HTableProvider hTableProvider;
 
     private static final String SQL_TABLE = "honeycomb.sql.table";
     private static final String SQL_COLUMNS = "honeycomb.sql.columns";
@@ -94,10 +98,13 @@ public class BulkLoadMapper
         LOG.info("HBase Column Family: " + columnFamily);
         LOG.info("Input separator: '" + separator + "'");
 
-        final HTablePool pool = new HTablePool(conf, 1);
-        HBaseMetadata metadata = new HBaseMetadata(new PoolHTableProvider(hbaseTable, pool));
+        hTableProvider = new HTableProvider(conf);
+        HBaseMetadata metadata = new HBaseMetadata(hTableProvider.getMetadataProvider());
         metadata.setColumnFamily(columnFamily);
-        HBaseStore store = new HBaseStore(metadata, null, new MetadataCache(metadata));
+        metadata.migrateLayout();
+        HBaseStore store = new HBaseStore(metadata, null, new MetadataCache(metadata),
+                new AutoIncrementAllocator(metadata, conf), new RowCountAccumulator(metadata, conf),
+                new WriteBufferManager(conf));
 
         tableId = store.getTableId(sqlTable);
         schema = store.getSchema(sqlTable);
@@ -131,6 +138,11 @@ public class BulkLoadMapper
         }
     }
 
+    @Override
+    protected void cleanup(Context context) throws IOException {
+        hTableProvider.close();
+    }
+
     @Override
     public void map(LongWritable offset, Text line, Context context) {
         try {
@@ -44,14 +44,21 @@ public final class ConfigConstants {
      */
     public static final boolean DEFAULT_AUTO_FLUSH = false;
     /**
-     * Property name for setting the HTable pool size
+     * Property name for setting the maximum number of threads running data batch operations
      */
-    public static final String TABLE_POOL_SIZE = NAMESPACE + "tablePoolSize";
-
+    public static final String DATA_THREADS = NAMESPACE + "dataThreads";
+    /**
+     * Default maximum number of threads running data batch operations
+     */
+    public static final int DEFAULT_DATA_THREADS = 32;
+    /**
+     * Property name for setting the maximum number of threads running metadata batch operations
+     */
+    public static final String METADATA_THREADS = NAMESPACE + "metadataThreads";
     /**
-     * Default number of references to keep active for a table
+     * Default maximum number of threads running metadata batch operations
      */
-    public static final int DEFAULT_TABLE_POOL_SIZE = 5;
+    public static final int DEFAULT_METADATA_THREADS = 4;
     /**
      * Property name for setting the name of the HTable
      */
@@ -69,4 +76,277 @@ public final class ConfigConstants {
      * Default value of the HBase write buffer
      */
     public static final long DEFAULT_WRITE_BUFFER = 2097152;
+    /**
+     * Property name for setting the HBase client scanner caching, which is the
+     * default initial caching of the scan profiles
+     */
+    public static final String SCANNER_CACHING = "hbase.client.scanner.caching";
+    /**
+     * Default value of the HBase client scanner caching
+     */
+    public static final int DEFAULT_SCANNER_CACHING = 1;
+    /**
+     * Property name for setting the minimum write buffer size of a table
+     */
+    public static final String WRITE_BUFFER_MIN_SIZE = NAMESPACE + "writeBufferMinSize";
+    /**
+     * Default minimum write buffer size of a table
+     */
+    public static final long DEFAULT_WRITE_BUFFER_MIN_SIZE = 65536;
+    /**
+     * Property name for setting the maximum write buffer size of a table
+     */
+    public static final String WRITE_BUFFER_MAX_SIZE = NAMESPACE + "writeBufferMaxSize";
+    /**
+     * Default maximum write buffer size of a table
+     */
+    public static final long DEFAULT_WRITE_BUFFER_MAX_SIZE = 33554432;
+    /**
+     * Property name for setting the age in milliseconds after which buffered writes are flushed
+     */
+    public static final String WRITE_BUFFER_MAX_AGE = NAMESPACE + "writeBufferMaxAge";
+    /**
+     * Default age in milliseconds after which buffered writes are flushed; zero never flushes by age
+     */
+    public static final long DEFAULT_WRITE_BUFFER_MAX_AGE = 1000;
+    /**
+     * Property name for setting the insert rate at which a table's write buffer grows
+     */
+    public static final String BULK_INSERT_ROWS_PER_SECOND = NAMESPACE + "bulkInsertRowsPerSecond";
+    /**
+     * Default insert rate in rows per second at which a table's write buffer grows
+     */
+    public static final long DEFAULT_BULK_INSERT_ROWS_PER_SECOND = 5000;
+    /**
+     * Property name for setting the minimum number of auto increment values reserved from HBase at once
+     */
+    public static final String AUTO_INCREMENT_MIN_BLOCK_SIZE = NAMESPACE + "autoIncrementMinBlockSize";
+    /**
+     * Default minimum number of auto increment values reserved from HBase at once
+     */
+    public static final long DEFAULT_AUTO_INCREMENT_MIN_BLOCK_SIZE = 16;
+    /**
+     * Property name for setting the maximum number of auto increment values reserved from HBase at once
+     */
+    public static final String AUTO_INCREMENT_MAX_BLOCK_SIZE = NAMESPACE + "autoIncrementMaxBlockSize";
+    /**
+     * Default maximum number of auto increment values reserved from HBase at once
+     */
+    public static final long DEFAULT_AUTO_INCREMENT_MAX_BLOCK_SIZE = 16384;
+    /**
+     * Property name for setting the interval in milliseconds at which accumulated row count changes are written to HBase
+     */
+    public static final String ROW_COUNT_FLUSH_INTERVAL = NAMESPACE + "rowCountFlushInterval";
+    /**
+     * Default interval in milliseconds at which accumulated row count changes are written to HBase; zero disables the timer
+     */
+    public static final long DEFAULT_ROW_COUNT_FLUSH_INTERVAL = 1000;
+    /**
+     * Property name for setting the accumulated row count change of a table at which it is written to HBase
+     */
+    public static final String ROW_COUNT_FLUSH_THRESHOLD = NAMESPACE + "rowCountFlushThreshold";
+    /**
+     * Default accumulated row count change of a table at which it is written to HBase
+     */
+    public static final long DEFAULT_ROW_COUNT_FLUSH_THRESHOLD = 1000;
+    /**
+     * Property name for setting the maximum total number of columns and indices of the tables in the metadata cache
+     */
+    public static final String METADATA_CACHE_SIZE = NAMESPACE + "metadataCacheSize";
+    /**
+     * Default maximum total number of columns and indices of the tables in the metadata cache
+     */
+    public static final long DEFAULT_METADATA_CACHE_SIZE = 100000;
+    /**
+     * Property name for setting the interval in milliseconds at which the metadata epochs of all tables are polled
+     */
+    public static final String METADATA_EPOCH_POLL_INTERVAL = NAMESPACE + "metadataEpochPollInterval";
+    /**
+     * Default interval in milliseconds at which metadata epochs are polled; zero disables polling
+     */
+    public static final long DEFAULT_METADATA_EPOCH_POLL_INTERVAL = 1000;
+    /**
+     * Property name for flushing the HBase table's memstores when Honeycomb starts
+     */
+    public static final String FLUSH_ON_STARTUP = NAMESPACE + "flushOnStartup";
+    /**
+     * Default behavior for flushing the HBase table when Honeycomb starts
+     */
+    public static final boolean DEFAULT_FLUSH_ON_STARTUP = false;
+    /**
+     * Property name for loading the metadata of all tables and locating the HBase table's regions at startup
+     */
+    public static final String PRELOAD_METADATA = NAMESPACE + "preloadMetadata";
+    /**
+     * Default behavior for preloading metadata at startup
+     */
+    public static final boolean DEFAULT_PRELOAD_METADATA = true;
+    /**
+     * Property name for setting the number of synthetic rows encoded at startup to warm up the JIT compiler
+     */
+    public static final String WARM_UP_ROWS = NAMESPACE + "warmUpRows";
+    /**
+     * Default number of synthetic rows encoded at startup; zero disables the warm up
+     */
+    public static final int DEFAULT_WARM_UP_ROWS = 0;
+    /**
+     * Property name for setting the maximum number of serialized row bytes held
+     * by the row cache.  Only enable the cache when a single MySQL server writes
+     * to the HBase table.
+     */
+    public static final String ROW_CACHE_SIZE = NAMESPACE + "rowCacheSize";
+    /**
+     * Default size of the row cache; a size of zero disables the cache
+     */
+    public static final long DEFAULT_ROW_CACHE_SIZE = 0;
+    /**
+     * Property name for storing cached rows outside of the Java heap
+     */
+    public static final String ROW_CACHE_OFF_HEAP = NAMESPACE + "rowCacheOffHeap";
+    /**
+     * Default behavior for off heap row caching
+     */
+    public static final boolean DEFAULT_ROW_CACHE_OFF_HEAP = false;
+    /**
+     * Property name for enabling the in-memory filters used to skip unique index lookups of absent keys
+     */
+    // This needs to change whenever NAMESPACE changes. Due to Guice issues with injecting named non-consts.
+    public static final String UNIQUE_INDEX_FILTERS = "honeycomb.hbase.uniqueIndexFilters";
+    /**
+     * Default behavior for unique index filters
+     */
+    public static final boolean DEFAULT_UNIQUE_INDEX_FILTERS = false;
+    /**
+     * Property name for setting the false positive rate of the unique index filters
+     */
+    // This needs to change whenever NAMESPACE changes. Due to Guice issues with injecting named non-consts.
+    public static final String UNIQUE_INDEX_FILTER_FALSE_POSITIVE_RATE = "honeycomb.hbase.uniqueIndexFilterFalsePositiveRate";
+    /**
+     * Default false positive rate of the unique index filters
+     */
+    public static final double DEFAULT_UNIQUE_INDEX_FILTER_FALSE_POSITIVE_RATE = 0.01;
+    /**
+     * Property name for setting the number of keys added to a unique index filter between persisting it
+     */
+    // This needs to change whenever NAMESPACE changes. Due to Guice issues with injecting named non-consts.
+    public static final String UNIQUE_INDEX_FILTER_PERSIST_INTERVAL = "honeycomb.hbase.uniqueIndexFilterPersistInterval";
+    /**
+     * Default number of keys added to a unique index filter between persisting it
+     */
+    public static final long DEFAULT_UNIQUE_INDEX_FILTER_PERSIST_INTERVAL = 100000;
+    /**
+     * Property name for setting the number of unique index filters kept in memory
+     */
+    // This needs to change whenever NAMESPACE changes. Due to Guice issues with injecting named non-consts.
+    public static final String UNIQUE_INDEX_FILTER_CACHE_SIZE = "honeycomb.hbase.uniqueIndexFilterCacheSize";
+    /**
+     * Default number of unique index filters kept in memory
+     */
+    public static final long DEFAULT_UNIQUE_INDEX_FILTER_CACHE_SIZE = 32;
+    /**
+     * Prefix of the scan profile properties, followed by the profile name and a setting suffix
+     */
+    public static final String SCAN_PROFILE_NAMESPACE = NAMESPACE;
+    /**
+     * Suffix of the property setting the initial rows fetched per RPC by a scan profile
+     */
+    public static final String SCAN_CACHING_SUFFIX = "Caching";
+    /**
+     * Suffix of the property setting the maximum rows fetched per RPC by a scan profile
+     */
+    public static final String SCAN_MAX_CACHING_SUFFIX = "MaxCaching";
+    /**
+     * Suffix of the property setting whether a scan profile uses the region server block cache
+     */
+    public static final String SCAN_CACHE_BLOCKS_SUFFIX = "CacheBlocks";
+    /**
+     * Property name for counting rows with the AggregateImplementation coprocessor
+     */
+    // This needs to change whenever NAMESPACE changes. Due to Guice issues with injecting named non-consts.
+    public static final String USE_AGGREGATE_COPROCESSOR = "honeycomb.hbase.useAggregateCoprocessor";
+    /**
+     * Default behavior for counting rows with the AggregateImplementation coprocessor
+     */
+    public static final boolean DEFAULT_USE_AGGREGATE_COPROCESSOR = false;
+    /**
+     * Property name for aggregating columns with the ColumnAggregateEndpoint coprocessor
+     */
+    // This needs to change whenever NAMESPACE changes. Due to Guice issues with injecting named non-consts.
+    public static final String USE_COLUMN_AGGREGATE_ENDPOINT = "honeycomb.hbase.useColumnAggregateEndpoint";
+    /**
+     * Default behavior for aggregating columns with the ColumnAggregateEndpoint coprocessor
+     */
+    public static final boolean DEFAULT_USE_COLUMN_AGGREGATE_ENDPOINT = false;
+    /**
+     * Property name for setting the number of rows sampled from each index by ANALYZE TABLE
+     */
+    public static final String STATISTICS_SAMPLE_ROWS = NAMESPACE + "statisticsSampleRows";
+    /**
+     * Default number of rows sampled from each index by ANALYZE TABLE
+     */
+    public static final long DEFAULT_STATISTICS_SAMPLE_ROWS = 20000;
+    /**
+     * Property name for setting the number of buckets of the index histograms built by ANALYZE TABLE
+     */
+    public static final String STATISTICS_HISTOGRAM_BUCKETS = NAMESPACE + "statisticsHistogramBuckets";
+    /**
+     * Default number of buckets of the index histograms built by ANALYZE TABLE
+     */
+    public static final int DEFAULT_STATISTICS_HISTOGRAM_BUCKETS = 64;
+    /**
+     * Property name for setting the maximum number of regions sampled in parallel by ANALYZE TABLE
+     */
+    public static final String STATISTICS_THREADS = NAMESPACE + "statisticsThreads";
+    /**
+     * Default maximum number of regions sampled in parallel by ANALYZE TABLE
+     */
+    public static final int DEFAULT_STATISTICS_THREADS = 8;
+    /**
+     * Property name for setting the maximum number of index rows read to estimate the rows in a range for the optimizer
+     */
+    public static final String RANGE_ESTIMATE_SAMPLE_ROWS = NAMESPACE + "rangeEstimateSampleRows";
+    /**
+     * Default maximum number of index rows read to estimate the rows in a range
+     */
+    public static final int DEFAULT_RANGE_ESTIMATE_SAMPLE_ROWS = 200;
+    /**
+     * Property name for setting the time in milliseconds after which reading the rows of a range estimate stops
+     */
+    public static final String RANGE_ESTIMATE_MAX_TIME = NAMESPACE + "rangeEstimateMaxTime";
+    /**
+     * Default time in milliseconds after which reading the rows of a range estimate stops
+     */
+    public static final long DEFAULT_RANGE_ESTIMATE_MAX_TIME = 5;
+    /**
+     * Property name for setting the time in milliseconds range estimates and region boundaries are cached
+     */
+    public static final String RANGE_ESTIMATE_CACHE_TIME = NAMESPACE + "rangeEstimateCacheTime";
+    /**
+     * Default time in milliseconds range estimates and region boundaries are cached
+     */
+    public static final long DEFAULT_RANGE_ESTIMATE_CACHE_TIME = 10000;
+    /**
+     * Property name for setting the number of row accesses of each thread per hot key sample; zero disables hot key tracking
+     */
+    public static final String HOT_KEY_SAMPLE_INTERVAL = NAMESPACE + "hotKeySampleInterval";
+    /**
+     * Default number of row accesses of each thread per hot key sample
+     */
+    public static final int DEFAULT_HOT_KEY_SAMPLE_INTERVAL = 100;
+    /**
+     * Property name for setting the number of keys and regions counted by hot key tracking
+     */
+    public static final String HOT_KEY_CAPACITY = NAMESPACE + "hotKeyCapacity";
+    /**
+     * Default number of keys and regions counted by hot key tracking
+     */
+    public static final int DEFAULT_HOT_KEY_CAPACITY = 100;
+    /**
+     * Property name for setting the number of leading row key bytes by which hot keys are counted
+     */
+    public static final String HOT_KEY_PREFIX_LENGTH = NAMESPACE + "hotKeyPrefixLength";
+    /**
+     * Default number of leading row key bytes by which hot keys are counted
+     */
+    public static final int DEFAULT_HOT_KEY_PREFIX_LENGTH = 16;
 }
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase.coprocessor;
+
+import com.nearinfinity.honeycomb.mysql.ColumnAggregate;
+import com.nearinfinity.honeycomb.mysql.Row;
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.coprocessor.BaseEndpointCoprocessor;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.ipc.ProtocolSignature;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Region server endpoint which aggregates a column of the serialized rows
+ * stored in data or index rows, so that only the aggregate leaves the region.
+ * It must be installed on the region servers, with the honeycomb and
+ * honeycomb-hbase jars on their classpath, through the
+ * hbase.coprocessor.region.classes property.
+ */
+public class ColumnAggregateEndpoint extends BaseEndpointCoprocessor implements ColumnAggregateProtocol {
+    @Override
+    public ProtocolSignature getProtocolSignature(String protocol, long version, int clientMethodsHashCode)
+            throws IOException {
+        if (ColumnAggregateProtocol.class.getName().equals(protocol)) {
+            return new ProtocolSignature(ColumnAggregateProtocol.VERSION, null);
+        }
+        throw new IOException("Unknown protocol: " + protocol);
+    }
+
+    @Override
+    public ColumnAggregateWritable aggregate(Scan scan, String columnName, byte[] serializedColumnSchema)
+            throws IOException {
+        ColumnSchema column = ColumnSchema.deserialize(serializedColumnSchema, columnName);
+        ColumnAggregate aggregate = new ColumnAggregate(column.getType());
+
+        InternalScanner scanner = ((RegionCoprocessorEnvironment) getEnvironment()).getRegion().getScanner(scan);
+        List<KeyValue> results = new ArrayList<KeyValue>();
+        try {
+            boolean hasMoreRows;
+            do {
+                hasMoreRows = scanner.next(results);
+                for (KeyValue keyValue : results) {
+                    aggregate.add(Row.deserialize(keyValue.getValue()), columnName);
+                }
+                results.clear();
+            } while (hasMoreRows);
+        } finally {
+            scanner.close();
+        }
+
+        return new ColumnAggregateWritable(aggregate);
+    }
+}
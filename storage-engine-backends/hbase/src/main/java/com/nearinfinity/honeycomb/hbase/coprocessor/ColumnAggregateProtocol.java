@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase.coprocessor;
+
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.ipc.CoprocessorProtocol;
+
+import java.io.IOException;
+
+/**
+ * Protocol of the {@link ColumnAggregateEndpoint} coprocessor, which aggregates
+ * a column of the serialized rows in a region.
+ */
+public interface ColumnAggregateProtocol extends CoprocessorProtocol {
+    /**
+     * Protocol version
+     */
+    long VERSION = 1L;
+
+    /**
+     * Compute COUNT, SUM, MIN and MAX of a column over the rows of a scan in
+     * the region
+     *
+     * @param scan                   Scan of the row keys to aggregate
+     * @param columnName             Name of the column to aggregate
+     * @param serializedColumnSchema Serialized column schema of the column
+     * @return Aggregate of the column values in the region
+     * @throws IOException
+     */
+    ColumnAggregateWritable aggregate(Scan scan, String columnName, byte[] serializedColumnSchema)
+            throws IOException;
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase.coprocessor;
+
+import com.nearinfinity.honeycomb.mysql.ColumnAggregate;
+import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Transfers a {@link ColumnAggregate} between a region server and the client.
+ */
+public class ColumnAggregateWritable implements Writable {
+    private ColumnAggregate aggregate;
+
+    /**
+     * Required by the Writable deserialization
+     */
+    public ColumnAggregateWritable() {
+    }
+
+    public ColumnAggregateWritable(ColumnAggregate aggregate) {
+        this.aggregate = checkNotNull(aggregate);
+    }
+
+    public ColumnAggregate getAggregate() {
+        return aggregate;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(aggregate.getType().name());
+        out.writeLong(aggregate.getCount());
+
+        Number sum = aggregate.getSum();
+        out.writeBoolean(sum != null);
+        if (sum instanceof Double) {
+            out.writeDouble(sum.doubleValue());
+        } else if (sum != null) {
+            Bytes.writeByteArray(out, ((BigInteger) sum).toByteArray());
+        }
+
+        writeValue(out, aggregate.getMin());
+        writeValue(out, aggregate.getMax());
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        ColumnType type = ColumnType.valueOf(in.readUTF());
+        long count = in.readLong();
+
+        Number sum = null;
+        if (in.readBoolean()) {
+            sum = type == ColumnType.DOUBLE
+                    ? (Number) in.readDouble()
+                    : new BigInteger(Bytes.readByteArray(in));
+        }
+
+        ByteBuffer min = readValue(in);
+        ByteBuffer max = readValue(in);
+        aggregate = new ColumnAggregate(type, count, sum, min, max);
+    }
+
+    private static void writeValue(DataOutput out, ByteBuffer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            byte[] bytes = new byte[value.remaining()];
+            value.get(bytes);
+            Bytes.writeByteArray(out, bytes);
+        }
+    }
+
+    private static ByteBuffer readValue(DataInput in) throws IOException {
+        return in.readBoolean() ? ByteBuffer.wrap(Bytes.readByteArray(in)) : null;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+package com.nearinfinity.honeycomb.hbase.rowkey;
+
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Encodes the values of a column into bytes which sort in the same order as
+ * the values in an ascending index.  An encoder is chosen once per column, so
+ * the column type is not inspected again for every value encoded.
+ */
+public abstract class ColumnEncoder {
+    private static final long INVERT_SIGN_MASK = 0x8000000000000000L;
+    private static final ColumnEncoder LONG_ENCODER = new ColumnEncoder() {
+        @Override
+        protected byte[] encodeValue(ByteBuffer value) {
+            return Bytes.toBytes(value.getLong() ^ INVERT_SIGN_MASK);
+        }
+    };
+    private static final ColumnEncoder DOUBLE_ENCODER = new ColumnEncoder() {
+        @Override
+        protected byte[] encodeValue(ByteBuffer value) {
+            final double doubleValue = value.getDouble();
+            final long longValue = Double.doubleToLongBits(doubleValue);
+            if (doubleValue < 0.0) {
+                return Bytes.toBytes(~longValue);
+            }
+
+            return Bytes.toBytes(longValue ^ INVERT_SIGN_MASK);
+        }
+    };
+    private static final ColumnEncoder BYTES_ENCODER = new ColumnEncoder() {
+        @Override
+        protected byte[] encodeValue(ByteBuffer value) {
+            return value.array();
+        }
+    };
+
+    /**
+     * Returns the encoder for the values of a column
+     *
+     * @param columnSchema Schema of the column, not null
+     * @return Column encoder
+     */
+    public static ColumnEncoder forColumn(final ColumnSchema columnSchema) {
+        checkNotNull(columnSchema);
+        switch (columnSchema.getType()) {
+            case LONG:
+            case TIME:
+                return LONG_ENCODER;
+            case DOUBLE:
+                return DOUBLE_ENCODER;
+            case BINARY:
+            case STRING:
+                return new PaddedEncoder(columnSchema.getMaxLength());
+            default:
+                return BYTES_ENCODER;
+        }
+    }
+
+    /**
+     * Encodes a value, leaving the position of its buffer unchanged
+     *
+     * @param value Column value, not null
+     * @return Encoded value
+     */
+    public final byte[] encode(final ByteBuffer value) {
+        try {
+            return encodeValue(value);
+        } finally {
+            value.rewind(); // rewind the ByteBuffer's index pointer
+        }
+    }
+
+    protected abstract byte[] encodeValue(ByteBuffer value);
+
+    /**
+     * Pads or truncates variable length values to the maximum length of the column
+     */
+    private static final class PaddedEncoder extends ColumnEncoder {
+        private final int maxLength;
+
+        PaddedEncoder(int maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        protected byte[] encodeValue(ByteBuffer value) {
+            return Arrays.copyOf(value.array(), maxLength);
+        }
+    }
+}
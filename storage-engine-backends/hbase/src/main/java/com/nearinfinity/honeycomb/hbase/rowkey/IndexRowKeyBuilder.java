@@ -26,13 +26,10 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.nearinfinity.honeycomb.mysql.QueryKey;
 import com.nearinfinity.honeycomb.mysql.Row;
-import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
 import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
 import com.nearinfinity.honeycomb.util.Verify;
-import org.apache.hadoop.hbase.util.Bytes;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -45,13 +42,13 @@ import static com.google.common.base.Preconditions.checkState;
  * to call {@link #build} multiple times.
  */
 public class IndexRowKeyBuilder {
-    private static final long INVERT_SIGN_MASK = 0x8000000000000000L;
     private long tableId;
     private long indexId;
     private SortOrder order;
     private String indexName;
     private TableSchema tableSchema;
     private Map<String, ByteBuffer> fields;
+    private List<byte[]> encodedRecords;
     private UUID uuid;
 
     private IndexRowKeyBuilder() {
@@ -83,35 +80,6 @@ public class IndexRowKeyBuilder {
         return reversed;
     }
 
-    private static byte[] encodeValue(final ByteBuffer value, final ColumnSchema columnSchema) {
-        try {
-            switch (columnSchema.getType()) {
-                case LONG:
-                case TIME: {
-                    final long longValue = value.getLong();
-                    return Bytes.toBytes(longValue ^ INVERT_SIGN_MASK);
-                }
-                case DOUBLE: {
-                    final double doubleValue = value.getDouble();
-                    final long longValue = Double.doubleToLongBits(doubleValue);
-                    if (doubleValue < 0.0) {
-                        return Bytes.toBytes(~longValue);
-                    }
-
-                    return Bytes.toBytes(longValue ^ INVERT_SIGN_MASK);
-                }
-                case BINARY:
-                case STRING: {
-                    return Arrays.copyOf(value.array(), columnSchema.getMaxLength());
-                }
-                default:
-                    return value.array();
-            }
-        } finally {
-            value.rewind(); // rewind the ByteBuffer's index pointer
-        }
-    }
-
     /**
      * Adds the specified {@link SortOrder} to the builder instance being constructed
      *
@@ -146,6 +114,7 @@ public class IndexRowKeyBuilder {
         }
 
         this.fields = recordCopy;
+        this.encodedRecords = null;
         this.indexName = indexName;
         this.tableSchema = tableSchema;
         return this;
@@ -163,11 +132,28 @@ public class IndexRowKeyBuilder {
         checkNotNull(queryKey, "queryKey must not be null.");
         checkNotNull(tableSchema, "tableSchema must not be null.");
         this.fields = queryKey.getKeys();
+        this.encodedRecords = null;
         this.indexName = queryKey.getIndexName();
         this.tableSchema = tableSchema;
         return this;
     }
 
+    /**
+     * Set the values of the index row to values which were already encoded
+     * by the {@link ColumnEncoder}s of the index columns, in index column
+     * order.  Encoding the values once lets them be used for the keys of
+     * both sort orders.
+     *
+     * @param encodedRecords Encoded values, null for null values
+     * @return The current builder instance
+     */
+    public IndexRowKeyBuilder withEncodedRecords(List<byte[]> encodedRecords) {
+        checkNotNull(encodedRecords, "encodedRecords must not be null.");
+        this.encodedRecords = encodedRecords;
+        this.fields = null;
+        return this;
+    }
+
     /**
      * Adds the specified {@link UUID} to the builder instance being constructed
      *
@@ -189,15 +175,21 @@ public class IndexRowKeyBuilder {
     public IndexRowKey build() {
         checkState(order != null, "Sort order must be set on IndexRowBuilder.");
         List<byte[]> encodedRecords = Lists.newArrayList();
-        if (fields != null) {
+        if (this.encodedRecords != null) {
+            for (byte[] encodedRecord : this.encodedRecords) {
+                encodedRecords.add(encodedRecord == null || order == SortOrder.Ascending
+                        ? encodedRecord
+                        : reverseValue(encodedRecord));
+            }
+        } else if (fields != null) {
             for (String column : tableSchema.getIndexSchema(indexName).getColumns()) {
                 if (!fields.containsKey(column)) {
                     continue;
                 }
                 ByteBuffer record = fields.get(column);
                 if (record != null) {
-                    byte[] encodedRecord = encodeValue(record,
-                            tableSchema.getColumnSchema(column));
+                    byte[] encodedRecord = ColumnEncoder.forColumn(
+                            tableSchema.getColumnSchema(column)).encode(record);
                     encodedRecords.add(order == SortOrder.Ascending
                             ? encodedRecord
                             : reverseValue(encodedRecord));
@@ -24,6 +24,8 @@ package com.nearinfinity.honeycomb.hbase.rowkey;
 
 /**
  * Representation of the rowkey associated with the row count details for the tables being stored
+ * in the original metadata layout, which kept the details of all tables in a
+ * single row.  Only read when migrating to the current layout.
  */
 public class RowsRowKey extends PrefixRowKey {
     private static final byte[] ROWKEY = {0x03};
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AutoIncrementAllocatorTest {
+    private static final long TABLE_ID = 1;
+    private static final long MIN_BLOCK = 4;
+    private static final long MAX_BLOCK = 32;
+    private final AtomicLong counter = new AtomicLong();
+    private final AtomicLong epoch = new AtomicLong();
+    private Configuration configuration;
+    private HBaseMetadata metadata;
+    private MetadataEpochs epochs;
+    private FakeTicker ticker;
+    private AutoIncrementAllocator allocator;
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long duration, TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+    }
+
+    @Before
+    public void setupTestCase() {
+        counter.set(0);
+        epoch.set(0);
+        metadata = mock(HBaseMetadata.class);
+        when(metadata.incrementAutoInc(eq(TABLE_ID), anyLong())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return counter.addAndGet((Long) invocation.getArguments()[1]);
+            }
+        });
+        when(metadata.getAutoInc(TABLE_ID)).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return counter.get();
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                counter.set((Long) invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(metadata).setAutoInc(eq(TABLE_ID), anyLong());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                counter.set(1);
+                epoch.incrementAndGet();
+                return null;
+            }
+        }).when(metadata).resetAutoInc(TABLE_ID);
+        when(metadata.getEpochs()).thenAnswer(new Answer<Map<Long, Long>>() {
+            @Override
+            public Map<Long, Long> answer(InvocationOnMock invocation) throws Throwable {
+                return ImmutableMap.of(TABLE_ID, epoch.get());
+            }
+        });
+
+        configuration = new Configuration(false);
+        configuration.setLong(ConfigConstants.AUTO_INCREMENT_MIN_BLOCK_SIZE, MIN_BLOCK);
+        configuration.setLong(ConfigConstants.AUTO_INCREMENT_MAX_BLOCK_SIZE, MAX_BLOCK);
+        ticker = new FakeTicker();
+        epochs = new MetadataEpochs(metadata, 0);
+        allocator = new AutoIncrementAllocator(metadata, epochs, configuration, ticker);
+    }
+
+    @Test
+    public void testValuesAreHandedOutFromOneReservation() {
+        for (long expected = 0; expected < MIN_BLOCK; expected++) {
+            assertEquals(expected, allocator.allocate(TABLE_ID, 1));
+        }
+
+        verify(metadata, times(1)).incrementAutoInc(TABLE_ID, MIN_BLOCK);
+        assertEquals(MIN_BLOCK, counter.get());
+    }
+
+    @Test
+    public void testAllocationsAreConsecutive() {
+        allocator.allocate(TABLE_ID, 3);
+        long first = allocator.allocate(TABLE_ID, 3);
+
+        assertEquals("Values left in a block too small are skipped", MIN_BLOCK, first);
+        assertEquals(first + 3, allocator.peek(TABLE_ID));
+    }
+
+    @Test
+    public void testServersSharingCounterNeverOverlap() throws Exception {
+        final List<AutoIncrementAllocator> servers = Lists.newArrayList(allocator,
+                new AutoIncrementAllocator(metadata, epochs, configuration, ticker));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<List<Long>>> tasks = Lists.newArrayList();
+            for (int thread = 0; thread < 4; thread++) {
+                final AutoIncrementAllocator server = servers.get(thread % servers.size());
+                tasks.add(new Callable<List<Long>>() {
+                    @Override
+                    public List<Long> call() throws Exception {
+                        List<Long> values = Lists.newArrayList();
+                        for (int i = 0; i < 500; i++) {
+                            values.add(server.allocate(TABLE_ID, 1));
+                        }
+                        return values;
+                    }
+                });
+            }
+
+            Set<Long> values = Sets.newHashSet();
+            for (Future<List<Long>> future : executor.invokeAll(tasks)) {
+                for (Long value : future.get()) {
+                    assertTrue("Duplicate value " + value, values.add(value));
+                }
+            }
+            assertEquals(2000, values.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAdvanceWithinBlockStaysLocal() {
+        allocator.allocate(TABLE_ID, 1);
+        allocator.advance(TABLE_ID, 3);
+
+        assertEquals(3, allocator.allocate(TABLE_ID, 1));
+        verify(metadata, times(1)).incrementAutoInc(eq(TABLE_ID), anyLong());
+    }
+
+    @Test
+    public void testAdvanceBeyondBlockReservesPastValue() {
+        allocator.allocate(TABLE_ID, 1);
+        allocator.advance(TABLE_ID, 100);
+
+        assertEquals(100, allocator.allocate(TABLE_ID, 1));
+        assertTrue(counter.get() >= 100 + MIN_BLOCK);
+    }
+
+    @Test
+    public void testAdvanceCatchesUpWithOtherServers() {
+        counter.set(1000);
+
+        allocator.advance(TABLE_ID, 10);
+
+        assertEquals(1000, allocator.allocate(TABLE_ID, 1));
+    }
+
+    @Test
+    public void testAdvanceAfterRestartReservesFromCounter() {
+        counter.set(1000);
+        AutoIncrementAllocator restarted = new AutoIncrementAllocator(metadata, epochs, configuration, ticker);
+
+        restarted.advance(TABLE_ID, 1001);
+
+        assertEquals(1001, restarted.allocate(TABLE_ID, 1));
+        assertEquals(1001 + MIN_BLOCK, counter.get());
+    }
+
+    @Test
+    public void testAdvanceToCounterAfterRestartReservesNothing() {
+        counter.set(1000);
+        AutoIncrementAllocator restarted = new AutoIncrementAllocator(metadata, epochs, configuration, ticker);
+
+        restarted.advance(TABLE_ID, 1000);
+
+        verify(metadata, times(0)).incrementAutoInc(eq(TABLE_ID), anyLong());
+        assertEquals(1000, restarted.allocate(TABLE_ID, 1));
+    }
+
+    @Test
+    public void testBlockSizeAdaptsToInsertRate() {
+        for (int i = 0; i < 100; i++) {
+            allocator.allocate(TABLE_ID, 1);
+        }
+        assertEquals(MAX_BLOCK, allocator.getBlockSize(TABLE_ID));
+
+        for (int i = 0; i < 10; i++) {
+            ticker.advance(2, TimeUnit.MINUTES);
+            allocator.allocate(TABLE_ID, MAX_BLOCK);
+        }
+        assertEquals(MIN_BLOCK, allocator.getBlockSize(TABLE_ID));
+    }
+
+    @Test
+    public void testResetDiscardsBlock() {
+        allocator.allocate(TABLE_ID, 1);
+
+        allocator.reset(TABLE_ID);
+
+        assertEquals(1, allocator.peek(TABLE_ID));
+        assertEquals(1, allocator.allocate(TABLE_ID, 1));
+    }
+
+    @Test
+    public void testResetByOtherServerDiscardsBlock() {
+        MetadataEpochs otherEpochs = new MetadataEpochs(metadata, 0);
+        AutoIncrementAllocator other = new AutoIncrementAllocator(metadata, otherEpochs, configuration, ticker);
+        otherEpochs.poll();
+        assertEquals(0, other.allocate(TABLE_ID, 1));
+
+        allocator.reset(TABLE_ID);
+        assertEquals(1, allocator.allocate(TABLE_ID, 1));
+        otherEpochs.poll();
+
+        assertEquals("Values reserved before the reset are discarded", 1 + MIN_BLOCK, other.allocate(TABLE_ID, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBlockSizes() {
+        configuration.setLong(ConfigConstants.AUTO_INCREMENT_MIN_BLOCK_SIZE, MAX_BLOCK * 2);
+        new AutoIncrementAllocator(metadata, epochs, configuration, ticker);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ElasticThreadPoolTest {
+    private ElasticThreadPool pool;
+
+    @Before
+    public void setupTestCase() {
+        pool = new ElasticThreadPool("test", 2);
+    }
+
+    @After
+    public void tearDownTestCase() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testQueuesBeyondMaxThreads() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocked = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        Future<?> first = pool.submit(blocked);
+        Future<?> second = pool.submit(blocked);
+        Future<?> third = pool.submit(blocked);
+
+        assertEquals(2, pool.getPoolSize());
+        assertEquals(1, pool.getQueue().size());
+
+        Thread.sleep(20);
+        release.countDown();
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+        third.get(1, TimeUnit.SECONDS);
+
+        assertTrue(pool.getWaitMillis() >= 20);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequiresThreads() {
+        new ElasticThreadPool("test", 0);
+    }
+}
@@ -23,7 +23,9 @@
 package com.nearinfinity.honeycomb.hbase;
 
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -37,9 +39,12 @@ import java.util.Map;
 import net.java.quickcheck.Generator;
 import net.java.quickcheck.generator.PrimitiveGenerators;
 
+import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -49,10 +54,16 @@ import org.powermock.api.mockito.PowerMockito;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.nearinfinity.honeycomb.MockHTable;
 import com.nearinfinity.honeycomb.exceptions.TableNotFoundException;
+import com.nearinfinity.honeycomb.hbase.rowkey.AutoIncRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.MetadataEpochsRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.RowsRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.SchemaRowKey;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
 import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
 import com.nearinfinity.honeycomb.mysql.generators.TableSchemaGenerator;
 import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
@@ -195,6 +206,99 @@ public class HBaseMetadataTest {
         }));
     }
 
+    @Test(expected = TableNotFoundException.class)
+    public void testLookupTableMetadataUnknownTableId() {
+        hbaseMetadata.getTableMetadata(2);
+    }
+
+    @Test
+    public void testLookupTableMetadataValidTableId() {
+        final TableSchema tableSchema = TABLE_SCHEMA_GEN.next();
+        hbaseMetadata.createTable(TABLE_NAME, tableSchema);
+        final long tableId = hbaseMetadata.getTableId(TABLE_NAME);
+
+        final TableMetadata tableMetadata = hbaseMetadata.getTableMetadata(tableId);
+
+        assertEquals(tableId, tableMetadata.getTableId());
+        assertEquals(hbaseMetadata.getSchema(tableId), tableMetadata.getSchema());
+        assertEquals(hbaseMetadata.getColumnIds(tableId), tableMetadata.getColumnIds());
+        if (tableSchema.hasIndices()) {
+            assertEquals(hbaseMetadata.getIndexIds(tableId), tableMetadata.getIndexIds());
+        } else {
+            assertTrue(tableMetadata.getIndexIds().isEmpty());
+        }
+    }
+
+    @Test
+    public void testLookupAllTableMetadata() {
+        final String otherTableName = TABLE_NAME + "_other";
+        final String droppedTableName = TABLE_NAME + "_dropped";
+        hbaseMetadata.createTable(TABLE_NAME, TABLE_SCHEMA_GEN.next());
+        hbaseMetadata.createTable(otherTableName, TABLE_SCHEMA_GEN.next());
+        hbaseMetadata.createTable(droppedTableName, TABLE_SCHEMA_GEN.next());
+        hbaseMetadata.deleteTable(droppedTableName);
+
+        final Map<String, TableMetadata> tables = hbaseMetadata.getAllTableMetadata();
+
+        assertEquals(2, tables.size());
+        for (String tableName : ImmutableList.of(TABLE_NAME, otherTableName)) {
+            final long tableId = hbaseMetadata.getTableId(tableName);
+            final TableMetadata expected = hbaseMetadata.getTableMetadata(tableId);
+            final TableMetadata actual = tables.get(tableName);
+
+            assertEquals(tableId, actual.getTableId());
+            assertEquals(expected.getSchema(), actual.getSchema());
+            assertEquals(expected.getColumnIds(), actual.getColumnIds());
+            assertEquals(expected.getIndexIds(), actual.getIndexIds());
+        }
+    }
+
+    @Test
+    public void testDefinitionChangesIncrementEpoch() {
+        hbaseMetadata.createTable(TABLE_NAME, new TableSchema(COLUMN_SCHEMAS, ImmutableList.<IndexSchema>of()));
+        final long tableId = hbaseMetadata.getTableId(TABLE_NAME);
+        assertFalse(hbaseMetadata.getEpochs().containsKey(tableId));
+
+        hbaseMetadata.createTableIndex(tableId, new IndexSchema(INDEX_NAME, ImmutableList.of(COLUMN_NAME), false));
+        assertEquals(Long.valueOf(1), hbaseMetadata.getEpochs().get(tableId));
+
+        hbaseMetadata.deleteTableIndex(tableId, INDEX_NAME);
+        hbaseMetadata.renameExistingTable(TABLE_NAME, TABLE_NAME + "_renamed");
+        hbaseMetadata.deleteTable(TABLE_NAME + "_renamed");
+        assertEquals(Long.valueOf(4), hbaseMetadata.getEpochs().get(tableId));
+    }
+
+    @Test
+    public void testResetAutoIncIncrementsEpoch() {
+        hbaseMetadata.createTable(TABLE_NAME, new TableSchema(COLUMN_SCHEMAS, ImmutableList.<IndexSchema>of()));
+        final long tableId = hbaseMetadata.getTableId(TABLE_NAME);
+        hbaseMetadata.incrementAutoInc(tableId, 10);
+
+        hbaseMetadata.resetAutoInc(tableId);
+
+        assertEquals(1, hbaseMetadata.getAutoInc(tableId));
+        assertEquals(Long.valueOf(1), hbaseMetadata.getEpochs().get(tableId));
+    }
+
+    @Test
+    public void testIndexStatisticsReplaced() {
+        hbaseMetadata.createTable(TABLE_NAME, new TableSchema(COLUMN_SCHEMAS, ImmutableList.<IndexSchema>of()));
+        final long tableId = hbaseMetadata.getTableId(TABLE_NAME);
+        final IndexStatistics first = new IndexStatistics(10, 10, new long[]{5}, ImmutableList.of(Bytes.toBytes(3L)));
+        final IndexStatistics second = new IndexStatistics(20, 20, new long[]{4}, ImmutableList.<byte[]>of());
+        assertTrue(hbaseMetadata.getIndexStatistics(tableId).isEmpty());
+
+        hbaseMetadata.putIndexStatistics(tableId, ImmutableMap.of(1L, first, 2L, first));
+        assertEquals(ImmutableMap.of(1L, first, 2L, first), hbaseMetadata.getIndexStatistics(tableId));
+        assertEquals(Long.valueOf(1), hbaseMetadata.getEpochs().get(tableId));
+
+        hbaseMetadata.putIndexStatistics(tableId, ImmutableMap.of(2L, second));
+        assertEquals(ImmutableMap.of(2L, second), hbaseMetadata.getIndexStatistics(tableId));
+
+        hbaseMetadata.deleteTable(TABLE_NAME);
+        assertTrue(hbaseMetadata.getIndexStatistics(tableId).isEmpty());
+    }
+
     @Test
     public void testSchemaDeleteRemovesAllRowIds() throws Exception {
         TableSchema schema = TABLE_SCHEMA_GEN.next();
@@ -209,6 +313,7 @@ public class HBaseMetadataTest {
         hbaseMetadata.deleteTable(tableName);
         ResultScanner results = table.getScanner(new Scan());
         assertTrue(results.next().getNoVersionMap().size() == 1); // Table id counter
+        assertArrayEquals(new MetadataEpochsRowKey().encode(), results.next().getRow()); // Dropped table's epoch
         assertNull(results.next());
         results.close();
     }
@@ -423,4 +528,38 @@ public class HBaseMetadataTest {
         hbaseMetadata.truncateRowCount(tableId);
         assertEquals(hbaseMetadata.getRowCount(tableId), 0);
     }
+
+    @Test
+    public void testMigrateLayout() throws Exception {
+        final TableSchema schema = TABLE_SCHEMA_GEN.next();
+        hbaseMetadata.createTable(TABLE_NAME, schema);
+        final long tableId = hbaseMetadata.getTableId(TABLE_NAME);
+        final long migratedTableId = tableId + 1;
+        final byte[] family = "nic".getBytes();
+        final byte[] qualifier = VarEncoder.encodeULong(migratedTableId);
+
+        // Metadata of a table written in the version 1 layout
+        table.put(new Put(new SchemaRowKey().encode()).add(family, qualifier, schema.serialize()));
+        table.put(new Put(new RowsRowKey().encode()).add(family, qualifier, Bytes.toBytes(42L)));
+        table.put(new Put(new AutoIncRowKey().encode()).add(family, qualifier, Bytes.toBytes(7L)));
+        // A value already in the current layout must win over the old row
+        hbaseMetadata.incrementRowCount(tableId, 5);
+        table.put(new Put(new RowsRowKey().encode())
+                .add(family, VarEncoder.encodeULong(tableId), Bytes.toBytes(99L)));
+
+        assertEquals(1, hbaseMetadata.getLayoutVersion());
+        hbaseMetadata.migrateLayout();
+
+        assertEquals(HBaseMetadata.LAYOUT_VERSION, hbaseMetadata.getLayoutVersion());
+        assertEquals(schema, hbaseMetadata.getSchema(migratedTableId));
+        assertEquals(42, hbaseMetadata.getRowCount(migratedTableId));
+        assertEquals(7, hbaseMetadata.getAutoInc(migratedTableId));
+        assertEquals(5, hbaseMetadata.getRowCount(tableId));
+        assertTrue(table.get(new Get(new RowsRowKey().encode())).isEmpty());
+
+        // Running the migration again changes nothing
+        hbaseMetadata.incrementRowCount(migratedTableId, 1);
+        hbaseMetadata.migrateLayout();
+        assertEquals(43, hbaseMetadata.getRowCount(migratedTableId));
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.nearinfinity.honeycomb.MockHTable;
+import com.nearinfinity.honeycomb.metrics.OperationDetails;
+import com.nearinfinity.honeycomb.metrics.SlowOperationLog;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HBaseScannerTest {
+    private static final String COLUMN_FAMILY = "nic";
+
+    @Test
+    public void testGrowingScannerReturnsEveryRowOnce() throws Exception {
+        MockHTable table = MockHTable.create();
+        int rows = 100;
+        for (int i = 0; i < rows; i++) {
+            table.put(new Put(Bytes.toBytes(i)).add(COLUMN_FAMILY.getBytes(), new byte[0], Bytes.toBytes(i)));
+        }
+
+        Scan scan = new Scan(Bytes.toBytes(0), Bytes.toBytes(rows));
+        scan.setCaching(2);
+        HBaseScanner scanner = new HBaseScanner(table, scan, 16, COLUMN_FAMILY);
+
+        for (int i = 0; i < rows; i++) {
+            assertTrue(scanner.hasNext());
+            assertArrayEquals(Bytes.toBytes(i), scanner.next());
+        }
+        assertFalse(scanner.hasNext());
+        assertEquals(16, scan.getCaching());
+        scanner.close();
+    }
+
+    @Test
+    public void testGrowingScannerWithoutHasNext() throws Exception {
+        MockHTable table = MockHTable.create();
+        int rows = 20;
+        for (int i = 0; i < rows; i++) {
+            table.put(new Put(Bytes.toBytes(i)).add(COLUMN_FAMILY.getBytes(), new byte[0], Bytes.toBytes(i)));
+        }
+
+        Scan scan = new Scan(Bytes.toBytes(0), Bytes.toBytes(rows));
+        scan.setCaching(1);
+        HBaseScanner scanner = new HBaseScanner(table, scan, 4, COLUMN_FAMILY);
+
+        for (int i = 0; i < rows; i++) {
+            assertArrayEquals(Bytes.toBytes(i), scanner.next());
+        }
+        assertFalse(scanner.hasNext());
+        assertEquals(4, scan.getCaching());
+        scanner.close();
+    }
+
+    @Test
+    public void testScannerRecordsDetails() throws Exception {
+        MockHTable table = MockHTable.create();
+        int rows = 10;
+        for (int i = 0; i < rows; i++) {
+            table.put(new Put(Bytes.toBytes(i)).add(COLUMN_FAMILY.getBytes(), new byte[0], Bytes.toBytes(i)));
+        }
+
+        Scan scan = new Scan(Bytes.toBytes(0), Bytes.toBytes(rows));
+        scan.setCaching(4);
+        long start = System.nanoTime();
+        OperationDetails details = SlowOperationLog.getInstance().beginScan();
+        HBaseScanner scanner = new HBaseScanner(table, scan, 4, COLUMN_FAMILY);
+        for (int i = 0; i < 5; i++) {
+            scanner.next();
+        }
+        scanner.close();
+        SlowOperationLog.getInstance().suspend(details, start);
+
+        assertEquals(5, details.getRows());
+        assertEquals(5 * Bytes.SIZEOF_INT, details.getBytesRead());
+        // Opening the scanner and fetching two batches
+        assertEquals(3, details.getRpcs());
+        assertEquals(3, details.getRowsDiscarded());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that a row count flush blocked in HBase holds up neither the flushes
+ * of other tables nor readers and writers of its own table.  Updates to a
+ * table made while it is flushed are coalesced into its next flush.
+ */
+public class HBaseStoreContentionTest {
+    private static final long TIMEOUT_SECONDS = 10;
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong firstTableRows = new AtomicLong();
+    private final CountDownLatch flushStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFlush = new CountDownLatch(1);
+    private HBaseStore store;
+
+    @Before
+    public void setupTestCase() {
+        HBaseMetadata metadata = mock(HBaseMetadata.class);
+        when(metadata.getTableId(anyString())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return Long.valueOf((String) invocation.getArguments()[0]);
+            }
+        });
+        when(metadata.incrementRowCount(anyLong(), anyLong())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return flushedRows.addAndGet((Long) invocation.getArguments()[1]);
+            }
+        });
+        // Flushes of table 1 block until released
+        doAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                flushStarted.countDown();
+                assertTrue(releaseFlush.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                long amount = (Long) invocation.getArguments()[1];
+                flushedRows.addAndGet(amount);
+                return firstTableRows.addAndGet(amount);
+            }
+        }).when(metadata).incrementRowCount(eq(1L), anyLong());
+        Configuration configuration = new Configuration(false);
+        configuration.setLong(ConfigConstants.ROW_COUNT_FLUSH_THRESHOLD, 1);
+        store = new HBaseStore(metadata, null, new MetadataCache(metadata),
+                new AutoIncrementAllocator(metadata, configuration),
+                new RowCountAccumulator(metadata, configuration), new WriteBufferManager(configuration));
+    }
+
+    @Test
+    public void testBlockedFlushDoesNotHoldUpOtherUpdates() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Void> blocked = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    store.incrementRowCount("1", 1);
+                    return null;
+                }
+            });
+            assertTrue(flushStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+            // Table 1 is still being flushed on the other thread
+            store.incrementRowCount("2", 5);
+            assertEquals(5, store.getRowCount("2"));
+            store.incrementRowCount("1", 2);
+            assertEquals(3, store.getRowCount("1"));
+            assertEquals(5, flushedRows.get());
+
+            releaseFlush.countDown();
+            blocked.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            store.incrementRowCount("1", 1);
+            assertEquals("Concurrent updates to one table are coalesced, never lost", 9, flushedRows.get());
+            assertEquals(4, store.getRowCount("1"));
+        } finally {
+            releaseFlush.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRowCountCachedPerTable() throws Exception {
+        HBaseMetadata metadata = mock(HBaseMetadata.class);
+        when(metadata.getTableId("1")).thenReturn(1L);
+        when(metadata.getTableId("2")).thenReturn(2L);
+        when(metadata.incrementRowCount(1L, 5L)).thenReturn(5L);
+        when(metadata.incrementRowCount(2L, 7L)).thenReturn(7L);
+        HBaseStore store = new HBaseStore(metadata, null, new MetadataCache(metadata),
+                new AutoIncrementAllocator(metadata, new Configuration()),
+                new RowCountAccumulator(metadata, new Configuration()),
+                new WriteBufferManager(new Configuration()));
+
+        store.incrementRowCount("1", 5);
+        store.incrementRowCount("2", 7);
+
+        assertEquals(5, store.getRowCount("1"));
+        assertEquals(7, store.getRowCount("2"));
+    }
+}
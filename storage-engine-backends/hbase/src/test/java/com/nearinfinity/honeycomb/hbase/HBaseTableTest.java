@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Longs;
+import com.nearinfinity.honeycomb.MockHTable;
+import com.nearinfinity.honeycomb.Scanner;
+import com.nearinfinity.honeycomb.exceptions.RowNotFoundException;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import com.nearinfinity.honeycomb.mysql.Row;
+import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
+import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
+import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that the row cache never keeps a row older than the last update or
+ * delete made through the table, nor a row not yet written to HBase, with puts
+ * held in the client write buffer as they are in HBase.
+ */
+public class HBaseTableTest {
+    private static final String TABLE = "t1";
+    private static final String COLUMN = "c1";
+    private static final String COLUMN_FAMILY = "nic";
+    private final List<Put> bufferedPuts = Lists.newArrayList();
+    private MockHTable backing;
+    private Runnable beforeDelete;
+    private HTableProvider provider;
+    private HBaseMetadata metadata;
+    private HBaseStore store;
+    private MutationFactory mutationFactory;
+    private RowCache rowCache;
+    private HBaseTable table;
+
+    @Before
+    public void setupTestCase() throws Exception {
+        provider = mock(HTableProvider.class);
+        when(provider.get()).thenReturn(MockHTable.create());
+        metadata = new HBaseMetadata(provider);
+        metadata.setColumnFamily(COLUMN_FAMILY);
+        store = new HBaseStore(metadata, mock(HBaseTableFactory.class), new MetadataCache(metadata),
+                new AutoIncrementAllocator(metadata, new Configuration()),
+                new RowCountAccumulator(metadata, new Configuration()),
+                new WriteBufferManager(new Configuration()));
+        store.createTable(TABLE, new TableSchema(
+                ImmutableList.of(ColumnSchema.builder(COLUMN, ColumnType.LONG).build()),
+                ImmutableList.<IndexSchema>of()));
+        mutationFactory = new MutationFactory(store);
+        rowCache = new RowCache(1 << 20, false);
+        mutationFactory.setColumnFamily(COLUMN_FAMILY);
+
+        // Puts are held until flushCommits, and deletes are applied at once
+        backing = MockHTable.create();
+        MockHTable hTable = spy(backing);
+        doReturn(false).when(hTable).isAutoFlush();
+        doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                bufferedPuts.addAll((List<Put>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(hTable).put(anyListOf(Put.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                backing.put(bufferedPuts);
+                bufferedPuts.clear();
+                return null;
+            }
+        }).when(hTable).flushCommits();
+        doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                if (beforeDelete != null) {
+                    beforeDelete.run();
+                }
+                backing.delete((List<Delete>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(hTable).delete(anyListOf(Delete.class));
+
+        table = createTable(hTable);
+    }
+
+    @Test
+    public void testGetRowAfterBufferedUpdateReturnsNewRow() {
+        Row oldRow = row(UUID.randomUUID(), 1);
+        table.insertRow(oldRow);
+        table.flush();
+        assertEquals(oldRow, table.getRow(oldRow.getUUID()));
+
+        Row newRow = row(oldRow.getUUID(), 2);
+        table.updateRow(oldRow, newRow, ImmutableList.<IndexSchema>of());
+        assertEquals(newRow, table.getRow(oldRow.getUUID()));
+
+        table.flush();
+        assertEquals(newRow, table.getRow(oldRow.getUUID()));
+    }
+
+    @Test
+    public void testGetRowDuringDeleteDoesNotCacheDeletedRow() {
+        final Row row = row(UUID.randomUUID(), 1);
+        table.insertRow(row);
+        table.flush();
+
+        // A concurrent lookup just before the delete reaches HBase
+        beforeDelete = new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(row, table.getRow(row.getUUID()));
+            }
+        };
+        table.deleteRow(row);
+
+        try {
+            table.getRow(row.getUUID());
+            fail("Deleted row was returned from the row cache");
+        } catch (RowNotFoundException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testUnflushedUpdateNotVisibleThroughOtherTables() {
+        Row oldRow = row(UUID.randomUUID(), 1);
+        table.insertRow(oldRow);
+        table.flush();
+        HBaseTable other = createTable(backing);
+        assertEquals(oldRow, other.getRow(oldRow.getUUID()));
+
+        Row newRow = row(oldRow.getUUID(), 2);
+        table.updateRow(oldRow, newRow, ImmutableList.<IndexSchema>of());
+        assertEquals("The update may still fail to flush", oldRow, other.getRow(oldRow.getUUID()));
+
+        table.flush();
+        assertEquals(newRow, other.getRow(oldRow.getUUID()));
+    }
+
+    @Test
+    public void testScannedRowsAreNotCached() throws Exception {
+        Row row = row(UUID.randomUUID(), 1);
+        table.insertRow(row);
+        table.flush();
+
+        // The scanner fetched the row before it was deleted
+        Scanner scanner = table.tableScan();
+        table.deleteRow(row);
+        assertEquals(row, Row.deserialize(scanner.next()));
+        scanner.close();
+
+        try {
+            table.getRow(row.getUUID());
+            fail("Deleted row was returned from the row cache");
+        } catch (RowNotFoundException e) {
+            // Expected
+        }
+    }
+
+    private HBaseTable createTable(HTableInterface hTable) {
+        Configuration configuration = new Configuration(false);
+        configuration.set(ConfigConstants.COLUMN_FAMILY, COLUMN_FAMILY);
+        HBaseTable created = new HBaseTable(hTable, store, mutationFactory, rowCache,
+                new UniqueIndexFilters(metadata, provider), new ScanProfiles(configuration),
+                new WriteBufferManager(configuration), new IndexSampler(provider, configuration),
+                new RangeEstimator(provider, configuration), HotKeyTracker.disabled(),
+                store.getTableId(TABLE));
+        created.setColumnFamily(COLUMN_FAMILY);
+        return created;
+    }
+
+    private static Row row(UUID uuid, long value) {
+        return new Row(ImmutableMap.of(COLUMN, ByteBuffer.wrap(Longs.toByteArray(value))), uuid);
+    }
+}
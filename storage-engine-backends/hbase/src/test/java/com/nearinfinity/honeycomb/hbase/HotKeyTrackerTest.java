@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Function;
+import com.nearinfinity.honeycomb.EngineStatus;
+import com.nearinfinity.honeycomb.hbase.rowkey.DataRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
+import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
+import com.nearinfinity.honeycomb.hbase.rowkey.TableRowsRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.TablesRowKey;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HotKeyTrackerTest {
+    private static final long TABLE_ID = 5;
+    private static final Function<byte[], String> REGION_LOCATOR = new Function<byte[], String>() {
+        @Override
+        public String apply(byte[] row) {
+            return row[0] == new TablesRowKey().getPrefix() ? "meta" : "data";
+        }
+    };
+
+    @Test
+    public void testDescribeLabelsRowsByTableAndIndex() {
+        assertEquals("table=5 data",
+                HotKeyTracker.describe(new DataRowKey(TABLE_ID, UUID.randomUUID()).encode()));
+        assertEquals("table=5 index=300 ascending", HotKeyTracker.describe(
+                IndexRowKeyBuilder.newBuilder(TABLE_ID, 300).withSortOrder(SortOrder.Ascending).build().encode()));
+        assertEquals("table=5 index=2 descending", HotKeyTracker.describe(
+                IndexRowKeyBuilder.newBuilder(TABLE_ID, 2).withSortOrder(SortOrder.Descending).build().encode()));
+        assertEquals("table=5 metadata=rowCount",
+                HotKeyTracker.describe(new TableRowsRowKey(TABLE_ID).encode()));
+        assertEquals("metadata=tables", HotKeyTracker.describe(new TablesRowKey().encode()));
+    }
+
+    @Test
+    public void testDescribeMalformedRows() {
+        assertEquals("row=empty", HotKeyTracker.describe(new byte[0]));
+        assertEquals("prefix=7f", HotKeyTracker.describe(new byte[]{0x7f, 1, 1}));
+        byte[] dataPrefix = {new DataRowKey(TABLE_ID).getPrefix()};
+        assertEquals("prefix=" + String.format("%02x", dataPrefix[0]), HotKeyTracker.describe(dataPrefix));
+        assertEquals("prefix=" + String.format("%02x", dataPrefix[0]),
+                HotKeyTracker.describe(new byte[]{dataPrefix[0], 4, 1}));
+    }
+
+    @Test
+    public void testSamplesOneInIntervalAccesses() {
+        HotKeyTracker tracker = new HotKeyTracker(REGION_LOCATOR, 10, 10, 16);
+        byte[] row = new TableRowsRowKey(TABLE_ID).encode();
+        for (int i = 0; i < 100; i++) {
+            tracker.record(row);
+        }
+
+        assertEquals(10, tracker.getSamples());
+        Map<String, Long> hotKeys = tracker.getHotKeys();
+        assertEquals(1, hotKeys.size());
+        String key = hotKeys.keySet().iterator().next();
+        assertTrue(key, key.startsWith("table=5 metadata=rowCount key="));
+        assertEquals(Long.valueOf(10), hotKeys.get(key));
+        assertEquals(Long.valueOf(10), tracker.getHotRegions().get("region=data table=5 metadata=rowCount"));
+    }
+
+    @Test
+    public void testHotRegionOfManyDistinctKeys() {
+        HotKeyTracker tracker = new HotKeyTracker(REGION_LOCATOR, 1, 4, 32);
+        for (int i = 0; i < 50; i++) {
+            tracker.record(new DataRowKey(TABLE_ID, UUID.randomUUID()).encode());
+        }
+        tracker.record(new TablesRowKey().encode());
+
+        Map<String, Long> hotRegions = tracker.getHotRegions();
+        assertEquals("region=data table=5 data", hotRegions.keySet().iterator().next());
+        assertEquals(Long.valueOf(50), hotRegions.get("region=data table=5 data"));
+        assertEquals(4, tracker.getHotKeys().size());
+    }
+
+    @Test
+    public void testUnknownRegionWhenLookupFails() {
+        HotKeyTracker tracker = new HotKeyTracker(new Function<byte[], String>() {
+            @Override
+            public String apply(byte[] row) {
+                throw new IllegalStateException();
+            }
+        }, 1, 10, 16);
+        tracker.record(new TablesRowKey().encode());
+        assertEquals(Long.valueOf(1), tracker.getHotRegions().get("region=unknown metadata=tables"));
+    }
+
+    @Test
+    public void testDisabledTrackerSamplesNothing() {
+        HotKeyTracker tracker = HotKeyTracker.disabled();
+        tracker.record(new TablesRowKey().encode());
+        assertEquals(0, tracker.getSamples());
+        assertTrue(tracker.getHotKeys().isEmpty());
+    }
+
+    @Test
+    public void testReportStatusAndReset() {
+        HotKeyTracker tracker = new HotKeyTracker(REGION_LOCATOR, 1, 10, 16);
+        tracker.record(new TablesRowKey().encode());
+
+        EngineStatus status = new EngineStatus();
+        tracker.reportStatus(status);
+        assertEquals("1", status.getSection("hotKeys").get("sampleInterval"));
+        assertEquals("1", status.getSection("hotKeys").get("samples"));
+        assertEquals("count=1 error=0", status.getSection("hotRegions").get("region=meta metadata=tables"));
+
+        tracker.reset();
+        assertEquals(0, tracker.getSamples());
+        assertTrue(tracker.getHotRegions().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSampleIntervalMustNotBeNegative() {
+        HotKeyTracker.disabled().setSampleInterval(-1);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Provider;
+import com.nearinfinity.honeycomb.MockHTable;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
+import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
+import com.nearinfinity.honeycomb.mysql.Row;
+import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
+import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
+import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IndexSamplerTest {
+    private static final String COLUMN_FAMILY = "nic";
+    private static final long TABLE_ID = 1;
+    private static final long INDEX_ID = 1;
+    private static final String INDEX_NAME = "i1";
+    private static final List<String> COLUMNS = ImmutableList.of("c1", "c2");
+    private static final TableSchema SCHEMA = new TableSchema(
+            ImmutableList.of(
+                    ColumnSchema.builder("c1", ColumnType.LONG).build(),
+                    ColumnSchema.builder("c2", ColumnType.LONG).build()),
+            ImmutableList.of(new IndexSchema(INDEX_NAME, COLUMNS, false)));
+    private MockHTable hTable;
+    private Provider<HTableInterface> provider;
+
+    @Before
+    public void setupTestCase() {
+        hTable = MockHTable.create();
+        provider = new Provider<HTableInterface>() {
+            @Override
+            public HTableInterface get() {
+                return hTable;
+            }
+        };
+    }
+
+    private void insertIndexRows(int rows) throws Exception {
+        for (long i = 0; i < rows; i++) {
+            Row row = new Row(ImmutableMap.of(
+                    "c1", ByteBuffer.wrap(Longs.toByteArray(i / 10)),
+                    "c2", ByteBuffer.wrap(Longs.toByteArray(i))), UUID.randomUUID());
+            byte[] key = IndexRowKeyBuilder.newBuilder(TABLE_ID, INDEX_ID)
+                    .withRow(row, INDEX_NAME, SCHEMA)
+                    .withSortOrder(SortOrder.Ascending)
+                    .build()
+                    .encode();
+            hTable.put(new Put(key).add(COLUMN_FAMILY.getBytes(), new byte[0], row.serialize()));
+        }
+    }
+
+    private IndexStatistics sample(long sampleRows, int buckets, long rowCount) {
+        IndexSampler sampler = new IndexSampler(provider, COLUMN_FAMILY, sampleRows, buckets,
+                MoreExecutors.sameThreadExecutor());
+        return sampler.sample(indexStart(INDEX_ID), indexStart(INDEX_ID + 1), COLUMNS, rowCount);
+    }
+
+    private static byte[] indexStart(long indexId) {
+        return IndexRowKeyBuilder.newBuilder(TABLE_ID, indexId)
+                .withSortOrder(SortOrder.Ascending)
+                .build()
+                .encode();
+    }
+
+    @Test
+    public void testSmallIndexReadFully() throws Exception {
+        insertIndexRows(100);
+
+        IndexStatistics statistics = sample(1000, 4, 100);
+
+        assertEquals(100, statistics.getSampledRows());
+        assertArrayEquals(new long[]{10, 100}, statistics.getDistinctKeys());
+        assertArrayEquals(new long[]{10, 1}, statistics.getRecordsPerKey());
+        assertEquals(4, statistics.getHistogram().size());
+        assertEquals(100, statistics.estimateRows(indexStart(INDEX_ID), indexStart(INDEX_ID + 1)));
+    }
+
+    @Test
+    public void testLargeIndexSampled() throws Exception {
+        insertIndexRows(1000);
+
+        IndexStatistics statistics = sample(50, 4, 1000);
+
+        assertEquals(1000, statistics.getRowCount());
+        assertTrue(statistics.getSampledRows() < 1000);
+    }
+
+    @Test
+    public void testLowRowCountKeepsAtMostSampleRows() throws Exception {
+        insertIndexRows(1000);
+
+        IndexStatistics statistics = sample(50, 4, 0);
+
+        assertEquals(50, statistics.getSampledRows());
+        assertEquals(1000, statistics.getRowCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveSampleRows() {
+        sample(0, 4, 100);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
+import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
+import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MetadataCacheTest {
+    private static final long TABLE_ID = 1;
+    private static final TableSchema SCHEMA = new TableSchema(
+            ImmutableList.of(ColumnSchema.builder("c1", ColumnType.LONG).build()),
+            ImmutableList.<IndexSchema>of());
+    private static final Map<String, Long> COLUMN_IDS = ImmutableMap.of("c1", 1L);
+    private HBaseMetadata metadata;
+    private MetadataCache cache;
+
+    @Before
+    public void setupTestCase() {
+        metadata = mock(HBaseMetadata.class);
+        cache = new MetadataCache(metadata);
+    }
+
+    @Test
+    public void testSnapshotLoadedOnce() {
+        TableMetadata snapshot = new TableMetadata(TABLE_ID, SCHEMA, COLUMN_IDS, ImmutableMap.<String, Long>of());
+        when(metadata.getTableMetadata(TABLE_ID)).thenReturn(snapshot);
+
+        assertSame(SCHEMA, cache.schemaCacheGet(TABLE_ID));
+        assertEquals(COLUMN_IDS, cache.columnsCacheGet(TABLE_ID));
+        assertEquals(0, cache.indicesCacheGet(TABLE_ID).size());
+
+        verify(metadata, times(1)).getTableMetadata(TABLE_ID);
+    }
+
+    @Test
+    public void testPreloadFillsCache() {
+        TableMetadata snapshot = new TableMetadata(TABLE_ID, SCHEMA, COLUMN_IDS, ImmutableMap.<String, Long>of());
+        when(metadata.getAllTableMetadata()).thenReturn(ImmutableMap.of("t1", snapshot));
+
+        assertEquals(1, cache.preload());
+
+        assertEquals(TABLE_ID, cache.tableCacheGet("t1"));
+        assertSame(snapshot, cache.tableMetadataGet(TABLE_ID));
+        verify(metadata, never()).getTableId("t1");
+        verify(metadata, never()).getTableMetadata(TABLE_ID);
+    }
+
+    @Test
+    public void testRemoteChangeReloadsSnapshot() {
+        MetadataEpochs epochs = new MetadataEpochs(metadata, 1000);
+        cache = new MetadataCache(metadata, epochs, 1000);
+        TableMetadata before = new TableMetadata(TABLE_ID, SCHEMA, COLUMN_IDS, ImmutableMap.<String, Long>of());
+        TableMetadata after = new TableMetadata(TABLE_ID, SCHEMA, COLUMN_IDS, ImmutableMap.of("i1", 1L));
+        when(metadata.getTableMetadata(TABLE_ID)).thenReturn(before, after);
+        when(metadata.getTableId("t1")).thenReturn(TABLE_ID);
+        when(metadata.getEpochs())
+                .thenReturn(ImmutableMap.of(TABLE_ID, 1L))
+                .thenReturn(ImmutableMap.of(TABLE_ID, 2L));
+
+        epochs.start();
+        assertSame(before, cache.tableMetadataGet(TABLE_ID));
+        assertEquals(TABLE_ID, cache.tableCacheGet("t1"));
+
+        epochs.poll();
+        assertSame(after, cache.tableMetadataGet(TABLE_ID));
+        assertEquals(TABLE_ID, cache.tableCacheGet("t1"));
+        epochs.close();
+
+        verify(metadata, times(2)).getTableMetadata(TABLE_ID);
+        verify(metadata, times(2)).getTableId("t1");
+    }
+
+    @Test
+    public void testColdTablesEvicted() {
+        cache = new MetadataCache(metadata, new MetadataEpochs(metadata, 0), 4);
+        for (long tableId = 1; tableId <= 3; tableId++) {
+            when(metadata.getTableMetadata(tableId)).thenReturn(
+                    new TableMetadata(tableId, SCHEMA, COLUMN_IDS, ImmutableMap.<String, Long>of()));
+        }
+
+        cache.tableMetadataGet(1);
+        cache.tableMetadataGet(1);
+        cache.tableMetadataGet(2);
+        cache.tableMetadataGet(3);
+
+        assertEquals(2, cache.getTableMetadataCount());
+        assertEquals(1, cache.getTableMetadataEvictions());
+        assertEquals(1, cache.getTableMetadataHits());
+        assertEquals(3, cache.getTableMetadataMisses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveSize() {
+        new MetadataCache(metadata, new MetadataEpochs(metadata, 0), 0);
+    }
+
+    @Test
+    public void testRefreshReplacesSnapshot() {
+        TableMetadata before = new TableMetadata(TABLE_ID, SCHEMA, COLUMN_IDS, ImmutableMap.<String, Long>of());
+        TableMetadata after = new TableMetadata(TABLE_ID, SCHEMA, COLUMN_IDS, ImmutableMap.of("i1", 1L));
+        when(metadata.getTableMetadata(TABLE_ID)).thenReturn(before, after);
+
+        assertSame(before, cache.tableMetadataGet(TABLE_ID));
+        cache.refreshTableMetadata(TABLE_ID);
+
+        assertSame(after, cache.tableMetadataGet(TABLE_ID));
+        assertEquals(Long.valueOf(1), cache.indicesCacheGet(TABLE_ID).get("i1"));
+    }
+}
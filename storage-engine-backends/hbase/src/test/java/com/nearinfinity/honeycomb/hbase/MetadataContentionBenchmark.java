@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmarks row count updates through {@link RowCountAccumulator} and auto
+ * increment allocations through {@link AutoIncrementAllocator} from
+ * concurrent threads, against metadata with a fixed round trip time.  Each is
+ * timed with all threads on one table and with a table per thread.
+ * <p/>
+ * Not run by {@code mvn test}; run it with {@code mvn test -Pbenchmark}.
+ */
+public class MetadataContentionBenchmark {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 200000;
+    private static final long ROUND_TRIP_MILLIS = 1;
+    private final ConcurrentMap<Long, AtomicLong> rowCounts = new ConcurrentHashMap<Long, AtomicLong>();
+    private final ConcurrentMap<Long, AtomicLong> autoIncs = new ConcurrentHashMap<Long, AtomicLong>();
+    private final AtomicLong roundTrips = new AtomicLong();
+    private HBaseMetadata metadata;
+
+    @Before
+    public void setupTestCase() {
+        metadata = mock(HBaseMetadata.class);
+        when(metadata.getRowCount(anyLong())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return counter(rowCounts, invocation).get();
+            }
+        });
+        when(metadata.incrementRowCount(anyLong(), anyLong())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return counter(rowCounts, invocation).addAndGet((Long) invocation.getArguments()[1]);
+            }
+        });
+        when(metadata.getAutoInc(anyLong())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return counter(autoIncs, invocation).get();
+            }
+        });
+        when(metadata.incrementAutoInc(anyLong(), anyLong())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return counter(autoIncs, invocation).addAndGet((Long) invocation.getArguments()[1]);
+            }
+        });
+    }
+
+    @Test
+    public void benchmarkRowCountUpdates() throws Exception {
+        for (boolean sameTable : new boolean[]{true, false}) {
+            final RowCountAccumulator accumulator = new RowCountAccumulator(metadata, new Configuration(false));
+            final long start = roundTrips.get();
+            long millis = time(sameTable, new TableTask() {
+                @Override
+                public void run(long tableId) {
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        accumulator.add(tableId, 1);
+                    }
+                }
+            });
+            accumulator.flushAll();
+
+            report("row count updates", sameTable, millis, roundTrips.get() - start);
+        }
+
+        long total = 0;
+        for (AtomicLong count : rowCounts.values()) {
+            total += count.get();
+        }
+        assertEquals(2L * THREADS * OPERATIONS_PER_THREAD, total);
+    }
+
+    @Test
+    public void benchmarkAutoIncrementAllocations() throws Exception {
+        for (boolean sameTable : new boolean[]{true, false}) {
+            final AutoIncrementAllocator allocator = new AutoIncrementAllocator(metadata, new Configuration(false));
+            final List<long[]> allocated = Lists.newArrayList();
+            for (int thread = 0; thread < THREADS; thread++) {
+                allocated.add(new long[OPERATIONS_PER_THREAD]);
+            }
+            final AtomicLong threads = new AtomicLong();
+            final long start = roundTrips.get();
+            long millis = time(sameTable, new TableTask() {
+                @Override
+                public void run(long tableId) {
+                    long[] values = allocated.get((int) threads.getAndIncrement());
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        values[i] = allocator.allocate(tableId, 1);
+                    }
+                }
+            });
+
+            report("auto increment allocations", sameTable, millis, roundTrips.get() - start);
+            if (sameTable) {
+                Set<Long> distinct = Sets.newHashSet();
+                for (long[] values : allocated) {
+                    for (long value : values) {
+                        distinct.add(value);
+                    }
+                }
+                assertEquals("Allocated values must be unique", THREADS * OPERATIONS_PER_THREAD, distinct.size());
+            }
+        }
+    }
+
+    private interface TableTask {
+        void run(long tableId);
+    }
+
+    /**
+     * Run a task on every thread, on table 1 or on a table per thread
+     *
+     * @return Elapsed milliseconds
+     */
+    private long time(boolean sameTable, final TableTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> tasks = Lists.newArrayList();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final long tableId = sameTable ? 1 : thread + 1;
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        task.run(tableId);
+                        return null;
+                    }
+                });
+            }
+
+            long start = System.nanoTime();
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private AtomicLong counter(ConcurrentMap<Long, AtomicLong> counters, InvocationOnMock invocation)
+            throws InterruptedException {
+        Thread.sleep(ROUND_TRIP_MILLIS);
+        roundTrips.incrementAndGet();
+        Long tableId = (Long) invocation.getArguments()[0];
+        AtomicLong counter = counters.get(tableId);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(tableId, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    private static void report(String operation, boolean sameTable, long millis, long roundTrips) {
+        long operations = (long) THREADS * OPERATIONS_PER_THREAD;
+        System.out.println(String.format("%d %s by %d threads on %s: %d ms, %d ops/s, %d round trips",
+                operations, operation, THREADS, sameTable ? "one table" : "a table per thread",
+                millis, operations * 1000 / Math.max(millis, 1), roundTrips));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MetadataEpochsTest {
+    private static final long TABLE_ID = 1;
+    private static final long OTHER_TABLE_ID = 2;
+    private HBaseMetadata metadata;
+    private MetadataEpochs epochs;
+
+    @Before
+    public void setupTestCase() {
+        metadata = mock(HBaseMetadata.class);
+        epochs = new MetadataEpochs(metadata, 1000);
+    }
+
+    @Test
+    public void testUnchangedTablesStayCurrent() {
+        when(metadata.getEpochs()).thenReturn(ImmutableMap.<Long, Long>of());
+        epochs.poll();
+        epochs.poll();
+
+        assertEquals(2, epochs.generation());
+        assertTrue(epochs.isCurrent(TABLE_ID, 0));
+    }
+
+    @Test
+    public void testChangeInvalidatesEarlierGenerations() {
+        when(metadata.getEpochs())
+                .thenReturn(ImmutableMap.of(TABLE_ID, 1L, OTHER_TABLE_ID, 1L))
+                .thenReturn(ImmutableMap.of(TABLE_ID, 2L, OTHER_TABLE_ID, 1L));
+        epochs.poll();
+        long loadedAt = epochs.generation();
+        epochs.poll();
+
+        assertFalse(epochs.isCurrent(TABLE_ID, loadedAt));
+        assertTrue(epochs.isCurrent(TABLE_ID, epochs.generation()));
+        assertTrue(epochs.isCurrent(OTHER_TABLE_ID, loadedAt));
+    }
+
+    @Test
+    public void testFirstPollInvalidatesUnpolledGeneration() {
+        when(metadata.getEpochs()).thenReturn(ImmutableMap.of(TABLE_ID, 3L));
+        epochs.poll();
+
+        assertFalse(epochs.isCurrent(TABLE_ID, 0));
+        assertTrue(epochs.isCurrent(TABLE_ID, 1));
+    }
+
+    @Test
+    public void testDisappearedTablesAreForgotten() {
+        when(metadata.getEpochs())
+                .thenReturn(ImmutableMap.of(TABLE_ID, 1L, OTHER_TABLE_ID, 1L))
+                .thenReturn(ImmutableMap.of(TABLE_ID, 1L))
+                .thenReturn(ImmutableMap.of(TABLE_ID, 1L));
+        epochs.poll();
+        long loadedAt = epochs.generation();
+        epochs.poll();
+        long removedAt = epochs.generation();
+        epochs.poll();
+
+        assertEquals(1, epochs.trackedTables());
+        assertTrue(epochs.isCurrent(TABLE_ID, loadedAt));
+        assertFalse(epochs.isCurrent(OTHER_TABLE_ID, loadedAt));
+        assertTrue(epochs.isCurrent(OTHER_TABLE_ID, removedAt));
+    }
+
+    @Test
+    public void testDisabledPollingNeverPolls() {
+        MetadataEpochs disabled = new MetadataEpochs(metadata, 0);
+        disabled.start();
+
+        assertEquals(0, disabled.generation());
+        assertTrue(disabled.isCurrent(TABLE_ID, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePollInterval() {
+        new MetadataEpochs(metadata, -1);
+    }
+}
@@ -35,6 +35,7 @@ import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
 import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
 import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
 import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Put;
@@ -94,7 +95,10 @@ public class MutationFactoryTest {
         metadata.setColumnFamily("nic");
         MetadataCache cache = new MetadataCache(metadata);
 
-        HBaseStore store = new HBaseStore(metadata, tableFactory, cache);
+        HBaseStore store = new HBaseStore(metadata, tableFactory, cache,
+                new AutoIncrementAllocator(metadata, new Configuration()),
+                new RowCountAccumulator(metadata, new Configuration()),
+                new WriteBufferManager(new Configuration()));
         factory = new MutationFactory(store);
         factory.setColumnFamily("nic");
 
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Provider;
+import com.nearinfinity.honeycomb.MockHTable;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
+import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
+import com.nearinfinity.honeycomb.mysql.QueryKey;
+import com.nearinfinity.honeycomb.mysql.Row;
+import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
+import com.nearinfinity.honeycomb.mysql.gen.QueryType;
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
+import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
+import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RangeEstimatorTest {
+    private static final String COLUMN_FAMILY = "nic";
+    private static final long TABLE_ID = 1;
+    private static final long INDEX_ID = 1;
+    private static final String INDEX_NAME = "i1";
+    private static final List<String> COLUMNS = ImmutableList.of("c1", "c2");
+    private static final TableSchema SCHEMA = new TableSchema(
+            ImmutableList.of(
+                    ColumnSchema.builder("c1", ColumnType.LONG).build(),
+                    ColumnSchema.builder("c2", ColumnType.LONG).build()),
+            ImmutableList.of(new IndexSchema(INDEX_NAME, COLUMNS, false)));
+    private static final int INDEX_ROWS = 1000;
+    private MockHTable hTable;
+    private Provider<HTableInterface> provider;
+
+    @Before
+    public void setupTestCase() throws Exception {
+        hTable = MockHTable.create();
+        provider = new Provider<HTableInterface>() {
+            @Override
+            public HTableInterface get() {
+                return hTable;
+            }
+        };
+
+        for (long i = 0; i < INDEX_ROWS; i++) {
+            insertRow(i / 10, i);
+        }
+    }
+
+    private void insertRow(long c1, long c2) throws Exception {
+        Row row = new Row(ImmutableMap.of(
+                "c1", ByteBuffer.wrap(Longs.toByteArray(c1)),
+                "c2", ByteBuffer.wrap(Longs.toByteArray(c2))), UUID.randomUUID());
+        byte[] key = IndexRowKeyBuilder.newBuilder(TABLE_ID, INDEX_ID)
+                .withRow(row, INDEX_NAME, SCHEMA)
+                .withSortOrder(SortOrder.Ascending)
+                .build()
+                .encode();
+        hTable.put(new Put(key).add(COLUMN_FAMILY.getBytes(), new byte[0], row.serialize()));
+    }
+
+    private RangeEstimator estimator(int sampleRows, List<byte[]> regionStartKeys) {
+        return new RangeEstimator(provider, COLUMN_FAMILY, sampleRows, 1000, 1000,
+                Suppliers.ofInstance(regionStartKeys));
+    }
+
+    private static long estimate(RangeEstimator estimator, long fromC1, long toC1, IndexStatistics statistics) {
+        return estimator.estimate(key(fromC1), key(toC1), indexStart(INDEX_ID), indexStart(INDEX_ID + 1),
+                INDEX_ROWS, statistics);
+    }
+
+    private static byte[] key(long c1) {
+        QueryKey queryKey = new QueryKey(INDEX_NAME, QueryType.EXACT_KEY,
+                ImmutableMap.of("c1", ByteBuffer.wrap(Longs.toByteArray(c1))));
+        return IndexRowKeyBuilder.newBuilder(TABLE_ID, INDEX_ID)
+                .withQueryKey(queryKey, SCHEMA)
+                .withSortOrder(SortOrder.Ascending)
+                .build()
+                .encode();
+    }
+
+    private static byte[] indexStart(long indexId) {
+        return IndexRowKeyBuilder.newBuilder(TABLE_ID, indexId)
+                .withSortOrder(SortOrder.Ascending)
+                .build()
+                .encode();
+    }
+
+    @Test
+    public void testSmallRangeCountedExactly() {
+        RangeEstimator estimator = estimator(200, ImmutableList.<byte[]>of());
+
+        assertEquals(30, estimate(estimator, 20, 23, null));
+        assertEquals(0, estimate(estimator, 23, 20, null));
+    }
+
+    @Test
+    public void testLargeRangeInterpolated() {
+        long estimate = estimate(estimator(50, ImmutableList.<byte[]>of()), 0, 100, null);
+
+        assertTrue("Estimate " + estimate, estimate > 800 && estimate < 1200);
+    }
+
+    @Test
+    public void testLargeRangeExtrapolatedOverRegions() {
+        List<byte[]> regions = ImmutableList.of(key(25), key(50), key(75));
+
+        long estimate = estimate(estimator(50, regions), 0, 100, null);
+
+        assertTrue("Estimate " + estimate, estimate > 700 && estimate < 1300);
+    }
+
+    @Test
+    public void testLargeRangeUsesHistogram() {
+        IndexStatistics statistics = new IndexSampler(provider, COLUMN_FAMILY, INDEX_ROWS, 10,
+                MoreExecutors.sameThreadExecutor())
+                .sample(indexStart(INDEX_ID), indexStart(INDEX_ID + 1), COLUMNS, INDEX_ROWS);
+
+        long estimate = estimate(estimator(50, ImmutableList.<byte[]>of()), 0, 50, statistics);
+
+        assertEquals(statistics.estimateRows(key(0), key(50)), estimate);
+    }
+
+    @Test
+    public void testEstimateCached() throws Exception {
+        RangeEstimator estimator = estimator(200, ImmutableList.<byte[]>of());
+        assertEquals(30, estimate(estimator, 20, 23, null));
+
+        insertRow(21, -1);
+
+        assertEquals(30, estimate(estimator, 20, 23, null));
+        assertEquals(31, estimate(estimator(200, ImmutableList.<byte[]>of()), 20, 23, null));
+    }
+
+    @Test
+    public void testFraction() {
+        assertEquals(0.5, RangeEstimator.fraction(new byte[]{1, 0}, new byte[]{1, 2}, new byte[]{1, 1}), 1e-9);
+        assertEquals(1, RangeEstimator.fraction(new byte[]{1}, new byte[]{1}, new byte[]{1}), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveSampleRows() {
+        estimator(0, ImmutableList.<byte[]>of());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class RowCacheTest {
+    private static final long TABLE_ID = 1;
+    private static final byte[] ROW = {1, 2, 3, 4};
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSizeRejected() {
+        new RowCache(-1, false);
+    }
+
+    @Test
+    public void testDisabledCacheHoldsNothing() {
+        RowCache cache = new RowCache(0, false);
+        UUID uuid = UUID.randomUUID();
+        cache.put(TABLE_ID, uuid, ROW, cache.stamp());
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get(TABLE_ID, uuid));
+    }
+
+    @Test
+    public void testGetReturnsPutRow() {
+        RowCache cache = new RowCache(1024, false);
+        UUID uuid = UUID.randomUUID();
+        cache.put(TABLE_ID, uuid, ROW, cache.stamp());
+
+        assertArrayEquals(ROW, cache.get(TABLE_ID, uuid));
+        assertNull(cache.get(TABLE_ID + 1, uuid));
+    }
+
+    @Test
+    public void testOffHeapGetReturnsPutRow() {
+        RowCache cache = new RowCache(1024, true);
+        UUID uuid = UUID.randomUUID();
+        cache.put(TABLE_ID, uuid, ROW, cache.stamp());
+
+        assertArrayEquals(ROW, cache.get(TABLE_ID, uuid));
+        assertArrayEquals(ROW, cache.get(TABLE_ID, uuid));
+    }
+
+    @Test
+    public void testInvalidate() {
+        RowCache cache = new RowCache(1024, false);
+        UUID uuid = UUID.randomUUID();
+        cache.put(TABLE_ID, uuid, ROW, cache.stamp());
+        cache.invalidate(TABLE_ID, uuid);
+
+        assertNull(cache.get(TABLE_ID, uuid));
+    }
+
+    @Test
+    public void testRowReadBeforeInvalidationIsNotCached() {
+        RowCache cache = new RowCache(1024, false);
+        UUID uuid = UUID.randomUUID();
+        long stamp = cache.stamp();
+        cache.invalidate(TABLE_ID, uuid);
+        cache.put(TABLE_ID, uuid, ROW, stamp);
+
+        assertNull(cache.get(TABLE_ID, uuid));
+    }
+
+    @Test
+    public void testInvalidateTableOnlyEvictsThatTable() {
+        RowCache cache = new RowCache(1024, false);
+        UUID uuid = UUID.randomUUID();
+        cache.put(TABLE_ID, uuid, ROW, cache.stamp());
+        cache.put(TABLE_ID + 1, uuid, ROW, cache.stamp());
+        cache.invalidateTable(TABLE_ID);
+
+        assertNull(cache.get(TABLE_ID, uuid));
+        assertArrayEquals(ROW, cache.get(TABLE_ID + 1, uuid));
+    }
+
+    @Test
+    public void testCacheIsBoundedBySize() {
+        RowCache cache = new RowCache(1024, false);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(TABLE_ID, UUID.randomUUID(), new byte[100], cache.stamp());
+        }
+
+        assertEquals(true, cache.size() < 20);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.Lists;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RowCountAccumulatorTest {
+    private static final long TABLE_ID = 1;
+    private static final long THRESHOLD = 10;
+    private final AtomicLong stored = new AtomicLong();
+    private HBaseMetadata metadata;
+    private RowCountAccumulator accumulator;
+
+    @Before
+    public void setupTestCase() {
+        stored.set(0);
+        metadata = mock(HBaseMetadata.class);
+        when(metadata.incrementRowCount(eq(TABLE_ID), anyLong())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return stored.addAndGet((Long) invocation.getArguments()[1]);
+            }
+        });
+        when(metadata.getRowCount(TABLE_ID)).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return stored.get();
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                stored.set(0);
+                return null;
+            }
+        }).when(metadata).truncateRowCount(TABLE_ID);
+
+        Configuration configuration = new Configuration(false);
+        configuration.setLong(ConfigConstants.ROW_COUNT_FLUSH_INTERVAL, 0);
+        configuration.setLong(ConfigConstants.ROW_COUNT_FLUSH_THRESHOLD, THRESHOLD);
+        accumulator = new RowCountAccumulator(metadata, configuration);
+    }
+
+    @Test
+    public void testChangesAccumulateBelowThreshold() {
+        accumulator.add(TABLE_ID, 3);
+        accumulator.add(TABLE_ID, 4);
+
+        assertEquals(7, accumulator.get(TABLE_ID));
+        verify(metadata, never()).incrementRowCount(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testThresholdFlushesOneIncrement() {
+        for (int i = 0; i < THRESHOLD; i++) {
+            accumulator.add(TABLE_ID, 1);
+        }
+
+        verify(metadata, times(1)).incrementRowCount(TABLE_ID, THRESHOLD);
+        assertEquals(THRESHOLD, stored.get());
+        assertEquals(THRESHOLD, accumulator.get(TABLE_ID));
+    }
+
+    @Test
+    public void testNegativeChangesReachThreshold() {
+        accumulator.add(TABLE_ID, -THRESHOLD);
+
+        assertEquals(-THRESHOLD, stored.get());
+    }
+
+    @Test
+    public void testFlushAllWritesPendingChanges() {
+        accumulator.add(TABLE_ID, 2);
+        accumulator.flushAll();
+        accumulator.flushAll();
+
+        verify(metadata, times(1)).incrementRowCount(TABLE_ID, 2);
+        assertEquals(2, accumulator.get(TABLE_ID));
+    }
+
+    @Test
+    public void testFailedFlushKeepsChanges() {
+        doThrow(new RuntimeException("Region unavailable")).when(metadata).incrementRowCount(TABLE_ID, 2);
+        accumulator.add(TABLE_ID, 2);
+
+        accumulator.flushAll();
+
+        assertEquals(2, accumulator.get(TABLE_ID));
+    }
+
+    @Test
+    public void testExactReadIncludesOtherServers() {
+        accumulator.add(TABLE_ID, 2);
+        stored.addAndGet(5);
+
+        assertEquals(7, accumulator.getExact(TABLE_ID));
+        assertEquals(7, stored.get());
+    }
+
+    @Test
+    public void testRecountCorrectsAgainstOtherServersChanges() {
+        accumulator.add(TABLE_ID, 2);
+        Configuration configuration = new Configuration(false);
+        configuration.setLong(ConfigConstants.ROW_COUNT_FLUSH_INTERVAL, 0);
+        RowCountAccumulator otherServer = new RowCountAccumulator(metadata, configuration);
+        otherServer.add(TABLE_ID, 5);
+        otherServer.flushAll();
+
+        // The table holds the 7 rows inserted through both servers, plus 3
+        // rows whose insert was never counted
+        long rows = 10;
+        accumulator.add(TABLE_ID, rows - accumulator.getExact(TABLE_ID));
+        accumulator.flushAll();
+
+        assertEquals(rows, stored.get());
+        assertEquals(rows, otherServer.getExact(TABLE_ID));
+    }
+
+    @Test
+    public void testTruncateDiscardsPendingChanges() {
+        accumulator.add(TABLE_ID, 12);
+        accumulator.add(TABLE_ID, 3);
+
+        accumulator.truncate(TABLE_ID);
+        accumulator.flushAll();
+
+        assertEquals(0, accumulator.get(TABLE_ID));
+        assertEquals(0, stored.get());
+    }
+
+    @Test
+    public void testConcurrentChangesAreNotLost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Void>> tasks = Lists.newArrayList();
+            for (int thread = 0; thread < 8; thread++) {
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 0; i < 1000; i++) {
+                            accumulator.add(TABLE_ID, 1);
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        accumulator.flushAll();
+        assertEquals(8000, stored.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreshold() {
+        Configuration configuration = new Configuration(false);
+        configuration.setLong(ConfigConstants.ROW_COUNT_FLUSH_THRESHOLD, 0);
+        new RowCountAccumulator(metadata, configuration);
+    }
+}
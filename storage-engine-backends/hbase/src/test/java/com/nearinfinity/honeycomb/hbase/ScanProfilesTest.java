@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.Scan;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScanProfilesTest {
+    private static final byte[] START = {0x01};
+    private static final byte[] END = {0x02};
+
+    @Test
+    public void testDefaultProfiles() {
+        ScanProfiles profiles = new ScanProfiles(new Configuration(false));
+
+        Scan tableScan = profiles.createScan(ScanProfiles.Profile.TABLE_SCAN, START, END, -1);
+        assertFalse(tableScan.getCacheBlocks());
+
+        Scan lookup = profiles.createScan(ScanProfiles.Profile.UNIQUE_LOOKUP, START, END, -1);
+        assertTrue(lookup.getCacheBlocks());
+        assertTrue(lookup.getCaching() < tableScan.getCaching());
+    }
+
+    @Test
+    public void testOverridesAreApplied() {
+        Configuration configuration = new Configuration(false);
+        String prefix = ConfigConstants.SCAN_PROFILE_NAMESPACE + ScanProfiles.Profile.TABLE_SCAN.getName();
+        configuration.setInt(prefix + ConfigConstants.SCAN_CACHING_SUFFIX, 50);
+        configuration.setInt(prefix + ConfigConstants.SCAN_MAX_CACHING_SUFFIX, 500);
+        configuration.setBoolean(prefix + ConfigConstants.SCAN_CACHE_BLOCKS_SUFFIX, true);
+        ScanProfiles profiles = new ScanProfiles(configuration);
+
+        Scan scan = profiles.createScan(ScanProfiles.Profile.TABLE_SCAN, START, END, -1);
+        assertEquals(50, scan.getCaching());
+        assertTrue(scan.getCacheBlocks());
+        assertEquals(500, profiles.getMaxCaching(ScanProfiles.Profile.TABLE_SCAN));
+    }
+
+    @Test
+    public void testScannerCachingIsDefaultCaching() {
+        Configuration configuration = new Configuration(false);
+        configuration.setInt(ConfigConstants.SCANNER_CACHING, 100);
+        String prefix = ConfigConstants.SCAN_PROFILE_NAMESPACE + ScanProfiles.Profile.TABLE_SCAN.getName();
+        configuration.setInt(prefix + ConfigConstants.SCAN_CACHING_SUFFIX, 500);
+        ScanProfiles profiles = new ScanProfiles(configuration);
+
+        assertEquals(100, profiles.createScan(ScanProfiles.Profile.INDEX_SCAN, START, END, -1).getCaching());
+        assertEquals(500, profiles.createScan(ScanProfiles.Profile.TABLE_SCAN, START, END, -1).getCaching());
+        assertEquals(2, profiles.createScan(ScanProfiles.Profile.UNIQUE_LOOKUP, START, END, -1).getCaching());
+    }
+
+    @Test
+    public void testCachingLimitedByExpectedRows() {
+        ScanProfiles profiles = new ScanProfiles(new Configuration(false));
+
+        Scan scan = profiles.createScan(ScanProfiles.Profile.TABLE_SCAN, START, END, 4);
+        assertEquals(5, scan.getCaching());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxCachingBelowCachingRejected() {
+        Configuration configuration = new Configuration(false);
+        String prefix = ConfigConstants.SCAN_PROFILE_NAMESPACE + ScanProfiles.Profile.INDEX_SCAN.getName();
+        configuration.setInt(prefix + ConfigConstants.SCAN_CACHING_SUFFIX, 100);
+        configuration.setInt(prefix + ConfigConstants.SCAN_MAX_CACHING_SUFFIX, 10);
+        new ScanProfiles(configuration);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpaceSavingTest {
+    @Test
+    public void testCountsItemsExactlyWithinCapacity() {
+        SpaceSaving<String> sketch = new SpaceSaving<String>(3);
+        offer(sketch, "a", 5);
+        offer(sketch, "b", 2);
+        offer(sketch, "c", 7);
+
+        List<SpaceSaving.Counter<String>> top = sketch.top(3);
+        assertEquals(3, top.size());
+        assertCounter(top.get(0), "c", 7, 0);
+        assertCounter(top.get(1), "a", 5, 0);
+        assertCounter(top.get(2), "b", 2, 0);
+        assertEquals(1, sketch.top(1).size());
+    }
+
+    @Test
+    public void testNewItemReplacesSmallestCount() {
+        SpaceSaving<String> sketch = new SpaceSaving<String>(2);
+        offer(sketch, "a", 5);
+        offer(sketch, "b", 2);
+        sketch.offer("c");
+
+        List<SpaceSaving.Counter<String>> top = sketch.top(2);
+        assertCounter(top.get(0), "a", 5, 0);
+        assertCounter(top.get(1), "c", 3, 2);
+    }
+
+    @Test
+    public void testFindsFrequentItemAmongManyRareItems() {
+        SpaceSaving<Integer> sketch = new SpaceSaving<Integer>(10);
+        for (int i = 0; i < 1000; i++) {
+            sketch.offer(i % 4 == 0 ? -1 : i);
+        }
+
+        SpaceSaving.Counter<Integer> hottest = sketch.top(1).get(0);
+        assertEquals(Integer.valueOf(-1), hottest.getItem());
+        assertTrue(hottest.getCount() - hottest.getError() <= 250);
+        assertTrue(hottest.getCount() >= 250);
+    }
+
+    @Test
+    public void testClear() {
+        SpaceSaving<String> sketch = new SpaceSaving<String>(2);
+        offer(sketch, "a", 3);
+        sketch.clear();
+        assertTrue(sketch.top(2).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePositive() {
+        new SpaceSaving<String>(0);
+    }
+
+    private static void offer(SpaceSaving<String> sketch, String item, int times) {
+        for (int i = 0; i < times; i++) {
+            sketch.offer(item);
+        }
+    }
+
+    private static void assertCounter(SpaceSaving.Counter<String> counter, String item, long count, long error) {
+        assertEquals(item, counter.getItem());
+        assertEquals(count, counter.getCount());
+        assertEquals(error, counter.getError());
+    }
+}
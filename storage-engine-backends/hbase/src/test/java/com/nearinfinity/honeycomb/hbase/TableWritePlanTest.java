@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
+import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
+import com.nearinfinity.honeycomb.mysql.Row;
+import com.nearinfinity.honeycomb.mysql.generators.RowGenerator;
+import com.nearinfinity.honeycomb.mysql.generators.TableSchemaGenerator;
+import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
+import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+import net.java.quickcheck.Generator;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TableWritePlanTest {
+    private static final long TABLE_ID = 1;
+    private static final Generator<TableSchema> TABLE_SCHEMA_GEN = new TableSchemaGenerator();
+
+    @Test
+    public void testPlannedKeysMatchSchemaKeys() {
+        for (int i = 0; i < 20; i++) {
+            TableSchema schema = TABLE_SCHEMA_GEN.next();
+            Map<String, Long> indexIds = Maps.newHashMap();
+            for (IndexSchema index : schema.getIndices()) {
+                indexIds.put(index.getIndexName(), (long) indexIds.size() + 1);
+            }
+            TableWritePlan plan = new TableWritePlan(TABLE_ID, schema, indexIds);
+            RowGenerator rows = new RowGenerator(schema);
+
+            assertEquals(schema.getIndices().size(), plan.getIndices().size());
+            for (int j = 0; j < 10; j++) {
+                Row row = rows.next();
+                for (IndexSchema index : schema.getIndices()) {
+                    long indexId = indexIds.get(index.getIndexName());
+                    IndexRowKeyBuilder planned = IndexRowKeyBuilder.newBuilder(TABLE_ID, indexId)
+                            .withUUID(row.getUUID())
+                            .withEncodedRecords(plan.getIndex(index.getIndexName()).encode(row));
+                    IndexRowKeyBuilder interpreted = IndexRowKeyBuilder.newBuilder(TABLE_ID, indexId)
+                            .withUUID(row.getUUID())
+                            .withRow(row, index.getIndexName(), schema);
+
+                    for (SortOrder order : SortOrder.values()) {
+                        assertArrayEquals(
+                                interpreted.withSortOrder(order).build().encode(),
+                                planned.withSortOrder(order).build().encode());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIndicesWithoutIdsNotPlanned() {
+        TableSchema schema = TABLE_SCHEMA_GEN.next();
+        TableWritePlan plan = new TableWritePlan(TABLE_ID, schema, ImmutableMap.<String, Long>of());
+
+        assertEquals(ImmutableList.of(), plan.getIndices());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownIndex() {
+        TableSchema schema = TABLE_SCHEMA_GEN.next();
+        new TableWritePlan(TABLE_ID, schema, ImmutableMap.<String, Long>of()).getIndex("unknown");
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.nearinfinity.honeycomb.MockHTable;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndexFiltersRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
+import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
+import com.nearinfinity.honeycomb.mysql.Util;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class UniqueIndexFiltersTest {
+    private static final String COLUMN_FAMILY = "nic";
+    private static final long TABLE_ID = 1;
+    private static final long INDEX_ID = 2;
+    private static final byte[] PRESENT_KEY = indexKey(new byte[]{1, 2, 3});
+    private static final byte[] ABSENT_KEY = indexKey(new byte[]{4, 5, 6});
+
+    @Mock
+    private HTableProvider provider;
+    private MockHTable table;
+    private HBaseMetadata metadata;
+
+    @Before
+    public void testSetup() {
+        MockitoAnnotations.initMocks(this);
+        table = MockHTable.create();
+        when(provider.get()).thenReturn(table);
+
+        metadata = new HBaseMetadata(provider);
+        metadata.setColumnFamily(COLUMN_FAMILY);
+    }
+
+    @Test
+    public void testAddedKeyMightBeContained() {
+        UniqueIndexFilters filters = createFilters(100);
+        filters.add(TABLE_ID, INDEX_ID, PRESENT_KEY);
+
+        assertTrue(filters.mightContain(TABLE_ID, INDEX_ID, PRESENT_KEY));
+        assertFalse(filters.mightContain(TABLE_ID, INDEX_ID, ABSENT_KEY));
+        assertFalse(filters.mightContain(TABLE_ID, INDEX_ID + 1, PRESENT_KEY));
+    }
+
+    @Test
+    public void testFilterIsRebuiltFromIndexRows() throws Exception {
+        putIndexRow(PRESENT_KEY);
+
+        UniqueIndexFilters filters = createFilters(100);
+
+        assertTrue(filters.mightContain(TABLE_ID, INDEX_ID, PRESENT_KEY));
+        assertFalse(filters.mightContain(TABLE_ID, INDEX_ID, ABSENT_KEY));
+    }
+
+    @Test
+    public void testPersistedFilterIsReloaded() {
+        UniqueIndexFilters filters = createFilters(1);
+        filters.add(TABLE_ID, INDEX_ID, PRESENT_KEY);
+
+        UniqueIndexFilters reloaded = createFilters(1);
+        assertTrue(reloaded.mightContain(TABLE_ID, INDEX_ID, PRESENT_KEY));
+    }
+
+    @Test
+    public void testReloadedFilterIncludesNewerIndexRows() throws Exception {
+        UniqueIndexFilters filters = createFilters(100);
+        filters.mightContain(TABLE_ID, INDEX_ID, PRESENT_KEY);
+        putIndexRow(PRESENT_KEY);
+
+        UniqueIndexFilters reloaded = createFilters(100);
+        assertTrue(reloaded.mightContain(TABLE_ID, INDEX_ID, PRESENT_KEY));
+    }
+
+    @Test
+    public void testRemoveTableDeletesPersistedFilters() throws Exception {
+        UniqueIndexFilters filters = createFilters(1);
+        filters.add(TABLE_ID, INDEX_ID, PRESENT_KEY);
+        filters.removeTable(TABLE_ID);
+
+        assertNull(metadata.getIndexFilter(TABLE_ID, INDEX_ID));
+        assertTrue(table.get(new Get(new IndexFiltersRowKey(TABLE_ID).encode())).isEmpty());
+        assertFalse(filters.mightContain(TABLE_ID, INDEX_ID, PRESENT_KEY));
+    }
+
+    @Test
+    public void testKeysMightBeContainedUntilFilterIsLoaded() {
+        QueuedExecutor executor = new QueuedExecutor();
+        UniqueIndexFilters filters = createFilters(100, executor);
+
+        assertTrue(filters.mightContain(TABLE_ID, INDEX_ID, ABSENT_KEY));
+        filters.add(TABLE_ID, INDEX_ID, PRESENT_KEY);
+        executor.runAll();
+
+        assertTrue(filters.mightContain(TABLE_ID, INDEX_ID, PRESENT_KEY));
+        assertFalse(filters.mightContain(TABLE_ID, INDEX_ID, ABSENT_KEY));
+    }
+
+    @Test
+    public void testPersistingIsLeftToTheExecutor() {
+        QueuedExecutor executor = new QueuedExecutor();
+        UniqueIndexFilters filters = createFilters(1, executor);
+        filters.mightContain(TABLE_ID, INDEX_ID, PRESENT_KEY);
+        executor.runAll();
+        metadata.deleteIndexFilter(TABLE_ID, INDEX_ID);
+
+        filters.add(TABLE_ID, INDEX_ID, PRESENT_KEY);
+        assertNull(metadata.getIndexFilter(TABLE_ID, INDEX_ID));
+
+        executor.runAll();
+        assertNotNull(metadata.getIndexFilter(TABLE_ID, INDEX_ID));
+    }
+
+    @Test
+    public void testFilterOfIndexLargerThanCapIsDisabled() {
+        metadata.incrementRowCount(TABLE_ID, 100000000);
+        UniqueIndexFilters filters = createFilters(1);
+        filters.add(TABLE_ID, INDEX_ID, PRESENT_KEY);
+
+        assertTrue(filters.mightContain(TABLE_ID, INDEX_ID, ABSENT_KEY));
+        assertNull(metadata.getIndexFilter(TABLE_ID, INDEX_ID));
+    }
+
+    @Test
+    public void testEvictedFilterIsPersisted() {
+        UniqueIndexFilters filters = createFilters(100);
+        filters.setCacheSize(1L);
+        filters.add(TABLE_ID, INDEX_ID, PRESENT_KEY);
+        filters.mightContain(TABLE_ID, INDEX_ID + 1, PRESENT_KEY);
+
+        assertTrue(filters.mightContain(TABLE_ID, INDEX_ID, PRESENT_KEY));
+        assertFalse(filters.mightContain(TABLE_ID, INDEX_ID, ABSENT_KEY));
+    }
+
+    private UniqueIndexFilters createFilters(long persistInterval) {
+        return createFilters(persistInterval, MoreExecutors.sameThreadExecutor());
+    }
+
+    private UniqueIndexFilters createFilters(long persistInterval, Executor executor) {
+        UniqueIndexFilters filters = new UniqueIndexFilters(metadata, provider, executor);
+        filters.setEnabled(true);
+        filters.setFalsePositiveRate(0.0001);
+        filters.setPersistInterval(persistInterval);
+        return filters;
+    }
+
+    private static byte[] indexKey(byte[] values) {
+        byte[] prefix = IndexRowKeyBuilder.newBuilder(TABLE_ID, INDEX_ID)
+                .withSortOrder(SortOrder.Ascending).build().encode();
+        return VarEncoder.appendByteArrays(Arrays.asList(prefix, values));
+    }
+
+    private void putIndexRow(byte[] key) throws Exception {
+        byte[] rowKey = VarEncoder.appendByteArrays(Arrays.asList(key, Util.UUIDToBytes(UUID.randomUUID())));
+        table.put(new Put(rowKey).add(COLUMN_FAMILY.getBytes(), new byte[0], new byte[0]));
+    }
+
+    private static class QueuedExecutor implements Executor {
+        private final List<Runnable> tasks = Lists.newArrayList();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase;
+
+import com.google.common.base.Ticker;
+import com.nearinfinity.honeycomb.EngineStatus;
+import com.nearinfinity.honeycomb.hbase.config.ConfigConstants;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WriteBufferManagerTest {
+    private static final long TABLE_ID = 1;
+    private static final long MIN_SIZE = 1024;
+    private static final long MAX_SIZE = 8192;
+    private FakeTicker ticker;
+    private WriteBufferManager manager;
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long duration, TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+    }
+
+    @Before
+    public void setupTestCase() {
+        Configuration configuration = new Configuration(false);
+        configuration.setLong(ConfigConstants.WRITE_BUFFER, 2048);
+        configuration.setLong(ConfigConstants.WRITE_BUFFER_MIN_SIZE, MIN_SIZE);
+        configuration.setLong(ConfigConstants.WRITE_BUFFER_MAX_SIZE, MAX_SIZE);
+        configuration.setLong(ConfigConstants.WRITE_BUFFER_MAX_AGE, 500);
+        configuration.setLong(ConfigConstants.BULK_INSERT_ROWS_PER_SECOND, 100);
+        ticker = new FakeTicker();
+        manager = new WriteBufferManager(configuration, ticker);
+    }
+
+    @Test
+    public void testBufferGrowsDuringBulkInserts() {
+        assertEquals(2048, manager.getBufferSize(TABLE_ID));
+
+        for (int second = 0; second < 4; second++) {
+            manager.recordWrite(TABLE_ID, 200, 10);
+            ticker.advance(1, TimeUnit.SECONDS);
+        }
+
+        assertEquals(MAX_SIZE, manager.recordWrite(TABLE_ID, 200, 10));
+    }
+
+    @Test
+    public void testBufferShrinksWithFewWrites() {
+        for (int second = 0; second < 4; second++) {
+            manager.recordWrite(TABLE_ID, 1, 10);
+            ticker.advance(1, TimeUnit.SECONDS);
+        }
+
+        assertEquals(MIN_SIZE, manager.recordWrite(TABLE_ID, 1, 10));
+    }
+
+    @Test
+    public void testTablesAdaptIndependently() {
+        manager.recordWrite(TABLE_ID, 1000, 10);
+        ticker.advance(1, TimeUnit.SECONDS);
+
+        assertEquals(4096, manager.recordWrite(TABLE_ID, 1000, 10));
+        assertEquals(2048, manager.getBufferSize(TABLE_ID + 1));
+    }
+
+    @Test
+    public void testExpiry() {
+        long firstWrite = manager.now();
+        ticker.advance(499, TimeUnit.MILLISECONDS);
+        assertFalse(manager.isExpired(firstWrite));
+        ticker.advance(1, TimeUnit.MILLISECONDS);
+        assertTrue(manager.isExpired(firstWrite));
+    }
+
+    @Test
+    public void testFlushMetrics() {
+        manager.recordWrite(TABLE_ID, 1, 300);
+        manager.recordWrite(TABLE_ID, 1, 200);
+        assertEquals(500L, (long) manager.getBufferedBytes().get("1"));
+
+        manager.recordFlush(TABLE_ID, 500, TimeUnit.MILLISECONDS.toNanos(7));
+        manager.recordFlush(TABLE_ID, 0, TimeUnit.MILLISECONDS.toNanos(3));
+
+        assertEquals(0L, (long) manager.getBufferedBytes().get("1"));
+        assertEquals(2L, (long) manager.getFlushes().get("1"));
+        assertEquals(10L, (long) manager.getFlushMillis().get("1"));
+        assertEquals(7L, (long) manager.getMaxFlushMillis().get("1"));
+    }
+
+    @Test
+    public void testRemoveTable() {
+        manager.recordWrite(TABLE_ID, 1, 300);
+        manager.recordWrite(TABLE_ID + 1, 1, 100);
+
+        manager.removeTable(TABLE_ID);
+
+        assertFalse(manager.getBufferSizes().containsKey("1"));
+        assertTrue(manager.getBufferSizes().containsKey("2"));
+        assertEquals(2048, manager.getBufferSize(TABLE_ID));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSizes() {
+        Configuration configuration = new Configuration(false);
+        configuration.setLong(ConfigConstants.WRITE_BUFFER_MIN_SIZE, MAX_SIZE);
+        configuration.setLong(ConfigConstants.WRITE_BUFFER_MAX_SIZE, MIN_SIZE);
+        new WriteBufferManager(configuration);
+    }
+
+    @Test
+    public void testReportStatus() {
+        manager.recordWrite(TABLE_ID, 1, 300);
+        manager.recordWrite(TABLE_ID + 1, 1, 100);
+        manager.recordFlush(TABLE_ID + 1, 100, TimeUnit.MILLISECONDS.toNanos(5));
+
+        EngineStatus status = new EngineStatus();
+        manager.reportStatus(status);
+
+        Map<String, String> writeBuffers = status.getSection("writeBuffers");
+        assertEquals("1", writeBuffers.get("bufferingTables"));
+        assertEquals("300", writeBuffers.get("bufferedBytes"));
+        assertEquals("1", writeBuffers.get("flushes"));
+        assertEquals("5", writeBuffers.get("maxFlushMillis"));
+        assertEquals("300", writeBuffers.get("table1"));
+        assertFalse(writeBuffers.containsKey("table2"));
+    }
+}
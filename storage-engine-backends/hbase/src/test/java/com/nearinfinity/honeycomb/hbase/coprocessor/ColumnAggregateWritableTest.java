@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.hbase.coprocessor;
+
+import com.google.common.primitives.Longs;
+import com.nearinfinity.honeycomb.mysql.ColumnAggregate;
+import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ColumnAggregateWritableTest {
+    private static ColumnAggregate roundTrip(ColumnAggregate aggregate) throws IOException {
+        DataOutputBuffer out = new DataOutputBuffer();
+        new ColumnAggregateWritable(aggregate).write(out);
+
+        DataInputBuffer in = new DataInputBuffer();
+        in.reset(out.getData(), out.getLength());
+        ColumnAggregateWritable writable = new ColumnAggregateWritable();
+        writable.readFields(in);
+        return writable.getAggregate();
+    }
+
+    @Test
+    public void testLongAggregate() throws IOException {
+        ColumnAggregate aggregate = new ColumnAggregate(ColumnType.LONG);
+        aggregate.add(ByteBuffer.wrap(Longs.toByteArray(Long.MAX_VALUE)));
+        aggregate.add(ByteBuffer.wrap(Longs.toByteArray(-7)));
+        aggregate.add(ByteBuffer.wrap(Longs.toByteArray(Long.MAX_VALUE)));
+
+        ColumnAggregate result = roundTrip(aggregate);
+
+        assertEquals(ColumnType.LONG, result.getType());
+        assertEquals(3, result.getCount());
+        assertEquals(aggregate.getSum(), result.getSum());
+        assertEquals(ByteBuffer.wrap(Longs.toByteArray(-7)), result.getMin());
+        assertEquals(ByteBuffer.wrap(Longs.toByteArray(Long.MAX_VALUE)), result.getMax());
+    }
+
+    @Test
+    public void testDoubleAggregate() throws IOException {
+        ColumnAggregate aggregate = new ColumnAggregate(ColumnType.DOUBLE);
+        aggregate.add((ByteBuffer) ByteBuffer.allocate(8).putDouble(2.25).flip());
+
+        ColumnAggregate result = roundTrip(aggregate);
+
+        assertEquals(2.25, result.getSum().doubleValue(), 0.0);
+        assertEquals(result.getMin(), result.getMax());
+    }
+
+    @Test
+    public void testEmptyAggregate() throws IOException {
+        ColumnAggregate result = roundTrip(new ColumnAggregate(ColumnType.STRING));
+
+        assertEquals(0, result.getCount());
+        assertNull(result.getSum());
+        assertNull(result.getMin());
+        assertNull(result.getMax());
+    }
+
+    @Test
+    public void testMergedIntoLargerSum() throws IOException {
+        ColumnAggregate aggregate = new ColumnAggregate(ColumnType.ULONG);
+        aggregate.add(ByteBuffer.wrap(Longs.toByteArray(-1)));
+        ColumnAggregate result = roundTrip(aggregate);
+        result.merge(roundTrip(aggregate));
+
+        assertEquals(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE).shiftLeft(1), result.getSum());
+    }
+}
@@ -41,10 +41,16 @@ import com.nearinfinity.honeycomb.hbase.rowkey.DataRowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.IndexRowKeyBuilder;
 import com.nearinfinity.honeycomb.hbase.rowkey.IndicesRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.MetadataEpochsRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.MetadataLayoutRowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.RowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.RowsRowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.SchemaRowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.SortOrder;
+import com.nearinfinity.honeycomb.hbase.rowkey.TableAutoIncRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.TableRowsRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.TableSchemaRowKey;
+import com.nearinfinity.honeycomb.hbase.rowkey.TableStatisticsRowKey;
 import com.nearinfinity.honeycomb.hbase.rowkey.TablesRowKey;
 import com.nearinfinity.honeycomb.mysql.QueryKey;
 import com.nearinfinity.honeycomb.mysql.Row;
@@ -61,6 +67,8 @@ public class RowKeyGenerator implements Generator<RowKey> {
     private static final RowsRowKey rowsRow = new RowsRowKey();
     private static final AutoIncRowKey autoIncRow = new AutoIncRowKey();
     private static final SchemaRowKey schemaRow = new SchemaRowKey();
+    private static final MetadataLayoutRowKey layoutRow = new MetadataLayoutRowKey();
+    private static final MetadataEpochsRowKey epochsRow = new MetadataEpochsRowKey();
     private static final Generator<Long> randIdGen = CombinedGenerators.uniqueValues(
             PrimitiveGenerators.longs(0, 1024));
     private static final Generator<SortOrder> randSortOrder = PrimitiveGenerators.enumValues(SortOrder.class);
@@ -114,7 +122,7 @@ public class RowKeyGenerator implements Generator<RowKey> {
     private class PrefixRowGenerator implements Generator<RowKey> {
         @Override
         public RowKey next() {
-            switch (RAND.nextInt(4)) {
+            switch (RAND.nextInt(6)) {
                 case 0:
                     return tablesRow;
                 case 1:
@@ -123,6 +131,10 @@ public class RowKeyGenerator implements Generator<RowKey> {
                     return autoIncRow;
                 case 3:
                     return schemaRow;
+                case 4:
+                    return layoutRow;
+                case 5:
+                    return epochsRow;
                 default:
                     throw new RuntimeException("Should never reach me");
             }
@@ -132,11 +144,20 @@ public class RowKeyGenerator implements Generator<RowKey> {
     private class TableIDRowGenerator implements Generator<RowKey> {
         @Override
         public RowKey next() {
-            if (RAND.nextBoolean()) {
-                return new ColumnsRowKey(randIdGen.next());
+            switch (RAND.nextInt(6)) {
+                case 0:
+                    return new ColumnsRowKey(randIdGen.next());
+                case 1:
+                    return new IndicesRowKey(randIdGen.next());
+                case 2:
+                    return new TableRowsRowKey(randIdGen.next());
+                case 3:
+                    return new TableAutoIncRowKey(randIdGen.next());
+                case 4:
+                    return new TableStatisticsRowKey(randIdGen.next());
+                default:
+                    return new TableSchemaRowKey(randIdGen.next());
             }
-
-            return new IndicesRowKey(randIdGen.next());
         }
     }
 
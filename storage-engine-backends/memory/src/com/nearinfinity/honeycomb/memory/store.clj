@@ -36,7 +36,7 @@
     (dosync
       (let [table (table/memory-table this table-name schema)]
         (alter tables assoc table-name table)
-        (alter metadata assoc table-name {:rows 0 :autoincrement 0 :schema schema}))))
+        (alter metadata assoc table-name {:rows 0 :autoincrement 0 :schema schema :statistics {}}))))
 
   (deleteTable [this table-name]
     (dosync
@@ -78,7 +78,8 @@
       (.getSchema this table-name) ;; check table exists
       (alter metadata update-in [table-name :schema] (fn [^TableSchema schema]
                                                        (doto (.schemaCopy schema)
-                                                         (.removeIndex index-name))))))
+                                                         (.removeIndex index-name))))
+      (alter metadata update-in [table-name :statistics] dissoc index-name)))
 
   (getAutoInc [this table-name]
     (if-let [table-metadata (get @metadata table-name)]
@@ -110,6 +111,9 @@
       (:rows metadatum)
       (throw (TableNotFoundException. table-name))))
 
+  (getExactRowCount [this table-name]
+    (.getRowCount this table-name))
+
   (incrementRowCount [this table-name amount]
     (dosync
       (if (contains? (ensure metadata) table-name)
@@ -121,6 +125,17 @@
     (dosync
       (if (contains? (ensure metadata) table-name)
         (alter metadata assoc-in [table-name :rows] 0)
+        (throw (TableNotFoundException. table-name)))))
+
+  (getIndexStatistics [this table-name]
+    (if-let [metadatum (get @metadata table-name)]
+      (:statistics metadatum)
+      (throw (TableNotFoundException. table-name))))
+
+  (setIndexStatistics [this table-name statistics]
+    (dosync
+      (if (contains? (ensure metadata) table-name)
+        (alter metadata assoc-in [table-name :statistics] (into {} statistics))
         (throw (TableNotFoundException. table-name))))))
 
 (defn memory-store []
@@ -24,7 +24,7 @@
            [com.nearinfinity.honeycomb Store Table]
            [com.nearinfinity.honeycomb.mysql.schema TableSchema IndexSchema]
            [com.nearinfinity.honeycomb.exceptions RowNotFoundException]
-           [com.nearinfinity.honeycomb.mysql Row QueryKey]
+           [com.nearinfinity.honeycomb.mysql ColumnAggregate IndexStatistics$Collector Row QueryKey]
            [com.nearinfinity.honeycomb.mysql.gen ColumnType QueryType]
            [com.google.common.primitives UnsignedBytes]
            [java.nio ByteBuffer]))
@@ -111,6 +111,25 @@
                 true
                 keys)))))
 
+;; Returns the rows of an index whose keys lie between the from and to query
+;; keys, inclusive.  Either query key may be nil to leave that end of the range open.
+(defn- index-range
+  [^Store store table-name indices ^QueryKey from ^QueryKey to]
+  (let [index-name (.getIndexName (or from to))
+        index (get indices index-name)
+        index-schema (.. store (getSchema table-name) (getIndexSchema index-name))
+        rows (if from
+               (subseq index >= (query-key->row-before from))
+               (seq index))]
+    (if to
+      (let [end-row (query-key->row-after to)
+            comparator (.comparator ^clojure.lang.Sorted index)
+            matches-to? (query-key->row-pred index-schema to)]
+        (take-while #(or (matches-to? %)
+                         (neg? (.compare comparator % end-row)))
+                    rows))
+      rows)))
+
 ;; Memory table holds a reference to a store, its table name, a ref which contains
 ;; a sorted set of its rows, and an indices ref which holds a map of index name to
 ;; sorted set of rows.
@@ -203,6 +222,37 @@
                            (subseq (get @indices index-name) >= start-row))]
       (->MemoryScanner (atom rows))))
 
+  (countRows [this]
+    (count @rows))
+
+  (countRange [this from to]
+    (count (index-range store table-name @indices from to)))
+
+  ;; Counting the rows in memory is cheap, so the estimate is exact.
+  (estimateRowsInRange [this from to]
+    (.countRange this from to))
+
+  (aggregate [this column from to]
+    (let [column-name (.getColumnName column)
+          aggregate (ColumnAggregate. (.getType column))]
+      (doseq [row (if (or from to)
+                    (index-range store table-name @indices from to)
+                    @rows)]
+        (.add aggregate ^Row row ^String column-name))
+      aggregate))
+
+  ;; Every row is counted, so the statistics are exact.  Rows have no encoded
+  ;; keys, so no histogram is built.
+  (computeIndexStatistics [this]
+    (let [table-schema (.getSchema store table-name)]
+      (into {}
+            (for [[index-name index] @indices]
+              (let [columns (.getColumns (.getIndexSchema table-schema index-name))
+                    collector (IndexStatistics$Collector. columns 1)]
+                (doseq [row index]
+                  (.add collector ^Row row nil))
+                [index-name (.build collector (count index))])))))
+
   (deleteAllRows [this]
     (dosync
       (alter rows empty)
@@ -22,7 +22,8 @@
   (:require [clojure.test :refer :all]
             [com.nearinfinity.honeycomb.memory.test-util :refer :all]
             [com.nearinfinity.honeycomb.memory.store :refer :all])
-  (:import [com.nearinfinity.honeycomb.mysql.gen ColumnType]
+  (:import [com.nearinfinity.honeycomb.mysql IndexStatistics]
+           [com.nearinfinity.honeycomb.mysql.gen ColumnType]
            [com.nearinfinity.honeycomb.exceptions TableNotFoundException]))
 
 (def ^:dynamic store)
@@ -143,6 +144,20 @@
     (.truncateRowCount store table-name)
     (is (= 0 (.getRowCount store table-name)))))
 
+(deftest index-statistics
+  (testing "defaults to none"
+    (is (empty? (.getIndexStatistics store table-name))))
+  (testing "set index statistics"
+    (let [statistics {"i" (IndexStatistics. 10 10 (long-array [5]) [])}]
+      (.setIndexStatistics store table-name statistics)
+      (is (= statistics (.getIndexStatistics store table-name)))))
+  (testing "drop index removes its statistics"
+    (.dropIndex store table-name "i")
+    (is (empty? (.getIndexStatistics store table-name))))
+  (testing "non-existant table throws exception"
+    (is (thrown? TableNotFoundException
+                 (.getIndexStatistics store "fooz")))))
+
 (deftest add-index)
 
 (use-fixtures :each
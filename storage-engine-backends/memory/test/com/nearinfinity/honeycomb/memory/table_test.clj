@@ -182,7 +182,43 @@
     (testing "index scan exact with unused fields in query-key"
       (let [query-key (create-query-key "i1" "c1" (long-bb 2) "foo" (long-bb 99))]
         (is (every? (set [(nth rows 2)]) @(:rows (.indexScanExact table query-key))))
-        (is (= (count-results (.indexScanExact table query-key)) 1))))))
+        (is (= (count-results (.indexScanExact table query-key)) 1))))
+
+    (testing "count rows"
+      (is (= (.countRows table) (count rows))))
+
+    (testing "count range"
+      (let [from (create-query-key "i1" "c1" (long-bb 1))
+            to (create-query-key "i1" "c1" (long-bb 3))]
+        (is (= (.countRange table from to) 3))
+        (is (= (.countRange table from nil) 5))
+        (is (= (.countRange table nil to) 4))
+        (is (= (.countRange table to from) 0))))
+
+    (testing "estimate rows in range"
+      (let [from (create-query-key "i1" "c1" (long-bb 1))
+            to (create-query-key "i1" "c1" (long-bb 3))]
+        (is (= (.estimateRowsInRange table from to) 3))
+        (is (= (.estimateRowsInRange table nil to) 4))))
+
+    (testing "aggregate"
+      (let [column (.. store (getSchema table-name) (getColumnSchema "c1"))
+            from (create-query-key "i1" "c1" (long-bb 1))
+            to (create-query-key "i1" "c1" (long-bb 3))
+            table-aggregate (.aggregate table column nil nil)
+            range-aggregate (.aggregate table column from to)]
+        (is (= (.getCount table-aggregate) 6))
+        (is (= (.getSum table-aggregate) (biginteger 15)))
+        (is (= (.getMin table-aggregate) (long-bb 0)))
+        (is (= (.getMax table-aggregate) (long-bb 5)))
+        (is (= (.getCount range-aggregate) 3))
+        (is (= (.getSum range-aggregate) (biginteger 6)))))
+
+    (testing "compute index statistics"
+      (let [statistics (get (.computeIndexStatistics table) "i1")]
+        (is (= (.getRowCount statistics) 6))
+        (is (= (seq (.getDistinctKeys statistics)) [6]))
+        (is (= (seq (.getRecordsPerKey statistics)) [1]))))))
 
 (deftest get-test
   (let [table-name "t1"
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.Map;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import com.google.common.collect.Maps;
+import com.nearinfinity.honeycomb.util.Verify;
+
+/**
+ * Snapshot of the state of the storage engine, gathered from the proxy and
+ * the {@link StatusSource}s of the storage backends.  The snapshot is divided
+ * into named sections of name value pairs, kept in the order they were added,
+ * and is rendered as one "section name value" line per pair.
+ */
+@NotThreadSafe
+public final class EngineStatus {
+    private final Map<String, Map<String, String>> sections = Maps.newLinkedHashMap();
+
+    /**
+     * Add a value to a section, creating the section on first use
+     *
+     * @param section Name of the section
+     * @param name    Name of the value
+     * @param value   Value, rendered with {@link String#valueOf(Object)}
+     * @return This snapshot
+     */
+    public EngineStatus add(String section, String name, Object value) {
+        Verify.isNotNullOrEmpty(section);
+        Verify.isNotNullOrEmpty(name);
+        checkNotNull(value, "Status value cannot be null");
+        Map<String, String> values = sections.get(section);
+        if (values == null) {
+            values = Maps.newLinkedHashMap();
+            sections.put(section, values);
+        }
+        values.put(name, String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Retrieve the values of a section
+     *
+     * @param section Name of the section
+     * @return Map of value name to value, empty if the section was not reported
+     */
+    public Map<String, String> getSection(String section) {
+        final Map<String, String> values = sections.get(section);
+        return values == null ? Collections.<String, String>emptyMap() : Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Retrieve the sections of the snapshot
+     *
+     * @return Map of section name to its values
+     */
+    public Map<String, Map<String, String>> getSections() {
+        return Collections.unmodifiableMap(sections);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Map<String, String>> section : sections.entrySet()) {
+            for (Map.Entry<String, String> value : section.getValue().entrySet()) {
+                builder.append(section.getKey()).append(' ')
+                        .append(value.getKey()).append(' ')
+                        .append(value.getValue()).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb;
+
+/**
+ * A component which reports its state, such as cache sizes or thread pool
+ * occupancy, in the {@link EngineStatus}.  Storage backends contribute their
+ * sources to the set of {@link StatusSource} bindings.
+ */
+public interface StatusSource {
+    /**
+     * Add the current state of the component to an engine status snapshot
+     *
+     * @param status Snapshot being gathered
+     */
+    void reportStatus(EngineStatus status);
+}
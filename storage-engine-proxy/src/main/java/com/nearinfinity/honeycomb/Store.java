@@ -22,6 +22,9 @@
 
 package com.nearinfinity.honeycomb;
 
+import java.util.Map;
+
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
 import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
 import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
 
@@ -128,6 +131,15 @@ public interface Store {
      */
     public long getRowCount(String tableName);
 
+    /**
+     * Get the table's row count as stored, including the changes made through
+     * every server.  May be slower than {@link #getRowCount(String)}.
+     *
+     * @param tableName the table
+     * @return row count
+     */
+    public long getExactRowCount(String tableName);
+
     /**
      * Increment the table's row count by amount.
      *
@@ -143,4 +155,21 @@ public interface Store {
      * @param tableName Name of table
      */
     public void truncateRowCount(String tableName);
+
+    /**
+     * Get the stored statistics of the table's indices.  Indices which have
+     * not been analyzed since they were created are left out.
+     *
+     * @param tableName Name of table
+     * @return Map of index name to index statistics
+     */
+    public Map<String, IndexStatistics> getIndexStatistics(String tableName);
+
+    /**
+     * Store the statistics of the table's indices, replacing those stored before.
+     *
+     * @param tableName  Name of table
+     * @param statistics Map of index name to index statistics
+     */
+    public void setIndexStatistics(String tableName, Map<String, IndexStatistics> statistics);
 }
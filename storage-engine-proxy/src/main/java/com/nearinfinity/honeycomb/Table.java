@@ -24,10 +24,14 @@ package com.nearinfinity.honeycomb;
 
 import java.io.Closeable;
 import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
+import com.nearinfinity.honeycomb.mysql.ColumnAggregate;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
 import com.nearinfinity.honeycomb.mysql.QueryKey;
 import com.nearinfinity.honeycomb.mysql.Row;
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
 import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
 
 /**
@@ -161,4 +165,56 @@ public interface Table extends Closeable {
      * @return Scanner over index
      */
     Scanner indexScanExact(QueryKey key);
-}
\ No newline at end of file
+
+    /**
+     * Count the rows in the table without returning them
+     *
+     * @return Number of rows in the table
+     */
+    long countRows();
+
+    /**
+     * Count the rows of an index whose keys lie between two query keys,
+     * inclusive, without returning them.  A row is at the end of the range if
+     * its key starts with the end query key.  Both query keys must name the
+     * same index.
+     *
+     * @param from Query key of the first rows to count, or null to start at the beginning of the index
+     * @param to   Query key of the last rows to count, or null to count to the end of the index
+     * @return Number of rows in the range
+     */
+    long countRange(QueryKey from, QueryKey to);
+
+    /**
+     * Estimate the number of rows of an index whose keys lie between two query
+     * keys, inclusive, for the optimizer.  Unlike {@link #countRange} the
+     * estimate reads at most a small part of the range, so it may be inexact.
+     * Both query keys must name the same index.
+     *
+     * @param from Query key of the first rows to estimate, or null to start at the beginning of the index
+     * @param to   Query key of the last rows to estimate, or null to estimate to the end of the index
+     * @return Estimated number of rows in the range
+     */
+    long estimateRowsInRange(QueryKey from, QueryKey to);
+
+    /**
+     * Compute COUNT, SUM, MIN and MAX of a column over the rows of an index
+     * whose keys lie between two query keys, inclusive, or over the whole
+     * table, without returning the rows.  Both query keys must name the same
+     * index.
+     *
+     * @param column The {@link ColumnSchema} of the column to aggregate, not null
+     * @param from   Query key of the first rows to aggregate, or null to start at the beginning of the index
+     * @param to     Query key of the last rows to aggregate, or null to aggregate to the end of the index
+     * @return Aggregate of the column values, whole table if both query keys are null
+     */
+    ColumnAggregate aggregate(ColumnSchema column, QueryKey from, QueryKey to);
+
+    /**
+     * Compute the statistics of every index of the table from a sample of
+     * its rows, for ANALYZE TABLE.  The statistics are returned, not stored.
+     *
+     * @return Map of index name to the statistics of the index
+     */
+    Map<String, IndexStatistics> computeIndexStatistics();
+}
@@ -69,6 +69,9 @@ public class ConfigurationParser {
 
     private static final String QUERY_DEFAULT_ADAPTER = "/options/defaultAdapter";
 
+    private static final String QUERY_SLOW_OPERATION_LOG = "/options/slowOperationLog";
+    private static final String QUERY_TRACING = "/options/tracing";
+
     private static final XPath xPath = XPathFactory.newInstance().newXPath();
 
     private ConfigurationParser() {}
@@ -101,7 +104,9 @@ public class ConfigurationParser {
         Document doc = parseDocument(configSupplier);
         Map<String, Map<String, String>> adapters = parseAdapters(doc);
         String defaultAdapter = parseDefaultAdapter(doc);
-        return new HoneycombConfiguration(adapters, defaultAdapter);
+        Map<String, String> slowOperationLog = parseOptionalSection(doc, QUERY_SLOW_OPERATION_LOG);
+        Map<String, String> tracing = parseOptionalSection(doc, QUERY_TRACING);
+        return new HoneycombConfiguration(adapters, defaultAdapter, slowOperationLog, tracing);
     }
 
     /**
@@ -237,4 +242,35 @@ public class ConfigurationParser {
             logger.error("Unable to parse default adapter from honeycomb configuration.", e);
             throw new RuntimeException("Exception while parsing default adapter from honeycomb configuration.", e);        }
     }
+
+    /**
+     * Parses the options of an optional section, such as the slow operation log, if it is configured.
+     * @param doc XML document
+     * @param query XPath query of the section
+     * @return Map of option name to value, null if the section is not configured
+     */
+    private static Map<String, String> parseOptionalSection(Document doc, String query) {
+        Node sectionNode;
+        try {
+            sectionNode = (Node) xPath.evaluate(query, doc, XPathConstants.NODE);
+        } catch (XPathExpressionException e) {
+            logger.error("Unable to parse " + query + " from honeycomb configuration.", e);
+            throw new RuntimeException("Exception while parsing " + query + " from honeycomb configuration.", e);
+        }
+
+        if (sectionNode == null) {
+            return null;
+        }
+
+        ImmutableMap.Builder<String, String> options = ImmutableMap.builder();
+        NodeList optionNodes = sectionNode.getChildNodes();
+        for (int i = 0; i < optionNodes.getLength(); i++) {
+            Node optionNode = optionNodes.item(i);
+            if (optionNode.getNodeType() == Node.ELEMENT_NODE) {
+                options.put(optionNode.getNodeName(), optionNode.getTextContent().trim());
+            }
+        }
+
+        return options.build();
+    }
 }
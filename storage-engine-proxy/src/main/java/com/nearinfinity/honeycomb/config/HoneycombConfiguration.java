@@ -33,17 +33,36 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class HoneycombConfiguration {
     private final Map<String, Map<String, String>> adapters;
     private AdapterType defaultAdapter;
+    private final Map<String, String> slowOperationLog;
+    private final Map<String, String> tracing;
 
     /**
-     * Create a new system configuration
+     * Create a new system configuration without a slow operation log or tracing
      *
      * @param adapters       Map of adapter name to configuration
      * @param defaultAdapter Default adapter selected
      */
     public HoneycombConfiguration(Map<String, Map<String, String>> adapters,
                                   String defaultAdapter) {
+        this(adapters, defaultAdapter, null, null);
+    }
+
+    /**
+     * Create a new system configuration
+     *
+     * @param adapters         Map of adapter name to configuration
+     * @param defaultAdapter   Default adapter selected
+     * @param slowOperationLog Slow operation log options, null if it is not configured
+     * @param tracing          Tracing options, null if it is not configured
+     */
+    public HoneycombConfiguration(Map<String, Map<String, String>> adapters,
+                                  String defaultAdapter,
+                                  Map<String, String> slowOperationLog,
+                                  Map<String, String> tracing) {
         this.adapters = adapters;
         this.defaultAdapter = AdapterType.valueOf(defaultAdapter.toUpperCase());
+        this.slowOperationLog = slowOperationLog;
+        this.tracing = tracing;
     }
 
     /**
@@ -76,4 +95,40 @@ public class HoneycombConfiguration {
     public AdapterType getDefaultAdapter() {
         return defaultAdapter;
     }
+
+    /**
+     * Query whether the slow operation log is configured
+     *
+     * @return Slow operation log configured
+     */
+    public boolean isSlowOperationLogConfigured() {
+        return slowOperationLog != null;
+    }
+
+    /**
+     * Retrieve the options of the slow operation log
+     *
+     * @return Configuration options, null if it is not configured
+     */
+    public Map<String, String> getSlowOperationLogOptions() {
+        return slowOperationLog;
+    }
+
+    /**
+     * Query whether tracing is configured
+     *
+     * @return Tracing configured
+     */
+    public boolean isTracingConfigured() {
+        return tracing != null;
+    }
+
+    /**
+     * Retrieve the options of tracing
+     *
+     * @return Configuration options, null if it is not configured
+     */
+    public Map<String, String> getTracingOptions() {
+        return tracing;
+    }
 }
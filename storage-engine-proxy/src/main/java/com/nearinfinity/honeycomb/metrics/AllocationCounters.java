@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Totals of the bytes allocated by the sampled calls of an operation and of
+ * the garbage collections which overlapped them
+ */
+@ThreadSafe
+final class AllocationCounters {
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong gcSamples = new AtomicLong();
+    private final AtomicLong gcMillis = new AtomicLong();
+
+    /**
+     * Record a sampled call
+     *
+     * @param bytes       Bytes allocated by the calling thread during the call
+     * @param collections Garbage collections during the call
+     * @param millis      Time spent in garbage collection during the call
+     */
+    void record(long bytes, long collections, long millis) {
+        samples.incrementAndGet();
+        allocatedBytes.addAndGet(bytes);
+        if (collections > 0) {
+            gcSamples.incrementAndGet();
+            gcMillis.addAndGet(millis);
+        }
+    }
+
+    /**
+     * Add the calls recorded by other counters to these counters
+     *
+     * @param other Counters to add
+     */
+    void add(AllocationCounters other) {
+        samples.addAndGet(other.getSamples());
+        allocatedBytes.addAndGet(other.getAllocatedBytes());
+        gcSamples.addAndGet(other.getGcSamples());
+        gcMillis.addAndGet(other.getGcMillis());
+    }
+
+    /**
+     * @return Number of sampled calls
+     */
+    long getSamples() {
+        return samples.get();
+    }
+
+    /**
+     * @return Bytes allocated by the sampled calls
+     */
+    long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * @return Number of sampled calls during which a garbage collection ran
+     */
+    long getGcSamples() {
+        return gcSamples.get();
+    }
+
+    /**
+     * @return Time in milliseconds spent in the garbage collections which ran during sampled calls
+     */
+    long getGcMillis() {
+        return gcMillis.get();
+    }
+}
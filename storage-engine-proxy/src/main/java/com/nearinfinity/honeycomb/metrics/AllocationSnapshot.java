@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Snapshot of the bytes allocated by a thread and of the garbage collections
+ * of the JVM, taken when a sampled operation starts.  Each thread samples one
+ * in every {@link #setSampleInterval(int) sample interval} operations it
+ * starts, and keeps the snapshot of the last one.  Allocation is measured
+ * with the thread allocation counters of HotSpot JVMs; on other JVMs only
+ * garbage collections are measured.
+ */
+@NotThreadSafe
+final class AllocationSnapshot {
+    private static final Logger logger = Logger.getLogger(AllocationSnapshot.class);
+    private static final com.sun.management.ThreadMXBean threads = allocationCounters();
+    private static final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private static final ThreadLocal<AllocationSnapshot> current = new ThreadLocal<AllocationSnapshot>() {
+        @Override
+        protected AllocationSnapshot initialValue() {
+            return new AllocationSnapshot();
+        }
+    };
+    private static volatile int sampleInterval;
+    private int calls;
+    private long startNanos = -1;
+    private long allocatedBytes;
+    private long collections;
+    private long collectionMillis;
+
+    /**
+     * Query whether the allocation of each thread can be measured
+     *
+     * @return Thread allocation is measured
+     */
+    static boolean isAllocationSupported() {
+        return threads != null;
+    }
+
+    /**
+     * Set how often operations are sampled
+     *
+     * @param interval Sample one in this many operations of each thread, or 0 to disable sampling
+     */
+    static void setSampleInterval(int interval) {
+        sampleInterval = interval;
+    }
+
+    static int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Take a snapshot on the calling thread if the operation starting is sampled
+     *
+     * @param start Value of {@link System#nanoTime()} when the operation started
+     */
+    static void sample(long start) {
+        final int interval = sampleInterval;
+        if (interval <= 0) {
+            return;
+        }
+        final AllocationSnapshot snapshot = current.get();
+        if (++snapshot.calls >= interval) {
+            snapshot.calls = 0;
+            snapshot.take(start);
+        }
+    }
+
+    /**
+     * Retrieve the snapshot of the calling thread if it was taken for the
+     * operation which started at a time
+     *
+     * @param start Value of {@link System#nanoTime()} when the operation started
+     * @return Snapshot of the operation, or null if it was not sampled
+     */
+    static AllocationSnapshot takenAt(long start) {
+        if (sampleInterval <= 0) {
+            return null;
+        }
+        final AllocationSnapshot snapshot = current.get();
+        return snapshot.startNanos == start ? snapshot : null;
+    }
+
+    private void take(long start) {
+        startNanos = start;
+        allocatedBytes = threadAllocatedBytes();
+        collections = 0;
+        collectionMillis = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            collections += Math.max(0, collector.getCollectionCount());
+            collectionMillis += Math.max(0, collector.getCollectionTime());
+        }
+    }
+
+    /**
+     * Record the allocation and garbage collections since the snapshot was
+     * taken, and discard the snapshot
+     *
+     * @param counters Counters of the operation
+     */
+    void record(AllocationCounters counters) {
+        startNanos = -1;
+
+        long gcs = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            gcs += Math.max(0, collector.getCollectionCount());
+            gcMillis += Math.max(0, collector.getCollectionTime());
+        }
+        final long allocated = threads == null ? 0 : threadAllocatedBytes() - allocatedBytes;
+        counters.record(allocated, gcs - collections, gcMillis - collectionMillis);
+    }
+
+    private static long threadAllocatedBytes() {
+        return threads == null ? 0 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounters() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                    return threads;
+                }
+            }
+        } catch (LinkageError e) {
+            logger.debug("Thread allocation counters are not available", e);
+        } catch (UnsupportedOperationException e) {
+            logger.debug("Thread allocation counters are not available", e);
+        }
+        logger.info("Thread allocation counters are not supported, only garbage collections will be measured");
+        return null;
+    }
+}
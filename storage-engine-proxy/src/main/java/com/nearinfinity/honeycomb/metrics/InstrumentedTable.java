@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+import com.nearinfinity.honeycomb.Scanner;
+import com.nearinfinity.honeycomb.Table;
+import com.nearinfinity.honeycomb.mysql.ColumnAggregate;
+import com.nearinfinity.honeycomb.mysql.IndexStatistics;
+import com.nearinfinity.honeycomb.mysql.QueryKey;
+import com.nearinfinity.honeycomb.mysql.Row;
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
+import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
+
+/**
+ * A {@link Table} which records the latency of every operation of the table
+ * it wraps, including each row returned by its scanners, in the table's
+ * {@link TableMetrics}
+ */
+public class InstrumentedTable implements Table {
+    private final Table table;
+    private final TableMetrics metrics;
+
+    public InstrumentedTable(Table table, TableMetrics metrics) {
+        this.table = checkNotNull(table);
+        this.metrics = checkNotNull(metrics);
+    }
+
+    @Override
+    public void insertRow(Row row) {
+        long start = System.nanoTime();
+        try {
+            table.insertRow(row);
+        } finally {
+            metrics.record(Operation.TABLE_INSERT_ROW, start);
+        }
+    }
+
+    @Override
+    public void updateRow(Row oldRow, Row newRow, Collection<IndexSchema> changedIndices) {
+        long start = System.nanoTime();
+        try {
+            table.updateRow(oldRow, newRow, changedIndices);
+        } finally {
+            metrics.record(Operation.TABLE_UPDATE_ROW, start);
+        }
+    }
+
+    @Override
+    public void deleteRow(Row row) {
+        long start = System.nanoTime();
+        try {
+            table.deleteRow(row);
+        } finally {
+            metrics.record(Operation.TABLE_DELETE_ROW, start);
+        }
+    }
+
+    @Override
+    public void insertTableIndex(IndexSchema indexSchema) {
+        long start = System.nanoTime();
+        try {
+            table.insertTableIndex(indexSchema);
+        } finally {
+            metrics.record(Operation.TABLE_INSERT_INDEX, start);
+        }
+    }
+
+    @Override
+    public void deleteTableIndex(IndexSchema indexSchema) {
+        long start = System.nanoTime();
+        try {
+            table.deleteTableIndex(indexSchema);
+        } finally {
+            metrics.record(Operation.TABLE_DELETE_INDEX, start);
+        }
+    }
+
+    @Override
+    public void deleteAllRows() {
+        long start = System.nanoTime();
+        try {
+            table.deleteAllRows();
+        } finally {
+            metrics.record(Operation.TABLE_DELETE_ALL_ROWS, start);
+        }
+    }
+
+    @Override
+    public void flush() {
+        long start = System.nanoTime();
+        try {
+            table.flush();
+        } finally {
+            metrics.record(Operation.TABLE_FLUSH, start);
+        }
+    }
+
+    @Override
+    public Row getRow(UUID uuid) {
+        long start = System.nanoTime();
+        try {
+            return table.getRow(uuid);
+        } finally {
+            metrics.record(Operation.TABLE_GET_ROW, start);
+        }
+    }
+
+    @Override
+    public Scanner tableScan() {
+        long start = System.nanoTime();
+        try {
+            return instrument(table.tableScan());
+        } finally {
+            metrics.record(Operation.TABLE_SCAN, start);
+        }
+    }
+
+    @Override
+    public Scanner ascendingIndexScan(QueryKey key) {
+        long start = System.nanoTime();
+        try {
+            return instrument(table.ascendingIndexScan(key));
+        } finally {
+            metrics.record(Operation.TABLE_INDEX_SCAN, start);
+        }
+    }
+
+    @Override
+    public Scanner ascendingIndexScanAt(QueryKey key) {
+        long start = System.nanoTime();
+        try {
+            return instrument(table.ascendingIndexScanAt(key));
+        } finally {
+            metrics.record(Operation.TABLE_INDEX_SCAN, start);
+        }
+    }
+
+    @Override
+    public Scanner ascendingIndexScanAfter(QueryKey key) {
+        long start = System.nanoTime();
+        try {
+            return instrument(table.ascendingIndexScanAfter(key));
+        } finally {
+            metrics.record(Operation.TABLE_INDEX_SCAN, start);
+        }
+    }
+
+    @Override
+    public Scanner descendingIndexScan(QueryKey key) {
+        long start = System.nanoTime();
+        try {
+            return instrument(table.descendingIndexScan(key));
+        } finally {
+            metrics.record(Operation.TABLE_INDEX_SCAN, start);
+        }
+    }
+
+    @Override
+    public Scanner descendingIndexScanAt(QueryKey key) {
+        long start = System.nanoTime();
+        try {
+            return instrument(table.descendingIndexScanAt(key));
+        } finally {
+            metrics.record(Operation.TABLE_INDEX_SCAN, start);
+        }
+    }
+
+    @Override
+    public Scanner descendingIndexScanBefore(QueryKey key) {
+        long start = System.nanoTime();
+        try {
+            return instrument(table.descendingIndexScanBefore(key));
+        } finally {
+            metrics.record(Operation.TABLE_INDEX_SCAN, start);
+        }
+    }
+
+    @Override
+    public Scanner indexScanExact(QueryKey key) {
+        long start = System.nanoTime();
+        try {
+            return instrument(table.indexScanExact(key));
+        } finally {
+            metrics.record(Operation.TABLE_INDEX_SCAN, start);
+        }
+    }
+
+    @Override
+    public long countRows() {
+        long start = System.nanoTime();
+        try {
+            return table.countRows();
+        } finally {
+            metrics.record(Operation.TABLE_COUNT_ROWS, start);
+        }
+    }
+
+    @Override
+    public long countRange(QueryKey from, QueryKey to) {
+        long start = System.nanoTime();
+        try {
+            return table.countRange(from, to);
+        } finally {
+            metrics.record(Operation.TABLE_COUNT_RANGE, start);
+        }
+    }
+
+    @Override
+    public long estimateRowsInRange(QueryKey from, QueryKey to) {
+        long start = System.nanoTime();
+        try {
+            return table.estimateRowsInRange(from, to);
+        } finally {
+            metrics.record(Operation.TABLE_ESTIMATE_ROWS_IN_RANGE, start);
+        }
+    }
+
+    @Override
+    public ColumnAggregate aggregate(ColumnSchema column, QueryKey from, QueryKey to) {
+        long start = System.nanoTime();
+        try {
+            return table.aggregate(column, from, to);
+        } finally {
+            metrics.record(Operation.TABLE_AGGREGATE, start);
+        }
+    }
+
+    @Override
+    public Map<String, IndexStatistics> computeIndexStatistics() {
+        long start = System.nanoTime();
+        try {
+            return table.computeIndexStatistics();
+        } finally {
+            metrics.record(Operation.TABLE_COMPUTE_INDEX_STATISTICS, start);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        table.close();
+    }
+
+    private Scanner instrument(Scanner scanner) {
+        return scanner == null ? null : new InstrumentedScanner(scanner);
+    }
+
+    /**
+     * Records the latency of fetching each row of a scan
+     */
+    private class InstrumentedScanner implements Scanner {
+        private final Scanner scanner;
+
+        InstrumentedScanner(Scanner scanner) {
+            this.scanner = scanner;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return scanner.hasNext();
+        }
+
+        @Override
+        public byte[] next() {
+            long start = System.nanoTime();
+            try {
+                return scanner.next();
+            } finally {
+                metrics.record(Operation.TABLE_SCANNER_NEXT, start);
+            }
+        }
+
+        @Override
+        public void remove() {
+            scanner.remove();
+        }
+
+        @Override
+        public void close() throws IOException {
+            scanner.close();
+        }
+    }
+}
@@ -22,82 +22,228 @@
 
 package com.nearinfinity.honeycomb.metrics;
 
-import org.apache.log4j.Logger;
+import static com.google.common.base.Preconditions.checkArgument;
 
-import java.util.HashMap;
+import java.lang.management.ManagementFactory;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Maps;
+import com.nearinfinity.honeycomb.EngineStatus;
+import com.nearinfinity.honeycomb.StatusSource;
+import com.nearinfinity.honeycomb.util.Verify;
 
-public class Metrics implements MetricsMXBean {
+/**
+ * Latency histograms and throughput of the handler and table operations of
+ * every table, and the totals of their scans by index, reported through the MBean
+ * {@code com.nearinfinity.honeycomb:type=Metrics}.  The throughput of each
+ * table is also reported in the {@link EngineStatus}.  The allocation of handler
+ * operations and the garbage collections overlapping them can be sampled as
+ * well, by setting a sample interval.  The statistics cover the
+ * window since the metrics were last reset.  Recording takes a few atomic
+ * increments and never locks.
+ */
+@ThreadSafe
+public final class Metrics implements MetricsMXBean, StatusSource {
     private static final Logger logger = Logger.getLogger(Metrics.class);
-    private static Metrics metrics = new Metrics();
-    private AtomicLong hbaseTime;
-    private AtomicInteger hbaseCalls;
-    private AtomicLong parseResultTime;
-    private AtomicLong parseRowMapTime;
-    private Map<String, Long> statistics;
-
-    private Metrics() {
-        hbaseCalls = new AtomicInteger(0);
-        hbaseTime = new AtomicLong(0);
-        parseResultTime = new AtomicLong(0);
-        parseRowMapTime = new AtomicLong(0);
-        statistics = new HashMap<String, Long>();
+    private static final String OBJECT_NAME = "com.nearinfinity.honeycomb:type=Metrics";
+    private static final Metrics metrics = new Metrics();
+    private final ConcurrentMap<String, TableMetrics> tables = new ConcurrentHashMap<String, TableMetrics>();
+    private volatile long windowStart = System.nanoTime();
+
+    Metrics() {
     }
 
     public static Metrics getInstance() {
         return metrics;
     }
 
-    public void addHBaseTime(long time) {
-        hbaseTime.getAndAdd(time);
-        hbaseCalls.incrementAndGet();
+    /**
+     * Retrieve the metrics of a table, creating them on first use
+     *
+     * @param tableName Name of the table
+     * @return Metrics of the table
+     */
+    public TableMetrics forTable(String tableName) {
+        Verify.isNotNullOrEmpty(tableName);
+        TableMetrics table = tables.get(tableName);
+        if (table == null) {
+            final TableMetrics created = new TableMetrics();
+            table = tables.putIfAbsent(tableName, created);
+            if (table == null) {
+                table = created;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Discard the metrics of a table which was dropped or renamed
+     *
+     * @param tableName Name of the table
+     */
+    public void removeTable(String tableName) {
+        tables.remove(tableName);
     }
 
-    public void addStat(String key, long time) {
-        Long value = statistics.get(key);
-        if (value != null) {
-            statistics.put(key, value.longValue() + time);
-        } else {
-            statistics.put(key, time);
+    /**
+     * Register the metrics with the platform MBean server.  Failure to register
+     * is logged and otherwise ignored.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            logger.warn("Could not register the Metrics MBean", e);
         }
     }
 
     @Override
     public void resetAll() {
-        hbaseCalls.set(1);
-        hbaseTime.set(0);
-        parseResultTime.set(0);
-        statistics.clear();
+        windowStart = System.nanoTime();
+        for (TableMetrics table : tables.values()) {
+            table.reset();
+        }
+    }
+
+    /**
+     * Mark the start of a handler operation, sampling the allocation of the
+     * calling thread when allocation sampling is enabled.  The operation's
+     * allocation is recorded when it is recorded with the returned start time.
+     *
+     * @return Value of {@link System#nanoTime()} at the start of the operation
+     */
+    public long start() {
+        final long start = System.nanoTime();
+        AllocationSnapshot.sample(start);
+        return start;
     }
 
     @Override
-    public long getHBaseCalls() {
-        return hbaseCalls.get();
+    public int getAllocationSampleInterval() {
+        return AllocationSnapshot.getSampleInterval();
     }
 
     @Override
-    public long getHBaseTime() {
-        return hbaseTime.get();
+    public void setAllocationSampleInterval(int interval) {
+        checkArgument(interval >= 0, "Allocation sample interval must not be negative: %s", interval);
+        AllocationSnapshot.setSampleInterval(interval);
     }
 
     @Override
-    public long getParseResultTime() {
-        return parseResultTime.get();
+    public boolean isAllocationMeasured() {
+        return AllocationSnapshot.isAllocationSupported();
     }
 
     @Override
-    public long getParseRowMapTime() {
-        return parseRowMapTime.get();
+    public long getWindowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - windowStart);
+    }
+
+    @Override
+    public Map<String, OperationStatistics> getStatistics() {
+        final Map<Operation, LatencyHistogram> merged = Maps.newEnumMap(Operation.class);
+        final Map<Operation, AllocationCounters> mergedAllocations = Maps.newEnumMap(Operation.class);
+        for (TableMetrics table : tables.values()) {
+            for (Operation operation : Operation.values()) {
+                final LatencyHistogram histogram = table.getHistogram(operation);
+                if (histogram == null) {
+                    continue;
+                }
+                LatencyHistogram total = merged.get(operation);
+                if (total == null) {
+                    total = new LatencyHistogram();
+                    merged.put(operation, total);
+                }
+                total.add(histogram);
+
+                final AllocationCounters allocation = table.getAllocation(operation);
+                if (allocation != null) {
+                    AllocationCounters totalAllocation = mergedAllocations.get(operation);
+                    if (totalAllocation == null) {
+                        totalAllocation = new AllocationCounters();
+                        mergedAllocations.put(operation, totalAllocation);
+                    }
+                    totalAllocation.add(allocation);
+                }
+            }
+        }
+
+        final long windowNanos = System.nanoTime() - windowStart;
+        final SortedMap<String, OperationStatistics> statistics = Maps.newTreeMap();
+        for (Map.Entry<Operation, LatencyHistogram> entry : merged.entrySet()) {
+            statistics.put(entry.getKey().getName(), OperationStatistics.of(entry.getValue(),
+                    mergedAllocations.get(entry.getKey()), windowNanos));
+        }
+        return statistics;
+    }
+
+    @Override
+    public Map<String, OperationStatistics> getTableStatistics() {
+        final long windowNanos = System.nanoTime() - windowStart;
+        final SortedMap<String, OperationStatistics> statistics = Maps.newTreeMap();
+        for (Map.Entry<String, TableMetrics> table : tables.entrySet()) {
+            for (Operation operation : Operation.values()) {
+                final LatencyHistogram histogram = table.getValue().getHistogram(operation);
+                if (histogram != null) {
+                    statistics.put(table.getKey() + ":" + operation.getName(),
+                            OperationStatistics.of(histogram, table.getValue().getAllocation(operation), windowNanos));
+                }
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Report the handler throughput of each table in the current window
+     */
+    @Override
+    public void reportStatus(EngineStatus status) {
+        final long windowNanos = System.nanoTime() - windowStart;
+        status.add("metrics", "windowMillis", TimeUnit.NANOSECONDS.toMillis(windowNanos));
+        final SortedMap<String, TableMetrics> sorted = Maps.newTreeMap();
+        sorted.putAll(tables);
+        for (Map.Entry<String, TableMetrics> table : sorted.entrySet()) {
+            long count = 0;
+            long totalNanos = 0;
+            for (Operation operation : Operation.values()) {
+                final LatencyHistogram histogram = table.getValue().getHistogram(operation);
+                if (histogram != null && operation.isHandlerOperation()) {
+                    count += histogram.getCount();
+                    totalNanos += histogram.getTotalNanos();
+                }
+            }
+            status.add("tables", table.getKey(), String.format("operations=%d perSecond=%.1f meanMicros=%.1f",
+                    count,
+                    windowNanos == 0 ? 0.0 : count * 1e9 / windowNanos,
+                    count == 0 ? 0.0 : totalNanos / 1e3 / count));
+        }
     }
 
     @Override
-    public Map<String, Long> getStatistics() {
-        for (Map.Entry<String, Long> s : statistics.entrySet()) {
-            logger.info(s.getKey() + " => " + s.getValue());
+    public Map<String, ScanStatistics> getScanStatistics() {
+        final SortedMap<String, ScanStatistics> statistics = Maps.newTreeMap();
+        for (Map.Entry<String, TableMetrics> table : tables.entrySet()) {
+            for (Map.Entry<String, ScanMetrics> scan : table.getValue().getScans().entrySet()) {
+                statistics.put(table.getKey() + ":" + scan.getKey(), scan.getValue().getStatistics());
+            }
         }
-        logger.info("\n");
         return statistics;
     }
 }
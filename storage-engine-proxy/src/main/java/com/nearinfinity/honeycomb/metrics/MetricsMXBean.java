@@ -24,16 +24,52 @@ package com.nearinfinity.honeycomb.metrics;
 
 import java.util.Map;
 
+/**
+ * Management interface of {@link Metrics}
+ */
 public interface MetricsMXBean {
+    /**
+     * Discard the latencies recorded so far and start a new window
+     */
     void resetAll();
 
-    long getHBaseCalls();
+    /**
+     * @return Number of handler operations of each thread per allocation sample, 0 if sampling is disabled
+     */
+    int getAllocationSampleInterval();
+
+    /**
+     * Sample the allocation of one in this many handler operations of each
+     * thread, or disable sampling with 0.  Sampled operations read the
+     * thread's allocation counter and the garbage collector totals.
+     *
+     * @param interval Number of operations per sample, not negative
+     */
+    void setAllocationSampleInterval(int interval);
+
+    /**
+     * @return Whether the JVM measures the allocation of each thread, otherwise only garbage collections are sampled
+     */
+    boolean isAllocationMeasured();
 
-    long getHBaseTime();
+    /**
+     * @return Time in milliseconds since the metrics were last reset
+     */
+    long getWindowMillis();
 
-    long getParseResultTime();
+    /**
+     * @return Map of operation name to its statistics over all tables
+     */
+    Map<String, OperationStatistics> getStatistics();
 
-    long getParseRowMapTime();
+    /**
+     * @return Map of table name and operation name, separated by a colon, to the statistics of the operation on the table
+     */
+    Map<String, OperationStatistics> getTableStatistics();
 
-    Map<String, Long> getStatistics();
+    /**
+     * @return Map of table name and index name, separated by a colon, to the totals of the scans of the index.
+     *         Full table scans are reported under the index name {@value TableMetrics#TABLE_SCAN}.
+     */
+    Map<String, ScanStatistics> getScanStatistics();
 }
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+/**
+ * Operations whose latency is recorded by {@link Metrics}.  Handler
+ * operations are called by the storage engine through the
+ * {@link com.nearinfinity.honeycomb.mysql.HandlerProxy}, table operations are
+ * the calls it makes to the {@link com.nearinfinity.honeycomb.Table} of the
+ * storage backend.
+ */
+public enum Operation {
+    HANDLER_OPEN_TABLE("handler.openTable"),
+    HANDLER_INSERT_ROW("handler.insertRow"),
+    HANDLER_UPDATE_ROW("handler.updateRow"),
+    HANDLER_DELETE_ROW("handler.deleteRow"),
+    HANDLER_GET_ROW("handler.getRow"),
+    HANDLER_START_TABLE_SCAN("handler.startTableScan"),
+    HANDLER_START_INDEX_SCAN("handler.startIndexScan"),
+    HANDLER_GET_NEXT_ROW("handler.getNextRow"),
+    HANDLER_FLUSH("handler.flush"),
+    HANDLER_INDEX_CONTAINS_DUPLICATE("handler.indexContainsDuplicate"),
+    HANDLER_ESTIMATE_ROWS_IN_RANGE("handler.estimateRowsInRange"),
+    HANDLER_COUNT_RANGE("handler.countRange"),
+    HANDLER_AGGREGATE("handler.aggregate"),
+    HANDLER_UPDATE_INDEX_STATISTICS("handler.updateIndexStatistics"),
+    HANDLER_GET_RECORDS_PER_KEY("handler.getRecordsPerKey"),
+    HANDLER_ADD_INDEX("handler.addIndex"),
+    HANDLER_DROP_INDEX("handler.dropIndex"),
+    HANDLER_CREATE_TABLE("handler.createTable"),
+    HANDLER_DROP_TABLE("handler.dropTable"),
+    HANDLER_RENAME_TABLE("handler.renameTable"),
+    HANDLER_DELETE_ALL_ROWS("handler.deleteAllRows"),
+    HANDLER_TRUNCATE_TABLE("handler.truncateTable"),
+    HANDLER_END_SCAN("handler.endScan"),
+    HANDLER_GET_ROW_COUNT("handler.getRowCount"),
+    HANDLER_INCREMENT_ROW_COUNT("handler.incrementRowCount"),
+    HANDLER_TRUNCATE_ROW_COUNT("handler.truncateRowCount"),
+    HANDLER_RECOMPUTE_ROW_COUNT("handler.recomputeRowCount"),
+    HANDLER_GET_AUTO_INCREMENT("handler.getAutoIncrement"),
+    HANDLER_SET_AUTO_INCREMENT("handler.setAutoIncrement"),
+    HANDLER_INCREMENT_AUTO_INCREMENT("handler.incrementAutoIncrement"),
+    HANDLER_TRUNCATE_AUTO_INCREMENT("handler.truncateAutoIncrement"),
+    TABLE_INSERT_ROW("table.insertRow"),
+    TABLE_UPDATE_ROW("table.updateRow"),
+    TABLE_DELETE_ROW("table.deleteRow"),
+    TABLE_GET_ROW("table.getRow"),
+    TABLE_INSERT_INDEX("table.insertTableIndex"),
+    TABLE_DELETE_INDEX("table.deleteTableIndex"),
+    TABLE_DELETE_ALL_ROWS("table.deleteAllRows"),
+    TABLE_FLUSH("table.flush"),
+    TABLE_SCAN("table.tableScan"),
+    TABLE_INDEX_SCAN("table.indexScan"),
+    TABLE_SCANNER_NEXT("table.scannerNext"),
+    TABLE_COUNT_ROWS("table.countRows"),
+    TABLE_COUNT_RANGE("table.countRange"),
+    TABLE_ESTIMATE_ROWS_IN_RANGE("table.estimateRowsInRange"),
+    TABLE_AGGREGATE("table.aggregate"),
+    TABLE_COMPUTE_INDEX_STATISTICS("table.computeIndexStatistics");
+
+    private final String name;
+    private final boolean handler;
+
+    Operation(String name) {
+        this.name = name;
+        this.handler = name.startsWith("handler.");
+    }
+
+    /**
+     * Retrieve the name under which the operation is reported
+     *
+     * @return Operation name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Query whether the operation is called by the storage engine, rather
+     * than by the proxy on the storage backend
+     *
+     * @return Operation is a handler operation
+     */
+    public boolean isHandlerOperation() {
+        return handler;
+    }
+}
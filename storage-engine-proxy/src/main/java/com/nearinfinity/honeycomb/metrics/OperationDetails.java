@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Storage level details of an operation tracked by the {@link SlowOperationLog}
+ * or of a scan: the key range read, the rows and bytes moved and the RPCs made
+ * to the storage backend.  While an operation runs its details are attached to
+ * the calling thread, where the storage backend records them through the
+ * static methods of this class.  Recording does nothing when no operation is
+ * tracked on the thread.  The rows returned to MySQL are recorded by the
+ * caller.
+ */
+@NotThreadSafe
+public final class OperationDetails {
+    private static final ThreadLocal<OperationDetails> current = new ThreadLocal<OperationDetails>();
+    private byte[] startKey;
+    private byte[] endKey;
+    private long rows;
+    private long bytesRead;
+    private long bytesWritten;
+    private long rpcs;
+    private long rowsDiscarded;
+    private long rowsReturned;
+    private long bytesReturned;
+    private long firstRowNanos = -1;
+    private long elapsedNanos;
+    private final boolean sampled;
+
+    OperationDetails(boolean sampled) {
+        this.sampled = sampled;
+    }
+
+    /**
+     * Record the key range read by the operation on the calling thread.  Only
+     * the first range recorded by an operation is kept.
+     *
+     * @param startKey First key of the range, inclusive
+     * @param endKey   Last key of the range, exclusive, or the start key for a single row
+     */
+    public static void recordKeyRange(byte[] startKey, byte[] endKey) {
+        final OperationDetails details = current.get();
+        if (details != null && details.startKey == null) {
+            details.startKey = startKey;
+            details.endKey = endKey;
+        }
+    }
+
+    /**
+     * Record a row read by the operation on the calling thread
+     *
+     * @param bytes Size of the row
+     */
+    public static void recordRowRead(long bytes) {
+        final OperationDetails details = current.get();
+        if (details != null) {
+            details.rows++;
+            details.bytesRead += bytes;
+        }
+    }
+
+    /**
+     * Record bytes written by the operation on the calling thread
+     *
+     * @param bytes Bytes written
+     */
+    public static void recordBytesWritten(long bytes) {
+        final OperationDetails details = current.get();
+        if (details != null) {
+            details.bytesWritten += bytes;
+        }
+    }
+
+    /**
+     * Record RPCs made to the storage backend by the operation on the calling thread
+     *
+     * @param count Number of RPCs
+     */
+    public static void recordRpcs(long count) {
+        final OperationDetails details = current.get();
+        if (details != null) {
+            details.rpcs += count;
+        }
+    }
+
+    /**
+     * Record rows fetched from storage by the operation on the calling thread
+     * which will never be returned, such as the rest of a batch when a scan
+     * ends early
+     *
+     * @param rows Number of rows
+     */
+    public static void recordRowsDiscarded(long rows) {
+        final OperationDetails details = current.get();
+        if (details != null) {
+            details.rowsDiscarded += rows;
+        }
+    }
+
+    /**
+     * Record a row returned to MySQL by this operation
+     *
+     * @param bytes      Serialized size of the row
+     * @param startNanos Value of {@link System#nanoTime()} when the operation was begun or resumed
+     */
+    public void recordRowReturned(long bytes, long startNanos) {
+        if (rowsReturned == 0) {
+            firstRowNanos = elapsedNanos + System.nanoTime() - startNanos;
+        }
+        rowsReturned++;
+        bytesReturned += bytes;
+    }
+
+    public byte[] getStartKey() {
+        return startKey;
+    }
+
+    public byte[] getEndKey() {
+        return endKey;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getRpcs() {
+        return rpcs;
+    }
+
+    public long getRowsDiscarded() {
+        return rowsDiscarded;
+    }
+
+    public long getRowsReturned() {
+        return rowsReturned;
+    }
+
+    public long getBytesReturned() {
+        return bytesReturned;
+    }
+
+    /**
+     * Retrieve the time spent in the operation until its first row was returned
+     *
+     * @return Time to first row in nanoseconds, or -1 if no row was returned
+     */
+    public long getFirstRowNanos() {
+        return firstRowNanos;
+    }
+
+    /**
+     * Retrieve the time spent in the operation while it was attached
+     *
+     * @return Elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Query whether the operation was sampled by the slow operation log
+     *
+     * @return Operation may be logged
+     */
+    boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * Attach these details to the calling thread
+     */
+    void attach() {
+        current.set(this);
+    }
+
+    /**
+     * Detach these details from the calling thread, adding the time since the
+     * operation was resumed to the elapsed time
+     *
+     * @param startNanos Value of {@link System#nanoTime()} when the operation was resumed
+     */
+    void detach(long startNanos) {
+        elapsedNanos += System.nanoTime() - startNanos;
+        if (current.get() == this) {
+            current.remove();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Latency percentiles and throughput of an operation over the current
+ * metrics window, and the allocation and garbage collections of its sampled
+ * calls, as reported through {@link MetricsMXBean}
+ */
+@Immutable
+public final class OperationStatistics {
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+    private final long count;
+    private final double throughput;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+    private final long allocationSamples;
+    private final double meanAllocatedBytes;
+    private final long gcSamples;
+    private final long gcMillis;
+
+    @ConstructorProperties({"count", "throughput", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros",
+            "allocationSamples", "meanAllocatedBytes", "gcSamples", "gcMillis"})
+    public OperationStatistics(long count, double throughput, double meanMicros, double p50Micros,
+                               double p99Micros, double p999Micros, double maxMicros,
+                               long allocationSamples, double meanAllocatedBytes, long gcSamples, long gcMillis) {
+        this.count = count;
+        this.throughput = throughput;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+        this.allocationSamples = allocationSamples;
+        this.meanAllocatedBytes = meanAllocatedBytes;
+        this.gcSamples = gcSamples;
+        this.gcMillis = gcMillis;
+    }
+
+    /**
+     * Summarize the latencies recorded by a histogram and the allocation of the sampled calls
+     *
+     * @param histogram   Latencies of the operation
+     * @param allocation  Allocation of the sampled calls, or null if no call was sampled
+     * @param windowNanos Length of the window in which they were recorded
+     * @return Statistics of the operation
+     */
+    static OperationStatistics of(LatencyHistogram histogram, AllocationCounters allocation, long windowNanos) {
+        final long count = histogram.getCount();
+        final long samples = allocation == null ? 0 : allocation.getSamples();
+        return new OperationStatistics(count,
+                windowNanos <= 0 ? 0 : count / (windowNanos / (double) TimeUnit.SECONDS.toNanos(1)),
+                count == 0 ? 0 : histogram.getTotalNanos() / NANOS_PER_MICRO / count,
+                histogram.getPercentileNanos(0.5) / NANOS_PER_MICRO,
+                histogram.getPercentileNanos(0.99) / NANOS_PER_MICRO,
+                histogram.getPercentileNanos(0.999) / NANOS_PER_MICRO,
+                histogram.getMaxNanos() / NANOS_PER_MICRO,
+                samples,
+                samples == 0 ? 0 : allocation.getAllocatedBytes() / (double) samples,
+                samples == 0 ? 0 : allocation.getGcSamples(),
+                samples == 0 ? 0 : allocation.getGcMillis());
+    }
+
+    /**
+     * @return Number of times the operation completed in the window
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Operations completed per second over the window
+     */
+    public double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * @return Mean latency in microseconds
+     */
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * @return Median latency in microseconds
+     */
+    public double getP50Micros() {
+        return p50Micros;
+    }
+
+    /**
+     * @return 99th percentile latency in microseconds
+     */
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    /**
+     * @return 99.9th percentile latency in microseconds
+     */
+    public double getP999Micros() {
+        return p999Micros;
+    }
+
+    /**
+     * @return Maximum latency in microseconds
+     */
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+
+    /**
+     * @return Number of calls whose allocation was sampled
+     */
+    public long getAllocationSamples() {
+        return allocationSamples;
+    }
+
+    /**
+     * @return Mean bytes allocated by the calling thread during a sampled call
+     */
+    public double getMeanAllocatedBytes() {
+        return meanAllocatedBytes;
+    }
+
+    /**
+     * @return Number of sampled calls during which a garbage collection ran
+     */
+    public long getGcSamples() {
+        return gcSamples;
+    }
+
+    /**
+     * @return Time in milliseconds spent in the garbage collections which ran during sampled calls
+     */
+    public long getGcMillis() {
+        return gcMillis;
+    }
+
+    @Override
+    public String toString() {
+        String latency = String.format("count=%d throughput=%.1f/s mean=%.1fus p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+                count, throughput, meanMicros, p50Micros, p99Micros, p999Micros, maxMicros);
+        if (allocationSamples == 0) {
+            return latency;
+        }
+        return latency + String.format(" samples=%d allocated=%.0fB gcSamples=%d gc=%dms",
+                allocationSamples, meanAllocatedBytes, gcSamples, gcMillis);
+    }
+}
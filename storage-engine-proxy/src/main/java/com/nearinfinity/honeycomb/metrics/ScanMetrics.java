@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Accumulates the details of the completed scans of one index, or of full
+ * table scans
+ */
+@ThreadSafe
+final class ScanMetrics {
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong rpcs = new AtomicLong();
+    private final AtomicLong rowsDiscarded = new AtomicLong();
+    private final AtomicLong firstRowScans = new AtomicLong();
+    private final AtomicLong firstRowNanos = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    /**
+     * Add a completed scan
+     *
+     * @param details Details of the scan
+     */
+    void record(OperationDetails details) {
+        scans.incrementAndGet();
+        rows.addAndGet(details.getRowsReturned());
+        bytes.addAndGet(details.getBytesReturned());
+        rpcs.addAndGet(details.getRpcs());
+        rowsDiscarded.addAndGet(details.getRowsDiscarded());
+        if (details.getFirstRowNanos() >= 0) {
+            firstRowScans.incrementAndGet();
+            firstRowNanos.addAndGet(details.getFirstRowNanos());
+        }
+        totalNanos.addAndGet(details.getElapsedNanos());
+    }
+
+    /**
+     * Summarize the scans added so far
+     *
+     * @return Statistics of the scans
+     */
+    ScanStatistics getStatistics() {
+        final long count = scans.get();
+        final long firstRowCount = firstRowScans.get();
+        return new ScanStatistics(count, rows.get(), bytes.get(), rpcs.get(), rowsDiscarded.get(),
+                firstRowCount == 0 ? 0 : firstRowNanos.get() / NANOS_PER_MICRO / firstRowCount,
+                count == 0 ? 0 : totalNanos.get() / NANOS_PER_MICRO / count);
+    }
+}
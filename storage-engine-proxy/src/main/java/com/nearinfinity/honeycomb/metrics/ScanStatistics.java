@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import java.beans.ConstructorProperties;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Totals of the scans of one index, or of full table scans, over the current
+ * metrics window, as reported through {@link MetricsMXBean}
+ */
+@Immutable
+public final class ScanStatistics {
+    private final long scans;
+    private final long rows;
+    private final long bytes;
+    private final long rpcs;
+    private final long rowsDiscarded;
+    private final double meanFirstRowMicros;
+    private final double meanMicros;
+
+    @ConstructorProperties({"scans", "rows", "bytes", "rpcs", "rowsDiscarded", "meanFirstRowMicros", "meanMicros"})
+    public ScanStatistics(long scans, long rows, long bytes, long rpcs, long rowsDiscarded,
+                          double meanFirstRowMicros, double meanMicros) {
+        this.scans = scans;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.rpcs = rpcs;
+        this.rowsDiscarded = rowsDiscarded;
+        this.meanFirstRowMicros = meanFirstRowMicros;
+        this.meanMicros = meanMicros;
+    }
+
+    /**
+     * @return Number of scans completed in the window
+     */
+    public long getScans() {
+        return scans;
+    }
+
+    /**
+     * @return Rows returned to MySQL
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return Serialized bytes of the rows returned to MySQL
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return RPCs made to the storage backend
+     */
+    public long getRpcs() {
+        return rpcs;
+    }
+
+    /**
+     * @return Rows fetched from the storage backend but never returned to MySQL
+     */
+    public long getRowsDiscarded() {
+        return rowsDiscarded;
+    }
+
+    /**
+     * @return Mean time in microseconds until the first row of a scan was returned, over the scans returning a row
+     */
+    public double getMeanFirstRowMicros() {
+        return meanFirstRowMicros;
+    }
+
+    /**
+     * @return Mean time in microseconds spent in a scan
+     */
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("scans=%d rows=%d bytes=%d rpcs=%d discarded=%d firstRow=%.1fus mean=%.1fus",
+                scans, rows, bytes, rpcs, rowsDiscarded, meanFirstRowMicros, meanMicros);
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.RateLimiter;
+import com.nearinfinity.honeycomb.mysql.QueryKey;
+
+/**
+ * Logs the handler operations which take longer than a threshold, together
+ * with the {@link OperationDetails} recorded by the storage backend, as
+ * space separated key=value fields.  A configured fraction of the operations
+ * is tracked and at most a configured number of entries are logged per
+ * second.  Entries are written by a background thread, so a slow operation
+ * only pays for queueing its entry, and entries are dropped rather than
+ * waited on when the queue is full.  The log is disabled until it is
+ * configured.
+ */
+@ThreadSafe
+public final class SlowOperationLog {
+    /**
+     * Operations taking at least this long are logged
+     */
+    public static final String THRESHOLD_MILLIS = "thresholdMillis";
+    /**
+     * Fraction of operations tracked, between 0 and 1
+     */
+    public static final String SAMPLE_RATE = "sampleRate";
+    /**
+     * Most entries logged per second
+     */
+    public static final String MAX_PER_SECOND = "maxPerSecond";
+    static final long DEFAULT_THRESHOLD_MILLIS = 100;
+    static final double DEFAULT_SAMPLE_RATE = 1.0;
+    static final double DEFAULT_MAX_PER_SECOND = 10;
+    private static final Logger logger = Logger.getLogger(SlowOperationLog.class);
+    private static final SlowOperationLog slowOperationLog = new SlowOperationLog();
+    private static final int QUEUE_CAPACITY = 1000;
+    private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<Entry>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Settings settings;
+    private Thread writer;
+    private long reportedDropped;
+
+    SlowOperationLog() {
+    }
+
+    public static SlowOperationLog getInstance() {
+        return slowOperationLog;
+    }
+
+    /**
+     * Enable the log with the configured options and start writing entries.
+     * Options which are not configured take their default.
+     *
+     * @param options Map of option name to value
+     */
+    public synchronized void configure(Map<String, String> options) {
+        long thresholdMillis = options.containsKey(THRESHOLD_MILLIS)
+                ? Long.parseLong(options.get(THRESHOLD_MILLIS)) : DEFAULT_THRESHOLD_MILLIS;
+        double sampleRate = options.containsKey(SAMPLE_RATE)
+                ? Double.parseDouble(options.get(SAMPLE_RATE)) : DEFAULT_SAMPLE_RATE;
+        double maxPerSecond = options.containsKey(MAX_PER_SECOND)
+                ? Double.parseDouble(options.get(MAX_PER_SECOND)) : DEFAULT_MAX_PER_SECOND;
+        enable(thresholdMillis, sampleRate, maxPerSecond);
+
+        if (writer == null) {
+            writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            write(queue.take());
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "honeycomb-slow-operation-log");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        logger.info(String.format("Logging operations slower than %d ms, sampling %.3f of operations",
+                thresholdMillis, sampleRate));
+    }
+
+    /**
+     * Start tracking operations, without starting to write entries
+     *
+     * @param thresholdMillis Operations taking at least this long are logged
+     * @param sampleRate      Fraction of operations tracked
+     * @param maxPerSecond    Most entries logged per second
+     */
+    void enable(long thresholdMillis, double sampleRate, double maxPerSecond) {
+        checkArgument(thresholdMillis >= 0, "Slow operation threshold must not be negative: %s", thresholdMillis);
+        checkArgument(sampleRate >= 0 && sampleRate <= 1, "Slow operation sample rate must be between 0 and 1: %s", sampleRate);
+        checkArgument(maxPerSecond > 0, "Slow operations logged per second must be positive: %s", maxPerSecond);
+        settings = new Settings(TimeUnit.MILLISECONDS.toNanos(thresholdMillis), sampleRate,
+                RateLimiter.create(maxPerSecond));
+    }
+
+    /**
+     * Stop tracking operations
+     */
+    void disable() {
+        settings = null;
+    }
+
+    /**
+     * Start tracking an operation on the calling thread, if it is sampled
+     *
+     * @return Details of the operation, or null if it is not tracked
+     */
+    public OperationDetails begin() {
+        if (!sample()) {
+            return null;
+        }
+        final OperationDetails details = new OperationDetails(true);
+        details.attach();
+        return details;
+    }
+
+    /**
+     * Start tracking a scan on the calling thread.  Scans are always tracked,
+     * for their statistics, but only sampled scans are logged.
+     *
+     * @return Details of the scan
+     */
+    public OperationDetails beginScan() {
+        final OperationDetails details = new OperationDetails(sample());
+        details.attach();
+        return details;
+    }
+
+    /**
+     * Resume tracking an operation spanning several calls, such as a scan, on
+     * the calling thread
+     *
+     * @param details Details of the operation, or null if it is not tracked
+     */
+    public void resume(OperationDetails details) {
+        if (details != null) {
+            details.attach();
+        }
+    }
+
+    /**
+     * Pause tracking an operation spanning several calls until it is resumed
+     *
+     * @param details    Details of the operation, or null if it is not tracked
+     * @param startNanos Value of {@link System#nanoTime()} when the operation was begun or resumed
+     */
+    public void suspend(OperationDetails details, long startNanos) {
+        if (details != null) {
+            details.detach(startNanos);
+        }
+    }
+
+    /**
+     * Stop tracking an operation and log it if it took longer than the threshold
+     *
+     * @param details    Details of the operation, or null if it is not tracked
+     * @param operation  Operation completed
+     * @param tableName  Name of the table, or null
+     * @param key        Query key of the operation, or null
+     * @param startNanos Value of {@link System#nanoTime()} when the operation was begun or resumed
+     */
+    public void end(OperationDetails details, Operation operation, String tableName, QueryKey key, long startNanos) {
+        if (details != null) {
+            details.detach(startNanos);
+            complete(details, operation, tableName, key);
+        }
+    }
+
+    /**
+     * Log a suspended operation if the time spent in it exceeds the threshold
+     *
+     * @param details   Details of the operation, or null if it is not tracked
+     * @param operation Operation completed
+     * @param tableName Name of the table, or null
+     * @param key       Query key of the operation, or null
+     */
+    public void complete(OperationDetails details, Operation operation, String tableName, QueryKey key) {
+        final Settings current = settings;
+        if (details == null || !details.isSampled() || current == null
+                || details.getElapsedNanos() < current.thresholdNanos) {
+            return;
+        }
+        if (!current.rateLimiter.tryAcquire() || !queue.offer(new Entry(operation, tableName, key, details))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Retrieve the number of slow operations which were not logged because of
+     * the rate limit or a full queue
+     *
+     * @return Number of dropped entries
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private boolean sample() {
+        final Settings current = settings;
+        return current != null && current.sample();
+    }
+
+    /**
+     * Write the queued entries on the calling thread
+     */
+    void drain() {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            write(entry);
+        }
+    }
+
+    /**
+     * Write an entry, reporting the entries dropped since the previous one
+     */
+    private synchronized void write(Entry entry) {
+        final long totalDropped = dropped.get();
+        final String message = entry.format();
+        if (totalDropped > reportedDropped) {
+            logger.warn(message + " dropped=" + (totalDropped - reportedDropped));
+            reportedDropped = totalDropped;
+        } else {
+            logger.warn(message);
+        }
+    }
+
+    private static final class Settings {
+        private final long thresholdNanos;
+        private final double sampleRate;
+        private final RateLimiter rateLimiter;
+        private final Random random = new Random();
+
+        Settings(long thresholdNanos, double sampleRate, RateLimiter rateLimiter) {
+            this.thresholdNanos = thresholdNanos;
+            this.sampleRate = sampleRate;
+            this.rateLimiter = rateLimiter;
+        }
+
+        boolean sample() {
+            return sampleRate >= 1 || random.nextDouble() < sampleRate;
+        }
+    }
+
+    /**
+     * Snapshot of a slow operation, formatted on the writer thread
+     */
+    @Immutable
+    private static final class Entry {
+        private final Operation operation;
+        private final String tableName;
+        private final QueryKey key;
+        private final byte[] startKey;
+        private final byte[] endKey;
+        private final long rows;
+        private final long bytesRead;
+        private final long bytesWritten;
+        private final long rpcs;
+        private final long elapsedNanos;
+
+        Entry(Operation operation, String tableName, QueryKey key, OperationDetails details) {
+            this.operation = operation;
+            this.tableName = tableName;
+            this.key = key;
+            this.startKey = details.getStartKey();
+            this.endKey = details.getEndKey();
+            this.rows = details.getRows();
+            this.bytesRead = details.getBytesRead();
+            this.bytesWritten = details.getBytesWritten();
+            this.rpcs = details.getRpcs();
+            this.elapsedNanos = details.getElapsedNanos();
+        }
+
+        String format() {
+            StringBuilder builder = new StringBuilder()
+                    .append("operation=").append(operation.getName())
+                    .append(" table=").append(tableName)
+                    .append(" elapsedMillis=").append(String.format("%.3f", elapsedNanos / 1e6));
+            if (key != null) {
+                builder.append(" index=").append(key.getIndexName())
+                        .append(" queryType=").append(key.getQueryType());
+            }
+            if (startKey != null) {
+                builder.append(" startKey=").append(HEX.encode(startKey))
+                        .append(" endKey=").append(HEX.encode(endKey));
+            }
+            return builder
+                    .append(" rows=").append(rows)
+                    .append(" bytesRead=").append(bytesRead)
+                    .append(" bytesWritten=").append(bytesWritten)
+                    .append(" rpcs=").append(rpcs)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Latency histograms of the operations on one table, the allocation of the
+ * sampled handler operations, and the totals of its scans by index.  A histogram is created the first time its operation is
+ * recorded, so tables only pay for the operations used on them.
+ */
+@ThreadSafe
+public final class TableMetrics {
+    /**
+     * Index name under which full table scans are reported
+     */
+    public static final String TABLE_SCAN = "*";
+    private static final Operation[] OPERATIONS = Operation.values();
+    private final AtomicReferenceArray<LatencyHistogram> histograms =
+            new AtomicReferenceArray<LatencyHistogram>(OPERATIONS.length);
+    private final AtomicReferenceArray<AllocationCounters> allocations =
+            new AtomicReferenceArray<AllocationCounters>(OPERATIONS.length);
+    private final ConcurrentMap<String, ScanMetrics> scans = new ConcurrentHashMap<String, ScanMetrics>();
+
+    /**
+     * Record the latency of an operation which started at a time, and its
+     * allocation if it is a handler operation started with {@link Metrics#start()}
+     * and sampled
+     *
+     * @param operation  Operation completed
+     * @param startNanos Value of {@link System#nanoTime()} when the operation started
+     */
+    public void record(Operation operation, long startNanos) {
+        histogram(operation).record(System.nanoTime() - startNanos);
+        if (operation.isHandlerOperation()) {
+            final AllocationSnapshot snapshot = AllocationSnapshot.takenAt(startNanos);
+            if (snapshot != null) {
+                snapshot.record(allocation(operation));
+            }
+        }
+    }
+
+    /**
+     * Record a completed scan
+     *
+     * @param indexName Name of the scanned index, or null for a full table scan
+     * @param details   Details of the scan
+     */
+    public void recordScan(String indexName, OperationDetails details) {
+        final String key = indexName == null ? TABLE_SCAN : indexName;
+        ScanMetrics scan = scans.get(key);
+        if (scan == null) {
+            final ScanMetrics created = new ScanMetrics();
+            scan = scans.putIfAbsent(key, created);
+            if (scan == null) {
+                scan = created;
+            }
+        }
+        scan.record(details);
+    }
+
+    /**
+     * Retrieve the scans of each index in the current window
+     *
+     * @return Map of index name, or {@link #TABLE_SCAN}, to the scans' totals
+     */
+    Map<String, ScanMetrics> getScans() {
+        return scans;
+    }
+
+    /**
+     * Retrieve the histogram of an operation in the current window
+     *
+     * @param operation Operation
+     * @return Histogram of the operation, or null if it has not been recorded
+     */
+    LatencyHistogram getHistogram(Operation operation) {
+        return histograms.get(operation.ordinal());
+    }
+
+    /**
+     * Retrieve the allocation of an operation in the current window
+     *
+     * @param operation Operation
+     * @return Allocation of the operation, or null if no call of it was sampled
+     */
+    AllocationCounters getAllocation(Operation operation) {
+        return allocations.get(operation.ordinal());
+    }
+
+    /**
+     * Discard the latencies recorded so far
+     */
+    void reset() {
+        for (int i = 0; i < histograms.length(); i++) {
+            histograms.set(i, null);
+            allocations.set(i, null);
+        }
+        scans.clear();
+    }
+
+    private LatencyHistogram histogram(Operation operation) {
+        final int index = operation.ordinal();
+        LatencyHistogram histogram = histograms.get(index);
+        while (histogram == null) {
+            final LatencyHistogram created = new LatencyHistogram();
+            if (histograms.compareAndSet(index, null, created)) {
+                return created;
+            }
+            histogram = histograms.get(index);
+        }
+        return histogram;
+    }
+
+    private AllocationCounters allocation(Operation operation) {
+        final int index = operation.ordinal();
+        AllocationCounters counters = allocations.get(index);
+        while (counters == null) {
+            final AllocationCounters created = new AllocationCounters();
+            if (allocations.compareAndSet(index, null, created)) {
+                return created;
+            }
+            counters = allocations.get(index);
+        }
+        return counters;
+    }
+}
@@ -36,10 +36,15 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
+import com.google.inject.multibindings.Multibinder;
+import com.nearinfinity.honeycomb.StatusSource;
 import com.nearinfinity.honeycomb.config.AdapterType;
 import com.nearinfinity.honeycomb.config.ConfigurationParser;
 import com.nearinfinity.honeycomb.config.HoneycombConfiguration;
 import com.nearinfinity.honeycomb.exceptions.StorageBackendCreationException;
+import com.nearinfinity.honeycomb.metrics.Metrics;
+import com.nearinfinity.honeycomb.metrics.SlowOperationLog;
+import com.nearinfinity.honeycomb.tracing.Tracer;
 import com.nearinfinity.honeycomb.util.Verify;
 
 
@@ -73,6 +78,14 @@ public final class Bootstrap extends AbstractModule {
         Bootstrap bootstrap = new Bootstrap(configuration);
 
         Injector injector = Guice.createInjector(bootstrap);
+        Metrics.getInstance().registerMBean();
+        if (configuration.isSlowOperationLogConfigured()) {
+            SlowOperationLog.getInstance().configure(configuration.getSlowOperationLogOptions());
+        }
+        Tracer.getInstance().registerMBean();
+        if (configuration.isTracingConfigured()) {
+            Tracer.getInstance().configure(configuration.getTracingOptions());
+        }
         return injector.getInstance(HandlerProxyFactory.class);
     }
 
@@ -111,6 +124,8 @@ public final class Bootstrap extends AbstractModule {
     @Override
     protected void configure() {
         bind(HoneycombConfiguration.class).toInstance(configuration);
+        // Backends add their components to the set reported in the engine status
+        Multibinder.newSetBinder(binder(), StatusSource.class);
 
         for (AdapterType adapter : AdapterType.values()) {
             if (configuration.isAdapterConfigured(adapter)) {
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.mysql;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import com.google.common.base.Objects;
+import com.google.common.primitives.UnsignedBytes;
+import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
+
+/**
+ * Accumulates COUNT, SUM, MIN and MAX of the values of a single column, decoding
+ * each value according to its {@link ColumnType}.  Null values are skipped, so
+ * the count is that of the non-null values.  Aggregates of disjoint sets of rows,
+ * such as the rows of different regions, are combined with {@link #merge}.
+ */
+@NotThreadSafe
+public class ColumnAggregate {
+    private static final int LONG_BYTES = 8;
+    private static final BigInteger UNSIGNED_OFFSET = BigInteger.ONE.shiftLeft(64);
+    private static final Comparator<byte[]> BYTES_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+    private final ColumnType type;
+    private long count;
+    private long longSum;
+    private BigInteger bigSum = BigInteger.ZERO;
+    private double doubleSum;
+    private ByteBuffer min;
+    private ByteBuffer max;
+
+    /**
+     * Creates an empty aggregate of a column
+     *
+     * @param type Column type, not null
+     */
+    public ColumnAggregate(ColumnType type) {
+        this.type = checkNotNull(type);
+    }
+
+    /**
+     * Creates an aggregate from previously computed values
+     *
+     * @param type  Column type, not null
+     * @param count Number of non-null values
+     * @param sum   Sum of the values, or null if there are none or the type cannot be summed
+     * @param min   Minimum encoded value, or null
+     * @param max   Maximum encoded value, or null
+     */
+    public ColumnAggregate(ColumnType type, long count, Number sum, ByteBuffer min, ByteBuffer max) {
+        this(type);
+        checkArgument(count >= 0, "Count must be non-negative: %s", count);
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        if (sum instanceof Double) {
+            doubleSum = sum.doubleValue();
+        } else if (sum instanceof BigInteger) {
+            bigSum = (BigInteger) sum;
+        } else if (sum != null) {
+            longSum = sum.longValue();
+        }
+    }
+
+    /**
+     * Indicates whether values of a column type can be summed
+     *
+     * @param type Column type
+     * @return True if {@link #getSum()} is computed for the type
+     */
+    public static boolean supportsSum(ColumnType type) {
+        switch (type) {
+            case LONG:
+            case ULONG:
+            case TIME:
+            case DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Indicates whether the minimum and maximum of a column type can be
+     * computed. String values compare according to their MySQL collation,
+     * which is unknown to the storage engine, so they are not supported.
+     *
+     * @param type Column type
+     * @return True if {@link #getMin()} and {@link #getMax()} are computed for the type
+     */
+    public static boolean supportsMinMax(ColumnType type) {
+        return type != ColumnType.STRING;
+    }
+
+    /**
+     * Add the value of the column in a row
+     *
+     * @param row    Row, not null
+     * @param column Column name, not null
+     */
+    public void add(Row row, String column) {
+        checkNotNull(row);
+        checkNotNull(column);
+        add(row.getRecords().get(column));
+    }
+
+    /**
+     * Add an encoded column value
+     *
+     * @param value Encoded value, or null for a null value
+     */
+    public void add(ByteBuffer value) {
+        if (value == null) {
+            return;
+        }
+
+        ByteBuffer copy = value.duplicate();
+        count++;
+        if (supportsSum(type)) {
+            addToSum(copy);
+        }
+        if (supportsMinMax(type)) {
+            if (min == null || compare(copy, min) < 0) {
+                min = copy;
+            }
+            if (max == null || compare(copy, max) > 0) {
+                max = copy;
+            }
+        }
+    }
+
+    /**
+     * Combine another aggregate of the same column into this one
+     *
+     * @param other Aggregate of a disjoint set of rows, not null
+     */
+    public void merge(ColumnAggregate other) {
+        checkNotNull(other);
+        checkArgument(type == other.type, "Cannot merge aggregates of %s and %s columns", type, other.type);
+
+        count += other.count;
+        addLong(other.longSum);
+        bigSum = bigSum.add(other.bigSum);
+        doubleSum += other.doubleSum;
+        if (other.min != null && (min == null || compare(other.min, min) < 0)) {
+            min = other.min;
+        }
+        if (other.max != null && (max == null || compare(other.max, max) > 0)) {
+            max = other.max;
+        }
+    }
+
+    /**
+     * Returns the column type of the aggregated values
+     *
+     * @return Column type
+     */
+    public ColumnType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the number of non-null values
+     *
+     * @return Count of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the values: a {@link Double} for DOUBLE columns and a
+     * {@link BigInteger} for integer columns, which cannot overflow.
+     *
+     * @return Sum of the values, or null if there are none or the type cannot be summed
+     */
+    public Number getSum() {
+        if (count == 0 || !supportsSum(type)) {
+            return null;
+        }
+        if (type == ColumnType.DOUBLE) {
+            return doubleSum;
+        }
+        return bigSum.add(BigInteger.valueOf(longSum));
+    }
+
+    /**
+     * Returns the minimum value, encoded like the values of a {@link Row}
+     *
+     * @return Minimum value, or null if there are none or the type is not supported
+     */
+    public ByteBuffer getMin() {
+        return min == null ? null : min.duplicate();
+    }
+
+    /**
+     * Returns the maximum value, encoded like the values of a {@link Row}
+     *
+     * @return Maximum value, or null if there are none or the type is not supported
+     */
+    public ByteBuffer getMax() {
+        return max == null ? null : max.duplicate();
+    }
+
+    private void addToSum(ByteBuffer value) {
+        checkArgument(value.remaining() == LONG_BYTES,
+                "Expected an 8 byte %s value, found %s bytes", type, value.remaining());
+        switch (type) {
+            case DOUBLE:
+                doubleSum += value.getDouble(value.position());
+                break;
+            case ULONG: {
+                long longValue = value.getLong(value.position());
+                if (longValue < 0) {
+                    bigSum = bigSum.add(BigInteger.valueOf(longValue).add(UNSIGNED_OFFSET));
+                } else {
+                    addLong(longValue);
+                }
+                break;
+            }
+            default:
+                addLong(value.getLong(value.position()));
+                break;
+        }
+    }
+
+    /**
+     * Add to the long sum, spilling into the big sum on overflow
+     */
+    private void addLong(long value) {
+        long result = longSum + value;
+        if (((longSum ^ result) & (value ^ result)) < 0) {
+            bigSum = bigSum.add(BigInteger.valueOf(longSum)).add(BigInteger.valueOf(value));
+            longSum = 0;
+        } else {
+            longSum = result;
+        }
+    }
+
+    private int compare(ByteBuffer left, ByteBuffer right) {
+        switch (type) {
+            case LONG:
+            case TIME: {
+                long l = left.getLong(left.position());
+                long r = right.getLong(right.position());
+                return l < r ? -1 : (l == r ? 0 : 1);
+            }
+            case ULONG: {
+                long l = left.getLong(left.position()) ^ Long.MIN_VALUE;
+                long r = right.getLong(right.position()) ^ Long.MIN_VALUE;
+                return l < r ? -1 : (l == r ? 0 : 1);
+            }
+            case DOUBLE:
+                return Double.compare(left.getDouble(left.position()), right.getDouble(right.position()));
+            default:
+                // DECIMAL, DATE and DATETIME values are encoded to sort as bytes
+                return BYTES_COMPARATOR.compare(toBytes(left), toBytes(right));
+        }
+    }
+
+    private static byte[] toBytes(ByteBuffer value) {
+        byte[] bytes = new byte[value.remaining()];
+        value.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("type", type)
+                .add("count", count)
+                .add("sum", getSum())
+                .add("min", min)
+                .add("max", max)
+                .toString();
+    }
+}
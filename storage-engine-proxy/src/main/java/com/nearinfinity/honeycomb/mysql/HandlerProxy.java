@@ -28,17 +28,33 @@ import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
 
 import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.nearinfinity.honeycomb.EngineStatus;
 import com.nearinfinity.honeycomb.Scanner;
+import com.nearinfinity.honeycomb.StatusSource;
 import com.nearinfinity.honeycomb.Store;
 import com.nearinfinity.honeycomb.Table;
+import com.nearinfinity.honeycomb.metrics.InstrumentedTable;
+import com.nearinfinity.honeycomb.metrics.Metrics;
+import com.nearinfinity.honeycomb.metrics.Operation;
+import com.nearinfinity.honeycomb.metrics.OperationDetails;
+import com.nearinfinity.honeycomb.metrics.ScanStatistics;
+import com.nearinfinity.honeycomb.metrics.SlowOperationLog;
+import com.nearinfinity.honeycomb.metrics.TableMetrics;
 import com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema;
 import com.nearinfinity.honeycomb.mysql.gen.QueryType;
+import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
 import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
 import com.nearinfinity.honeycomb.mysql.schema.TableSchema;
+import com.nearinfinity.honeycomb.tracing.Span;
+import com.nearinfinity.honeycomb.tracing.Tracer;
 import com.nearinfinity.honeycomb.util.Verify;
 
 /**
@@ -47,14 +63,53 @@ import com.nearinfinity.honeycomb.util.Verify;
  */
 public class HandlerProxy {
     private static final Logger logger = Logger.getLogger(HandlerProxy.class);
+    private static final AtomicInteger openTables = new AtomicInteger();
+    private static final AtomicInteger openScanners = new AtomicInteger();
     private final StoreFactory storeFactory;
+    private final Set<StatusSource> statusSources;
+    private final Metrics metrics = Metrics.getInstance();
+    private final SlowOperationLog slowOperationLog = SlowOperationLog.getInstance();
+    private final Tracer tracer = Tracer.getInstance();
     private Store store;
     private Table table;
+    private TableMetrics tableMetrics;
     private String tableName;
     private Scanner currentScanner;
+    private Operation scanOperation;
+    private QueryKey scanKey;
+    private OperationDetails scanDetails;
+    private long statementId;
 
     public HandlerProxy(StoreFactory storeFactory) {
+        this(storeFactory, ImmutableSet.<StatusSource>of());
+    }
+
+    /**
+     * @param storeFactory  Factory of the stores of the storage backends
+     * @param statusSources Components reported in the engine status
+     */
+    public HandlerProxy(StoreFactory storeFactory, Set<StatusSource> statusSources) {
         this.storeFactory = storeFactory;
+        this.statusSources = checkNotNull(statusSources);
+    }
+
+    /**
+     * Begin tracing the calls made on behalf of a statement on this thread,
+     * if the statement is sampled by the {@link Tracer}.  Called by the
+     * handler when it locks its table for the statement.
+     *
+     * @param statementId ID of the statement, shared by all its handlers
+     */
+    public void startStatement(long statementId) {
+        this.statementId = statementId;
+        tracer.beginTrace(statementId);
+    }
+
+    /**
+     * End tracing the statement started with {@link #startStatement(long)}
+     */
+    public void endStatement() {
+        tracer.endTrace(statementId);
     }
 
     /**
@@ -70,41 +125,65 @@ public class HandlerProxy {
         Verify.isNotNullOrEmpty(tableName);
         checkNotNull(serializedTableSchema, "Schema cannot be null");
 
-        store = storeFactory.createStore(tableName);
-        TableSchema tableSchema = TableSchema.deserialize(serializedTableSchema);
-        Verify.isValidTableSchema(tableSchema);
-        store.createTable(tableName, tableSchema);
-        store.incrementAutoInc(tableName, autoInc);
+        OperationScope scope = begin(Operation.HANDLER_CREATE_TABLE, tableName);
+        try {
+            store = storeFactory.createStore(tableName);
+            TableSchema tableSchema = TableSchema.deserialize(serializedTableSchema);
+            Verify.isValidTableSchema(tableSchema);
+            store.createTable(tableName, tableSchema);
+            store.incrementAutoInc(tableName, autoInc);
+        } finally {
+            scope.end();
+        }
     }
 
     /**
      * Drop the table with the given specifications.  The table is not open when
-     * this is called.
+     * this is called.  The metrics of the table are discarded once the drop
+     * itself has been recorded.
      *
      * @param tableName Name of the table to be dropped
      */
     public void dropTable(String tableName) {
         Verify.isNotNullOrEmpty(tableName);
-        Store store = storeFactory.createStore(tableName);
-        Table table = store.openTable(tableName);
+        OperationScope scope = begin(Operation.HANDLER_DROP_TABLE, tableName);
+        try {
+            Store store = storeFactory.createStore(tableName);
+            Table table = store.openTable(tableName);
 
-        table.deleteAllRows();
-        Util.closeQuietly(table);
-        store.deleteTable(tableName);
+            table.deleteAllRows();
+            Util.closeQuietly(table);
+            store.deleteTable(tableName);
+        } finally {
+            scope.end();
+            metrics.removeTable(tableName);
+        }
     }
 
     public void openTable(String tableName) {
         Verify.isNotNullOrEmpty(tableName);
         this.tableName = tableName;
-        store = storeFactory.createStore(tableName);
-        table = store.openTable(this.tableName);
+        OperationScope scope = begin(Operation.HANDLER_OPEN_TABLE, tableName);
+        try {
+            store = storeFactory.createStore(tableName);
+            tableMetrics = metrics.forTable(tableName);
+            table = new InstrumentedTable(store.openTable(this.tableName), tableMetrics);
+            openTables.incrementAndGet();
+        } finally {
+            scope.end();
+        }
     }
 
     public void closeTable() {
+        endScan();
+        if (table != null) {
+            openTables.decrementAndGet();
+        }
         tableName = null;
         store = null;
         Util.closeQuietly(table);
         table = null;
+        tableMetrics = null;
     }
 
     public String getTableName() {
@@ -114,7 +193,8 @@ public class HandlerProxy {
     /**
      * Updates the existing SQL table name representation in the underlying
      * {@link Store} implementation to the specified new table name.  The table
-     * is not open when this is called.
+     * is not open when this is called.  The rename is recorded in the metrics
+     * of the new name.
      *
      * @param originalName The existing name of the table, not null or empty
      * @param newName      The new table name to represent, not null or empty
@@ -125,26 +205,177 @@ public class HandlerProxy {
         Verify.isNotNullOrEmpty(newName, "New table name must have value.");
         checkArgument(!originalName.equals(newName), "New table name must be different than original.");
 
-        Store store = storeFactory.createStore(originalName);
-        store.renameTable(originalName, newName);
-        tableName = newName;
+        OperationScope scope = begin(Operation.HANDLER_RENAME_TABLE, newName);
+        try {
+            Store store = storeFactory.createStore(originalName);
+            store.renameTable(originalName, newName);
+            tableName = newName;
+        } finally {
+            scope.end();
+            metrics.removeTable(originalName);
+        }
     }
 
     public long getRowCount() {
         checkTableOpen();
 
-        return store.getRowCount(tableName);
+        OperationScope scope = begin(Operation.HANDLER_GET_ROW_COUNT);
+        try {
+            return store.getRowCount(tableName);
+        } finally {
+            scope.end();
+        }
     }
 
     public void incrementRowCount(long amount) {
         checkTableOpen();
 
-        store.incrementRowCount(tableName, amount);
+        OperationScope scope = begin(Operation.HANDLER_INCREMENT_ROW_COUNT);
+        try {
+            store.incrementRowCount(tableName, amount);
+        } finally {
+            scope.end();
+        }
     }
 
     public void truncateRowCount() {
         checkTableOpen();
-        store.truncateRowCount(tableName);
+        OperationScope scope = begin(Operation.HANDLER_TRUNCATE_ROW_COUNT);
+        try {
+            store.truncateRowCount(tableName);
+        } finally {
+            scope.end();
+        }
+    }
+
+    /**
+     * Count the rows in the table and correct the stored row count if it has
+     * drifted from the table contents.  The correction is computed against the
+     * exact stored row count, which includes the changes of other servers.
+     * Writes made while counting may leave the stored row count inexact.
+     *
+     * @return The number of rows in the table
+     */
+    public long recomputeRowCount() {
+        checkTableOpen();
+
+        OperationScope scope = begin(Operation.HANDLER_RECOMPUTE_ROW_COUNT);
+        try {
+            long count = table.countRows();
+            long stored = store.getExactRowCount(tableName);
+            if (count != stored) {
+                store.incrementRowCount(tableName, count - stored);
+            }
+
+            return count;
+        } finally {
+            scope.end();
+        }
+    }
+
+    /**
+     * Count the rows of an index whose keys lie between two keys, inclusive,
+     * without transferring the rows.
+     *
+     * @param fromKey Serialized {@link QueryKey} of the first rows to count, or null to start at the beginning of the index
+     * @param toKey   Serialized {@link QueryKey} of the last rows to count, or null to count to the end of the index
+     * @return The number of rows in the range
+     */
+    public long countRange(byte[] fromKey, byte[] toKey) {
+        checkTableOpen();
+        checkArgument(fromKey != null || toKey != null, "Counting a range requires a key");
+
+        OperationScope scope = begin(Operation.HANDLER_COUNT_RANGE);
+        try {
+            return table.countRange(
+                    fromKey == null ? null : QueryKey.deserialize(fromKey),
+                    toKey == null ? null : QueryKey.deserialize(toKey));
+        } finally {
+            scope.end();
+        }
+    }
+
+    /**
+     * Estimate the number of rows of an index whose keys lie between two keys,
+     * inclusive, for records_in_range.  Called by the optimizer for every
+     * candidate range, so the estimate is cheap rather than exact.
+     *
+     * @param startKey Serialized {@link QueryKey} of the first rows to estimate, or null to start at the beginning of the index
+     * @param endKey   Serialized {@link QueryKey} of the last rows to estimate, or null to estimate to the end of the index
+     * @return Estimated number of rows in the range
+     */
+    public long estimateRowsInRange(byte[] startKey, byte[] endKey) {
+        checkTableOpen();
+        checkArgument(startKey != null || endKey != null, "Estimating a range requires a key");
+
+        OperationScope scope = begin(Operation.HANDLER_ESTIMATE_ROWS_IN_RANGE);
+        try {
+            return table.estimateRowsInRange(
+                    startKey == null ? null : QueryKey.deserialize(startKey),
+                    endKey == null ? null : QueryKey.deserialize(endKey));
+        } finally {
+            scope.end();
+        }
+    }
+
+    /**
+     * Compute COUNT, SUM, MIN and MAX of a column without transferring the
+     * rows, for simple single table aggregates.  The range is that of an
+     * index between two keys, inclusive, or the whole table if both keys are
+     * null.
+     *
+     * @param columnName Name of the column to aggregate
+     * @param fromKey    Serialized {@link QueryKey} of the first rows to aggregate, or null
+     * @param toKey      Serialized {@link QueryKey} of the last rows to aggregate, or null
+     * @return Aggregate of the non-null column values
+     */
+    public ColumnAggregate aggregate(String columnName, byte[] fromKey, byte[] toKey) {
+        checkTableOpen();
+        OperationScope scope = begin(Operation.HANDLER_AGGREGATE);
+        try {
+            ColumnSchema column = store.getSchema(tableName).getColumnSchema(columnName);
+
+            return table.aggregate(column,
+                    fromKey == null ? null : QueryKey.deserialize(fromKey),
+                    toKey == null ? null : QueryKey.deserialize(toKey));
+        } finally {
+            scope.end();
+        }
+    }
+
+    /**
+     * Sample the rows of every index of the table and store the resulting
+     * statistics, for ANALYZE TABLE.
+     */
+    public void updateIndexStatistics() {
+        checkTableOpen();
+
+        OperationScope scope = begin(Operation.HANDLER_UPDATE_INDEX_STATISTICS);
+        try {
+            store.setIndexStatistics(tableName, table.computeIndexStatistics());
+        } finally {
+            scope.end();
+        }
+    }
+
+    /**
+     * Retrieve the average number of rows sharing a value of each prefix of
+     * an index's columns, as stored by the last ANALYZE TABLE.
+     *
+     * @param indexName Name of the index
+     * @return Rows per key for each prefix length, or an empty array if the index has not been analyzed
+     */
+    public long[] getRecordsPerKey(String indexName) {
+        checkTableOpen();
+        Verify.isNotNullOrEmpty(indexName);
+
+        OperationScope scope = begin(Operation.HANDLER_GET_RECORDS_PER_KEY);
+        try {
+            IndexStatistics statistics = store.getIndexStatistics(tableName).get(indexName);
+            return statistics == null ? new long[0] : statistics.getRecordsPerKey();
+        } finally {
+            scope.end();
+        }
     }
 
     public long getAutoIncrement() {
@@ -154,7 +385,12 @@ public class HandlerProxy {
                     " contain an auto increment column.", tableName));
         }
 
-        return store.getAutoInc(tableName);
+        OperationScope scope = begin(Operation.HANDLER_GET_AUTO_INCREMENT);
+        try {
+            return store.getAutoInc(tableName);
+        } finally {
+            scope.end();
+        }
     }
 
     /**
@@ -165,7 +401,12 @@ public class HandlerProxy {
      */
     public void setAutoIncrement(long value) {
         checkTableOpen();
-        store.setAutoInc(tableName, value);
+        OperationScope scope = begin(Operation.HANDLER_SET_AUTO_INCREMENT);
+        try {
+            store.setAutoInc(tableName, value);
+        } finally {
+            scope.end();
+        }
     }
 
     /**
@@ -182,15 +423,25 @@ public class HandlerProxy {
             throw new IllegalArgumentException(format("Table %s does not contain an auto increment column.", tableName));
         }
 
-        long current = store.incrementAutoInc(getTableName(), amount);
-        long next = current - amount;
+        OperationScope scope = begin(Operation.HANDLER_INCREMENT_AUTO_INCREMENT);
+        try {
+            long current = store.incrementAutoInc(getTableName(), amount);
+            long next = current - amount;
 
-        return next;
+            return next;
+        } finally {
+            scope.end();
+        }
     }
 
     public void truncateAutoIncrement() {
         checkTableOpen();
-        store.truncateAutoInc(tableName);
+        OperationScope scope = begin(Operation.HANDLER_TRUNCATE_AUTO_INCREMENT);
+        try {
+            store.truncateAutoInc(tableName);
+        } finally {
+            scope.end();
+        }
     }
 
     /**
@@ -208,9 +459,14 @@ public class HandlerProxy {
         IndexSchema schema = IndexSchema.deserialize(serializedSchema, indexName);
         checkArgument(!schema.getIsUnique(), "Honeycomb does not support adding unique indices without a table rebuild.");
 
-        store.addIndex(tableName, schema);
-        table.insertTableIndex(schema);
-        table.flush();
+        OperationScope scope = begin(Operation.HANDLER_ADD_INDEX);
+        try {
+            store.addIndex(tableName, schema);
+            table.insertTableIndex(schema);
+            table.flush();
+        } finally {
+            scope.end();
+        }
     }
 
     /**
@@ -223,10 +479,15 @@ public class HandlerProxy {
         Verify.isNotNullOrEmpty(indexName, "The index name is invalid");
         checkTableOpen();
 
-        TableSchema tableSchema = store.getSchema(tableName);
-        IndexSchema indexSchema = tableSchema.getIndexSchema(indexName);
-        table.deleteTableIndex(indexSchema);
-        store.dropIndex(tableName, indexName);
+        OperationScope scope = begin(Operation.HANDLER_DROP_INDEX);
+        try {
+            TableSchema tableSchema = store.getSchema(tableName);
+            IndexSchema indexSchema = tableSchema.getIndexSchema(indexName);
+            table.deleteTableIndex(indexSchema);
+            store.dropIndex(tableName, indexName);
+        } finally {
+            scope.end();
+        }
     }
 
     /**
@@ -243,16 +504,19 @@ public class HandlerProxy {
         Verify.isNotNullOrEmpty(indexName);
         checkNotNull(serializedRow);
 
-        Row row = Row.deserialize(serializedRow);
+        OperationScope scope = begin(Operation.HANDLER_INDEX_CONTAINS_DUPLICATE);
+        Table t = null;
+        Scanner scanner = null;
+        try {
+            Row row = Row.deserialize(serializedRow);
 
-        Table t = store.openTable(tableName);
-        TableSchema schema = store.getSchema(tableName);
-        IndexSchema indexSchema = schema.getIndexSchema(indexName);
+            t = store.openTable(tableName);
+            TableSchema schema = store.getSchema(tableName);
+            IndexSchema indexSchema = schema.getIndexSchema(indexName);
 
-        QueryKey key = new QueryKey(indexName, QueryType.EXACT_KEY, row.getRecords());
-        Scanner scanner = t.indexScanExact(key);
+            QueryKey key = new QueryKey(indexName, QueryType.EXACT_KEY, row.getRecords());
+            scanner = t.indexScanExact(key);
 
-        try {
             while (scanner.hasNext()) {
                 Row next = Row.deserialize(scanner.next());
                 if (!next.getUUID().equals(row.getUUID())) {
@@ -269,59 +533,81 @@ public class HandlerProxy {
             }
             return false;
         } finally {
-            Util.closeQuietly(scanner);
-            Util.closeQuietly(t);
+            if (scanner != null) {
+                Util.closeQuietly(scanner);
+            }
+            if (t != null) {
+                Util.closeQuietly(t);
+            }
+            scope.end();
         }
     }
 
     /**
-     * Insert row into table.
+     * Insert row into table.  The rows of tables with unique indices are
+     * flushed as part of the insert, so the flush counts towards its time in
+     * the metrics and the slow operation log.
      *
      * @param rowBytes Serialized row to be written
      */
     public void insertRow(byte[] rowBytes) {
         checkTableOpen();
         checkNotNull(rowBytes);
-        TableSchema schema = store.getSchema(tableName);
-        Row row = Row.deserialize(rowBytes);
-        row.setRandomUUID();
-        String auto_inc_col = schema.getAutoIncrementColumn();
-        if (auto_inc_col != null) {
-            ByteBuffer bb = row.getRecords().get(auto_inc_col);
-            if (bb != null) {
-                long auto_inc = bb.getLong();
-                long next_auto_inc = auto_inc + 1;
-                if (auto_inc > next_auto_inc) { // The autoincrement will wrap around. MySQL says don't wrap.
-                    next_auto_inc = auto_inc;
+        OperationScope scope = begin(Operation.HANDLER_INSERT_ROW);
+        try {
+            TableSchema schema = store.getSchema(tableName);
+            Row row = Row.deserialize(rowBytes);
+            row.setRandomUUID();
+            String auto_inc_col = schema.getAutoIncrementColumn();
+            if (auto_inc_col != null) {
+                ByteBuffer bb = row.getRecords().get(auto_inc_col);
+                if (bb != null) {
+                    long auto_inc = bb.getLong();
+                    long next_auto_inc = auto_inc + 1;
+                    if (auto_inc > next_auto_inc) { // The autoincrement will wrap around. MySQL says don't wrap.
+                        next_auto_inc = auto_inc;
+                    }
+                    bb.rewind();
+                    store.setAutoInc(tableName, next_auto_inc);
                 }
-                bb.rewind();
-                store.setAutoInc(tableName, next_auto_inc);
             }
-        }
 
-        table.insertRow(row);
-        if (schema.hasUniqueIndices()) {
-            table.flush();
+            table.insertRow(row);
+            if (schema.hasUniqueIndices()) {
+                table.flush();
+            }
+        } finally {
+            scope.end();
         }
     }
 
     public void deleteRow(byte[] rowBytes) {
         checkTableOpen();
-        Row row = Row.deserialize(rowBytes);
-        table.deleteRow(row);
+        OperationScope scope = begin(Operation.HANDLER_DELETE_ROW);
+        try {
+            Row row = Row.deserialize(rowBytes);
+            table.deleteRow(row);
+        } finally {
+            scope.end();
+        }
     }
 
     public void updateRow(byte[] oldRowBytes, byte[] rowBytes) {
         checkTableOpen();
         checkNotNull(rowBytes);
-        Row updatedRow = Row.deserialize(rowBytes);
-        TableSchema schema = store.getSchema(tableName);
-        Row oldRow = Row.deserialize(oldRowBytes);
-        oldRow.setUUID(updatedRow.getUUID());
-        ImmutableList<IndexSchema> changedIndices = Util.getChangedIndices(schema.getIndices(), oldRow.getRecords(), updatedRow.getRecords());
-        table.updateRow(oldRow, updatedRow, changedIndices);
-        if (schema.hasUniqueIndices()) {
-            table.flush();
+        OperationScope scope = begin(Operation.HANDLER_UPDATE_ROW);
+        try {
+            Row updatedRow = Row.deserialize(rowBytes);
+            TableSchema schema = store.getSchema(tableName);
+            Row oldRow = Row.deserialize(oldRowBytes);
+            oldRow.setUUID(updatedRow.getUUID());
+            ImmutableList<IndexSchema> changedIndices = Util.getChangedIndices(schema.getIndices(), oldRow.getRecords(), updatedRow.getRecords());
+            table.updateRow(oldRow, updatedRow, changedIndices);
+            if (schema.hasUniqueIndices()) {
+                table.flush();
+            }
+        } finally {
+            scope.end();
         }
     }
 
@@ -330,8 +616,12 @@ public class HandlerProxy {
      */
     public void deleteAllRows() {
         checkTableOpen();
-        store.truncateRowCount(tableName);
-        table.deleteAllRows();
+        OperationScope scope = begin(Operation.HANDLER_DELETE_ALL_ROWS);
+        try {
+            clearRows();
+        } finally {
+            scope.end();
+        }
     }
 
     /**
@@ -339,15 +629,25 @@ public class HandlerProxy {
      */
     public void truncateTable() {
         checkTableOpen();
-        deleteAllRows();
-        store.truncateAutoInc(tableName);
+        OperationScope scope = begin(Operation.HANDLER_TRUNCATE_TABLE);
+        try {
+            clearRows();
+            store.truncateAutoInc(tableName);
+        } finally {
+            scope.end();
+        }
     }
 
     public void flush() {
         // MySQL will call flush on the handler without an open table, which is
         // a no-op
         if (table != null) {
-            table.flush();
+            OperationScope scope = begin(Operation.HANDLER_FLUSH);
+            try {
+                table.flush();
+            } finally {
+                scope.end();
+            }
         }
     }
 
@@ -357,7 +657,14 @@ public class HandlerProxy {
             endScan();
         }
 
-        currentScanner = table.tableScan();
+        OperationScope scope = resumeScan(Operation.HANDLER_START_TABLE_SCAN);
+        try {
+            beginScan(Operation.HANDLER_START_TABLE_SCAN, null);
+            currentScanner = table.tableScan();
+            openScanners.incrementAndGet();
+        } finally {
+            scope.end();
+        }
     }
 
     public void startIndexScan(byte[] indexKeys) {
@@ -367,58 +674,230 @@ public class HandlerProxy {
         }
         checkNotNull(indexKeys, "Index scan requires non-null key");
 
-        QueryKey key = QueryKey.deserialize(indexKeys);
-        QueryType queryType = key.getQueryType();
-        switch (queryType) {
-            case EXACT_KEY:
-                currentScanner = table.indexScanExact(key);
-                break;
-            case AFTER_KEY:
-                currentScanner = table.ascendingIndexScanAfter(key);
-                break;
-            case BEFORE_KEY:
-                currentScanner = table.descendingIndexScanBefore(key);
-                break;
-            case INDEX_FIRST:
-                currentScanner = table.ascendingIndexScan(key);
-                break;
-            case INDEX_LAST:
-                currentScanner = table.descendingIndexScan(key);
-                break;
-            case KEY_OR_NEXT:
-                currentScanner = table.ascendingIndexScanAt(key);
-                break;
-            case KEY_OR_PREVIOUS:
-                currentScanner = table.descendingIndexScanAt(key);
-                break;
-            default:
-                throw new IllegalArgumentException(format("Not a supported type of query %s", queryType));
-        }
-      }
+        OperationScope scope = resumeScan(Operation.HANDLER_START_INDEX_SCAN);
+        try {
+            QueryKey key = QueryKey.deserialize(indexKeys);
+            QueryType queryType = key.getQueryType();
+            beginScan(Operation.HANDLER_START_INDEX_SCAN, key);
+            switch (queryType) {
+                case EXACT_KEY:
+                    currentScanner = table.indexScanExact(key);
+                    break;
+                case AFTER_KEY:
+                    currentScanner = table.ascendingIndexScanAfter(key);
+                    break;
+                case BEFORE_KEY:
+                    currentScanner = table.descendingIndexScanBefore(key);
+                    break;
+                case INDEX_FIRST:
+                    currentScanner = table.ascendingIndexScan(key);
+                    break;
+                case INDEX_LAST:
+                    currentScanner = table.descendingIndexScan(key);
+                    break;
+                case KEY_OR_NEXT:
+                    currentScanner = table.ascendingIndexScanAt(key);
+                    break;
+                case KEY_OR_PREVIOUS:
+                    currentScanner = table.descendingIndexScanAt(key);
+                    break;
+                default:
+                    throw new IllegalArgumentException(format("Not a supported type of query %s", queryType));
+            }
+            openScanners.incrementAndGet();
+        } finally {
+            scope.end();
+        }
+    }
 
     public byte[] getNextRow() {
         checkNotNull(currentScanner, "Scanner cannot be null to get next row.");
-        byte[] next = currentScanner.next();
-        if (next == null) {
-            return null;
+        OperationScope scope = resumeScan(Operation.HANDLER_GET_NEXT_ROW);
+        try {
+            byte[] next = currentScanner.next();
+            if (next == null) {
+                return null;
+            }
+            byte[] row = Row.updateSerializedSchema(next);
+            scanDetails.recordRowReturned(row.length, scope.getStart());
+            return row;
+        } finally {
+            scope.end();
         }
-        return Row.updateSerializedSchema(next);
     }
 
     public byte[] getRow(byte[] uuid) {
         checkTableOpen();
         checkNotNull(uuid, "Get row cannot have a null UUID.");
-        return table.getRow(Util.bytesToUUID(uuid)).serialize();
+        OperationScope scope = begin(Operation.HANDLER_GET_ROW);
+        try {
+            return table.getRow(Util.bytesToUUID(uuid)).serialize();
+        } finally {
+            scope.end();
+        }
     }
 
     public void endScan() {
         if (currentScanner != null) {
-            Util.closeQuietly(currentScanner);
+            OperationScope scope = resumeScan(Operation.HANDLER_END_SCAN);
+            try {
+                Util.closeQuietly(currentScanner);
+                openScanners.decrementAndGet();
+            } finally {
+                scope.end();
+            }
             currentScanner = null;
         }
+        completeScan();
+    }
+
+    /**
+     * Retrieve the totals of the scans of every table and index since the
+     * metrics were last reset, one line per index.  Full table scans are
+     * reported under the index name {@value TableMetrics#TABLE_SCAN}.
+     *
+     * @return Scan statistics, formatted for display
+     */
+    public String getScanStatistics() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, ScanStatistics> entry : metrics.getScanStatistics().entrySet()) {
+            builder.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Gather a snapshot of the state of the engine: the open tables and
+     * scanners of all handlers, the throughput of each table, and the state
+     * reported by the storage backends, such as their caches and thread pools.
+     *
+     * @return Engine status snapshot
+     */
+    public EngineStatus getEngineStatus() {
+        EngineStatus status = new EngineStatus()
+                .add("handlers", "openTables", openTables.get())
+                .add("handlers", "openScanners", openScanners.get());
+        metrics.reportStatus(status);
+        for (StatusSource source : statusSources) {
+            source.reportStatus(status);
+        }
+        return status;
+    }
+
+    /**
+     * Retrieve the engine status rendered for SHOW ENGINE HONEYCOMB STATUS,
+     * one "section name value" line per value
+     *
+     * @return Engine status, formatted for display
+     */
+    public String getEngineStatusReport() {
+        return getEngineStatus().toString();
+    }
+
+    /**
+     * Begin an operation on the open table
+     */
+    private OperationScope begin(Operation operation) {
+        return new OperationScope(operation, tableName, tableMetrics, false);
+    }
+
+    /**
+     * Begin an operation on a table which is not open, recorded in the
+     * metrics of the named table
+     */
+    private OperationScope begin(Operation operation, String name) {
+        return new OperationScope(operation, name, metrics.forTable(name), false);
+    }
+
+    /**
+     * Begin a call on the current scan, which is tracked in the slow operation
+     * log as part of the scan rather than on its own
+     */
+    private OperationScope resumeScan(Operation operation) {
+        return new OperationScope(operation, tableName, tableMetrics, true);
+    }
+
+    /**
+     * Start tracking a scan for its statistics and the slow operation log.
+     * The scan is tracked across the calls which start it and read its rows,
+     * until it ends.
+     */
+    private void beginScan(Operation operation, QueryKey key) {
+        completeScan();
+        scanOperation = operation;
+        scanKey = key;
+        scanDetails = slowOperationLog.beginScan();
+    }
+
+    private void clearRows() {
+        store.truncateRowCount(tableName);
+        table.deleteAllRows();
+    }
+
+    private void completeScan() {
+        if (scanDetails != null) {
+            tableMetrics.recordScan(scanKey == null ? null : scanKey.getIndexName(), scanDetails);
+            slowOperationLog.complete(scanDetails, scanOperation, tableName, scanKey);
+        }
+        scanOperation = null;
+        scanKey = null;
+        scanDetails = null;
     }
 
     private void checkTableOpen() {
         checkState(table != null, "Table must be opened before used.");
     }
+
+    /**
+     * Times, traces and tracks in the slow operation log one handler
+     * operation, from its creation until {@link #end()} is called in a
+     * finally block.  Operations must not nest, as the slow operation log
+     * tracks one operation per thread.
+     */
+    private final class OperationScope {
+        private final Operation operation;
+        private final String name;
+        private final TableMetrics operationMetrics;
+        private final boolean scan;
+        private final long start;
+        private final Span span;
+        private final OperationDetails details;
+
+        private OperationScope(Operation operation, String name, TableMetrics operationMetrics, boolean scan) {
+            this.operation = operation;
+            this.name = name;
+            this.operationMetrics = operationMetrics;
+            this.scan = scan;
+            start = metrics.start();
+            span = tracer.startSpan(operation.getName(), name);
+            if (scan) {
+                slowOperationLog.resume(scanDetails);
+                details = null;
+            } else {
+                details = slowOperationLog.begin();
+            }
+        }
+
+        /**
+         * @return Value of {@link System#nanoTime()} when the operation began
+         */
+        long getStart() {
+            return start;
+        }
+
+        void end() {
+            operationMetrics.record(operation, start);
+            if (operation == Operation.HANDLER_GET_NEXT_ROW) {
+                // Reading a row is only worth a span when it goes to the backend
+                tracer.endSpanIfParent(span);
+            } else {
+                tracer.endSpan(span);
+            }
+            if (scan) {
+                slowOperationLog.suspend(scanDetails, start);
+            } else {
+                slowOperationLog.end(details, operation, name, null, start);
+            }
+        }
+    }
 }
@@ -22,17 +22,22 @@
 
 package com.nearinfinity.honeycomb.mysql;
 
+import java.util.Set;
+
 import com.google.inject.Inject;
+import com.nearinfinity.honeycomb.StatusSource;
 
 /**
  * Factory class used to construct {@link HandlerProxy} instances
  */
 public class HandlerProxyFactory {
     private final StoreFactory storeFactory;
+    private final Set<StatusSource> statusSources;
 
     @Inject
-    public HandlerProxyFactory(StoreFactory storeFactory) {
+    public HandlerProxyFactory(StoreFactory storeFactory, Set<StatusSource> statusSources) {
         this.storeFactory = storeFactory;
+        this.statusSources = statusSources;
     }
 
     /**
@@ -41,6 +46,6 @@ public class HandlerProxyFactory {
      * @return {@link HandlerProxy}
      */
     public HandlerProxy createHandlerProxy() {
-        return new HandlerProxy(storeFactory);
+        return new HandlerProxy(storeFactory, statusSources);
     }
 }
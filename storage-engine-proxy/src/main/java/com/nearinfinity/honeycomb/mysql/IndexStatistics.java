@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.mysql;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.NotThreadSafe;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.UnsignedBytes;
+import com.nearinfinity.honeycomb.exceptions.UnknownSchemaVersionException;
+
+/**
+ * Statistics of the keys of an index, computed from a sample of its rows by
+ * ANALYZE TABLE and used by the optimizer.  For each prefix of the index
+ * columns the statistics hold an estimate of the number of distinct values,
+ * from which the average number of rows per key follows.  They may also hold
+ * an equi-depth histogram of the sampled keys, whose bounds are encoded by the
+ * storage backend and sort as unsigned bytes, for estimating the number of
+ * rows in a range of keys.
+ */
+@Immutable
+public final class IndexStatistics {
+    private static final byte VERSION = 1;
+    private static final Comparator<byte[]> BYTES_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+    private final long rowCount;
+    private final long sampledRows;
+    private final long[] distinctKeys;
+    private final List<byte[]> histogram;
+
+    /**
+     * @param rowCount     Number of rows in the index
+     * @param sampledRows  Number of rows the statistics were computed from
+     * @param distinctKeys Estimated number of distinct values of each prefix of the index columns, not null
+     * @param histogram    Upper bounds of the histogram buckets in ascending order, empty if there is no histogram
+     */
+    public IndexStatistics(long rowCount, long sampledRows, long[] distinctKeys, List<byte[]> histogram) {
+        checkArgument(rowCount >= 0, "Row count must be non-negative: %s", rowCount);
+        checkArgument(sampledRows >= 0, "Sampled rows must be non-negative: %s", sampledRows);
+        this.rowCount = rowCount;
+        this.sampledRows = sampledRows;
+        this.distinctKeys = checkNotNull(distinctKeys).clone();
+        this.histogram = ImmutableList.copyOf(histogram);
+    }
+
+    /**
+     * Returns the number of rows in the index when the statistics were computed
+     *
+     * @return Row count
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of rows the statistics were computed from
+     *
+     * @return Number of sampled rows
+     */
+    public long getSampledRows() {
+        return sampledRows;
+    }
+
+    /**
+     * Returns the estimated number of distinct values of each prefix of the
+     * index columns, starting with the first column alone
+     *
+     * @return Distinct values per prefix length
+     */
+    public long[] getDistinctKeys() {
+        return distinctKeys.clone();
+    }
+
+    /**
+     * Returns the average number of rows sharing a value of each prefix of the
+     * index columns, which is what MySQL expects in rec_per_key.  The average
+     * is at least one.
+     *
+     * @return Rows per key per prefix length
+     */
+    public long[] getRecordsPerKey() {
+        final long[] recordsPerKey = new long[distinctKeys.length];
+        for (int i = 0; i < distinctKeys.length; i++) {
+            recordsPerKey[i] = distinctKeys[i] == 0 ? 1 : Math.max(1, Math.round((double) rowCount / distinctKeys[i]));
+        }
+        return recordsPerKey;
+    }
+
+    /**
+     * Returns the upper bounds of the equi-depth histogram buckets in
+     * ascending order.  Each bucket holds about the same number of rows.
+     *
+     * @return Histogram bounds, empty if there is no histogram
+     */
+    public List<byte[]> getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * Estimate the number of rows whose keys lie in a range using the
+     * histogram.  Every bucket whose upper bound lies in the range counts
+     * fully, and half a bucket is added for the bucket the range ends in.
+     *
+     * @param start Encoded start of the range, inclusive, or null to start at the beginning of the index
+     * @param end   Encoded end of the range, exclusive, or null to end at the end of the index
+     * @return Estimated number of rows in the range, or -1 if there is no histogram
+     */
+    public long estimateRows(byte[] start, byte[] end) {
+        if (histogram.isEmpty()) {
+            return -1;
+        }
+
+        int buckets = 0;
+        for (byte[] bound : histogram) {
+            if ((start == null || BYTES_COMPARATOR.compare(bound, start) >= 0)
+                    && (end == null || BYTES_COMPARATOR.compare(bound, end) < 0)) {
+                buckets++;
+            }
+        }
+
+        final double rowsPerBucket = (double) rowCount / histogram.size();
+        return Math.min(rowCount, Math.round((buckets + 0.5) * rowsPerBucket));
+    }
+
+    /**
+     * Serialize the statistics for storage
+     *
+     * @return Serialized statistics
+     */
+    public byte[] serialize() {
+        int size = 1 + 8 + 8 + 4 + 8 * distinctKeys.length + 4;
+        for (byte[] bound : histogram) {
+            size += 4 + bound.length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION).putLong(rowCount).putLong(sampledRows);
+        buffer.putInt(distinctKeys.length);
+        for (long distinct : distinctKeys) {
+            buffer.putLong(distinct);
+        }
+        buffer.putInt(histogram.size());
+        for (byte[] bound : histogram) {
+            buffer.putInt(bound.length).put(bound);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Deserialize statistics written by {@link #serialize()}
+     *
+     * @param serializedStatistics Serialized statistics, not null
+     * @return Index statistics
+     */
+    public static IndexStatistics deserialize(byte[] serializedStatistics) {
+        checkNotNull(serializedStatistics);
+        final ByteBuffer buffer = ByteBuffer.wrap(serializedStatistics);
+        final byte version = buffer.get();
+        if (version != VERSION) {
+            throw new UnknownSchemaVersionException(version, VERSION);
+        }
+
+        final long rowCount = buffer.getLong();
+        final long sampledRows = buffer.getLong();
+        final long[] distinctKeys = new long[buffer.getInt()];
+        for (int i = 0; i < distinctKeys.length; i++) {
+            distinctKeys[i] = buffer.getLong();
+        }
+        final int buckets = buffer.getInt();
+        final List<byte[]> histogram = Lists.newArrayListWithCapacity(buckets);
+        for (int i = 0; i < buckets; i++) {
+            final byte[] bound = new byte[buffer.getInt()];
+            buffer.get(bound);
+            histogram.add(bound);
+        }
+        return new IndexStatistics(rowCount, sampledRows, distinctKeys, histogram);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IndexStatistics)) {
+            return false;
+        }
+        final IndexStatistics other = (IndexStatistics) o;
+        if (rowCount != other.rowCount || sampledRows != other.sampledRows
+                || !Arrays.equals(distinctKeys, other.distinctKeys)
+                || histogram.size() != other.histogram.size()) {
+            return false;
+        }
+        for (int i = 0; i < histogram.size(); i++) {
+            if (!Arrays.equals(histogram.get(i), other.histogram.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(rowCount, sampledRows, Arrays.hashCode(distinctKeys), histogram.size());
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("rowCount", rowCount)
+                .add("sampledRows", sampledRows)
+                .add("distinctKeys", Arrays.toString(distinctKeys))
+                .add("buckets", histogram.size())
+                .toString();
+    }
+
+    /**
+     * Computes {@link IndexStatistics} from rows added in index order.  Rows
+     * sharing a prefix of the index columns are adjacent in index order, so the
+     * number of times each prefix value occurs in the sample is counted as the
+     * rows stream by.  The number of distinct values of the whole index is
+     * estimated from the sample with the Guaranteed-Error Estimator: values seen
+     * once stand for sqrt(rows / sampled rows) values each, values seen more
+     * often for themselves.  A sample of every row gives exact counts.
+     */
+    @NotThreadSafe
+    public static final class Collector {
+        private final List<String> columns;
+        private final int buckets;
+        private final long[] distinct;
+        private final long[] singletons;
+        private final long[] runLengths;
+        private final List<byte[]> keys = Lists.newArrayList();
+        private Row previous;
+        private long sampledRows;
+
+        /**
+         * @param columns Names of the index columns in index order, not null
+         * @param buckets Maximum number of histogram buckets
+         */
+        public Collector(List<String> columns, int buckets) {
+            checkArgument(buckets > 0, "Histogram buckets must be positive: %s", buckets);
+            this.columns = ImmutableList.copyOf(columns);
+            this.buckets = buckets;
+            distinct = new long[columns.size()];
+            singletons = new long[columns.size()];
+            runLengths = new long[columns.size()];
+        }
+
+        /**
+         * Add the next sampled row in index order
+         *
+         * @param row Sampled row, not null
+         * @param key Key of the row encoded by the storage backend, or null to build no histogram
+         */
+        public void add(Row row, byte[] key) {
+            checkNotNull(row);
+            final int common = previous == null ? 0 : commonPrefix(previous, row);
+            for (int i = 0; i < columns.size(); i++) {
+                if (i < common) {
+                    runLengths[i]++;
+                } else {
+                    if (runLengths[i] == 1) {
+                        singletons[i]++;
+                    }
+                    distinct[i]++;
+                    runLengths[i] = 1;
+                }
+            }
+
+            previous = row;
+            sampledRows++;
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+
+        /**
+         * Build the statistics of the sampled rows
+         *
+         * @param rowCount Number of rows in the index, at least the number of sampled rows
+         * @return Index statistics
+         */
+        public IndexStatistics build(long rowCount) {
+            final long rows = Math.max(rowCount, sampledRows);
+            final double scale = sampledRows == 0 ? 1 : Math.sqrt((double) rows / sampledRows);
+            final long[] distinctKeys = new long[columns.size()];
+            long shorterPrefix = 0;
+            for (int i = 0; i < columns.size(); i++) {
+                final long seenOnce = singletons[i] + (runLengths[i] == 1 ? 1 : 0);
+                final long estimate = Math.round(scale * seenOnce) + distinct[i] - seenOnce;
+                // A longer prefix has at least as many values as a shorter one
+                distinctKeys[i] = Math.min(rows, Math.max(estimate, shorterPrefix));
+                shorterPrefix = distinctKeys[i];
+            }
+
+            final List<byte[]> histogram = Lists.newArrayList();
+            final int bucketCount = Math.min(buckets, keys.size());
+            for (int i = 1; i <= bucketCount; i++) {
+                histogram.add(keys.get((int) ((long) i * keys.size() / bucketCount) - 1));
+            }
+            return new IndexStatistics(rows, sampledRows, distinctKeys, histogram);
+        }
+
+        private int commonPrefix(Row left, Row right) {
+            int common = 0;
+            for (String column : columns) {
+                if (!Objects.equal(left.getRecords().get(column), right.getRecords().get(column))) {
+                    break;
+                }
+                common++;
+            }
+            return common;
+        }
+    }
+}
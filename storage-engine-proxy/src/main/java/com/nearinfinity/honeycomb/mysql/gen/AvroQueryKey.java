@@ -0,0 +1,236 @@
+/**
+ * Autogenerated by Avro
+ * 
+ * DO NOT EDIT DIRECTLY
+ */
+package com.nearinfinity.honeycomb.mysql.gen;  
+@SuppressWarnings("all")
+@org.apache.avro.specific.AvroGenerated
+public class AvroQueryKey extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"AvroQueryKey\",\"namespace\":\"com.nearinfinity.honeycomb.mysql.gen\",\"fields\":[{\"name\":\"indexName\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"}},{\"name\":\"queryType\",\"type\":{\"type\":\"enum\",\"name\":\"QueryType\",\"symbols\":[\"EXACT_KEY\",\"AFTER_KEY\",\"KEY_OR_NEXT\",\"KEY_OR_PREVIOUS\",\"BEFORE_KEY\",\"INDEX_FIRST\",\"INDEX_LAST\"]}},{\"name\":\"records\",\"type\":{\"type\":\"map\",\"values\":[\"null\",\"bytes\"],\"avro.java.string\":\"String\"}}]}");
+  public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
+  @Deprecated public java.lang.String indexName;
+  @Deprecated public com.nearinfinity.honeycomb.mysql.gen.QueryType queryType;
+  @Deprecated public java.util.Map<java.lang.String,java.nio.ByteBuffer> records;
+
+  /**
+   * Default constructor.
+   */
+  public AvroQueryKey() {}
+
+  /**
+   * All-args constructor.
+   */
+  public AvroQueryKey(java.lang.String indexName, com.nearinfinity.honeycomb.mysql.gen.QueryType queryType, java.util.Map<java.lang.String,java.nio.ByteBuffer> records) {
+    this.indexName = indexName;
+    this.queryType = queryType;
+    this.records = records;
+  }
+
+  public org.apache.avro.Schema getSchema() { return SCHEMA$; }
+  // Used by DatumWriter.  Applications should not call. 
+  public java.lang.Object get(int field$) {
+    switch (field$) {
+    case 0: return indexName;
+    case 1: return queryType;
+    case 2: return records;
+    default: throw new org.apache.avro.AvroRuntimeException("Bad index");
+    }
+  }
+  // Used by DatumReader.  Applications should not call. 
+  @SuppressWarnings(value="unchecked")
+  public void put(int field$, java.lang.Object value$) {
+    switch (field$) {
+    case 0: indexName = (java.lang.String)value$; break;
+    case 1: queryType = (com.nearinfinity.honeycomb.mysql.gen.QueryType)value$; break;
+    case 2: records = (java.util.Map<java.lang.String,java.nio.ByteBuffer>)value$; break;
+    default: throw new org.apache.avro.AvroRuntimeException("Bad index");
+    }
+  }
+
+  /**
+   * Gets the value of the 'indexName' field.
+   */
+  public java.lang.String getIndexName() {
+    return indexName;
+  }
+
+  /**
+   * Sets the value of the 'indexName' field.
+   * @param value the value to set.
+   */
+  public void setIndexName(java.lang.String value) {
+    this.indexName = value;
+  }
+
+  /**
+   * Gets the value of the 'queryType' field.
+   */
+  public com.nearinfinity.honeycomb.mysql.gen.QueryType getQueryType() {
+    return queryType;
+  }
+
+  /**
+   * Sets the value of the 'queryType' field.
+   * @param value the value to set.
+   */
+  public void setQueryType(com.nearinfinity.honeycomb.mysql.gen.QueryType value) {
+    this.queryType = value;
+  }
+
+  /**
+   * Gets the value of the 'records' field.
+   */
+  public java.util.Map<java.lang.String,java.nio.ByteBuffer> getRecords() {
+    return records;
+  }
+
+  /**
+   * Sets the value of the 'records' field.
+   * @param value the value to set.
+   */
+  public void setRecords(java.util.Map<java.lang.String,java.nio.ByteBuffer> value) {
+    this.records = value;
+  }
+
+  /** Creates a new AvroQueryKey RecordBuilder */
+  public static com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder newBuilder() {
+    return new com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder();
+  }
+  
+  /** Creates a new AvroQueryKey RecordBuilder by copying an existing Builder */
+  public static com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder newBuilder(com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder other) {
+    return new com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder(other);
+  }
+  
+  /** Creates a new AvroQueryKey RecordBuilder by copying an existing AvroQueryKey instance */
+  public static com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder newBuilder(com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey other) {
+    return new com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder(other);
+  }
+  
+  /**
+   * RecordBuilder for AvroQueryKey instances.
+   */
+  public static class Builder extends org.apache.avro.specific.SpecificRecordBuilderBase<AvroQueryKey>
+    implements org.apache.avro.data.RecordBuilder<AvroQueryKey> {
+
+    private java.lang.String indexName;
+    private com.nearinfinity.honeycomb.mysql.gen.QueryType queryType;
+    private java.util.Map<java.lang.String,java.nio.ByteBuffer> records;
+
+    /** Creates a new Builder */
+    private Builder() {
+      super(com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.SCHEMA$);
+    }
+    
+    /** Creates a Builder by copying an existing Builder */
+    private Builder(com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder other) {
+      super(other);
+    }
+    
+    /** Creates a Builder by copying an existing AvroQueryKey instance */
+    private Builder(com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey other) {
+            super(com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.SCHEMA$);
+      if (isValidValue(fields()[0], other.indexName)) {
+        this.indexName = data().deepCopy(fields()[0].schema(), other.indexName);
+        fieldSetFlags()[0] = true;
+      }
+      if (isValidValue(fields()[1], other.queryType)) {
+        this.queryType = data().deepCopy(fields()[1].schema(), other.queryType);
+        fieldSetFlags()[1] = true;
+      }
+      if (isValidValue(fields()[2], other.records)) {
+        this.records = data().deepCopy(fields()[2].schema(), other.records);
+        fieldSetFlags()[2] = true;
+      }
+    }
+
+    /** Gets the value of the 'indexName' field */
+    public java.lang.String getIndexName() {
+      return indexName;
+    }
+    
+    /** Sets the value of the 'indexName' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder setIndexName(java.lang.String value) {
+      validate(fields()[0], value);
+      this.indexName = value;
+      fieldSetFlags()[0] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'indexName' field has been set */
+    public boolean hasIndexName() {
+      return fieldSetFlags()[0];
+    }
+    
+    /** Clears the value of the 'indexName' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder clearIndexName() {
+      indexName = null;
+      fieldSetFlags()[0] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'queryType' field */
+    public com.nearinfinity.honeycomb.mysql.gen.QueryType getQueryType() {
+      return queryType;
+    }
+    
+    /** Sets the value of the 'queryType' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder setQueryType(com.nearinfinity.honeycomb.mysql.gen.QueryType value) {
+      validate(fields()[1], value);
+      this.queryType = value;
+      fieldSetFlags()[1] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'queryType' field has been set */
+    public boolean hasQueryType() {
+      return fieldSetFlags()[1];
+    }
+    
+    /** Clears the value of the 'queryType' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder clearQueryType() {
+      queryType = null;
+      fieldSetFlags()[1] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'records' field */
+    public java.util.Map<java.lang.String,java.nio.ByteBuffer> getRecords() {
+      return records;
+    }
+    
+    /** Sets the value of the 'records' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder setRecords(java.util.Map<java.lang.String,java.nio.ByteBuffer> value) {
+      validate(fields()[2], value);
+      this.records = value;
+      fieldSetFlags()[2] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'records' field has been set */
+    public boolean hasRecords() {
+      return fieldSetFlags()[2];
+    }
+    
+    /** Clears the value of the 'records' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroQueryKey.Builder clearRecords() {
+      records = null;
+      fieldSetFlags()[2] = false;
+      return this;
+    }
+
+    @Override
+    public AvroQueryKey build() {
+      try {
+        AvroQueryKey record = new AvroQueryKey();
+        record.indexName = fieldSetFlags()[0] ? this.indexName : (java.lang.String) defaultValue(fields()[0]);
+        record.queryType = fieldSetFlags()[1] ? this.queryType : (com.nearinfinity.honeycomb.mysql.gen.QueryType) defaultValue(fields()[1]);
+        record.records = fieldSetFlags()[2] ? this.records : (java.util.Map<java.lang.String,java.nio.ByteBuffer>) defaultValue(fields()[2]);
+        return record;
+      } catch (Exception e) {
+        throw new org.apache.avro.AvroRuntimeException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/**
+ * Autogenerated by Avro
+ * 
+ * DO NOT EDIT DIRECTLY
+ */
+package com.nearinfinity.honeycomb.mysql.gen;  
+@SuppressWarnings("all")
+@org.apache.avro.specific.AvroGenerated
+public class AvroRow extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"AvroRow\",\"namespace\":\"com.nearinfinity.honeycomb.mysql.gen\",\"fields\":[{\"name\":\"version\",\"type\":\"int\",\"doc\":\"Schema version number\",\"default\":0},{\"name\":\"uuid\",\"type\":{\"type\":\"fixed\",\"name\":\"UUIDContainer\",\"size\":16}},{\"name\":\"records\",\"type\":{\"type\":\"map\",\"values\":\"bytes\",\"avro.java.string\":\"String\"}}]}");
+  public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
+  /** Schema version number */
+  @Deprecated public int version;
+  @Deprecated public com.nearinfinity.honeycomb.mysql.gen.UUIDContainer uuid;
+  @Deprecated public java.util.Map<java.lang.String,java.nio.ByteBuffer> records;
+
+  /**
+   * Default constructor.
+   */
+  public AvroRow() {}
+
+  /**
+   * All-args constructor.
+   */
+  public AvroRow(java.lang.Integer version, com.nearinfinity.honeycomb.mysql.gen.UUIDContainer uuid, java.util.Map<java.lang.String,java.nio.ByteBuffer> records) {
+    this.version = version;
+    this.uuid = uuid;
+    this.records = records;
+  }
+
+  public org.apache.avro.Schema getSchema() { return SCHEMA$; }
+  // Used by DatumWriter.  Applications should not call. 
+  public java.lang.Object get(int field$) {
+    switch (field$) {
+    case 0: return version;
+    case 1: return uuid;
+    case 2: return records;
+    default: throw new org.apache.avro.AvroRuntimeException("Bad index");
+    }
+  }
+  // Used by DatumReader.  Applications should not call. 
+  @SuppressWarnings(value="unchecked")
+  public void put(int field$, java.lang.Object value$) {
+    switch (field$) {
+    case 0: version = (java.lang.Integer)value$; break;
+    case 1: uuid = (com.nearinfinity.honeycomb.mysql.gen.UUIDContainer)value$; break;
+    case 2: records = (java.util.Map<java.lang.String,java.nio.ByteBuffer>)value$; break;
+    default: throw new org.apache.avro.AvroRuntimeException("Bad index");
+    }
+  }
+
+  /**
+   * Gets the value of the 'version' field.
+   * Schema version number   */
+  public java.lang.Integer getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the value of the 'version' field.
+   * Schema version number   * @param value the value to set.
+   */
+  public void setVersion(java.lang.Integer value) {
+    this.version = value;
+  }
+
+  /**
+   * Gets the value of the 'uuid' field.
+   */
+  public com.nearinfinity.honeycomb.mysql.gen.UUIDContainer getUuid() {
+    return uuid;
+  }
+
+  /**
+   * Sets the value of the 'uuid' field.
+   * @param value the value to set.
+   */
+  public void setUuid(com.nearinfinity.honeycomb.mysql.gen.UUIDContainer value) {
+    this.uuid = value;
+  }
+
+  /**
+   * Gets the value of the 'records' field.
+   */
+  public java.util.Map<java.lang.String,java.nio.ByteBuffer> getRecords() {
+    return records;
+  }
+
+  /**
+   * Sets the value of the 'records' field.
+   * @param value the value to set.
+   */
+  public void setRecords(java.util.Map<java.lang.String,java.nio.ByteBuffer> value) {
+    this.records = value;
+  }
+
+  /** Creates a new AvroRow RecordBuilder */
+  public static com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder newBuilder() {
+    return new com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder();
+  }
+  
+  /** Creates a new AvroRow RecordBuilder by copying an existing Builder */
+  public static com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder newBuilder(com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder other) {
+    return new com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder(other);
+  }
+  
+  /** Creates a new AvroRow RecordBuilder by copying an existing AvroRow instance */
+  public static com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder newBuilder(com.nearinfinity.honeycomb.mysql.gen.AvroRow other) {
+    return new com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder(other);
+  }
+  
+  /**
+   * RecordBuilder for AvroRow instances.
+   */
+  public static class Builder extends org.apache.avro.specific.SpecificRecordBuilderBase<AvroRow>
+    implements org.apache.avro.data.RecordBuilder<AvroRow> {
+
+    private int version;
+    private com.nearinfinity.honeycomb.mysql.gen.UUIDContainer uuid;
+    private java.util.Map<java.lang.String,java.nio.ByteBuffer> records;
+
+    /** Creates a new Builder */
+    private Builder() {
+      super(com.nearinfinity.honeycomb.mysql.gen.AvroRow.SCHEMA$);
+    }
+    
+    /** Creates a Builder by copying an existing Builder */
+    private Builder(com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder other) {
+      super(other);
+    }
+    
+    /** Creates a Builder by copying an existing AvroRow instance */
+    private Builder(com.nearinfinity.honeycomb.mysql.gen.AvroRow other) {
+            super(com.nearinfinity.honeycomb.mysql.gen.AvroRow.SCHEMA$);
+      if (isValidValue(fields()[0], other.version)) {
+        this.version = data().deepCopy(fields()[0].schema(), other.version);
+        fieldSetFlags()[0] = true;
+      }
+      if (isValidValue(fields()[1], other.uuid)) {
+        this.uuid = data().deepCopy(fields()[1].schema(), other.uuid);
+        fieldSetFlags()[1] = true;
+      }
+      if (isValidValue(fields()[2], other.records)) {
+        this.records = data().deepCopy(fields()[2].schema(), other.records);
+        fieldSetFlags()[2] = true;
+      }
+    }
+
+    /** Gets the value of the 'version' field */
+    public java.lang.Integer getVersion() {
+      return version;
+    }
+    
+    /** Sets the value of the 'version' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder setVersion(int value) {
+      validate(fields()[0], value);
+      this.version = value;
+      fieldSetFlags()[0] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'version' field has been set */
+    public boolean hasVersion() {
+      return fieldSetFlags()[0];
+    }
+    
+    /** Clears the value of the 'version' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder clearVersion() {
+      fieldSetFlags()[0] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'uuid' field */
+    public com.nearinfinity.honeycomb.mysql.gen.UUIDContainer getUuid() {
+      return uuid;
+    }
+    
+    /** Sets the value of the 'uuid' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder setUuid(com.nearinfinity.honeycomb.mysql.gen.UUIDContainer value) {
+      validate(fields()[1], value);
+      this.uuid = value;
+      fieldSetFlags()[1] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'uuid' field has been set */
+    public boolean hasUuid() {
+      return fieldSetFlags()[1];
+    }
+    
+    /** Clears the value of the 'uuid' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder clearUuid() {
+      uuid = null;
+      fieldSetFlags()[1] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'records' field */
+    public java.util.Map<java.lang.String,java.nio.ByteBuffer> getRecords() {
+      return records;
+    }
+    
+    /** Sets the value of the 'records' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder setRecords(java.util.Map<java.lang.String,java.nio.ByteBuffer> value) {
+      validate(fields()[2], value);
+      this.records = value;
+      fieldSetFlags()[2] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'records' field has been set */
+    public boolean hasRecords() {
+      return fieldSetFlags()[2];
+    }
+    
+    /** Clears the value of the 'records' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroRow.Builder clearRecords() {
+      records = null;
+      fieldSetFlags()[2] = false;
+      return this;
+    }
+
+    @Override
+    public AvroRow build() {
+      try {
+        AvroRow record = new AvroRow();
+        record.version = fieldSetFlags()[0] ? this.version : (java.lang.Integer) defaultValue(fields()[0]);
+        record.uuid = fieldSetFlags()[1] ? this.uuid : (com.nearinfinity.honeycomb.mysql.gen.UUIDContainer) defaultValue(fields()[1]);
+        record.records = fieldSetFlags()[2] ? this.records : (java.util.Map<java.lang.String,java.nio.ByteBuffer>) defaultValue(fields()[2]);
+        return record;
+      } catch (Exception e) {
+        throw new org.apache.avro.AvroRuntimeException(e);
+      }
+    }
+  }
+}
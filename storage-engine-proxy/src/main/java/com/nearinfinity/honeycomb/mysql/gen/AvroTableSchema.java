@@ -0,0 +1,236 @@
+/**
+ * Autogenerated by Avro
+ * 
+ * DO NOT EDIT DIRECTLY
+ */
+package com.nearinfinity.honeycomb.mysql.gen;  
+@SuppressWarnings("all")
+@org.apache.avro.specific.AvroGenerated
+public class AvroTableSchema extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"AvroTableSchema\",\"namespace\":\"com.nearinfinity.honeycomb.mysql.gen\",\"fields\":[{\"name\":\"version\",\"type\":\"int\",\"doc\":\"Schema version number\",\"default\":0},{\"name\":\"columns\",\"type\":{\"type\":\"map\",\"values\":{\"type\":\"record\",\"name\":\"AvroColumnSchema\",\"fields\":[{\"name\":\"type\",\"type\":{\"type\":\"enum\",\"name\":\"ColumnType\",\"symbols\":[\"STRING\",\"BINARY\",\"ULONG\",\"LONG\",\"DOUBLE\",\"DECIMAL\",\"TIME\",\"DATE\",\"DATETIME\"]}},{\"name\":\"isNullable\",\"type\":\"boolean\",\"default\":true},{\"name\":\"isAutoIncrement\",\"type\":\"boolean\",\"default\":false},{\"name\":\"maxLength\",\"type\":[\"null\",\"int\"],\"default\":null},{\"name\":\"scale\",\"type\":[\"null\",\"int\"],\"default\":null},{\"name\":\"precision\",\"type\":[\"null\",\"int\"],\"default\":null}]},\"avro.java.string\":\"String\"}},{\"name\":\"indices\",\"type\":{\"type\":\"map\",\"values\":{\"type\":\"record\",\"name\":\"AvroIndexSchema\",\"fields\":[{\"name\":\"columns\",\"type\":{\"type\":\"array\",\"items\":{\"type\":\"string\",\"avro.java.string\":\"String\"}}},{\"name\":\"isUnique\",\"type\":\"boolean\",\"default\":false}]},\"avro.java.string\":\"String\"}}]}");
+  public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
+  /** Schema version number */
+  @Deprecated public int version;
+  @Deprecated public java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroColumnSchema> columns;
+  @Deprecated public java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroIndexSchema> indices;
+
+  /**
+   * Default constructor.
+   */
+  public AvroTableSchema() {}
+
+  /**
+   * All-args constructor.
+   */
+  public AvroTableSchema(java.lang.Integer version, java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroColumnSchema> columns, java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroIndexSchema> indices) {
+    this.version = version;
+    this.columns = columns;
+    this.indices = indices;
+  }
+
+  public org.apache.avro.Schema getSchema() { return SCHEMA$; }
+  // Used by DatumWriter.  Applications should not call. 
+  public java.lang.Object get(int field$) {
+    switch (field$) {
+    case 0: return version;
+    case 1: return columns;
+    case 2: return indices;
+    default: throw new org.apache.avro.AvroRuntimeException("Bad index");
+    }
+  }
+  // Used by DatumReader.  Applications should not call. 
+  @SuppressWarnings(value="unchecked")
+  public void put(int field$, java.lang.Object value$) {
+    switch (field$) {
+    case 0: version = (java.lang.Integer)value$; break;
+    case 1: columns = (java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroColumnSchema>)value$; break;
+    case 2: indices = (java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroIndexSchema>)value$; break;
+    default: throw new org.apache.avro.AvroRuntimeException("Bad index");
+    }
+  }
+
+  /**
+   * Gets the value of the 'version' field.
+   * Schema version number   */
+  public java.lang.Integer getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the value of the 'version' field.
+   * Schema version number   * @param value the value to set.
+   */
+  public void setVersion(java.lang.Integer value) {
+    this.version = value;
+  }
+
+  /**
+   * Gets the value of the 'columns' field.
+   */
+  public java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroColumnSchema> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Sets the value of the 'columns' field.
+   * @param value the value to set.
+   */
+  public void setColumns(java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroColumnSchema> value) {
+    this.columns = value;
+  }
+
+  /**
+   * Gets the value of the 'indices' field.
+   */
+  public java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroIndexSchema> getIndices() {
+    return indices;
+  }
+
+  /**
+   * Sets the value of the 'indices' field.
+   * @param value the value to set.
+   */
+  public void setIndices(java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroIndexSchema> value) {
+    this.indices = value;
+  }
+
+  /** Creates a new AvroTableSchema RecordBuilder */
+  public static com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder newBuilder() {
+    return new com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder();
+  }
+  
+  /** Creates a new AvroTableSchema RecordBuilder by copying an existing Builder */
+  public static com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder newBuilder(com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder other) {
+    return new com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder(other);
+  }
+  
+  /** Creates a new AvroTableSchema RecordBuilder by copying an existing AvroTableSchema instance */
+  public static com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder newBuilder(com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema other) {
+    return new com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder(other);
+  }
+  
+  /**
+   * RecordBuilder for AvroTableSchema instances.
+   */
+  public static class Builder extends org.apache.avro.specific.SpecificRecordBuilderBase<AvroTableSchema>
+    implements org.apache.avro.data.RecordBuilder<AvroTableSchema> {
+
+    private int version;
+    private java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroColumnSchema> columns;
+    private java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroIndexSchema> indices;
+
+    /** Creates a new Builder */
+    private Builder() {
+      super(com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.SCHEMA$);
+    }
+    
+    /** Creates a Builder by copying an existing Builder */
+    private Builder(com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder other) {
+      super(other);
+    }
+    
+    /** Creates a Builder by copying an existing AvroTableSchema instance */
+    private Builder(com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema other) {
+            super(com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.SCHEMA$);
+      if (isValidValue(fields()[0], other.version)) {
+        this.version = data().deepCopy(fields()[0].schema(), other.version);
+        fieldSetFlags()[0] = true;
+      }
+      if (isValidValue(fields()[1], other.columns)) {
+        this.columns = data().deepCopy(fields()[1].schema(), other.columns);
+        fieldSetFlags()[1] = true;
+      }
+      if (isValidValue(fields()[2], other.indices)) {
+        this.indices = data().deepCopy(fields()[2].schema(), other.indices);
+        fieldSetFlags()[2] = true;
+      }
+    }
+
+    /** Gets the value of the 'version' field */
+    public java.lang.Integer getVersion() {
+      return version;
+    }
+    
+    /** Sets the value of the 'version' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder setVersion(int value) {
+      validate(fields()[0], value);
+      this.version = value;
+      fieldSetFlags()[0] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'version' field has been set */
+    public boolean hasVersion() {
+      return fieldSetFlags()[0];
+    }
+    
+    /** Clears the value of the 'version' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder clearVersion() {
+      fieldSetFlags()[0] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'columns' field */
+    public java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroColumnSchema> getColumns() {
+      return columns;
+    }
+    
+    /** Sets the value of the 'columns' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder setColumns(java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroColumnSchema> value) {
+      validate(fields()[1], value);
+      this.columns = value;
+      fieldSetFlags()[1] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'columns' field has been set */
+    public boolean hasColumns() {
+      return fieldSetFlags()[1];
+    }
+    
+    /** Clears the value of the 'columns' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder clearColumns() {
+      columns = null;
+      fieldSetFlags()[1] = false;
+      return this;
+    }
+
+    /** Gets the value of the 'indices' field */
+    public java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroIndexSchema> getIndices() {
+      return indices;
+    }
+    
+    /** Sets the value of the 'indices' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder setIndices(java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroIndexSchema> value) {
+      validate(fields()[2], value);
+      this.indices = value;
+      fieldSetFlags()[2] = true;
+      return this; 
+    }
+    
+    /** Checks whether the 'indices' field has been set */
+    public boolean hasIndices() {
+      return fieldSetFlags()[2];
+    }
+    
+    /** Clears the value of the 'indices' field */
+    public com.nearinfinity.honeycomb.mysql.gen.AvroTableSchema.Builder clearIndices() {
+      indices = null;
+      fieldSetFlags()[2] = false;
+      return this;
+    }
+
+    @Override
+    public AvroTableSchema build() {
+      try {
+        AvroTableSchema record = new AvroTableSchema();
+        record.version = fieldSetFlags()[0] ? this.version : (java.lang.Integer) defaultValue(fields()[0]);
+        record.columns = fieldSetFlags()[1] ? this.columns : (java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroColumnSchema>) defaultValue(fields()[1]);
+        record.indices = fieldSetFlags()[2] ? this.indices : (java.util.Map<java.lang.String,com.nearinfinity.honeycomb.mysql.gen.AvroIndexSchema>) defaultValue(fields()[2]);
+        return record;
+      } catch (Exception e) {
+        throw new org.apache.avro.AvroRuntimeException(e);
+      }
+    }
+  }
+}
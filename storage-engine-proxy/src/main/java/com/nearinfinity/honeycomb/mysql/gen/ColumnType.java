@@ -0,0 +1,13 @@
+/**
+ * Autogenerated by Avro
+ * 
+ * DO NOT EDIT DIRECTLY
+ */
+package com.nearinfinity.honeycomb.mysql.gen;  
+@SuppressWarnings("all")
+@org.apache.avro.specific.AvroGenerated
+public enum ColumnType { 
+  STRING, BINARY, ULONG, LONG, DOUBLE, DECIMAL, TIME, DATE, DATETIME  ;
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"enum\",\"name\":\"ColumnType\",\"namespace\":\"com.nearinfinity.honeycomb.mysql.gen\",\"symbols\":[\"STRING\",\"BINARY\",\"ULONG\",\"LONG\",\"DOUBLE\",\"DECIMAL\",\"TIME\",\"DATE\",\"DATETIME\"]}");
+  public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
+}
@@ -0,0 +1,13 @@
+/**
+ * Autogenerated by Avro
+ * 
+ * DO NOT EDIT DIRECTLY
+ */
+package com.nearinfinity.honeycomb.mysql.gen;  
+@SuppressWarnings("all")
+@org.apache.avro.specific.AvroGenerated
+public enum QueryType { 
+  EXACT_KEY, AFTER_KEY, KEY_OR_NEXT, KEY_OR_PREVIOUS, BEFORE_KEY, INDEX_FIRST, INDEX_LAST  ;
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"enum\",\"name\":\"QueryType\",\"namespace\":\"com.nearinfinity.honeycomb.mysql.gen\",\"symbols\":[\"EXACT_KEY\",\"AFTER_KEY\",\"KEY_OR_NEXT\",\"KEY_OR_PREVIOUS\",\"BEFORE_KEY\",\"INDEX_FIRST\",\"INDEX_LAST\"]}");
+  public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
+}
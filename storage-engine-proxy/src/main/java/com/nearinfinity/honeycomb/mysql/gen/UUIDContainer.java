@@ -0,0 +1,23 @@
+/**
+ * Autogenerated by Avro
+ * 
+ * DO NOT EDIT DIRECTLY
+ */
+package com.nearinfinity.honeycomb.mysql.gen;  
+@SuppressWarnings("all")
+@org.apache.avro.specific.FixedSize(16)
+@org.apache.avro.specific.AvroGenerated
+public class UUIDContainer extends org.apache.avro.specific.SpecificFixed {
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"fixed\",\"name\":\"UUIDContainer\",\"namespace\":\"com.nearinfinity.honeycomb.mysql.gen\",\"size\":16}");
+  public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
+  
+  /** Creates a new UUIDContainer */
+  public UUIDContainer() {
+    super();
+  }
+  
+  /** Creates a new UUIDContainer with the given bytes */
+  public UUIDContainer(byte[] bytes) {
+    super(bytes);
+  }
+}
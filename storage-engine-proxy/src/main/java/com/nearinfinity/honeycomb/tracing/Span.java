@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.tracing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timed step of a traced statement, such as a handler call or an HBase RPC.
+ * Spans of one statement share its trace ID and point to the span which was
+ * running on the thread when they started.  A span is written only by the
+ * thread which started it, and is immutable once it has ended.
+ */
+public final class Span {
+    private final long traceId;
+    private final long spanId;
+    private final long parentId;
+    private final String name;
+    private final String detail;
+    private final String threadName;
+    private final long startMillis;
+    private final long startNanos;
+    private Span parent;
+    private int children;
+    private long durationNanos = -1;
+
+    Span(long traceId, long spanId, Span parent, String name, String detail) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parent = parent;
+        this.parentId = parent == null ? 0 : parent.spanId;
+        this.name = name;
+        this.detail = detail;
+        this.threadName = Thread.currentThread().getName();
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        if (parent != null) {
+            parent.children++;
+        }
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    public long getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * @return ID of the enclosing span, or 0 if the span is a root of its trace
+     */
+    public long getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Detail of the step, such as the table name, or null
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * @return Wall clock time in milliseconds when the span started
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return Duration of the span in nanoseconds, or -1 if it has not ended
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return Number of spans started within this span
+     */
+    int getChildren() {
+        return children;
+    }
+
+    /**
+     * End the span
+     *
+     * @return Enclosing span, or null
+     */
+    Span end() {
+        durationNanos = System.nanoTime() - startNanos;
+        final Span enclosing = parent;
+        parent = null;
+        return enclosing;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+                .append("traceId=").append(traceId)
+                .append(" spanId=").append(spanId)
+                .append(" parentId=").append(parentId)
+                .append(" name=").append(name)
+                .append(" startMillis=").append(startMillis)
+                .append(" durationMicros=").append(TimeUnit.NANOSECONDS.toMicros(durationNanos))
+                .append(" thread=").append(threadName);
+        if (detail != null) {
+            builder.append(" detail=").append(detail);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.tracing;
+
+import com.google.common.collect.Lists;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Fixed size ring buffer of ended spans, which overwrites the oldest span
+ * once it is full.  Adding a span takes one atomic increment and never locks.
+ */
+@ThreadSafe
+final class SpanBuffer {
+    private final AtomicReferenceArray<Span> spans;
+    private final AtomicLong added = new AtomicLong();
+
+    SpanBuffer(int capacity) {
+        checkArgument(capacity > 0, "Span buffer size must be positive: %s", capacity);
+        spans = new AtomicReferenceArray<Span>(capacity);
+    }
+
+    void add(Span span) {
+        spans.set((int) (added.getAndIncrement() % spans.length()), span);
+    }
+
+    /**
+     * Retrieve the buffered spans, oldest first.  Spans added while the
+     * snapshot is taken may or may not be included.
+     *
+     * @return Buffered spans
+     */
+    List<Span> snapshot() {
+        final long end = added.get();
+        final List<Span> snapshot = Lists.newArrayList();
+        for (long i = Math.max(0, end - spans.length()); i < end; i++) {
+            final Span span = spans.get((int) (i % spans.length()));
+            if (span != null) {
+                snapshot.add(span);
+            }
+        }
+        return snapshot;
+    }
+
+    void clear() {
+        for (int i = 0; i < spans.length(); i++) {
+            spans.set(i, null);
+        }
+    }
+
+    int getCapacity() {
+        return spans.length();
+    }
+
+    /**
+     * @return Number of spans added since the buffer was created
+     */
+    long getAdded() {
+        return added.get();
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.tracing;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Traces statements from the MySQL handler through the proxy into the HBase
+ * RPCs they cause.  The handler begins a trace with the ID of its statement,
+ * and every {@link Span} started on the same thread until the trace ends is
+ * recorded under that ID, nested in the span which was running when it
+ * started.  Whether a statement is traced depends only on its ID, so all
+ * handlers of a statement agree.  Ended spans are kept in a ring buffer,
+ * which can be written to a local file through the MBean
+ * {@code com.nearinfinity.honeycomb:type=Tracer}.
+ * <p/>
+ * Tracing is disabled until it is configured or given a sample rate, in
+ * which case starting a span costs one volatile read.
+ */
+@ThreadSafe
+public final class Tracer implements TracerMXBean {
+    /**
+     * Fraction of statements traced, between 0 and 1
+     */
+    public static final String SAMPLE_RATE = "sampleRate";
+    /**
+     * Number of spans kept in the buffer
+     */
+    public static final String BUFFER_SIZE = "bufferSize";
+    static final double DEFAULT_SAMPLE_RATE = 0.01;
+    static final int DEFAULT_BUFFER_SIZE = 65536;
+    private static final Logger logger = Logger.getLogger(Tracer.class);
+    private static final String OBJECT_NAME = "com.nearinfinity.honeycomb:type=Tracer";
+    private static final Tracer tracer = new Tracer();
+    private final ThreadLocal<Trace> current = new ThreadLocal<Trace>();
+    private volatile double sampleRate;
+    private volatile SpanBuffer buffer = new SpanBuffer(DEFAULT_BUFFER_SIZE);
+
+    Tracer() {
+    }
+
+    public static Tracer getInstance() {
+        return tracer;
+    }
+
+    /**
+     * Enable tracing with the configured options.  Options which are not
+     * configured take their default.
+     *
+     * @param options Map of option name to value
+     */
+    public synchronized void configure(Map<String, String> options) {
+        int bufferSize = options.containsKey(BUFFER_SIZE)
+                ? Integer.parseInt(options.get(BUFFER_SIZE)) : DEFAULT_BUFFER_SIZE;
+        double rate = options.containsKey(SAMPLE_RATE)
+                ? Double.parseDouble(options.get(SAMPLE_RATE)) : DEFAULT_SAMPLE_RATE;
+        if (bufferSize != buffer.getCapacity()) {
+            buffer = new SpanBuffer(bufferSize);
+        }
+        setSampleRate(rate);
+        logger.info(String.format("Tracing %.3f of statements, keeping the last %d spans",
+                rate, bufferSize));
+    }
+
+    /**
+     * Register the tracer with the platform MBean server.  Failure to register
+     * is logged and otherwise ignored.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            logger.warn("Could not register the Tracer MBean", e);
+        }
+    }
+
+    /**
+     * Begin tracing a statement on the current thread, if it is sampled.
+     * A statement may be begun several times on the same thread, once by each
+     * of its handlers, and is traced until it has been ended as many times.
+     *
+     * @param traceId ID of the statement
+     */
+    public void beginTrace(long traceId) {
+        final double rate = sampleRate;
+        if (rate <= 0) {
+            return;
+        }
+        final Trace trace = current.get();
+        if (trace != null && trace.traceId == traceId) {
+            trace.references++;
+        } else if (isSampled(traceId, rate)) {
+            current.set(new Trace(traceId));
+        } else if (trace != null) {
+            current.remove();
+        }
+    }
+
+    /**
+     * End tracing a statement on the current thread
+     *
+     * @param traceId ID of the statement
+     */
+    public void endTrace(long traceId) {
+        final Trace trace = current.get();
+        if (trace != null && trace.traceId == traceId && --trace.references == 0) {
+            current.remove();
+        }
+    }
+
+    /**
+     * Start a span within the statement traced on the current thread
+     *
+     * @param name Name of the step
+     * @return Started span, or null if no statement is traced
+     */
+    public Span startSpan(String name) {
+        return startSpan(name, null);
+    }
+
+    /**
+     * Start a span within the statement traced on the current thread
+     *
+     * @param name   Name of the step
+     * @param detail Detail of the step, such as the table name, or null
+     * @return Started span, or null if no statement is traced
+     */
+    public Span startSpan(String name, String detail) {
+        if (sampleRate <= 0) {
+            return null;
+        }
+        final Trace trace = current.get();
+        if (trace == null) {
+            return null;
+        }
+        final Span span = new Span(trace.traceId, ++trace.spans, trace.span, name, detail);
+        trace.span = span;
+        return span;
+    }
+
+    /**
+     * End a span and record it
+     *
+     * @param span Span returned by {@link #startSpan}, or null
+     */
+    public void endSpan(Span span) {
+        if (span != null) {
+            end(span);
+            buffer.add(span);
+        }
+    }
+
+    /**
+     * End a span and record it only if other spans were started within it.
+     * Used for frequent steps, such as reading the next row of a scan, which
+     * are only interesting when they cause work further down.
+     *
+     * @param span Span returned by {@link #startSpan}, or null
+     */
+    public void endSpanIfParent(Span span) {
+        if (span != null) {
+            end(span);
+            if (span.getChildren() > 0) {
+                buffer.add(span);
+            }
+        }
+    }
+
+    /**
+     * Retrieve the buffered spans, oldest first
+     *
+     * @return Buffered spans
+     */
+    public List<Span> getSpans() {
+        return buffer.snapshot();
+    }
+
+    @Override
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void setSampleRate(double sampleRate) {
+        checkArgument(sampleRate >= 0 && sampleRate <= 1, "Trace sample rate must be between 0 and 1: %s", sampleRate);
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return buffer.getCapacity();
+    }
+
+    @Override
+    public long getSpansRecorded() {
+        return buffer.getAdded();
+    }
+
+    @Override
+    public int dumpSpans(String path) throws IOException {
+        final List<Span> spans = getSpans();
+        final Writer writer = Files.newWriter(new File(path), Charsets.UTF_8);
+        try {
+            for (Span span : spans) {
+                writer.write(span.toString());
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+        return spans.size();
+    }
+
+    @Override
+    public void clearSpans() {
+        buffer.clear();
+    }
+
+    /**
+     * Decide from its ID alone whether a statement is traced, mixing the bits
+     * of the ID so that consecutive statements are sampled independently
+     */
+    static boolean isSampled(long traceId, double rate) {
+        long h = traceId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (h >>> 11) * 0x1.0p-53 < rate;
+    }
+
+    private void end(Span span) {
+        final Span enclosing = span.end();
+        final Trace trace = current.get();
+        if (trace != null && trace.span == span) {
+            trace.span = enclosing;
+        }
+    }
+
+    /**
+     * Statement traced on a thread
+     */
+    private static final class Trace {
+        private final long traceId;
+        private int references = 1;
+        private long spans;
+        private Span span;
+
+        Trace(long traceId) {
+            this.traceId = traceId;
+        }
+    }
+}
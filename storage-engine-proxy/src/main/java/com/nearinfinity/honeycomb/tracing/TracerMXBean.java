@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.tracing;
+
+import java.io.IOException;
+
+/**
+ * Management interface of {@link Tracer}
+ */
+public interface TracerMXBean {
+    /**
+     * @return Fraction of statements traced, 0 if tracing is disabled
+     */
+    double getSampleRate();
+
+    /**
+     * Trace a fraction of statements, or disable tracing with 0.  Statements
+     * which already started keep their sampling decision.
+     *
+     * @param sampleRate Fraction of statements traced, between 0 and 1
+     */
+    void setSampleRate(double sampleRate);
+
+    /**
+     * @return Number of spans kept in the buffer
+     */
+    int getBufferSize();
+
+    /**
+     * @return Number of spans recorded since the tracer was configured
+     */
+    long getSpansRecorded();
+
+    /**
+     * Write the buffered spans to a local file, one span per line, oldest first
+     *
+     * @param path Path of the file, which is overwritten
+     * @return Number of spans written
+     * @throws IOException if the file cannot be written
+     */
+    int dumpSpans(String path) throws IOException;
+
+    /**
+     * Discard the buffered spans
+     */
+    void clearSpans();
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    private static final long MICROS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 8);
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(0.99));
+        assertEquals(0, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 10 * MICROS);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(10000 * MICROS, histogram.getMaxNanos());
+        assertWithin(5000 * MICROS, histogram.getPercentileNanos(0.5));
+        assertWithin(9900 * MICROS, histogram.getPercentileNanos(0.99));
+        assertWithin(9990 * MICROS, histogram.getPercentileNanos(0.999));
+        assertEquals(10000 * MICROS, histogram.getPercentileNanos(1));
+    }
+
+    @Test
+    public void testExtremeLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertTrue(histogram.getPercentileNanos(0.5) < MICROS);
+        assertEquals(Long.MAX_VALUE, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void testAdd() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10 * MICROS);
+        second.record(1000 * MICROS);
+
+        first.add(second);
+
+        assertEquals(2, first.getCount());
+        assertEquals(1010 * MICROS, first.getTotalNanos());
+        assertEquals(1000 * MICROS, first.getMaxNanos());
+        assertWithin(1000 * MICROS, first.getPercentileNanos(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new LatencyHistogram().getPercentileNanos(1.5);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nearinfinity.honeycomb.Scanner;
+import com.nearinfinity.honeycomb.Table;
+
+public class MetricsTest {
+    private Metrics metrics;
+    private byte[] allocated;
+
+    @Before
+    public void setupTestCase() {
+        metrics = new Metrics();
+    }
+
+    @Test
+    public void testStatisticsByOperationAndTable() {
+        metrics.forTable("t1").record(Operation.HANDLER_INSERT_ROW, System.nanoTime());
+        metrics.forTable("t1").record(Operation.HANDLER_INSERT_ROW, System.nanoTime());
+        metrics.forTable("t2").record(Operation.HANDLER_INSERT_ROW, System.nanoTime());
+        metrics.forTable("t2").record(Operation.HANDLER_GET_ROW, System.nanoTime());
+
+        Map<String, OperationStatistics> statistics = metrics.getStatistics();
+        assertEquals(2, statistics.size());
+        assertEquals(3, statistics.get("handler.insertRow").getCount());
+        assertEquals(1, statistics.get("handler.getRow").getCount());
+
+        Map<String, OperationStatistics> tableStatistics = metrics.getTableStatistics();
+        assertEquals(3, tableStatistics.size());
+        assertEquals(2, tableStatistics.get("t1:handler.insertRow").getCount());
+        assertEquals(1, tableStatistics.get("t2:handler.getRow").getCount());
+    }
+
+    @Test
+    public void testResetStartsNewWindow() {
+        TableMetrics table = metrics.forTable("t1");
+        table.record(Operation.TABLE_FLUSH, System.nanoTime());
+
+        metrics.resetAll();
+
+        assertSame(table, metrics.forTable("t1"));
+        assertTrue(metrics.getStatistics().isEmpty());
+        table.record(Operation.TABLE_FLUSH, System.nanoTime());
+        assertEquals(1, metrics.getStatistics().get("table.flush").getCount());
+    }
+
+    @Test
+    public void testRemoveTable() {
+        metrics.forTable("t1").record(Operation.TABLE_FLUSH, System.nanoTime());
+
+        metrics.removeTable("t1");
+
+        assertTrue(metrics.getTableStatistics().isEmpty());
+    }
+
+    @Test
+    public void testInstrumentedTableRecordsScannerRows() throws Exception {
+        Table table = mock(Table.class);
+        Scanner scanner = mock(Scanner.class);
+        when(table.tableScan()).thenReturn(scanner);
+        Table instrumented = new InstrumentedTable(table, metrics.forTable("t1"));
+
+        Scanner instrumentedScanner = instrumented.tableScan();
+        instrumentedScanner.next();
+        instrumentedScanner.next();
+        instrumentedScanner.close();
+
+        verify(scanner).close();
+        Map<String, OperationStatistics> statistics = metrics.getTableStatistics();
+        assertEquals(1, statistics.get("t1:table.tableScan").getCount());
+        assertEquals(2, statistics.get("t1:table.scannerNext").getCount());
+    }
+
+    @Test
+    public void testScanStatisticsByIndex() {
+        TableMetrics table = metrics.forTable("t1");
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            OperationDetails details = new OperationDetails(false);
+            details.attach();
+            OperationDetails.recordRpcs(2);
+            OperationDetails.recordRowsDiscarded(3);
+            details.recordRowReturned(10, start);
+            details.recordRowReturned(20, start);
+            details.detach(start);
+            table.recordScan("i1", details);
+        }
+        table.recordScan(null, new OperationDetails(false));
+
+        Map<String, ScanStatistics> statistics = metrics.getScanStatistics();
+        assertEquals(2, statistics.size());
+        ScanStatistics index = statistics.get("t1:i1");
+        assertEquals(2, index.getScans());
+        assertEquals(4, index.getRows());
+        assertEquals(60, index.getBytes());
+        assertEquals(4, index.getRpcs());
+        assertEquals(6, index.getRowsDiscarded());
+        assertTrue(index.getMeanFirstRowMicros() <= index.getMeanMicros());
+        assertEquals(0, statistics.get("t1:" + TableMetrics.TABLE_SCAN).getRows());
+
+        metrics.resetAll();
+        assertTrue(metrics.getScanStatistics().isEmpty());
+    }
+
+    @Test
+    public void testAllocationSampling() {
+        TableMetrics table = metrics.forTable("t1");
+        metrics.setAllocationSampleInterval(2);
+        try {
+            for (int i = 0; i < 4; i++) {
+                long start = metrics.start();
+                allocated = new byte[1 << 20];
+                table.record(Operation.HANDLER_INSERT_ROW, start);
+            }
+            // Table operations are never sampled
+            table.record(Operation.TABLE_INSERT_ROW, metrics.start());
+        } finally {
+            metrics.setAllocationSampleInterval(0);
+        }
+
+        Map<String, OperationStatistics> statistics = metrics.getStatistics();
+        OperationStatistics insert = statistics.get("handler.insertRow");
+        assertEquals(4, insert.getCount());
+        assertEquals(2, insert.getAllocationSamples());
+        if (metrics.isAllocationMeasured()) {
+            assertTrue(insert.getMeanAllocatedBytes() >= 1 << 20);
+        }
+        assertEquals(0, statistics.get("table.insertRow").getAllocationSamples());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeAllocationSampleInterval() {
+        metrics.setAllocationSampleInterval(-1);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.nearinfinity.honeycomb.mysql.QueryKey;
+import com.nearinfinity.honeycomb.mysql.gen.QueryType;
+
+public class SlowOperationLogTest {
+    private static final Logger logger = Logger.getLogger(SlowOperationLog.class);
+    private SlowOperationLog log;
+    private Appender appender;
+
+    @Before
+    public void setupTestCase() {
+        log = new SlowOperationLog();
+        appender = mock(Appender.class);
+        logger.addAppender(appender);
+    }
+
+    @After
+    public void tearDownTestCase() {
+        logger.removeAppender(appender);
+    }
+
+    @Test
+    public void testLogsOperationSlowerThanThreshold() {
+        log.enable(0, 1.0, 1000);
+
+        long start = System.nanoTime();
+        OperationDetails details = log.begin();
+        OperationDetails.recordKeyRange(new byte[]{0x01, 0x0a}, new byte[]{0x02});
+        OperationDetails.recordRowRead(10);
+        OperationDetails.recordRpcs(2);
+        log.end(details, Operation.HANDLER_GET_ROW, "t1", null, start);
+        log.drain();
+
+        List<String> messages = messages();
+        assertEquals(1, messages.size());
+        assertTrue(messages.get(0), messages.get(0).startsWith("operation=handler.getRow table=t1 elapsedMillis="));
+        assertTrue(messages.get(0), messages.get(0).endsWith(
+                " startKey=010a endKey=02 rows=1 bytesRead=10 bytesWritten=0 rpcs=2"));
+    }
+
+    @Test
+    public void testFastOperationIsNotLogged() {
+        log.enable(60000, 1.0, 1000);
+
+        long start = System.nanoTime();
+        OperationDetails details = log.begin();
+        log.end(details, Operation.HANDLER_FLUSH, "t1", null, start);
+        log.drain();
+
+        verify(appender, never()).doAppend(any(LoggingEvent.class));
+    }
+
+    @Test
+    public void testDisabledLogDoesNotTrack() {
+        assertNull(log.begin());
+
+        log.enable(0, 0.0, 1000);
+        assertNull(log.begin());
+    }
+
+    @Test
+    public void testScanIsTrackedAcrossCalls() {
+        log.enable(0, 1.0, 1000);
+        QueryKey key = new QueryKey("i1", QueryType.EXACT_KEY, ImmutableMap.<String, ByteBuffer>of());
+
+        long start = System.nanoTime();
+        OperationDetails details = log.begin();
+        OperationDetails.recordRpcs(1);
+        log.suspend(details, start);
+
+        // Rows read while the scan is suspended belong to other operations
+        OperationDetails.recordRowRead(100);
+
+        for (int i = 0; i < 2; i++) {
+            start = System.nanoTime();
+            log.resume(details);
+            OperationDetails.recordRowRead(5);
+            log.suspend(details, start);
+        }
+        log.complete(details, Operation.HANDLER_START_INDEX_SCAN, "t1", key);
+        log.drain();
+
+        List<String> messages = messages();
+        assertEquals(1, messages.size());
+        assertTrue(messages.get(0), messages.get(0).contains(" index=i1 queryType=EXACT_KEY"));
+        assertTrue(messages.get(0), messages.get(0).endsWith(" rows=2 bytesRead=10 bytesWritten=0 rpcs=1"));
+    }
+
+    @Test
+    public void testRateLimitDropsEntries() {
+        log.enable(0, 1.0, 0.001);
+
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            log.end(log.begin(), Operation.HANDLER_GET_ROW, "t1", null, start);
+        }
+        log.drain();
+
+        assertEquals(1, messages().size());
+        assertEquals(2, log.getDroppedCount());
+    }
+
+    private List<String> messages() {
+        ArgumentCaptor<LoggingEvent> events = ArgumentCaptor.forClass(LoggingEvent.class);
+        verify(appender, atLeast(0)).doAppend(events.capture());
+        List<String> messages = Lists.newArrayList();
+        for (LoggingEvent event : events.getAllValues()) {
+            messages.add(event.getRenderedMessage());
+        }
+        return messages;
+    }
+}
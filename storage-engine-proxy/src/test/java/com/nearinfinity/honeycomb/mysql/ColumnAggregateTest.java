@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.mysql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
+
+public class ColumnAggregateTest {
+    private static final String COLUMN = "c1";
+
+    private static ByteBuffer longValue(long value) {
+        return ByteBuffer.wrap(Longs.toByteArray(value));
+    }
+
+    private static ByteBuffer doubleValue(double value) {
+        return (ByteBuffer) ByteBuffer.allocate(8).putDouble(value).flip();
+    }
+
+    @Test
+    public void testLongAggregateSkipsNulls() {
+        ColumnAggregate aggregate = new ColumnAggregate(ColumnType.LONG);
+        aggregate.add(new Row(ImmutableMap.of(COLUMN, longValue(5)), UUID.randomUUID()), COLUMN);
+        aggregate.add(new Row(ImmutableMap.<String, ByteBuffer>of(), UUID.randomUUID()), COLUMN);
+        aggregate.add(longValue(-3));
+        aggregate.add(longValue(10));
+
+        assertEquals(3, aggregate.getCount());
+        assertEquals(BigInteger.valueOf(12), aggregate.getSum());
+        assertEquals(longValue(-3), aggregate.getMin());
+        assertEquals(longValue(10), aggregate.getMax());
+    }
+
+    @Test
+    public void testEmptyAggregate() {
+        ColumnAggregate aggregate = new ColumnAggregate(ColumnType.LONG);
+
+        assertEquals(0, aggregate.getCount());
+        assertNull(aggregate.getSum());
+        assertNull(aggregate.getMin());
+        assertNull(aggregate.getMax());
+    }
+
+    @Test
+    public void testLongSumDoesNotOverflow() {
+        ColumnAggregate aggregate = new ColumnAggregate(ColumnType.LONG);
+        aggregate.add(longValue(Long.MAX_VALUE));
+        aggregate.add(longValue(Long.MAX_VALUE));
+        aggregate.add(longValue(1));
+
+        BigInteger expected = BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1).add(BigInteger.ONE);
+        assertEquals(expected, aggregate.getSum());
+    }
+
+    @Test
+    public void testUnsignedLongAggregate() {
+        ColumnAggregate aggregate = new ColumnAggregate(ColumnType.ULONG);
+        aggregate.add(longValue(-1));
+        aggregate.add(longValue(1));
+
+        assertEquals(BigInteger.ONE.shiftLeft(64), aggregate.getSum());
+        assertEquals(longValue(1), aggregate.getMin());
+        assertEquals(longValue(-1), aggregate.getMax());
+    }
+
+    @Test
+    public void testMergeDoubleAggregates() {
+        ColumnAggregate first = new ColumnAggregate(ColumnType.DOUBLE);
+        first.add(doubleValue(1.5));
+        first.add(doubleValue(-2.0));
+        ColumnAggregate second = new ColumnAggregate(ColumnType.DOUBLE);
+        second.add(doubleValue(4.0));
+        ColumnAggregate empty = new ColumnAggregate(ColumnType.DOUBLE);
+
+        first.merge(second);
+        first.merge(empty);
+
+        assertEquals(3, first.getCount());
+        assertEquals(3.5, first.getSum().doubleValue(), 0.0);
+        assertEquals(doubleValue(-2.0), first.getMin());
+        assertEquals(doubleValue(4.0), first.getMax());
+    }
+
+    @Test
+    public void testDatetimeCompareAsBytesWithoutSum() {
+        ColumnAggregate aggregate = new ColumnAggregate(ColumnType.DATETIME);
+        Map<String, ByteBuffer> records = ImmutableMap.of(COLUMN, ByteBuffer.wrap("2013-06-01 12:00:00".getBytes()));
+        aggregate.add(new Row(records, UUID.randomUUID()), COLUMN);
+        aggregate.add(ByteBuffer.wrap("2012-12-31 23:59:59".getBytes()));
+
+        assertEquals(2, aggregate.getCount());
+        assertNull(aggregate.getSum());
+        assertEquals(ByteBuffer.wrap("2012-12-31 23:59:59".getBytes()), aggregate.getMin());
+        assertEquals(ByteBuffer.wrap("2013-06-01 12:00:00".getBytes()), aggregate.getMax());
+    }
+
+    @Test
+    public void testStringCountsOnly() {
+        ColumnAggregate aggregate = new ColumnAggregate(ColumnType.STRING);
+        aggregate.add(ByteBuffer.wrap("b".getBytes()));
+        aggregate.add(ByteBuffer.wrap("A".getBytes()));
+
+        assertEquals(2, aggregate.getCount());
+        assertNull(aggregate.getMin());
+        assertNull(aggregate.getMax());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentTypes() {
+        new ColumnAggregate(ColumnType.LONG).merge(new ColumnAggregate(ColumnType.DOUBLE));
+    }
+}
@@ -22,14 +22,21 @@
 
 package com.nearinfinity.honeycomb.mysql;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -39,8 +46,16 @@ import org.mockito.MockitoAnnotations;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.nearinfinity.honeycomb.EngineStatus;
+import com.nearinfinity.honeycomb.Scanner;
+import com.nearinfinity.honeycomb.StatusSource;
 import com.nearinfinity.honeycomb.Store;
 import com.nearinfinity.honeycomb.Table;
+import com.nearinfinity.honeycomb.metrics.Metrics;
+import com.nearinfinity.honeycomb.metrics.Operation;
+import com.nearinfinity.honeycomb.metrics.OperationStatistics;
 import com.nearinfinity.honeycomb.mysql.gen.ColumnType;
 import com.nearinfinity.honeycomb.mysql.schema.ColumnSchema;
 import com.nearinfinity.honeycomb.mysql.schema.IndexSchema;
@@ -168,6 +183,16 @@ public class HandlerProxyTest {
         verify(storageMock, times(1)).deleteTable(eq(TEST_TABLE_NAME));
     }
 
+    @Test
+    public void testDropTableDiscardsMetrics() {
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+
+        proxy.dropTable(TEST_TABLE_NAME);
+
+        assertEquals(0, tableCount(Operation.HANDLER_DROP_TABLE));
+    }
+
     @Test(expected = NullPointerException.class)
     public void testOpenTableInvalidTableName() {
         proxy.openTable(null);
@@ -291,4 +316,153 @@ public class HandlerProxyTest {
         verify(tableMock, never()).deleteTableIndex(eq(INDEX_SCHEMA));
         verify(storageMock, never()).dropIndex(eq(TEST_TABLE_NAME), eq(TEST_INDEX));
     }
+
+    @Test
+    public void testRecomputeRowCountCorrectsDrift() {
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+        when(tableMock.countRows()).thenReturn(10L);
+        when(storageMock.getExactRowCount(TEST_TABLE_NAME)).thenReturn(13L);
+
+        proxy.openTable(TEST_TABLE_NAME);
+
+        assertEquals(10, proxy.recomputeRowCount());
+        verify(storageMock, times(1)).incrementRowCount(eq(TEST_TABLE_NAME), eq(-3L));
+    }
+
+    @Test
+    public void testRecomputeRowCountWithoutDrift() {
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+        when(tableMock.countRows()).thenReturn(10L);
+        when(storageMock.getExactRowCount(TEST_TABLE_NAME)).thenReturn(10L);
+
+        proxy.openTable(TEST_TABLE_NAME);
+
+        assertEquals(10, proxy.recomputeRowCount());
+        verify(storageMock, never()).incrementRowCount(anyString(), anyLong());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCountRangeWithoutKeys() {
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+
+        proxy.openTable(TEST_TABLE_NAME);
+        proxy.countRange(null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEstimateRowsInRangeWithoutKeys() {
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+
+        proxy.openTable(TEST_TABLE_NAME);
+        proxy.estimateRowsInRange(null, null);
+    }
+
+    @Test
+    public void testAggregateWholeTable() {
+        final ColumnAggregate aggregate = new ColumnAggregate(ColumnType.LONG);
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+        when(storageMock.getSchema(TEST_TABLE_NAME)).thenReturn(TABLE_SCHEMA);
+        when(tableMock.aggregate(TABLE_SCHEMA.getColumnSchema(TEST_COLUMN), null, null)).thenReturn(aggregate);
+
+        proxy.openTable(TEST_TABLE_NAME);
+
+        assertSame(aggregate, proxy.aggregate(TEST_COLUMN, null, null));
+    }
+
+    @Test
+    public void testUpdateIndexStatisticsStoresComputedStatistics() {
+        final Map<String, IndexStatistics> statistics = ImmutableMap.of(TEST_INDEX,
+                new IndexStatistics(100, 100, new long[]{25}, ImmutableList.<byte[]>of()));
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+        when(tableMock.computeIndexStatistics()).thenReturn(statistics);
+
+        proxy.openTable(TEST_TABLE_NAME);
+        proxy.updateIndexStatistics();
+
+        verify(storageMock, times(1)).setIndexStatistics(TEST_TABLE_NAME, statistics);
+    }
+
+    @Test
+    public void testGetRecordsPerKey() {
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+        when(storageMock.getIndexStatistics(TEST_TABLE_NAME)).thenReturn(ImmutableMap.of(TEST_INDEX,
+                new IndexStatistics(100, 100, new long[]{25}, ImmutableList.<byte[]>of())));
+        long lookups = tableCount(Operation.HANDLER_GET_RECORDS_PER_KEY);
+
+        proxy.openTable(TEST_TABLE_NAME);
+
+        assertArrayEquals(new long[]{4}, proxy.getRecordsPerKey(TEST_INDEX));
+        assertArrayEquals(new long[0], proxy.getRecordsPerKey("unanalyzed"));
+        assertEquals(lookups + 2, tableCount(Operation.HANDLER_GET_RECORDS_PER_KEY));
+    }
+
+    @Test
+    public void testEngineStatusIncludesSources() {
+        StatusSource source = new StatusSource() {
+            @Override
+            public void reportStatus(EngineStatus status) {
+                status.add("backend", "cachedTables", 3);
+            }
+        };
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+
+        proxy = new HandlerProxy(storeFactory, ImmutableSet.of(source));
+        proxy.openTable(TEST_TABLE_NAME);
+        EngineStatus status = proxy.getEngineStatus();
+        proxy.closeTable();
+
+        assertTrue(Integer.parseInt(status.getSection("handlers").get("openTables")) >= 1);
+        assertTrue(status.getSection("tables").containsKey(TEST_TABLE_NAME));
+        assertEquals("3", status.getSection("backend").get("cachedTables"));
+        assertTrue(proxy.getEngineStatusReport().contains("backend cachedTables 3\n"));
+    }
+
+    @Test
+    public void testCloseTableEndsOpenScan() throws Exception {
+        Scanner scanner = mock(Scanner.class);
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+        when(tableMock.tableScan()).thenReturn(scanner);
+
+        proxy.openTable(TEST_TABLE_NAME);
+        proxy.startTableScan();
+        int openScanners = openScanners();
+        proxy.closeTable();
+
+        verify(scanner, times(1)).close();
+        assertEquals(openScanners - 1, openScanners());
+    }
+
+    @Test
+    public void testTruncateTableIsTimed() {
+        when(storeFactory.createStore(anyString())).thenReturn(storageMock);
+        when(storageMock.openTable(anyString())).thenReturn(tableMock);
+        long truncates = tableCount(Operation.HANDLER_TRUNCATE_TABLE);
+        long deletes = tableCount(Operation.HANDLER_DELETE_ALL_ROWS);
+
+        proxy.openTable(TEST_TABLE_NAME);
+        proxy.truncateTable();
+
+        verify(tableMock, times(1)).deleteAllRows();
+        assertEquals(truncates + 1, tableCount(Operation.HANDLER_TRUNCATE_TABLE));
+        assertEquals(deletes, tableCount(Operation.HANDLER_DELETE_ALL_ROWS));
+    }
+
+    private long tableCount(Operation operation) {
+        OperationStatistics statistics = Metrics.getInstance().getTableStatistics()
+                .get(TEST_TABLE_NAME + ":" + operation.getName());
+        return statistics == null ? 0 : statistics.getCount();
+    }
+
+    private int openScanners() {
+        return Integer.parseInt(proxy.getEngineStatus().getSection("handlers").get("openScanners"));
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.mysql;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Longs;
+import com.nearinfinity.honeycomb.exceptions.UnknownSchemaVersionException;
+
+public class IndexStatisticsTest {
+    private static final List<String> COLUMNS = ImmutableList.of("c1", "c2");
+
+    private static Row row(Long c1, Long c2) {
+        Map<String, ByteBuffer> records = Maps.newHashMap();
+        if (c1 != null) {
+            records.put("c1", ByteBuffer.wrap(Longs.toByteArray(c1)));
+        }
+        if (c2 != null) {
+            records.put("c2", ByteBuffer.wrap(Longs.toByteArray(c2)));
+        }
+        return new Row(records, UUID.randomUUID());
+    }
+
+    private static IndexStatistics withHistogram(long rowCount, long... bounds) {
+        ImmutableList.Builder<byte[]> histogram = ImmutableList.builder();
+        for (long bound : bounds) {
+            histogram.add(Longs.toByteArray(bound));
+        }
+        return new IndexStatistics(rowCount, rowCount, new long[]{rowCount}, histogram.build());
+    }
+
+    @Test
+    public void testFullSampleCountsExactly() {
+        IndexStatistics.Collector collector = new IndexStatistics.Collector(COLUMNS, 4);
+        collector.add(row(null, null), null);
+        collector.add(row(null, null), null);
+        long[][] keys = {{1, 1}, {1, 1}, {1, 2}, {2, 1}, {3, 1}, {3, 1}};
+        for (long[] key : keys) {
+            collector.add(row(key[0], key[1]), null);
+        }
+
+        IndexStatistics statistics = collector.build(8);
+
+        assertArrayEquals(new long[]{4, 5}, statistics.getDistinctKeys());
+        assertArrayEquals(new long[]{2, 2}, statistics.getRecordsPerKey());
+        assertEquals(-1, statistics.estimateRows(null, null));
+    }
+
+    @Test
+    public void testSampleScalesValuesSeenOnce() {
+        IndexStatistics.Collector collector = new IndexStatistics.Collector(COLUMNS, 4);
+        for (long key = 0; key < 10; key++) {
+            collector.add(row(key / 2, key), null);
+        }
+
+        IndexStatistics statistics = collector.build(1000);
+
+        // Every pair of sampled rows shares its first column and no second column value repeats
+        assertArrayEquals(new long[]{5, 100}, statistics.getDistinctKeys());
+        assertArrayEquals(new long[]{200, 10}, statistics.getRecordsPerKey());
+    }
+
+    @Test
+    public void testEquiDepthHistogram() {
+        IndexStatistics.Collector collector = new IndexStatistics.Collector(COLUMNS, 4);
+        for (long key = 1; key <= 8; key++) {
+            collector.add(row(key, key), Longs.toByteArray(key));
+        }
+
+        List<byte[]> histogram = collector.build(8).getHistogram();
+
+        assertEquals(4, histogram.size());
+        for (int i = 0; i < 4; i++) {
+            assertArrayEquals(Longs.toByteArray(2 * (i + 1)), histogram.get(i));
+        }
+    }
+
+    @Test
+    public void testEstimateRows() {
+        IndexStatistics statistics = withHistogram(400, 10, 20, 30, 40);
+
+        assertEquals(400, statistics.estimateRows(null, null));
+        assertEquals(250, statistics.estimateRows(Longs.toByteArray(15), Longs.toByteArray(35)));
+        assertEquals(50, statistics.estimateRows(Longs.toByteArray(11), Longs.toByteArray(12)));
+        assertEquals(150, statistics.estimateRows(null, Longs.toByteArray(20)));
+    }
+
+    @Test
+    public void testSerializationRoundTrip() {
+        IndexStatistics statistics = withHistogram(400, 10, 20, 30, 40);
+
+        assertEquals(statistics, IndexStatistics.deserialize(statistics.serialize()));
+    }
+
+    @Test(expected = UnknownSchemaVersionException.class)
+    public void testDeserializeUnknownVersion() {
+        byte[] serialized = withHistogram(400, 10).serialize();
+        serialized[0] = 0;
+        IndexStatistics.deserialize(serialized);
+    }
+}
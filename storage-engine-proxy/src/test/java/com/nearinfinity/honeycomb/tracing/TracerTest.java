@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright 2013 Near Infinity Corporation.
+ */
+
+
+package com.nearinfinity.honeycomb.tracing;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TracerTest {
+    private Tracer tracer;
+
+    @Before
+    public void setupTestCase() {
+        tracer = new Tracer();
+    }
+
+    @Test
+    public void testDisabledTracerRecordsNothing() {
+        tracer.beginTrace(1);
+        assertNull(tracer.startSpan("handler.getRow"));
+        tracer.endSpan(null);
+        tracer.endTrace(1);
+        assertTrue(tracer.getSpans().isEmpty());
+    }
+
+    @Test
+    public void testSpansNestWithinTrace() {
+        tracer.setSampleRate(1.0);
+        tracer.beginTrace(42);
+        Span handler = tracer.startSpan("handler.getRow", "t1");
+        Span rpc = tracer.startSpan("hbase.get");
+        tracer.endSpan(rpc);
+        tracer.endSpan(handler);
+        Span next = tracer.startSpan("handler.flush", "t1");
+        tracer.endSpan(next);
+        tracer.endTrace(42);
+
+        assertNull(tracer.startSpan("hbase.get"));
+        List<Span> spans = tracer.getSpans();
+        assertEquals(3, spans.size());
+        assertEquals("hbase.get", spans.get(0).getName());
+        assertEquals(handler.getSpanId(), spans.get(0).getParentId());
+        assertEquals(0, handler.getParentId());
+        assertEquals(0, next.getParentId());
+        for (Span span : spans) {
+            assertEquals(42, span.getTraceId());
+            assertTrue(span.getDurationNanos() >= 0);
+        }
+    }
+
+    @Test
+    public void testTraceEndsWithLastHandler() {
+        tracer.setSampleRate(1.0);
+        tracer.beginTrace(7);
+        tracer.beginTrace(7);
+        tracer.endTrace(7);
+        Span span = tracer.startSpan("handler.getNextRow", "t2");
+        tracer.endSpan(span);
+        tracer.endTrace(7);
+
+        assertEquals(7, span.getTraceId());
+        assertNull(tracer.startSpan("handler.getNextRow", "t2"));
+    }
+
+    @Test
+    public void testEndSpanIfParentDropsLeafSpans() {
+        tracer.setSampleRate(1.0);
+        tracer.beginTrace(3);
+        tracer.endSpanIfParent(tracer.startSpan("handler.getNextRow"));
+        Span parent = tracer.startSpan("handler.getNextRow");
+        tracer.endSpan(tracer.startSpan("hbase.scannerNext"));
+        tracer.endSpanIfParent(parent);
+        tracer.endTrace(3);
+
+        List<Span> spans = tracer.getSpans();
+        assertEquals(2, spans.size());
+        assertEquals("hbase.scannerNext", spans.get(0).getName());
+        assertEquals(parent, spans.get(1));
+    }
+
+    @Test
+    public void testSamplingDependsOnlyOnTraceId() {
+        int sampled = 0;
+        for (long traceId = 0; traceId < 10000; traceId++) {
+            boolean decision = Tracer.isSampled(traceId, 0.1);
+            assertEquals(decision, Tracer.isSampled(traceId, 0.1));
+            if (decision) {
+                sampled++;
+            }
+        }
+        assertTrue(Integer.toString(sampled), sampled > 800 && sampled < 1200);
+        assertFalse(Tracer.isSampled(1, 0));
+    }
+
+    @Test
+    public void testBufferKeepsNewestSpans() {
+        SpanBuffer buffer = new SpanBuffer(2);
+        Span first = new Span(1, 1, null, "a", null);
+        Span second = new Span(1, 2, null, "b", null);
+        Span third = new Span(1, 3, null, "c", null);
+        buffer.add(first);
+        buffer.add(second);
+        buffer.add(third);
+
+        List<Span> spans = buffer.snapshot();
+        assertEquals(2, spans.size());
+        assertEquals(second, spans.get(0));
+        assertEquals(third, spans.get(1));
+        assertEquals(3, buffer.getAdded());
+    }
+
+    @Test
+    public void testDumpSpans() throws Exception {
+        tracer.setSampleRate(1.0);
+        tracer.beginTrace(5);
+        tracer.endSpan(tracer.startSpan("handler.insertRow", "t3"));
+        tracer.endTrace(5);
+
+        File file = File.createTempFile("spans", ".log");
+        file.deleteOnExit();
+        assertEquals(1, tracer.dumpSpans(file.getPath()));
+        List<String> lines = Files.readLines(file, Charsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0), lines.get(0).startsWith("traceId=5 spanId=1 parentId=0 name=handler.insertRow "));
+        assertTrue(lines.get(0), lines.get(0).endsWith(" detail=t3"));
+
+        tracer.clearSpans();
+        assertTrue(tracer.getSpans().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSampleRate() {
+        tracer.setSampleRate(1.5);
+    }
+}
@@ -118,6 +118,10 @@ int HoneycombHandler::external_lock(THD *thd, int lock_type)
   if (lock_type == F_WRLCK || lock_type == F_RDLCK)
   {
     attach_thread(jvm, &env, location);
+    // Trace the statement's calls into the proxy under its query ID
+    this->env->CallVoidMethod(handler_proxy,
+        cache->handler_proxy().start_statement, (jlong) thd->query_id);
+    ret |= check_exceptions(env, cache, location);
   }
 
   if (lock_type == F_UNLCK)
@@ -130,6 +134,8 @@ int HoneycombHandler::external_lock(THD *thd, int lock_type)
       this->rows_written = 0;
     }
     ret |= this->flush();
+    this->env->CallVoidMethod(handler_proxy, cache->handler_proxy().end_statement);
+    ret |= check_exceptions(env, cache, location);
     detach_thread(jvm);
   }
   DBUG_RETURN(ret);
@@ -177,8 +183,6 @@ int HoneycombHandler::info(uint flag)
   DBUG_ENTER(location);
   attach_thread(jvm, &env, location);
 
-  ha_rows rec_per_key;
-
   if (flag & HA_STATUS_VARIABLE)
   {
     JavaFrame frame(env);
@@ -214,26 +218,8 @@ int HoneycombHandler::info(uint flag)
 
   if (flag & HA_STATUS_CONST)
   {
-    // Update index cardinality - see ::analyze() function for more explanation
-    /* Since MySQL seems to favor table scans
-       too much over index searches, we pretend
-       index selectivity is 2 times better than
-       our estimate: */
-
-    for (uint i = 0; i < this->table->s->keys; i++)
-    {
-      for (uint j = 0; j < table->key_info[i].key_parts; j++)
-      {
-        rec_per_key = stats.records / 10;
-
-        if (rec_per_key == 0) {
-          rec_per_key = 1;
-        }
-
-        table->key_info[i].rec_per_key[j] = rec_per_key >= ~(ulong) 0 ?
-          ~(ulong) 0 : (ulong) rec_per_key;
-      }
-    }
+    // Update index cardinality from the statistics of the last ANALYZE TABLE
+    update_rec_per_key();
   }
   // MySQL needs us to tell it the index of the key which caused the last
   // operation to fail Should be saved in this->failed_key_index for now
@@ -356,21 +342,76 @@ void HoneycombHandler::store_uuid_ref(Row* row)
 
 int HoneycombHandler::analyze(THD* thd, HA_CHECK_OPT* check_opt)
 {
-  DBUG_ENTER("HoneycombHandler::analyze");
+  const char* location = "HoneycombHandler::analyze";
+  DBUG_ENTER(location);
+
+  // Recount the rows of the table so that drift in the stored row count
+  // (e.g. from failed statements) is corrected.  The table is locked, so the
+  // thread is already attached.
+  jlong row_count = this->env->CallLongMethod(handler_proxy,
+      cache->handler_proxy().recompute_row_count);
+  int rc = check_exceptions(env, cache, location);
+  if (rc)
+  {
+    DBUG_RETURN(rc);
+  }
 
-  // For each key, just tell MySQL that there is only one value per keypart.
-  // This is, in effect, like telling MySQL that all our indexes are unique,
-  // and should essentially always be used for lookups.  If you don't do this,
-  // the optimizer REALLY tries to do scans, even when they're not ideal. - ABC
+  // Sample every index and store its statistics, so that all servers give
+  // the optimizer the same rec_per_key until the next ANALYZE TABLE.
+  this->env->CallVoidMethod(handler_proxy,
+      cache->handler_proxy().update_index_statistics);
+  rc = check_exceptions(env, cache, location);
+  if (rc)
+  {
+    DBUG_RETURN(rc);
+  }
 
+  stats.records = row_count < 0 ? 0 : row_count;
+  update_rec_per_key();
+  DBUG_RETURN(rc);
+}
+
+/**
+ * Set the rec_per_key of every key part from the index statistics stored by
+ * the last ANALYZE TABLE.  Indexes which have not been analyzed are assumed to
+ * match a tenth of the table's rows per key.  Must be called from an attached
+ * thread.
+ */
+void HoneycombHandler::update_rec_per_key()
+{
+  const char* location = "HoneycombHandler::update_rec_per_key";
   for (uint i = 0; i < this->table->s->keys; i++)
   {
-    for (uint j = 0; j < table->key_info[i].key_parts; j++)
+    JavaFrame frame(env, 2);
+    KEY* key = this->table->key_info + i;
+    jstring index_name = string_to_java_string(env, key->name);
+    jlongArray records_per_key = (jlongArray) this->env->CallObjectMethod(
+        handler_proxy, cache->handler_proxy().get_records_per_key, index_name);
+    if (check_exceptions(env, cache, location))
     {
-      this->table->key_info[i].rec_per_key[j] = 1;
+      records_per_key = NULL;
+    }
+    uint analyzed_parts = records_per_key == NULL ? 0 :
+      (uint) env->GetArrayLength(records_per_key);
+
+    for (uint j = 0; j < key->key_parts; j++)
+    {
+      ha_rows rec_per_key = stats.records / 10;
+      if (j < analyzed_parts)
+      {
+        jlong value;
+        env->GetLongArrayRegion(records_per_key, j, 1, &value);
+        rec_per_key = (ha_rows) value;
+      }
+
+      if (rec_per_key == 0) {
+        rec_per_key = 1;
+      }
+
+      key->rec_per_key[j] = rec_per_key >= ~(ulong) 0 ?
+        ~(ulong) 0 : (ulong) rec_per_key;
     }
   }
-  DBUG_RETURN(0);
 }
 
 /**
@@ -86,9 +86,11 @@ class HoneycombHandler : public handler
 
     /* HoneycombHandler helper methods */
     void store_uuid_ref(Row* row);
+    void update_rec_per_key();
 
     /* Query helper methods */
     int start_index_scan(Serializable& index_key, uchar* buf);
+    void create_query_key(uint index, const uchar* key, key_part_map keypart_map, QueryKey* index_key);
     int read_row(uchar* buf);
     int get_next_row(uchar* buf);
     int read_bytes_into_mysql(jbyteArray row_bytes, uchar* buf);
@@ -138,6 +140,7 @@ class HoneycombHandler : public handler
     int free_share(HoneycombShare *share);
     int analyze(THD* thd, HA_CHECK_OPT* check_opt);
     ha_rows estimate_rows_upper_bound();
+    ha_rows records_in_range(uint inx, key_range *min_key, key_range *max_key);
     const char *table_type() const;
     const char *index_type(uint inx);
     uint alter_table_flags(uint flags);
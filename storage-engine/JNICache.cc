@@ -69,9 +69,17 @@ JNICache::JNICache(JavaVM* jvm)
   handler_proxy_.delete_all_rows          = get_method_id(env, handler_proxy_.clazz, "deleteAllRows", "()V");
   handler_proxy_.truncate_table           = get_method_id(env, handler_proxy_.clazz, "truncateTable", "()V");
   handler_proxy_.increment_row_count      = get_method_id(env, handler_proxy_.clazz, "incrementRowCount", "(J)V");
+  handler_proxy_.recompute_row_count      = get_method_id(env, handler_proxy_.clazz, "recomputeRowCount", "()J");
   handler_proxy_.increment_auto_increment = get_method_id(env, handler_proxy_.clazz, "incrementAutoIncrement", "(J)J");
   handler_proxy_.get_auto_increment       = get_method_id(env, handler_proxy_.clazz, "getAutoIncrement", "()J");
   handler_proxy_.set_auto_increment       = get_method_id(env, handler_proxy_.clazz, "setAutoIncrement", "(J)V");
+  handler_proxy_.update_index_statistics  = get_method_id(env, handler_proxy_.clazz, "updateIndexStatistics", "()V");
+  handler_proxy_.get_records_per_key      = get_method_id(env, handler_proxy_.clazz, "getRecordsPerKey", "(Ljava/lang/String;)[J");
+  handler_proxy_.estimate_rows_in_range   = get_method_id(env, handler_proxy_.clazz, "estimateRowsInRange", "([B[B)J");
+  handler_proxy_.get_scan_statistics      = get_method_id(env, handler_proxy_.clazz, "getScanStatistics", "()Ljava/lang/String;");
+  handler_proxy_.get_engine_status        = get_method_id(env, handler_proxy_.clazz, "getEngineStatusReport", "()Ljava/lang/String;");
+  handler_proxy_.start_statement          = get_method_id(env, handler_proxy_.clazz, "startStatement", "(J)V");
+  handler_proxy_.end_statement            = get_method_id(env, handler_proxy_.clazz, "endStatement", "()V");
 
 
   TableNotFoundException          = get_class_ref(env, HONEYCOMB "exceptions/TableNotFoundException");
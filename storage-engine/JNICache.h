@@ -73,9 +73,17 @@ class JNICache
                 start_table_scan,
                 get_row,
                 increment_row_count,
+                recompute_row_count,
                 get_auto_increment,
                 set_auto_increment,
-                increment_auto_increment;
+                increment_auto_increment,
+                update_index_statistics,
+                get_records_per_key,
+                estimate_rows_in_range,
+                get_scan_statistics,
+                get_engine_status,
+                start_statement,
+                end_statement;
     };
     /**
      * @brief Holds jmethodID's and the jclass for Throwable
@@ -54,40 +54,53 @@ int HoneycombHandler::index_read_map(uchar * buf, const uchar * key,
   int rc = retrieve_query_flag(find_flag, &query_type);
   if (rc) { DBUG_RETURN(rc); }
 
-  uchar* key_ptr = (uchar*)key;
+  index_key.set_type(query_type);
+  create_query_key(this->active_index, key, keypart_map, &index_key);
 
-  KEY *key_info = table->s->key_info + this->active_index;
-  KEY_PART_INFO *key_part = key_info->key_part;
-  KEY_PART_INFO *end_key_part = key_part + key_info->key_parts;
+  DBUG_RETURN(start_index_scan(index_key, buf));
+}
 
-  index_key.set_type(query_type);
-  index_key.set_name(key_info->name);
-  while (key_part < end_key_part && keypart_map)
+/**
+ * Estimate the number of rows of an index between two keys.  Called by the
+ * optimizer for every candidate range.  Whether each end of the range is
+ * inclusive is ignored, which only matters for tiny ranges.
+ */
+ha_rows HoneycombHandler::records_in_range(uint inx, key_range *min_key,
+    key_range *max_key)
+{
+  const char* location = "HoneycombHandler::records_in_range";
+  DBUG_ENTER(location);
+  if (min_key == NULL && max_key == NULL)
   {
-    uint key_length;
-    Field* field = key_part->field;
-    key_length = field->pack_length();
-    bool is_null_field = field->is_real_null();
-    if (is_null_field && key_ptr[0] == 1) // Key is nullable and is actually null
-    {
-      index_key.set_value(field->field_name, NULL, 0);
-      key_ptr += key_part->store_length;
-      key_part++;
-      keypart_map >>= 1;
-      continue;
-    }
+    DBUG_RETURN(stats.records);
+  }
 
-    // If it is a null field then we have to move past the null byte.
-    uchar* key_offset = is_null_field ? key_ptr + 1 : key_ptr;
-    uchar* key_copy = create_key_copy(field, key_offset, &key_length, table->in_use);
-    index_key.set_value(field->field_name, (char*)key_copy, key_length);
-    ARRAY_DELETE(key_copy);
-    key_ptr += key_part->store_length;
-    key_part++;
-    keypart_map >>= 1;
+  JavaFrame frame(env, 2);
+  QueryKey start_key, end_key;
+  jbyteArray jstart_key = NULL;
+  jbyteArray jend_key = NULL;
+  if (min_key != NULL)
+  {
+    start_key.set_type(QueryKey::KEY_OR_NEXT);
+    create_query_key(inx, min_key->key, min_key->keypart_map, &start_key);
+    jstart_key = serialize_to_java(env, start_key);
+  }
+  if (max_key != NULL)
+  {
+    end_key.set_type(QueryKey::KEY_OR_PREVIOUS);
+    create_query_key(inx, max_key->key, max_key->keypart_map, &end_key);
+    jend_key = serialize_to_java(env, end_key);
   }
 
-  DBUG_RETURN(start_index_scan(index_key, buf));
+  jlong rows = this->env->CallLongMethod(handler_proxy,
+      cache->handler_proxy().estimate_rows_in_range, jstart_key, jend_key);
+  if (check_exceptions(env, cache, location))
+  {
+    DBUG_RETURN(HA_POS_ERROR);
+  }
+
+  // The optimizer takes an estimate of zero rows to mean the range is empty
+  DBUG_RETURN(rows < 1 ? 1 : (ha_rows) rows);
 }
 
 int HoneycombHandler::index_first(uchar *buf)
@@ -191,6 +204,46 @@ int HoneycombHandler::rnd_end()
 
 // Scan helpers
 
+/**
+ * Fill a query key with the name of an index and the values of the key parts
+ * present in a MySQL key buffer.
+ */
+void HoneycombHandler::create_query_key(uint index, const uchar* key,
+    key_part_map keypart_map, QueryKey* index_key)
+{
+  uchar* key_ptr = (uchar*)key;
+
+  KEY *key_info = table->s->key_info + index;
+  KEY_PART_INFO *key_part = key_info->key_part;
+  KEY_PART_INFO *end_key_part = key_part + key_info->key_parts;
+
+  index_key->set_name(key_info->name);
+  while (key_part < end_key_part && keypart_map)
+  {
+    uint key_length;
+    Field* field = key_part->field;
+    key_length = field->pack_length();
+    bool is_null_field = field->is_real_null();
+    if (is_null_field && key_ptr[0] == 1) // Key is nullable and is actually null
+    {
+      index_key->set_value(field->field_name, NULL, 0);
+      key_ptr += key_part->store_length;
+      key_part++;
+      keypart_map >>= 1;
+      continue;
+    }
+
+    // If it is a null field then we have to move past the null byte.
+    uchar* key_offset = is_null_field ? key_ptr + 1 : key_ptr;
+    uchar* key_copy = create_key_copy(field, key_offset, &key_length, table->in_use);
+    index_key->set_value(field->field_name, (char*)key_copy, key_length);
+    ARRAY_DELETE(key_copy);
+    key_ptr += key_part->store_length;
+    key_part++;
+    keypart_map >>= 1;
+  }
+}
+
 int HoneycombHandler::full_index_scan(uchar* buf, QueryKey::QueryType query)
 {
   QueryKey index_key;
@@ -28,6 +28,7 @@
 #include "JNISetup.h"
 #include "JNICache.h"
 #include "Java.h"
+#include "JavaFrame.h"
 #include "Settings.h"
 #include <cstdlib>
 #include <jni.h>
@@ -99,6 +100,55 @@ static jobject handler_factory(JNIEnv* env)
   return handler_proxy;
 }
 
+/**
+ * @brief Print one status report of the handler proxy, returned as a string
+ * by a method, under a name
+ */
+static bool print_status(JNIEnv* env, jobject handler_proxy, jmethodID method,
+    const char* name, THD *thd, stat_print_fn *stat_print, const char* location)
+{
+  jstring jstatus = (jstring) env->CallObjectMethod(handler_proxy, method);
+  if (check_exceptions(env, cache, location))
+  {
+    return true;
+  }
+  const char* status = java_to_string(env, jstatus);
+  bool error = stat_print(thd, "Honeycomb", strlen("Honeycomb"),
+      name, strlen(name), status, strlen(status));
+  env->ReleaseStringUTFChars(jstatus, status);
+  return error;
+}
+
+/**
+ * @brief Print the engine status snapshot, and the totals of the scans of
+ * every table and index, for SHOW ENGINE HONEYCOMB STATUS
+ */
+static bool honeycomb_show_status(handlerton *hton, THD *thd,
+    stat_print_fn *stat_print, enum ha_stat_type stat_type)
+{
+  const char* location = "honeycomb_show_status";
+  if (stat_type != HA_ENGINE_STATUS)
+  {
+    return false;
+  }
+
+  bool error = false;
+  JNIEnv* env;
+  attach_thread(jvm, &env, location);
+  {
+    JavaFrame frame(env, 2);
+    jobject handler_proxy = handler_factory(env);
+    error = print_status(env, handler_proxy,
+        cache->handler_proxy().get_engine_status, "status", thd, stat_print, location)
+      || print_status(env, handler_proxy,
+        cache->handler_proxy().get_scan_statistics, "scans", thd, stat_print, location);
+    env->DeleteGlobalRef(handler_proxy);
+  }
+  detach_thread(jvm);
+
+  return error;
+}
+
 #define PATH_COUNT 8
 static void find_config_file(Settings& settings)
 {
@@ -216,6 +266,7 @@ static int honeycomb_init_func(void *p)
   honeycomb_hton->create = honeycomb_create_handler;
   honeycomb_hton->flags = HTON_TEMPORARY_NOT_SUPPORTED;
   honeycomb_hton->alter_table_flags = honeycomb_alter_table_flags;
+  honeycomb_hton->show_status = honeycomb_show_status;
   DBUG_RETURN(0);
 }
 